@@ -15,6 +15,7 @@ CREATE STREAM IF NOT EXISTS oracle_users_stream (
   payload STRUCT<
     before STRUCT<ID DOUBLE, NAME VARCHAR, BIRTH_DATE_ORA BIGINT, SEX VARCHAR, ROLE_ID DOUBLE, GRANT_ID DOUBLE>,
     after STRUCT<ID DOUBLE, NAME VARCHAR, BIRTH_DATE_ORA BIGINT, SEX VARCHAR, ROLE_ID DOUBLE, GRANT_ID DOUBLE>,
+    source STRUCT<ts_ms BIGINT, scn VARCHAR>,
     op VARCHAR
   >
 ) WITH (
@@ -110,7 +111,9 @@ SELECT
   u.payload->after->ROLE_ID AS role_id,
   u.payload->after->GRANT_ID AS grant_id,
   r.NAME AS role,
-  g.NAME AS grant_field
+  g.NAME AS grant_field,
+  u.payload->source->ts_ms AS source_ts,
+  CAST(u.payload->source->scn AS BIGINT) AS source_scn
 FROM oracle_users_stream u
 LEFT JOIN oracle_users_role_table r ON u.payload->after->ROLE_ID = r.ID
 LEFT JOIN oracle_users_grant_table g ON u.payload->after->GRANT_ID = g.ID
@@ -128,3 +131,5 @@ EMIT CHANGES;
 --    and is included in this stream
 -- 4. LEFT JOIN is used to handle cases where role_id or grant_id might be NULL
 -- 5. WHERE payload->after IS NOT NULL filters out DELETE events
+-- 6. source_ts (Oracle commit time, epoch millis) and source_scn are written to
+--    postgres_users and drive the replication lag metrics of the service
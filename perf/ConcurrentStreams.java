@@ -0,0 +1,79 @@
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Holds N concurrent slow-reading HTTP responses open and samples the server's live threads and heap
+ * through the actuator while they are open.
+ * Usage: java perf/ConcurrentStreams.java <url> <connections> <holdSeconds> <actuatorBaseUrl> [label]
+ */
+public class ConcurrentStreams {
+
+    private static final Pattern VALUE = Pattern.compile("\"statistic\":\"VALUE\",\"value\":([0-9.E+-]+)");
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args[0]);
+        int connections = Integer.parseInt(args[1]);
+        long holdMillis = Duration.ofSeconds(Long.parseLong(args[2])).toMillis();
+        String actuator = args[3];
+        String label = args.length > 4 ? args[4] : uri.getPath();
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).header("Accept", "application/x-ndjson").GET().build();
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<HttpResponse<InputStream>>> responses = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                    .whenComplete((response, error) -> {
+                        if (error != null || response.statusCode() != 200) {
+                            failed.incrementAndGet();
+                        } else {
+                            opened.incrementAndGet();
+                        }
+                    }));
+        }
+
+        double baselineThreads = metric(client, actuator, "jvm.threads.live");
+        double peakThreads = 0;
+        double peakHeap = 0;
+        long deadline = System.currentTimeMillis() + holdMillis;
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(1000);
+            peakThreads = Math.max(peakThreads, metric(client, actuator, "jvm.threads.live"));
+            peakHeap = Math.max(peakHeap, metric(client, actuator, "jvm.memory.used?tag=area:heap"));
+        }
+        System.out.printf("%-22s connections=%-6d opened=%-6d failed=%-6d threads(start/peak)=%.0f/%.0f heapPeak=%.0fMB%n",
+                label, connections, opened.get(), failed.get(), baselineThreads, peakThreads, peakHeap / 1024 / 1024);
+
+        for (CompletableFuture<HttpResponse<InputStream>> response : responses) {
+            response.thenAccept(r -> {
+                try (InputStream body = r.body()) {
+                    // closing without reading cancels the stream
+                } catch (Exception ignored) {
+                }
+            });
+        }
+        System.exit(0);
+    }
+
+    private static double metric(HttpClient client, String actuator, String name) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(actuator + "/actuator/metrics/" + name)).build();
+            String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+            Matcher matcher = VALUE.matcher(body);
+            return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal closed-model HTTP load driver: N concurrent clients issue GET requests back to back for a fixed time.
+ * Usage: java perf/HttpLoad.java <url> <concurrency> <seconds> [label]
+ * Prints one line: label, throughput, p50/p99/max latency and the number of non-2xx responses.
+ */
+public class HttpLoad {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args[0]);
+        int concurrency = Integer.parseInt(args[1]);
+        long durationNanos = Duration.ofSeconds(Long.parseLong(args[2])).toNanos();
+        String label = args.length > 3 ? args[3] : uri.getPath();
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+        List<long[]> latencies = new ArrayList<>();
+        int[] counts = new int[concurrency];
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long deadline = System.nanoTime() + durationNanos;
+
+        for (int i = 0; i < concurrency; i++) {
+            long[] samples = new long[1 << 16];
+            latencies.add(samples);
+            int worker = i;
+            Thread thread = new Thread(() -> {
+                long[] own = samples;
+                int n = 0;
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() / 100 != 2) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (n == own.length) {
+                            own = Arrays.copyOf(own, own.length * 2);
+                            latencies.set(worker, own);
+                        }
+                        own[n++] = System.nanoTime() - start;
+                    }
+                } finally {
+                    counts[worker] = n;
+                    done.countDown();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int i = 0; i < concurrency; i++) {
+            System.arraycopy(latencies.get(i), 0, all, offset, counts[i]);
+            offset += counts[i];
+        }
+        Arrays.sort(all);
+        double seconds = durationNanos / 1e9;
+        System.out.printf("%-28s c=%-5d rps=%9.1f p50=%8.2fms p99=%8.2fms max=%8.2fms errors=%d%n",
+                label, concurrency, total / seconds, percentile(all, 0.50), percentile(all, 0.99),
+                all.length > 0 ? all[all.length - 1] / 1e6 : 0.0, errors.get());
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,41 @@
+#!/bin/bash
+# Compares the default synchronous console logging with the production-logging profile
+# (async structured console, sampled success-path logs). Requires PostgreSQL and Oracle running (make setup-oracle).
+# Console output goes to a file, as it would to a log collector.
+#
+# Usage: perf/logging-benchmark.sh [concurrency...]   (default: 16 64)
+# Env:   DURATION (seconds per run, default 30), PORT (default 18091), USER_ID (default 1)
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+DURATION=${DURATION:-30}
+PORT=${PORT:-18091}
+LEVELS=${*:-16 64}
+USER_ID=${USER_ID:-1}
+JAR=target/service-template-atb-0.0.1-SNAPSHOT.jar
+ENDPOINTS=("/postgres-users/$USER_ID" "/postgres-users?size=50" "/oracle/users/1")
+
+./mvnw -B -q package -DskipTests
+
+run_mode() {
+    local mode=$1 profile=$2
+    java -jar "$JAR" --server.port="$PORT" --spring.profiles.active="$profile" \
+        --app.bulkhead.enabled=false > "target/benchmark-logging-$mode.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null || true" EXIT
+    until curl -sf "http://localhost:$PORT/actuator/health/liveness" > /dev/null; do sleep 1; done
+
+    for endpoint in "${ENDPOINTS[@]}"; do
+        # warm-up
+        java perf/HttpLoad.java "http://localhost:$PORT$endpoint" 16 10 warmup > /dev/null
+        for c in $LEVELS; do
+            java perf/HttpLoad.java "http://localhost:$PORT$endpoint" "$c" "$DURATION" "$mode ${endpoint%%\?*}"
+        done
+    done
+    kill "$pid"; wait "$pid" 2>/dev/null || true
+    trap - EXIT
+    echo "$mode: $(wc -l < "target/benchmark-logging-$mode.log") log lines"
+}
+
+run_mode sync default
+run_mode async production-logging
@@ -0,0 +1,29 @@
+#!/bin/bash
+# Server threads and heap while N clients hold slow-reading list responses open:
+# blocking JPA (/postgres-users) vs. R2DBC (/reactive/postgres-users).
+# Requires PostgreSQL with enough rows that a response does not fit into socket buffers (10k+; the reactive
+# side reads the maximum limit of 10000 rows).
+#
+# Usage: perf/reactive-benchmark.sh [connections] (default 10000)
+# Env:   HOLD (seconds, default 30), PORT (default 18091)
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+CONNECTIONS=${1:-10000}
+HOLD=${HOLD:-30}
+PORT=${PORT:-18091}
+BASE="http://localhost:$PORT"
+
+./mvnw -B -q package -DskipTests
+ulimit -n 65536 2>/dev/null || echo "warning: could not raise open file limit, $CONNECTIONS connections may fail"
+
+java -jar target/service-template-atb-0.0.1-SNAPSHOT.jar --server.port="$PORT" \
+    --server.tomcat.max-connections=$((CONNECTIONS + 1000)) --server.tomcat.accept-count=$CONNECTIONS \
+    --spring.mvc.async.request-timeout=10m --app.bulkhead.enabled=false > target/reactive-benchmark.log 2>&1 &
+PID=$!
+trap "kill $PID 2>/dev/null || true" EXIT
+until curl -sf "$BASE/actuator/health/liveness" > /dev/null; do sleep 1; done
+
+java perf/ConcurrentStreams.java "$BASE/postgres-users?size=1000" "$CONNECTIONS" "$HOLD" "$BASE" blocking
+sleep 10
+java perf/ConcurrentStreams.java "$BASE/reactive/postgres-users?limit=10000" "$CONNECTIONS" "$HOLD" "$BASE" reactive
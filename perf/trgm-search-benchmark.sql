@@ -0,0 +1,73 @@
+-- Fuzzy name search (GET /postgres-users/search) over 1M synthetic rows: plan and latency
+-- without and with the trigram GIN index from 6-add-postgres-users-trgm.sql.
+-- Works on a scratch copy in schema perf_trgm, postgres.postgres_users is not touched.
+--
+-- Usage: psql -h localhost -p 5433 -U myuser -d mydatabase -f perf/trgm-search-benchmark.sql
+
+\set ON_ERROR_STOP on
+CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA public;
+DROP SCHEMA IF EXISTS perf_trgm CASCADE;
+CREATE SCHEMA perf_trgm;
+CREATE TABLE perf_trgm.postgres_users (LIKE postgres.postgres_users INCLUDING DEFAULTS);
+
+\echo 'Generating 1 000 000 rows'
+INSERT INTO perf_trgm.postgres_users (id, name, birth_date, gender, role)
+SELECT g,
+       (ARRAY['Aleksandr','Aleksei','Anna','Boris','Daria','Dmitrii','Ekaterina','Elena','Fedor','Galina',
+              'Igor','Irina','Ivan','Kirill','Ksenia','Maksim','Maria','Mikhail','Natalia','Nikolai',
+              'Olga','Pavel','Polina','Roman','Sergei','Sofia','Svetlana','Tatiana','Viktor','Iuliia'])[1 + g % 30]
+           || ' ' ||
+       (ARRAY['Ivanov','Smirnov','Kuznetsov','Popov','Vasiliev','Petrov','Sokolov','Mikhailov','Novikov','Fedorov',
+              'Morozov','Volkov','Alekseev','Lebedev','Semenov','Egorov','Pavlov','Kozlov','Stepanov','Nikolaev',
+              'Orlov','Andreev','Makarov','Nikitin','Zakharov','Zaitsev','Soloviev','Borisov','Iakovlev','Grigoriev',
+              'Romanov','Vorobiev','Sergeev','Kuzmin','Frolov','Aleksandrov','Dmitriev','Korolev','Gusev','Kiselev'])[1 + (g / 30) % 40]
+           || ' ' || substr(md5(g::text), 1, 6),
+       DATE '1950-01-01' + (g % 20000),
+       CASE WHEN g % 2 = 0 THEN 'M' ELSE 'F' END,
+       (ARRAY['USER','ADMIN','MANAGER'])[1 + g % 3]
+FROM generate_series(1, 1000000) AS g;
+ANALYZE perf_trgm.postgres_users;
+
+SET pg_trgm.word_similarity_threshold = 0.3;
+
+\echo '--- Without trigram index: sequential scan'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, name, public.word_similarity('Kuznetsof', name) AS similarity
+FROM perf_trgm.postgres_users
+WHERE 'Kuznetsof' OPERATOR(public.<%) name
+ORDER BY similarity DESC, name, id
+LIMIT 20;
+
+\echo 'Building GIN index (gin_trgm_ops)'
+CREATE INDEX idx_perf_trgm_name_trgm ON perf_trgm.postgres_users USING gin (name public.gin_trgm_ops);
+ANALYZE perf_trgm.postgres_users;
+
+\echo '--- With trigram index: misspelled surname'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, name, public.word_similarity('Kuznetsof', name) AS similarity
+FROM perf_trgm.postgres_users
+WHERE 'Kuznetsof' OPERATOR(public.<%) name
+ORDER BY similarity DESC, name, id
+LIMIT 20;
+
+\echo '--- With trigram index: full name with a typo (every Sokolov is a candidate, top-N sort)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, name, public.word_similarity('Irina Sokolova 3c5', name) AS similarity
+FROM perf_trgm.postgres_users
+WHERE 'Irina Sokolova 3c5' OPERATOR(public.<%) name
+ORDER BY similarity DESC, name, id
+LIMIT 20;
+
+\echo '--- With trigram index: random suffix fragment (rare trigrams)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, name, public.word_similarity('e4f9a1', name) AS similarity
+FROM perf_trgm.postgres_users
+WHERE 'e4f9a1' OPERATOR(public.<%) name
+ORDER BY similarity DESC, name, id
+LIMIT 20;
+
+\echo 'Index size'
+SELECT pg_size_pretty(pg_relation_size('perf_trgm.idx_perf_trgm_name_trgm')) AS trgm_index_size,
+       pg_size_pretty(pg_relation_size('perf_trgm.postgres_users')) AS table_size;
+
+DROP SCHEMA perf_trgm CASCADE;
@@ -0,0 +1,38 @@
+#!/bin/bash
+# Compares the default platform-thread setup with the virtual-threads profile at high concurrency.
+# Requires Java 21+, PostgreSQL and Oracle running (make setup-oracle), and ideally a few thousand rows in both.
+#
+# Usage: perf/virtual-threads-benchmark.sh [concurrency...]   (default: 50 200 800)
+# Env:   DURATION (seconds per run, default 30), PORT (default 18090)
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+DURATION=${DURATION:-30}
+PORT=${PORT:-18090}
+LEVELS=${*:-50 200 800}
+JAR=target/service-template-atb-0.0.1-SNAPSHOT.jar
+ENDPOINTS=("/postgres-users?size=50" "/oracle/users/1")
+
+./mvnw -B -q -Pjava21 package -DskipTests
+
+run_mode() {
+    local mode=$1 profile=$2
+    java -jar "$JAR" --server.port="$PORT" --spring.profiles.active="$profile" \
+        --server.tomcat.threads.max=200 --app.bulkhead.enabled=false > "target/benchmark-$mode.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null || true" EXIT
+    until curl -sf "http://localhost:$PORT/actuator/health/liveness" > /dev/null; do sleep 1; done
+
+    for endpoint in "${ENDPOINTS[@]}"; do
+        # warm-up
+        java perf/HttpLoad.java "http://localhost:$PORT$endpoint" 20 10 warmup > /dev/null
+        for c in $LEVELS; do
+            java perf/HttpLoad.java "http://localhost:$PORT$endpoint" "$c" "$DURATION" "$mode ${endpoint%%\?*}"
+        done
+    done
+    kill "$pid"; wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run_mode platform default
+run_mode virtual virtual-threads
@@ -0,0 +1,86 @@
+package rs.filisova.template.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of list responses, with the ObjectMapper settings Spring MVC uses
+ * (java.time as ISO strings). Output goes to a null stream, as the servlet response would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    public int rows;
+
+    private ObjectMapper objectMapper;
+    private List<PostgresUserDTO> postgresUsers;
+    private List<OracleUserDTO> oracleUsers;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        postgresUsers = new ArrayList<>(rows);
+        oracleUsers = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            PostgresUserDTO postgresUser = new PostgresUserDTO();
+            postgresUser.setId(1000000L + i);
+            postgresUser.setName("Load User " + i);
+            postgresUser.setBirthDate(LocalDate.of(1950, 1, 1).plusDays(i % 20000));
+            postgresUser.setGender(i % 2 == 0 ? "M" : "F");
+            postgresUser.setRole("USER");
+            postgresUser.setGrantField("READ");
+            postgresUsers.add(postgresUser);
+
+            OracleUserRoleDTO role = new OracleUserRoleDTO();
+            role.setId((long) (i % 3));
+            role.setName("USER");
+            role.setDescription("Regular user");
+            OracleUserGrantDTO grant = new OracleUserGrantDTO();
+            grant.setId((long) (i % 5));
+            grant.setName("READ");
+            grant.setDescription("Read access");
+            OracleUserDTO oracleUser = new OracleUserDTO();
+            oracleUser.setId((long) i);
+            oracleUser.setName("Load User " + i);
+            oracleUser.setBirthDateOra(LocalDate.of(1950, 1, 1).plusDays(i % 20000));
+            oracleUser.setSex(i % 2 == 0 ? "M" : "F");
+            oracleUser.setRole(role);
+            oracleUser.setGrant(grant);
+            oracleUsers.add(oracleUser);
+        }
+    }
+
+    @Benchmark
+    public void postgresUsers() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), postgresUsers);
+    }
+
+    @Benchmark
+    public void oracleUsersNested() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), oracleUsers);
+    }
+}
@@ -0,0 +1,99 @@
+package rs.filisova.template.exception;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import rs.filisova.template.controller.PostgresUserController;
+import rs.filisova.template.dto.PostgresUserDTO;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error responses: building the body for 404 and 400 (validation), and a 404 including the cost of
+ * creating the exception, which is what a request for a missing id pays.
+ * The handler logs at INFO through a pattern encoder into a null stream, so formatting a written line is paid
+ * but console I/O, which depends on the appender setup, is not. Run with -prof gc (the jmh profile default)
+ * for allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GlobalExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private MockHttpServletRequest request;
+    private PostgresUserNotFoundException notFound;
+    private MethodArgumentNotValidException notValid;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        discardHandlerLog();
+        handler = new GlobalExceptionHandler();
+        request = new MockHttpServletRequest("GET", "/postgres-users/42");
+        notFound = new PostgresUserNotFoundException(42L);
+
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new PostgresUserDTO(), "postgresUserDTO");
+        bindingResult.addError(new FieldError("postgresUserDTO", "name", "must not be blank"));
+        bindingResult.addError(new FieldError("postgresUserDTO", "role", "must not be blank"));
+        MethodParameter parameter = new MethodParameter(
+                PostgresUserController.class.getMethod("createPostgresUser", PostgresUserDTO.class), 0);
+        notValid = new MethodArgumentNotValidException(parameter, bindingResult);
+    }
+
+    private static void discardHandlerLog() {
+        Logger logger = (Logger) LoggerFactory.getLogger(GlobalExceptionHandler.class);
+        LoggerContext context = logger.getLoggerContext();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{ISO8601} %-5level [%t] %logger{36}: %msg%n%throwable");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+        logger.setLevel(Level.INFO);
+        logger.addAppender(appender);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> notFoundResponse() {
+        return handler.handlePostgresUserNotFoundException(notFound, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> notFoundWithException() {
+        return handler.handlePostgresUserNotFoundException(new PostgresUserNotFoundException(42L), request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> validationResponse() {
+        return handler.handleValidationExceptions(notValid, request);
+    }
+}
@@ -0,0 +1,98 @@
+package rs.filisova.template.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rs.filisova.template.config.ReferenceCacheProperties;
+import rs.filisova.template.dto.OracleUserDTO;
+import rs.filisova.template.dto.PostgresUserDTO;
+import rs.filisova.template.entity.OracleUserEntity;
+import rs.filisova.template.entity.OracleUserGrantEntity;
+import rs.filisova.template.entity.OracleUserRoleEntity;
+import rs.filisova.template.entity.PostgresUserEntity;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/DTO mapping of single rows, the per-row cost of every list endpoint.
+ * Oracle mapping resolves role and grant through warmed-up reference caches, as in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private PostgresUserService postgresUserService;
+    private OracleUserService oracleUserService;
+    private PostgresUserEntity postgresUserEntity;
+    private PostgresUserDTO postgresUserDTO;
+    private OracleUserEntity oracleUserEntity;
+
+    @Setup
+    public void setUp() {
+        postgresUserService = new PostgresUserService(null, null, null, null, null);
+
+        OracleUserRoleEntity role = new OracleUserRoleEntity();
+        role.setId(1L);
+        role.setName("ADMIN");
+        role.setDescribe("Administrator");
+        OracleUserGrantEntity grant = new OracleUserGrantEntity();
+        grant.setId(2L);
+        grant.setName("WRITE");
+        grant.setDescribe("Write access");
+        ReferenceCacheProperties cacheProperties = new ReferenceCacheProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReferenceDataCache<OracleUserRoleEntity> roleCache = new ReferenceDataCache<>("oracleRoles",
+                id -> Optional.of(role), () -> List.of(role), cacheProperties, meterRegistry);
+        ReferenceDataCache<OracleUserGrantEntity> grantCache = new ReferenceDataCache<>("oracleGrants",
+                id -> Optional.of(grant), () -> List.of(grant), cacheProperties, meterRegistry);
+        oracleUserService = new OracleUserService(null, null, null, null, roleCache, grantCache, null);
+
+        postgresUserEntity = new PostgresUserEntity();
+        postgresUserEntity.setId(1000001L);
+        postgresUserEntity.setName("Ivan Petrov");
+        postgresUserEntity.setBirthDate(LocalDate.of(1990, 5, 15));
+        postgresUserEntity.setGender("M");
+        postgresUserEntity.setRole("ADMIN");
+        postgresUserEntity.setGrantField("WRITE");
+        postgresUserDTO = postgresUserService.convertToDTO(postgresUserEntity);
+
+        oracleUserEntity = new OracleUserEntity();
+        oracleUserEntity.setId(1L);
+        oracleUserEntity.setName("Ivan Petrov");
+        oracleUserEntity.setBirthDateOra(LocalDate.of(1990, 5, 15));
+        oracleUserEntity.setSex("M");
+        oracleUserEntity.setRoleId(1L);
+        oracleUserEntity.setGrantId(2L);
+        oracleUserService.mapToDTO(oracleUserEntity);
+    }
+
+    @Benchmark
+    public PostgresUserDTO postgresConvertToDTO() {
+        return postgresUserService.convertToDTO(postgresUserEntity);
+    }
+
+    @Benchmark
+    public PostgresUserEntity postgresConvertToEntity() {
+        return postgresUserService.convertToEntity(postgresUserDTO);
+    }
+
+    @Benchmark
+    public OracleUserDTO oracleMapToDTO() {
+        return oracleUserService.mapToDTO(oracleUserEntity);
+    }
+}
@@ -0,0 +1,79 @@
+package rs.filisova.template.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resets both databases to a known volume of synthetic rows and hands out the ids the operations work on.
+ */
+@Slf4j
+final class DataSeeder {
+
+    private static final int ORACLE_BATCH = 1000;
+    static final String DISPOSABLE_PREFIX = "LOADTEST_DISPOSABLE_";
+
+    private DataSeeder() {
+    }
+
+    static IdPools seed(LoadTestSettings settings, StandIns standIns) {
+        long start = System.nanoTime();
+        JdbcTemplate postgres = new JdbcTemplate(standIns.postgresDataSource());
+        postgres.execute("TRUNCATE postgres.postgres_users, postgres.postgres_users_tombstones");
+        postgres.update("""
+                INSERT INTO postgres.postgres_users (id, name, birth_date, gender, role, grant_field)
+                SELECT g, 'Load User ' || g, DATE '1950-01-01' + (g % 20000),
+                       CASE WHEN g % 2 = 0 THEN 'M' ELSE 'F' END,
+                       (ARRAY['USER', 'ADMIN', 'MANAGER'])[1 + g % 3],
+                       (ARRAY['READ', 'WRITE'])[1 + g % 2]
+                FROM generate_series(1, ?) AS g""", settings.postgresRows());
+        postgres.execute("ANALYZE postgres.postgres_users");
+        log.info("Seeded {} postgres_users rows", settings.postgresRows());
+
+        if (!settings.oracle()) {
+            return new IdPools(settings.postgresRows(), List.of(), List.of(), List.of(), List.of(), List.of(), List.of());
+        }
+
+        JdbcTemplate oracle = new JdbcTemplate(standIns.oracleDataSource());
+        List<Long> roleIds = oracle.queryForList("SELECT id FROM oracle_users_role ORDER BY id", Long.class);
+        List<Long> grantIds = oracle.queryForList("SELECT id FROM oracle_users_grant ORDER BY id", Long.class);
+        insertReferenceRows(oracle, "oracle_users_role", settings.oracleDisposableRows());
+        insertReferenceRows(oracle, "oracle_users_grant", settings.oracleDisposableRows());
+
+        List<Object[]> users = new ArrayList<>(ORACLE_BATCH);
+        for (int i = 1; i <= settings.oracleRows(); i++) {
+            users.add(new Object[]{"Load User " + i, Date.valueOf(LocalDate.of(1950, 1, 1).plusDays(i % 20000)),
+                    i % 2 == 0 ? "M" : "F", roleIds.get(i % roleIds.size()), grantIds.get(i % grantIds.size())});
+            if (users.size() == ORACLE_BATCH || i == settings.oracleRows()) {
+                oracle.batchUpdate("INSERT INTO oracle_users (name, birth_date_ora, sex, role_id, grant_id) VALUES (?, ?, ?, ?, ?)", users);
+                users.clear();
+            }
+        }
+        log.info("Seeded {} oracle_users rows and {} disposable roles/grants", settings.oracleRows(), settings.oracleDisposableRows());
+
+        List<Long> userIds = oracle.queryForList("SELECT id FROM oracle_users ORDER BY id", Long.class);
+        IdPools pools = new IdPools(settings.postgresRows(),
+                userIds.subList(0, userIds.size() / 2), userIds.subList(userIds.size() / 2, userIds.size()),
+                roleIds, disposableIds(oracle, "oracle_users_role"),
+                grantIds, disposableIds(oracle, "oracle_users_grant"));
+        log.info("Seeding took {} ms", (System.nanoTime() - start) / 1_000_000);
+        return pools;
+    }
+
+    // Rows nobody references, so DELETE operations on roles and grants do not hit foreign keys
+    private static void insertReferenceRows(JdbcTemplate oracle, String table, int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            rows.add(new Object[]{DISPOSABLE_PREFIX + i, "Created by the load test"});
+        }
+        oracle.batchUpdate("INSERT INTO " + table + " (name, describe) VALUES (?, ?)", rows);
+    }
+
+    private static List<Long> disposableIds(JdbcTemplate oracle, String table) {
+        return oracle.queryForList("SELECT id FROM " + table + " WHERE name LIKE '" + DISPOSABLE_PREFIX + "%' ORDER BY id", Long.class);
+    }
+}
@@ -0,0 +1,96 @@
+package rs.filisova.template.loadtest;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ids targeted by the operations. Reads and updates use the stable half of the seeded rows, deletes consume the
+ * other half once each, creates use fresh ids; so no operation fails only because another one ran first.
+ */
+final class IdPools {
+
+    private static final long CREATED_POSTGRES_IDS_START = 1_000_000_000L;
+
+    private final int postgresRows;
+    private final AtomicLong nextPostgresDelete;
+    private final AtomicLong nextPostgresCreate = new AtomicLong(CREATED_POSTGRES_IDS_START);
+    private final List<Long> oracleUsers;
+    private final Consumable oracleDisposableUsers;
+    private final List<Long> oracleRoles;
+    private final Consumable oracleDisposableRoles;
+    private final List<Long> oracleGrants;
+    private final Consumable oracleDisposableGrants;
+
+    IdPools(int postgresRows, List<Long> oracleUsers, List<Long> oracleDisposableUsers, List<Long> oracleRoles,
+            List<Long> oracleDisposableRoles, List<Long> oracleGrants, List<Long> oracleDisposableGrants) {
+        this.postgresRows = postgresRows;
+        this.nextPostgresDelete = new AtomicLong(postgresRows);
+        this.oracleUsers = oracleUsers;
+        this.oracleDisposableUsers = new Consumable(oracleDisposableUsers);
+        this.oracleRoles = oracleRoles;
+        this.oracleDisposableRoles = new Consumable(oracleDisposableRoles);
+        this.oracleGrants = oracleGrants;
+        this.oracleDisposableGrants = new Consumable(oracleDisposableGrants);
+    }
+
+    long postgresUser(Random random) {
+        return 1 + random.nextInt(Math.max(1, postgresRows / 2));
+    }
+
+    /**
+     * @return an id not seen before, or null when the deletable half is used up
+     */
+    Long postgresUserToDelete() {
+        long id = nextPostgresDelete.getAndDecrement();
+        return id > postgresRows / 2 ? id : null;
+    }
+
+    long newPostgresUser() {
+        return nextPostgresCreate.getAndIncrement();
+    }
+
+    Long oracleUser(Random random) {
+        return pick(oracleUsers, random);
+    }
+
+    Long oracleUserToDelete() {
+        return oracleDisposableUsers.next();
+    }
+
+    Long oracleRole(Random random) {
+        return pick(oracleRoles, random);
+    }
+
+    Long oracleRoleToDelete() {
+        return oracleDisposableRoles.next();
+    }
+
+    Long oracleGrant(Random random) {
+        return pick(oracleGrants, random);
+    }
+
+    Long oracleGrantToDelete() {
+        return oracleDisposableGrants.next();
+    }
+
+    private static Long pick(List<Long> ids, Random random) {
+        return ids.isEmpty() ? null : ids.get(random.nextInt(ids.size()));
+    }
+
+    private static final class Consumable {
+
+        private final List<Long> ids;
+        private final AtomicInteger next = new AtomicInteger();
+
+        Consumable(List<Long> ids) {
+            this.ids = ids;
+        }
+
+        Long next() {
+            int index = next.getAndIncrement();
+            return index < ids.size() ? ids.get(index) : null;
+        }
+    }
+}
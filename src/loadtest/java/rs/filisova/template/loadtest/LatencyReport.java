@@ -0,0 +1,144 @@
+package rs.filisova.template.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes one directory per run: summary.json (settings and per-operation throughput, percentiles, errors),
+ * &lt;operation&gt;.hgrm percentile distributions (milliseconds) and, with a baseline, comparison.txt.
+ */
+@Slf4j
+final class LatencyReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final LoadTestSettings settings;
+
+    LatencyReport(LoadTestSettings settings) {
+        this.settings = settings;
+    }
+
+    Path write(Map<String, OpenModelLoad.OperationStats> stats) throws IOException {
+        Path directory = settings.outputDirectory().resolve(
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + "-" + settings.scenario().id());
+        Files.createDirectories(directory);
+
+        Histogram all = new Histogram(3);
+        Map<String, Object> operations = new LinkedHashMap<>();
+        long errors = 0;
+        for (OpenModelLoad.OperationStats operation : stats.values()) {
+            all.add(operation.histogram);
+            errors += operation.errors.sum();
+            operations.put(operation.operation.name(), summarize(operation.histogram, operation.errors.sum(),
+                    operation.skipped.sum(), operation.dropped.sum()));
+            writeDistribution(directory.resolve(operation.operation.name() + ".hgrm"), operation.histogram);
+        }
+        writeDistribution(directory.resolve("all.hgrm"), all);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("settings", settings.describe());
+        summary.put("total", summarize(all, errors, 0, 0));
+        summary.put("operations", operations);
+        objectMapper.writeValue(directory.resolve("summary.json").toFile(), summary);
+        printTable(summary);
+
+        if (settings.baseline() != null) {
+            compare(directory, objectMapper.valueToTree(summary), objectMapper.readTree(settings.baseline().toFile()));
+        }
+        log.info("Load test report written to {}", directory.toAbsolutePath());
+        return directory;
+    }
+
+    private Map<String, Object> summarize(Histogram histogram, long errors, long skipped, long dropped) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        long count = histogram.getTotalCount();
+        summary.put("requests", count);
+        summary.put("throughputPerSecond", round(count / (double) settings.duration().toMillis() * 1000));
+        summary.put("errors", errors);
+        summary.put("skipped", skipped);
+        summary.put("dropped", dropped);
+        summary.put("p50Ms", percentile(histogram, 50));
+        summary.put("p90Ms", percentile(histogram, 90));
+        summary.put("p99Ms", percentile(histogram, 99));
+        summary.put("p999Ms", percentile(histogram, 99.9));
+        summary.put("maxMs", count == 0 ? 0 : round(histogram.getMaxValue() / MICROS_PER_MILLI));
+        return summary;
+    }
+
+    private static double percentile(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : round(histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI);
+    }
+
+    private static void writeDistribution(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void printTable(Map<String, Object> summary) {
+        StringBuilder table = new StringBuilder(String.format("%n%-30s %9s %9s %9s %9s %9s %7s%n",
+                "operation", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors"));
+        Map<String, Object> rows = new LinkedHashMap<>((Map<String, Object>) summary.get("operations"));
+        rows.put("TOTAL", summary.get("total"));
+        rows.forEach((name, value) -> {
+            Map<String, Object> row = (Map<String, Object>) value;
+            table.append(String.format("%-30s %9s %9s %9s %9s %9s %7s%n", name, row.get("throughputPerSecond"),
+                    row.get("p50Ms"), row.get("p99Ms"), row.get("p999Ms"), row.get("maxMs"), row.get("errors")));
+        });
+        log.info("{}", table);
+    }
+
+    /**
+     * p50/p99 per operation against the baseline; a regression is a percentile worse by more than the threshold.
+     */
+    private void compare(Path directory, JsonNode current, JsonNode baseline) throws IOException {
+        List<String> regressions = new ArrayList<>();
+        StringBuilder report = new StringBuilder(String.format("Baseline: %s%n%n%-30s %19s %19s%n",
+                settings.baseline(), "operation", "p50 ms (base->now)", "p99 ms (base->now)"));
+        current.get("operations").properties().forEach(entry -> {
+            JsonNode before = baseline.path("operations").path(entry.getKey());
+            if (before.isMissingNode()) {
+                return;
+            }
+            report.append(String.format("%-30s %19s %19s%n", entry.getKey(),
+                    delta(before, entry.getValue(), "p50Ms", entry.getKey(), regressions),
+                    delta(before, entry.getValue(), "p99Ms", entry.getKey(), regressions)));
+        });
+        report.append(regressions.isEmpty() ? "\nNo regressions\n" : "\nRegressions:\n  " + String.join("\n  ", regressions) + "\n");
+        Files.writeString(directory.resolve("comparison.txt"), report);
+        log.info("{}", report);
+        if (!regressions.isEmpty() && settings.failOnRegression()) {
+            throw new IllegalStateException(regressions.size() + " latency regressions against " + settings.baseline());
+        }
+    }
+
+    private String delta(JsonNode before, JsonNode now, String field, String operation, List<String> regressions) {
+        double base = before.path(field).asDouble();
+        double value = now.path(field).asDouble();
+        double change = base == 0 ? 0 : (value - base) / base;
+        if (change > settings.regressionThreshold()) {
+            regressions.add(String.format("%s %s %.2f -> %.2f ms (%+.0f%%)", operation, field, base, value, change * 100));
+        }
+        return String.format("%.2f->%.2f %+4.0f%%", base, value, change * 100);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
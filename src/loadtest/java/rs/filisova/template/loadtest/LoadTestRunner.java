@@ -0,0 +1,66 @@
+package rs.filisova.template.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import rs.filisova.template.ServiceTemplateApplication;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Release load test: starts database stand-ins, runs the application against them in this JVM, seeds data,
+ * drives the request mix at a fixed arrival rate and writes HDR latency reports.
+ * Started by mvn -Ploadtest verify; see README, "Нагрузочное тестирование".
+ */
+@Slf4j
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        log.info("Load test settings: {}", settings.describe());
+        try (StandIns standIns = new StandIns(settings);
+             ConfigurableApplicationContext application = start(settings, standIns)) {
+            IdPools ids = DataSeeder.seed(settings, standIns);
+            int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+            List<Operation> operations = Operations.all(URI.create("http://localhost:" + port), ids, settings);
+            if (operations.isEmpty()) {
+                throw new IllegalArgumentException("No operation matches loadtest.include=" + settings.include().pattern());
+            }
+            new LatencyReport(settings).write(OpenModelLoad.run(operations, settings));
+        }
+    }
+
+    static ConfigurableApplicationContext start(LoadTestSettings settings, StandIns standIns) {
+        return new SpringApplicationBuilder(ServiceTemplateApplication.class)
+                .properties(applicationProperties(settings, standIns))
+                .run();
+    }
+
+    /**
+     * Connection settings of the stand-ins plus the -Dloadtest.app.* properties.
+     */
+    static Map<String, Object> applicationProperties(LoadTestSettings settings, StandIns standIns) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.postgres.url", standIns.postgresUrl);
+        properties.put("spring.datasource.postgres.username", standIns.postgresUsername);
+        properties.put("spring.datasource.postgres.password", standIns.postgresPassword);
+        properties.put("spring.r2dbc.url", standIns.postgresR2dbcUrl());
+        properties.put("spring.r2dbc.username", standIns.postgresUsername);
+        properties.put("spring.r2dbc.password", standIns.postgresPassword);
+        if (settings.oracle()) {
+            properties.put("spring.datasource.oracle.url", standIns.oracleUrl);
+            properties.put("spring.datasource.oracle.username", standIns.oracleUsername);
+            properties.put("spring.datasource.oracle.password", standIns.oraclePassword);
+        }
+        properties.putAll(settings.appProperties());
+        return properties;
+    }
+}
@@ -0,0 +1,136 @@
+package rs.filisova.template.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Load test parameters, read from -Dloadtest.* system properties.
+ * -Dloadtest.app.&lt;property&gt;=&lt;value&gt; is passed to the application unchanged (without the prefix).
+ */
+record LoadTestSettings(
+        double rate,
+        Duration warmup,
+        Duration duration,
+        Scenario scenario,
+        Pattern include,
+        long seed,
+        int maxInFlight,
+        int postgresRows,
+        int oracleRows,
+        int oracleDisposableRows,
+        boolean oracle,
+        String postgresUrl,
+        String postgresUsername,
+        String postgresPassword,
+        String oracleUrl,
+        String oracleUsername,
+        String oraclePassword,
+        Path outputDirectory,
+        Path baseline,
+        double regressionThreshold,
+        boolean failOnRegression,
+        Map<String, Object> appProperties) {
+
+    private static final String PREFIX = "loadtest.";
+    private static final String APP_PREFIX = PREFIX + "app.";
+
+    /**
+     * Share of write operations in the request mix.
+     */
+    enum Scenario {
+        READ_ONLY(0.0), READ_HEAVY(0.1), MIXED(0.3), WRITE_HEAVY(0.6);
+
+        final double writeShare;
+
+        Scenario(double writeShare) {
+            this.writeShare = writeShare;
+        }
+
+        static Scenario parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+
+        String id() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    static LoadTestSettings fromSystemProperties() {
+        Map<String, Object> appProperties = new LinkedHashMap<>();
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(APP_PREFIX))
+                .sorted()
+                .forEach(name -> appProperties.put(name.substring(APP_PREFIX.length()), System.getProperty(name)));
+        String baseline = property("baseline", "");
+        return new LoadTestSettings(
+                Double.parseDouble(property("rate", "200")),
+                DurationStyle.detectAndParse(property("warmup", "15s")),
+                DurationStyle.detectAndParse(property("duration", "60s")),
+                Scenario.parse(property("scenario", "read-heavy")),
+                Pattern.compile(property("include", ".*")),
+                Long.parseLong(property("seed", "42")),
+                Integer.parseInt(property("max-in-flight", "1000")),
+                Integer.parseInt(property("postgres-rows", "100000")),
+                Integer.parseInt(property("oracle-rows", "5000")),
+                Integer.parseInt(property("oracle-disposable-rows", "2000")),
+                Boolean.parseBoolean(property("oracle", "true")),
+                property("postgres.url", ""),
+                property("postgres.username", "myuser"),
+                property("postgres.password", "secret"),
+                property("oracle.url", ""),
+                property("oracle.username", "oracleuser"),
+                property("oracle.password", "oraclepass"),
+                Path.of(property("output", "target/loadtest")),
+                baseline.isBlank() ? null : Path.of(baseline),
+                Double.parseDouble(property("regression-threshold", "0.25")),
+                Boolean.parseBoolean(property("fail-on-regression", "false")),
+                appProperties);
+    }
+
+    /**
+     * Copy with different seeded volumes.
+     */
+    LoadTestSettings withRows(int postgresRows, int oracleRows, int oracleDisposableRows) {
+        return new LoadTestSettings(rate, warmup, duration, scenario, include, seed, maxInFlight,
+                postgresRows, oracleRows, oracleDisposableRows, oracle,
+                postgresUrl, postgresUsername, postgresPassword, oracleUrl, oracleUsername, oraclePassword,
+                outputDirectory, baseline, regressionThreshold, failOnRegression, appProperties);
+    }
+
+    /**
+     * Copy where {@code defaults} apply to the application unless set with -Dloadtest.app.*.
+     */
+    LoadTestSettings withAppDefaults(Map<String, Object> defaults) {
+        Map<String, Object> merged = new LinkedHashMap<>(defaults);
+        merged.putAll(appProperties);
+        return new LoadTestSettings(rate, warmup, duration, scenario, include, seed, maxInFlight,
+                postgresRows, oracleRows, oracleDisposableRows, oracle,
+                postgresUrl, postgresUsername, postgresPassword, oracleUrl, oracleUsername, oraclePassword,
+                outputDirectory, baseline, regressionThreshold, failOnRegression, merged);
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+
+    Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("rate", rate);
+        description.put("warmup", warmup.toString());
+        description.put("duration", duration.toString());
+        description.put("scenario", scenario.id());
+        description.put("include", include.pattern());
+        description.put("seed", seed);
+        description.put("maxInFlight", maxInFlight);
+        description.put("postgresRows", postgresRows);
+        description.put("oracleRows", oracle ? oracleRows : 0);
+        description.put("appProperties", appProperties);
+        return description;
+    }
+}
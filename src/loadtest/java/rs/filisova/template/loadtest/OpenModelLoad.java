@@ -0,0 +1,155 @@
+package rs.filisova.template.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: requests start on a fixed schedule (rate per second) whether or not earlier ones have completed,
+ * and latency is measured from the scheduled start. A slow server therefore shows up as latency instead of as a
+ * lower request rate (no coordinated omission). Operations are drawn from a seeded random mix, so two runs with the
+ * same settings issue the same request sequence.
+ */
+@Slf4j
+final class OpenModelLoad {
+
+    /**
+     * Measured outcome of one operation; latencies in microseconds.
+     */
+    static final class OperationStats {
+
+        final Operation operation;
+        final Recorder latencies = new Recorder(3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        Histogram histogram;
+
+        OperationStats(Operation operation) {
+            this.operation = operation;
+        }
+    }
+
+    private OpenModelLoad() {
+    }
+
+    static Map<String, OperationStats> run(List<Operation> operations, LoadTestSettings settings) throws InterruptedException {
+        Map<String, OperationStats> stats = new LinkedHashMap<>();
+        operations.forEach(operation -> stats.put(operation.name(), new OperationStats(operation)));
+        Picker picker = new Picker(operations, settings.scenario().writeShare);
+        Random random = new Random(settings.seed());
+        Semaphore inFlight = new Semaphore(settings.maxInFlight());
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / settings.rate());
+        long start = System.nanoTime();
+        long measureStart = start + settings.warmup().toNanos();
+        long end = measureStart + settings.duration().toNanos();
+        log.info("Warm-up {} then measuring {} at {} req/s, scenario {}", settings.warmup(), settings.duration(),
+                settings.rate(), settings.scenario().id());
+        try {
+            for (long i = 0; ; i++) {
+                long intendedStart = start + i * periodNanos;
+                if (intendedStart >= end) {
+                    break;
+                }
+                long wait = intendedStart - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                OperationStats operation = stats.get(picker.next(random).name());
+                HttpRequest request = operation.operation.request().apply(random);
+                boolean measured = intendedStart >= measureStart;
+                if (request == null) {
+                    if (measured) {
+                        operation.skipped.increment();
+                    }
+                    continue;
+                }
+                if (!inFlight.tryAcquire()) {
+                    if (measured) {
+                        operation.dropped.increment();
+                    }
+                    continue;
+                }
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                    inFlight.release();
+                    if (measured) {
+                        operation.latencies.recordValue(Math.max(1, (System.nanoTime() - intendedStart) / 1000));
+                        if (error != null || response.statusCode() >= 400) {
+                            operation.errors.increment();
+                        }
+                    }
+                });
+            }
+            if (!inFlight.tryAcquire(settings.maxInFlight(), 60, TimeUnit.SECONDS)) {
+                log.warn("{} requests still running after 60s, they are not included", settings.maxInFlight() - inFlight.availablePermits());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        stats.values().forEach(operation -> operation.histogram = operation.latencies.getIntervalHistogram());
+        return stats;
+    }
+
+    /**
+     * Weighted draw: writes get {@code writeShare} of all requests, split by weight, reads the rest.
+     */
+    private static final class Picker {
+
+        private final List<Operation> operations;
+        private final double[] cumulative;
+
+        Picker(List<Operation> operations, double writeShare) {
+            double reads = sum(operations, Operation.Kind.READ);
+            double writes = sum(operations, Operation.Kind.WRITE);
+            double readShare = writes == 0 ? 1 : 1 - writeShare;
+            double effectiveWriteShare = reads == 0 ? 1 : writeShare;
+            this.operations = operations;
+            this.cumulative = new double[operations.size()];
+            double total = 0;
+            for (int i = 0; i < operations.size(); i++) {
+                Operation operation = operations.get(i);
+                total += operation.kind() == Operation.Kind.READ
+                        ? readShare * operation.weight() / reads
+                        : effectiveWriteShare * operation.weight() / writes;
+                cumulative[i] = total;
+            }
+        }
+
+        Operation next(Random random) {
+            double value = random.nextDouble() * cumulative[cumulative.length - 1];
+            for (int i = 0; i < cumulative.length; i++) {
+                if (value < cumulative[i]) {
+                    return operations.get(i);
+                }
+            }
+            return operations.get(operations.size() - 1);
+        }
+
+        private static double sum(List<Operation> operations, Operation.Kind kind) {
+            return operations.stream().filter(operation -> operation.kind() == kind).mapToDouble(Operation::weight).sum();
+        }
+    }
+}
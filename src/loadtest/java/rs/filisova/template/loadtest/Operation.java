@@ -0,0 +1,18 @@
+package rs.filisova.template.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * One endpoint call in the request mix.
+ *
+ * @param weight  relative frequency among operations of the same kind
+ * @param request builds the next request, or returns null when the operation has run out of target ids
+ */
+record Operation(String name, Kind kind, double weight, Function<Random, HttpRequest> request) {
+
+    enum Kind {
+        READ, WRITE
+    }
+}
@@ -0,0 +1,173 @@
+package rs.filisova.template.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * Every endpoint of PostgresUserController and OracleUserController except the SSE stream, which has no
+ * request latency to measure. Weights approximate production traffic: id lookups and pages dominate,
+ * full exports and batches are rare.
+ */
+final class Operations {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final String JSON = "application/json";
+    private static final String[] NAME_QUERIES = {"Load Usr 12", "User 4711", "Lod User 99", "User 1234"};
+
+    private final URI base;
+    private final IdPools ids;
+
+    private Operations(URI base, IdPools ids) {
+        this.base = base;
+        this.ids = ids;
+    }
+
+    static List<Operation> all(URI base, IdPools ids, LoadTestSettings settings) {
+        Operations operations = new Operations(base, ids);
+        List<Operation> all = new ArrayList<>(operations.postgres());
+        if (settings.oracle()) {
+            all.addAll(operations.oracle());
+        }
+        return all.stream().filter(operation -> settings.include().matcher(operation.name()).find()).toList();
+    }
+
+    private List<Operation> postgres() {
+        return List.of(
+                read("postgres.list", 10, random -> get("/postgres-users?size=50")),
+                read("postgres.list.after-id", 5, random -> get("/postgres-users?size=50&afterId=" + ids.postgresUser(random))),
+                read("postgres.get", 25, random -> get("/postgres-users/" + ids.postgresUser(random))),
+                read("postgres.multi-get", 3, random -> get("/postgres-users?ids=" + ids(20, i -> ids.postgresUser(random)))),
+                read("postgres.query", 5, random -> get("/postgres-users/query?role=ADMIN&gender=F&sort=name&size=50")),
+                read("postgres.search", 3, random -> get("/postgres-users/search?limit=20&q="
+                        + NAME_QUERIES[random.nextInt(NAME_QUERIES.length)].replace(" ", "%20"))),
+                read("postgres.changes", 2, random -> get("/postgres-users/changes?size=100")),
+                read("postgres.export", 0.05, random -> get("/postgres-users/export")),
+                write("postgres.create", 5, random -> post("/postgres-users", postgresUser(ids.newPostgresUser(), random))),
+                write("postgres.update", 5, random -> {
+                    long id = ids.postgresUser(random);
+                    return put("/postgres-users/" + id, postgresUser(id, random));
+                }),
+                write("postgres.delete", 2, random -> ifPresent(ids.postgresUserToDelete(), id -> delete("/postgres-users/" + id))),
+                write("postgres.ingest", 0.5, random -> {
+                    StringBuilder body = new StringBuilder();
+                    for (int i = 0; i < 100; i++) {
+                        body.append(postgresUser(ids.newPostgresUser(), random)).append('\n');
+                    }
+                    return HttpRequest.newBuilder(uri("/postgres-users/ingest")).timeout(TIMEOUT)
+                            .header("Content-Type", "application/x-ndjson")
+                            .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+                }));
+    }
+
+    private List<Operation> oracle() {
+        return List.of(
+                read("oracle.users.list", 0.5, random -> get("/oracle/users")),
+                read("oracle.users.export", 0.05, random -> get("/oracle/users/export")),
+                read("oracle.users.get", 15, random -> ifPresent(ids.oracleUser(random), id -> get("/oracle/users/" + id))),
+                read("oracle.users.multi-get", 2, random -> ifPresent(ids.oracleUser(random),
+                        id -> get("/oracle/users?ids=" + id + "," + ids(19, i -> ids.oracleUser(random))))),
+                read("oracle.grants.list", 3, random -> get("/oracle/grants")),
+                read("oracle.grants.get", 3, random -> ifPresent(ids.oracleGrant(random), id -> get("/oracle/grants/" + id))),
+                read("oracle.roles.list", 3, random -> get("/oracle/roles")),
+                read("oracle.roles.get", 3, random -> ifPresent(ids.oracleRole(random), id -> get("/oracle/roles/" + id))),
+                write("oracle.users.create", 3, random -> post("/oracle/users", oracleUser(null, random))),
+                write("oracle.users.update", 3, random -> ifPresent(ids.oracleUser(random),
+                        id -> put("/oracle/users/" + id, oracleUser(id, random)))),
+                write("oracle.users.delete", 1, random -> ifPresent(ids.oracleUserToDelete(), id -> delete("/oracle/users/" + id))),
+                write("oracle.users.batch-create", 0.5, random -> post("/oracle/users/batch", batch(10, i -> oracleUser(null, random)))),
+                write("oracle.users.batch-update", 0.5, random -> put("/oracle/users/batch",
+                        batch(10, i -> oracleUser(ids.oracleUser(random), random)))),
+                write("oracle.grants.create", 0.5, random -> post("/oracle/grants", reference(null, "LOADTEST_GRANT"))),
+                write("oracle.grants.update", 0.5, random -> ifPresent(ids.oracleGrant(random),
+                        id -> put("/oracle/grants/" + id, reference(id, "LOADTEST_GRANT_" + id)))),
+                write("oracle.grants.delete", 0.3, random -> ifPresent(ids.oracleGrantToDelete(), id -> delete("/oracle/grants/" + id))),
+                write("oracle.grants.batch-create", 0.2, random -> post("/oracle/grants/batch", batch(10, i -> reference(null, "LOADTEST_GRANT")))),
+                write("oracle.grants.batch-update", 0.2, random -> put("/oracle/grants/batch",
+                        batch(5, i -> reference(ids.oracleGrant(random), "LOADTEST_GRANT_" + i)))),
+                write("oracle.roles.create", 0.5, random -> post("/oracle/roles", reference(null, "LOADTEST_ROLE"))),
+                write("oracle.roles.update", 0.5, random -> ifPresent(ids.oracleRole(random),
+                        id -> put("/oracle/roles/" + id, reference(id, "LOADTEST_ROLE_" + id)))),
+                write("oracle.roles.delete", 0.3, random -> ifPresent(ids.oracleRoleToDelete(), id -> delete("/oracle/roles/" + id))),
+                write("oracle.roles.batch-create", 0.2, random -> post("/oracle/roles/batch", batch(10, i -> reference(null, "LOADTEST_ROLE")))),
+                write("oracle.roles.batch-update", 0.2, random -> put("/oracle/roles/batch",
+                        batch(5, i -> reference(ids.oracleRole(random), "LOADTEST_ROLE_" + i)))));
+    }
+
+    private static Operation read(String name, double weight, Function<Random, HttpRequest> request) {
+        return new Operation(name, Operation.Kind.READ, weight, request);
+    }
+
+    private static Operation write(String name, double weight, Function<Random, HttpRequest> request) {
+        return new Operation(name, Operation.Kind.WRITE, weight, request);
+    }
+
+    private static HttpRequest ifPresent(Long id, Function<Long, HttpRequest> request) {
+        return id != null ? request.apply(id) : null;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).timeout(TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path)).timeout(TIMEOUT).header("Content-Type", JSON)
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpRequest put(String path, String json) {
+        return HttpRequest.newBuilder(uri(path)).timeout(TIMEOUT).header("Content-Type", JSON)
+                .PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpRequest delete(String path) {
+        return HttpRequest.newBuilder(uri(path)).timeout(TIMEOUT).DELETE().build();
+    }
+
+    private URI uri(String path) {
+        return base.resolve(path);
+    }
+
+    private static String postgresUser(long id, Random random) {
+        return String.format("{\"id\":%d,\"name\":\"Load User %d\",\"birthDate\":\"%s\",\"gender\":\"%s\",\"role\":\"USER\",\"grantField\":\"READ\"}",
+                id, id, birthDate(random), random.nextBoolean() ? "M" : "F");
+    }
+
+    private String oracleUser(Long id, Random random) {
+        Long role = ids.oracleRole(random);
+        Long grant = ids.oracleGrant(random);
+        return String.format("{%s\"name\":\"Load User %d\",\"birthDateOra\":\"%s\",\"sex\":\"%s\",\"role\":{\"id\":%d},\"grant\":{\"id\":%d}}",
+                id != null ? "\"id\":" + id + "," : "", random.nextInt(1_000_000), birthDate(random),
+                random.nextBoolean() ? "M" : "F", role, grant);
+    }
+
+    private static String reference(Long id, String name) {
+        return String.format("{%s\"name\":\"%s\",\"describe\":\"Created by the load test\"}", id != null ? "\"id\":" + id + "," : "", name);
+    }
+
+    private static String batch(int size, Function<Integer, String> item) {
+        StringJoiner items = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < size; i++) {
+            items.add(item.apply(i));
+        }
+        return items.toString();
+    }
+
+    private static String ids(int count, Function<Integer, Long> id) {
+        StringJoiner ids = new StringJoiner(",");
+        for (int i = 0; i < count; i++) {
+            ids.add(String.valueOf(id.apply(i)));
+        }
+        return ids.toString();
+    }
+
+    private static LocalDate birthDate(Random random) {
+        return LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20000));
+    }
+}
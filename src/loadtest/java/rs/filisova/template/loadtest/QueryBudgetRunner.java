@@ -0,0 +1,230 @@
+package rs.filisova.template.loadtest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+import rs.filisova.template.changes.PostgresUserChangeListener;
+import rs.filisova.template.changes.PostgresUserChangedEvent;
+import rs.filisova.template.controller.OracleUserController;
+import rs.filisova.template.controller.PostgresUserController;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Query-count regression check: calls every endpoint of PostgresUserController and OracleUserController once
+ * against seeded database stand-ins and compares the JDBC statements it ran, per datasource, with
+ * {@link QueryBudgets}. Runs twice, the second time with ten times the rows. Fails on any difference, on an
+ * operation without a budget and on a controller endpoint no operation reaches.
+ * Started by mvn -Pquery-budget verify; QueryBudgetTest runs the same check in the default build. See README,
+ * "Бюджет SQL-запросов".
+ */
+@Slf4j
+public final class QueryBudgetRunner {
+
+    // postgres_users, oracle_users and disposable reference rows per pass
+    private static final int[][] VOLUMES = {{200, 50, 5}, {2000, 500, 5}};
+
+    // Nothing but the measured request may run statements while it is measured
+    static final Map<String, Object> APP_DEFAULTS = Map.of(
+            "app.jdbc.instrumentation.enabled", "true",
+            "app.jdbc.instrumentation.budget.action", "LOG",
+            "app.replication.lag.probe-interval", "1h",
+            "app.postgres.changes.purge-interval", "1h",
+            "app.postgres.stream.poll-interval", "1h",
+            "app.postgres.stream.heartbeat-interval", "1h");
+
+    // Long-lived, has no per-request statement count
+    private static final Set<String> UNMEASURED_ENDPOINTS = Set.of("PostgresUserController.streamPostgresUserChanges");
+
+    private QueryBudgetRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties().withAppDefaults(APP_DEFAULTS);
+        List<String> failures = new ArrayList<>();
+        try (StandIns standIns = new StandIns(settings);
+             ConfigurableApplicationContext application = LoadTestRunner.start(settings, standIns)) {
+            for (Measurement measurement : measure(application, standIns, settings)) {
+                if (measurement.failure() != null) {
+                    failures.add(measurement.failure());
+                }
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> log.error("Query budget violated: {}", failure));
+            throw new IllegalStateException(failures.size() + " query budget violation(s), see the log above");
+        }
+        log.info("All endpoints ran exactly their query budget");
+    }
+
+    /**
+     * Statements one call of an operation ran against its budget, by datasource; or a check that could not be made.
+     *
+     * @param problem why the operation was not measured, e.g. it has no budget; null when it was
+     */
+    record Measurement(String operation, String rows, int status, Map<String, Long> expected,
+                       Map<String, Long> actual, String problem) {
+
+        static Measurement problem(String operation, String problem) {
+            return new Measurement(operation, "", 0, Map.of(), Map.of(), problem);
+        }
+
+        /**
+         * @return null when the call succeeded within its budget
+         */
+        String failure() {
+            if (problem != null) {
+                return operation + ": " + problem;
+            }
+            if (status >= 400) {
+                return operation + " at " + rows + ": HTTP " + status;
+            }
+            if (!actual.equals(expected)) {
+                return operation + " at " + rows + ": expected " + expected + " statements, ran " + actual;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Seeds every volume of {@link #VOLUMES} in turn and calls each operation once against {@code application},
+     * which must run with {@link #APP_DEFAULTS}. Also reports the controller endpoints no operation reaches.
+     */
+    static List<Measurement> measure(ApplicationContext application, StandIns standIns, LoadTestSettings settings)
+            throws Exception {
+        awaitChangeListener(application.getBean(PostgresUserChangeListener.class));
+        URI base = URI.create("http://localhost:" + ((WebServerApplicationContext) application).getWebServer().getPort());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        MeterRegistry meterRegistry = application.getBean(MeterRegistry.class);
+        RequestMappingHandlerMapping handlerMapping =
+                application.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+        List<Measurement> measurements = new ArrayList<>();
+        Set<Method> reached = new HashSet<>();
+
+        for (int[] volume : VOLUMES) {
+            LoadTestSettings pass = settings.withRows(volume[0], volume[1], volume[2]);
+            IdPools ids = DataSeeder.seed(pass, standIns);
+            // Reseeding bypasses the application, the per-id cache must not answer from the previous pass
+            application.publishEvent(PostgresUserChangedEvent.flush(0));
+            Random random = new Random(settings.seed());
+            String rows = volume[0] + "/" + volume[1] + " rows";
+
+            for (Operation operation : Operations.all(base, ids, pass)) {
+                QueryBudgets.Budget budget = QueryBudgets.ALL.get(operation.name());
+                if (budget == null) {
+                    measurements.add(Measurement.problem(operation.name(), "no budget in QueryBudgets"));
+                    continue;
+                }
+                HttpRequest request = operation.request().apply(random);
+                if (request == null) {
+                    measurements.add(Measurement.problem(operation.name(), "no seeded id to call it with"));
+                    continue;
+                }
+                reached.add(handler(handlerMapping, request).getMethod());
+                if (budget.warm()) {
+                    client.send(request, HttpResponse.BodyHandlers.discarding());
+                }
+
+                Map<String, Long> before = statementCounts(meterRegistry);
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                Map<String, Long> after = statementCounts(meterRegistry);
+
+                Map<String, Long> actual = new TreeMap<>();
+                after.forEach((dataSource, count) -> {
+                    long executed = count - before.getOrDefault(dataSource, 0L);
+                    if (executed > 0) {
+                        actual.put(dataSource, executed);
+                    }
+                });
+                Map<String, Long> expected = new TreeMap<>();
+                budget.statements().forEach((dataSource, count) -> {
+                    if (count > 0) {
+                        expected.put(dataSource, (long) count);
+                    }
+                });
+                measurements.add(new Measurement(operation.name(), rows, response.statusCode(), expected, actual, null));
+                log.info("{} at {}: {} statements (budget {})", operation.name(), rows, actual, expected);
+            }
+        }
+        if (settings.include().pattern().equals(".*")) {
+            measurements.addAll(unreached(handlerMapping, reached, settings.oracle()));
+        }
+        return measurements;
+    }
+
+    /**
+     * Statements executed so far, by datasource; background statements are kept out by {@link #APP_DEFAULTS}.
+     */
+    private static Map<String, Long> statementCounts(MeterRegistry meterRegistry) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Timer timer : meterRegistry.find("jdbc.statements").timers()) {
+            counts.merge(timer.getId().getTag("datasource"), timer.count(), Long::sum);
+        }
+        return counts;
+    }
+
+    private static HandlerMethod handler(RequestMappingHandlerMapping handlerMapping, HttpRequest request) throws Exception {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest(request.method(), request.uri().getPath());
+        servletRequest.setQueryString(request.uri().getQuery());
+        UriComponentsBuilder.fromUri(request.uri()).build().getQueryParams()
+                .forEach((name, values) -> values.forEach(value -> servletRequest.addParameter(name, value)));
+        request.headers().map().forEach((name, values) -> values.forEach(value -> servletRequest.addHeader(name, value)));
+        request.headers().firstValue("Content-Type").ifPresent(servletRequest::setContentType);
+        ServletRequestPathUtils.parseAndCache(servletRequest);
+        HandlerExecutionChain chain = handlerMapping.getHandler(servletRequest);
+        if (chain == null || !(chain.getHandler() instanceof HandlerMethod handlerMethod)) {
+            throw new IllegalStateException("No controller method handles " + request.method() + " " + request.uri());
+        }
+        return handlerMethod;
+    }
+
+    private static List<Measurement> unreached(RequestMappingHandlerMapping handlerMapping, Set<Method> reached, boolean oracle) {
+        List<Measurement> unreached = new ArrayList<>();
+        handlerMapping.getHandlerMethods().values().forEach(handlerMethod -> {
+            Class<?> controller = handlerMethod.getBeanType();
+            boolean covered = controller == PostgresUserController.class || (oracle && controller == OracleUserController.class);
+            String name = controller.getSimpleName() + "." + handlerMethod.getMethod().getName();
+            if (covered && !reached.contains(handlerMethod.getMethod()) && !UNMEASURED_ENDPOINTS.contains(name)) {
+                unreached.add(Measurement.problem(name, "no operation in Operations calls it, so it has no query budget"));
+            }
+        });
+        return unreached;
+    }
+
+    // A disconnected listener makes the per-id cache bypass itself, which changes the counts
+    private static void awaitChangeListener(PostgresUserChangeListener changeListener) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (!changeListener.isConnected()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("PostgresUserChangeListener did not connect");
+            }
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package rs.filisova.template.loadtest;
+
+import java.util.Map;
+
+import static java.util.Map.entry;
+
+/**
+ * Exact number of JDBC statements (each one a database round trip; a JDBC batch counts once) that one call of
+ * every {@link Operations} entry runs. Checked by {@link QueryBudgetRunner} at two data volumes, so a budget
+ * also pins that the count does not grow with the number of rows. Lowering a budget after an optimization is
+ * expected; raising one needs a reason in the change that does it.
+ */
+final class QueryBudgets {
+
+    static final Map<String, Budget> ALL = Map.ofEntries(
+            // table version for the ETag + one keyset page
+            entry("postgres.list", postgres(2)),
+            entry("postgres.list.after-id", postgres(2)),
+            // per-id cache miss: the row loaded for the ETag check also answers the request
+            entry("postgres.get", postgres(1)),
+            // ids not in the per-id cache, loaded with one IN query
+            entry("postgres.multi-get", postgres(1)),
+            entry("postgres.query", postgres(1)),
+            // set_config of the timeout and similarity threshold + the trigram query
+            entry("postgres.search", postgres(2)),
+            entry("postgres.changes", postgres(1)),
+            entry("postgres.export", postgres(1)),
+            // INSERT ... ON CONFLICT / UPDATE ... RETURNING / DELETE, no SELECT before the write
+            entry("postgres.create", postgres(1)),
+            entry("postgres.update", postgres(1)),
+            entry("postgres.delete", postgres(1)),
+            // staging table + merge; the COPY itself goes through the PGConnection API and is not counted
+            entry("postgres.ingest", postgres(2)),
+
+            // roles and grants of the users come from the reference-data cache, never one query per user
+            entry("oracle.users.list", warmOracle(1)),
+            entry("oracle.users.export", warmOracle(1)),
+            entry("oracle.users.get", warmOracle(1)),
+            entry("oracle.users.multi-get", warmOracle(1)),
+            entry("oracle.users.create", oracle(1)),
+            entry("oracle.users.update", oracle(1)),
+            // SimpleJpaRepository.deleteById loads the entity before removing it
+            entry("oracle.users.delete", oracle(2)),
+            entry("oracle.users.batch-create", oracle(1)),
+            entry("oracle.users.batch-update", oracle(1)),
+            // lists and lookups are served from the reference-data cache
+            entry("oracle.grants.list", warmOracle(0)),
+            entry("oracle.grants.get", warmOracle(0)),
+            entry("oracle.grants.create", oracle(1)),
+            entry("oracle.grants.update", oracle(1)),
+            entry("oracle.grants.delete", oracle(2)),
+            entry("oracle.grants.batch-create", oracle(1)),
+            entry("oracle.grants.batch-update", oracle(1)),
+            entry("oracle.roles.list", warmOracle(0)),
+            entry("oracle.roles.get", warmOracle(0)),
+            entry("oracle.roles.create", oracle(1)),
+            entry("oracle.roles.update", oracle(1)),
+            entry("oracle.roles.delete", oracle(2)),
+            entry("oracle.roles.batch-create", oracle(1)),
+            entry("oracle.roles.batch-update", oracle(1)));
+
+    private QueryBudgets() {
+    }
+
+    /**
+     * @param warm measured after an identical, unmeasured call, i.e. with the reference-data caches loaded
+     */
+    record Budget(int postgres, int oracle, boolean warm) {
+
+        Map<String, Integer> statements() {
+            return Map.of("postgres", postgres, "oracle", oracle);
+        }
+    }
+
+    private static Budget postgres(int statements) {
+        return new Budget(statements, 0, false);
+    }
+
+    private static Budget oracle(int statements) {
+        return new Budget(0, statements, false);
+    }
+
+    private static Budget warmOracle(int statements) {
+        return new Budget(0, statements, true);
+    }
+}
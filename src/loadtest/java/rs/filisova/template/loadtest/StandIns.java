@@ -0,0 +1,93 @@
+package rs.filisova.template.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.OracleContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Databases the application runs against: Testcontainers (same images as docker-compose) unless
+ * -Dloadtest.postgres.url / -Dloadtest.oracle.url point to running instances.
+ */
+@Slf4j
+final class StandIns implements AutoCloseable {
+
+    private PostgreSQLContainer<?> postgresContainer;
+    private OracleContainer oracleContainer;
+
+    final String postgresUrl;
+    final String postgresUsername;
+    final String postgresPassword;
+    final String oracleUrl;
+    final String oracleUsername;
+    final String oraclePassword;
+
+    StandIns(LoadTestSettings settings) {
+        if (settings.postgresUrl().isBlank()) {
+            postgresContainer = new PostgreSQLContainer<>("postgres:16-alpine")
+                    .withDatabaseName("mydatabase")
+                    .withUsername(settings.postgresUsername())
+                    .withPassword(settings.postgresPassword());
+            postgresContainer.start();
+            log.info("Started PostgreSQL stand-in at {}", postgresContainer.getJdbcUrl());
+            postgresUrl = postgresContainer.getJdbcUrl();
+        } else {
+            postgresUrl = settings.postgresUrl();
+        }
+        postgresUsername = settings.postgresUsername();
+        postgresPassword = settings.postgresPassword();
+
+        if (settings.oracle() && settings.oracleUrl().isBlank()) {
+            oracleContainer = new OracleContainer("gvenzl/oracle-xe:21-slim-faststart")
+                    .withUsername(settings.oracleUsername())
+                    .withPassword(settings.oraclePassword());
+            oracleContainer.start();
+            log.info("Started Oracle stand-in at {}", oracleContainer.getJdbcUrl());
+            oracleUrl = oracleContainer.getJdbcUrl();
+        } else {
+            oracleUrl = settings.oracleUrl();
+        }
+        oracleUsername = settings.oracleUsername();
+        oraclePassword = settings.oraclePassword();
+
+        if (settings.oracle()) {
+            initializeOracleSchema();
+        }
+    }
+
+    DriverManagerDataSource postgresDataSource() {
+        return new DriverManagerDataSource(postgresUrl, postgresUsername, postgresPassword);
+    }
+
+    DriverManagerDataSource oracleDataSource() {
+        return new DriverManagerDataSource(oracleUrl, oracleUsername, oraclePassword);
+    }
+
+    /**
+     * r2dbc:postgresql://host:port/db from the JDBC URL, for the reactive endpoints.
+     */
+    String postgresR2dbcUrl() {
+        String withoutParameters = postgresUrl.contains("?") ? postgresUrl.substring(0, postgresUrl.indexOf('?')) : postgresUrl;
+        return withoutParameters.replaceFirst("^jdbc:postgresql:", "r2dbc:postgresql:");
+    }
+
+    // Same script and separators as make setup-oracle; recreates the tables, so every run starts from the same data
+    private void initializeOracleSchema() {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("oracle-init.sql"));
+        populator.setSeparator("/");
+        populator.execute(oracleDataSource());
+        log.info("Initialized Oracle schema from oracle-init.sql");
+    }
+
+    @Override
+    public void close() {
+        if (oracleContainer != null) {
+            oracleContainer.stop();
+        }
+        if (postgresContainer != null) {
+            postgresContainer.stop();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package rs.filisova.template.bulkhead;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that follows observed latency, modelled on the gradient limiter of Netflix concurrency-limits:
+ * <ul>
+ *     <li>a long-term RTT (exponential average) is the latency the backend delivers when it is not overloaded;</li>
+ *     <li>gradient = longRtt * tolerance / rtt, clamped to [0.5, 1]: while latency stays within tolerance the limit
+ *     grows by a queue allowance of sqrt(limit), once latency rises the limit shrinks proportionally;</li>
+ *     <li>failed requests (5xx) cut the limit multiplicatively, as in AIMD.</li>
+ * </ul>
+ * The limit only grows while at least half of it is in use, so an idle service does not inflate it.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double LONG_RTT_ALPHA = 0.05;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private double limit;
+    private double longRttNanos;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimiter(BulkheadProperties.Limit properties) {
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.rttTolerance = properties.getRttTolerance();
+        this.backoffRatio = properties.getBackoffRatio();
+        this.limit = Math.min(maxLimit, Math.max(minLimit, properties.getInitialLimit()));
+    }
+
+    /**
+     * @return false if the limit is reached; otherwise the caller must call {@link #release} exactly once
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param rttNanos request latency, or a negative value to release without sampling (e.g. long-running exports)
+     * @param failed   whether the request failed in a way that indicates overload
+     */
+    public void release(long rttNanos, boolean failed) {
+        lock.lock();
+        try {
+            int inFlightAtCompletion = inFlight;
+            inFlight--;
+            if (failed) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (rttNanos >= 0) {
+                adjust(rttNanos, inFlightAtCompletion);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(long rttNanos, int inFlightAtCompletion) {
+        if (rttNanos == 0) {
+            return;
+        }
+        longRttNanos = longRttNanos == 0 ? rttNanos : longRttNanos * (1 - LONG_RTT_ALPHA) + rttNanos * LONG_RTT_ALPHA;
+        // After a sustained slowdown the long-term RTT has drifted up; pull it back so the limit can recover
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        if (inFlightAtCompletion < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
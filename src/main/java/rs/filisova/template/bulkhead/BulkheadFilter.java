@@ -0,0 +1,146 @@
+package rs.filisova.template.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import rs.filisova.template.exception.ApiError;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes requests to the bulkhead of the datasource they use and rejects them with 503 + Retry-After
+ * when its concurrency limit is reached, so a slow Oracle cannot take every Tomcat worker from /postgres-users.
+ */
+@Slf4j
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private final List<Bulkhead> bulkheads = new ArrayList<>();
+    private final ObjectMapper objectMapper;
+
+    public BulkheadFilter(BulkheadProperties properties, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        properties.getLimits().forEach((name, limit) -> bulkheads.add(new Bulkhead(name, limit, meterRegistry)));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Bulkhead bulkhead = bulkheadFor(request.getRequestURI());
+        if (bulkhead == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!bulkhead.limiter.tryAcquire()) {
+            bulkhead.rejected.increment();
+            reject(request, response, bulkhead);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean released = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Streaming exports: hold the slot until the response completes, but do not feed their duration to the limiter
+                request.getAsyncContext().addListener(new ReleaseOnComplete(bulkhead.limiter));
+            } else {
+                bulkhead.limiter.release(System.nanoTime() - start, response.getStatus() >= 500);
+            }
+            released = true;
+        } finally {
+            if (!released) {
+                bulkhead.limiter.release(System.nanoTime() - start, true);
+            }
+        }
+    }
+
+    private Bulkhead bulkheadFor(String uri) {
+        for (Bulkhead bulkhead : bulkheads) {
+            if (bulkhead.properties.getExcludedPaths().stream().anyMatch(uri::startsWith)) {
+                continue;
+            }
+            for (String path : bulkhead.properties.getPaths()) {
+                if (uri.startsWith(path)) {
+                    return bulkhead;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, Bulkhead bulkhead) throws IOException {
+        log.warn("Bulkhead {} rejected {} {}: limit {} reached", bulkhead.name, request.getMethod(), request.getRequestURI(),
+                bulkhead.limiter.getLimit());
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        ApiError body = ApiError.of(status, "Too many concurrent requests to " + bulkhead.name + ", retry later",
+                request.getRequestURI());
+
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, bulkhead.properties.getRetryAfter().toSeconds())));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static final class Bulkhead {
+
+        private final String name;
+        private final BulkheadProperties.Limit properties;
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final Counter rejected;
+
+        private Bulkhead(String name, BulkheadProperties.Limit properties, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.properties = properties;
+            this.limiter = new AdaptiveConcurrencyLimiter(properties);
+            Gauge.builder("bulkhead.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("name", name)
+                    .register(meterRegistry);
+            Gauge.builder("bulkhead.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Requests currently holding a bulkhead slot")
+                    .tag("name", name)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("bulkhead.rejected")
+                    .description("Requests rejected with 503 because the limit was reached")
+                    .tag("name", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    private record ReleaseOnComplete(AdaptiveConcurrencyLimiter limiter) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limiter.release(-1, false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // onComplete follows
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // onComplete follows
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
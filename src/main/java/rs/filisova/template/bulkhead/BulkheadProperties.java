@@ -0,0 +1,63 @@
+package rs.filisova.template.bulkhead;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-datasource bulkheads: request path prefixes guarded by an adaptive concurrency limit.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.bulkhead")
+public class BulkheadProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Bulkheads by name (postgres, postgres-reactive, oracle); the name is used as the metrics tag.
+     */
+    private Map<String, Limit> limits = new LinkedHashMap<>();
+
+    @Data
+    public static class Limit {
+
+        /**
+         * Request path prefixes served by this bulkhead, e.g. /oracle/.
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * Prefixes under {@link #paths} that do not hold a connection while open, e.g. SSE streams.
+         */
+        private List<String> excludedPaths = new ArrayList<>();
+
+        private int initialLimit = 20;
+
+        private int minLimit = 2;
+
+        /**
+         * Upper bound of the limit; usually around twice the connection pool size.
+         */
+        private int maxLimit = 50;
+
+        /**
+         * Latency growth tolerated before the limit shrinks (long-term RTT * tolerance vs. current RTT).
+         */
+        private double rttTolerance = 1.5;
+
+        /**
+         * Multiplicative decrease applied when a request fails with 5xx.
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * Value of the Retry-After header on rejected requests.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+}
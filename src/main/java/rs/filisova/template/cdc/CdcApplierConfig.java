@@ -0,0 +1,26 @@
+package rs.filisova.template.cdc;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+/**
+ * Embedded CDC applier: Debezium Oracle topics -> enrichment -> postgres_users.
+ * Replaces the ksqlDB stream and the JDBC sink connector when app.cdc.applier.enabled=true.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.cdc.applier", name = "enabled", havingValue = "true")
+public class CdcApplierConfig {
+
+    /**
+     * A failed batch is retried until Postgres accepts it; skipping it would lose changes
+     * because the offsets would move past them.
+     */
+    @Bean
+    public CommonErrorHandler cdcApplierErrorHandler(CdcApplierProperties properties) {
+        return new DefaultErrorHandler(new FixedBackOff(properties.getRetryBackoff().toMillis(), FixedBackOff.UNLIMITED_ATTEMPTS));
+    }
+}
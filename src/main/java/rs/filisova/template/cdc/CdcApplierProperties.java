@@ -0,0 +1,37 @@
+package rs.filisova.template.cdc;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the embedded Oracle CDC applier (Debezium topics -> postgres_users).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cdc.applier")
+public class CdcApplierProperties {
+
+    /**
+     * Consume the Debezium topics in-process instead of relying on ksqlDB + JDBC sink.
+     */
+    private boolean enabled = false;
+
+    private String groupId = "service-template-atb-cdc-applier";
+
+    private String usersTopic = "oracle_cdc.ORACLEUSER.ORACLE_USERS";
+
+    private String rolesTopic = "oracle_cdc.ORACLEUSER.ORACLE_USERS_ROLE";
+
+    private String grantsTopic = "oracle_cdc.ORACLEUSER.ORACLE_USERS_GRANT";
+
+    /**
+     * Maximum records per poll; each poll is applied as one Postgres transaction.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Pause between retries of a batch whose Postgres transaction failed.
+     */
+    private Duration retryBackoff = Duration.ofSeconds(5);
+}
@@ -0,0 +1,84 @@
+package rs.filisova.template.cdc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies one micro-batch of decoded CDC events to postgres_users in a single transaction.
+ * Independent of Kafka, so recorded events can be replayed through it directly.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.cdc.applier", name = "enabled", havingValue = "true")
+public class CdcEventApplier {
+
+    static final String USER_TABLE = "ORACLE_USERS";
+
+    private final ReferenceNameState referenceNameState;
+    private final ReplicatedUserWriter replicatedUserWriter;
+    private final ReplicationLagMonitor replicationLagMonitor;
+
+    @Transactional
+    public void apply(List<DebeziumChangeEvent> events) {
+        // Reference changes first, so users in the same batch are enriched with the new names
+        events.stream().filter(referenceNameState::handles).forEach(referenceNameState::apply);
+
+        // Only the last change per user id matters within a batch
+        Map<Long, DebeziumChangeEvent> latestByUserId = new LinkedHashMap<>();
+        for (DebeziumChangeEvent event : events) {
+            if (USER_TABLE.equals(event.table()) && event.row() != null) {
+                Long id = DebeziumEventDecoder.longValue(event.row(), "ID");
+                if (id != null) {
+                    latestByUserId.remove(id);
+                    latestByUserId.put(id, event);
+                }
+            }
+        }
+
+        List<ReplicatedUserRow> upserts = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        latestByUserId.forEach((id, event) -> {
+            if (event.isDelete()) {
+                deletes.add(id);
+            } else {
+                upserts.add(enrich(id, event));
+            }
+        });
+        replicatedUserWriter.upsert(upserts);
+        replicatedUserWriter.delete(deletes);
+
+        List<Long> sourceTimestamps = latestByUserId.values().stream().map(DebeziumChangeEvent::sourceTsMs).toList();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                replicationLagMonitor.recordApplied(sourceTimestamps);
+            }
+        });
+        log.debug("Applied CDC batch: events={}, upserts={}, deletes={}", events.size(), upserts.size(), deletes.size());
+    }
+
+    private ReplicatedUserRow enrich(Long id, DebeziumChangeEvent event) {
+        JsonNode after = event.after();
+        return new ReplicatedUserRow(
+                id,
+                DebeziumEventDecoder.textValue(after, "NAME"),
+                DebeziumEventDecoder.dateValue(after, "BIRTH_DATE_ORA"),
+                DebeziumEventDecoder.textValue(after, "SEX"),
+                referenceNameState.roleName(DebeziumEventDecoder.longValue(after, "ROLE_ID")),
+                referenceNameState.grantName(DebeziumEventDecoder.longValue(after, "GRANT_ID")),
+                event.sourceTsMs(),
+                event.scn() != null ? Long.valueOf(event.scn()) : null);
+    }
+}
@@ -0,0 +1,45 @@
+package rs.filisova.template.cdc;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumes the three Debezium topics as micro-batches. Offsets are committed by the container
+ * after this method returns, i.e. only after the Postgres transaction has committed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.cdc.applier", name = "enabled", havingValue = "true")
+public class CdcKafkaListener {
+
+    private final DebeziumEventDecoder decoder;
+    private final CdcEventApplier applier;
+
+    @KafkaListener(
+            id = "oracleCdcApplier",
+            groupId = "${app.cdc.applier.group-id}",
+            topics = {"${app.cdc.applier.users-topic}", "${app.cdc.applier.roles-topic}", "${app.cdc.applier.grants-topic}"},
+            batch = "true",
+            properties = {"max.poll.records=${app.cdc.applier.batch-size}", "auto.offset.reset=earliest"})
+    public void onBatch(List<ConsumerRecord<String, String>> records) {
+        List<DebeziumChangeEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                decoder.decode(record.topic(), record.value()).ifPresent(events::add);
+            } catch (JsonProcessingException e) {
+                log.error("Skipping undecodable CDC record {}-{}@{}: {}",
+                        record.topic(), record.partition(), record.offset(), e.getOriginalMessage());
+            }
+        }
+        applier.apply(events);
+    }
+}
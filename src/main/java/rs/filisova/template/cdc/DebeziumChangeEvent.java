@@ -0,0 +1,27 @@
+package rs.filisova.template.cdc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * One decoded Debezium change record.
+ *
+ * @param table       source table name, e.g. ORACLE_USERS
+ * @param op          c (insert), u (update), d (delete) or r (snapshot read)
+ * @param before      row image before the change (null for inserts)
+ * @param after       row image after the change (null for deletes)
+ * @param sourceTsMs  commit timestamp of the change in Oracle, epoch millis
+ * @param scn         Oracle SCN of the change
+ */
+public record DebeziumChangeEvent(String table, String op, JsonNode before, JsonNode after, Long sourceTsMs, String scn) {
+
+    public boolean isDelete() {
+        return "d".equals(op);
+    }
+
+    /**
+     * Row image that identifies the row: {@code after} for upserts, {@code before} for deletes.
+     */
+    public JsonNode row() {
+        return isDelete() ? before : after;
+    }
+}
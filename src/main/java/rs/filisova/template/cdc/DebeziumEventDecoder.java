@@ -0,0 +1,68 @@
+package rs.filisova.template.cdc;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * Decodes Debezium JSON envelopes, with or without the embedded schema wrapper.
+ * Oracle NUMBER columns arrive as doubles (decimal.handling.mode=double) and DATE columns as epoch millis.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.cdc.applier", name = "enabled", havingValue = "true")
+public class DebeziumEventDecoder {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @return empty for tombstones and envelopes without an operation
+     */
+    public Optional<DebeziumChangeEvent> decode(String topic, String value) throws JsonProcessingException {
+        if (value == null) {
+            return Optional.empty();
+        }
+        JsonNode root = objectMapper.readTree(value);
+        JsonNode payload = root.has("payload") ? root.get("payload") : root;
+        if (payload == null || payload.isNull() || !payload.hasNonNull("op")) {
+            return Optional.empty();
+        }
+        JsonNode source = payload.path("source");
+        Long sourceTsMs = source.hasNonNull("ts_ms") ? source.get("ts_ms").asLong() : null;
+        String scn = source.hasNonNull("scn") ? source.get("scn").asText() : null;
+        return Optional.of(new DebeziumChangeEvent(
+                topic.substring(topic.lastIndexOf('.') + 1),
+                payload.get("op").asText(),
+                nullToMissing(payload.get("before")),
+                nullToMissing(payload.get("after")),
+                sourceTsMs,
+                scn));
+    }
+
+    public static Long longValue(JsonNode row, String column) {
+        JsonNode value = row.get(column);
+        return value == null || value.isNull() ? null : value.asLong();
+    }
+
+    public static String textValue(JsonNode row, String column) {
+        JsonNode value = row.get(column);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    public static LocalDate dateValue(JsonNode row, String column) {
+        Long epochMillis = longValue(row, column);
+        return epochMillis == null ? null : Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC).toLocalDate();
+    }
+
+    private static JsonNode nullToMissing(JsonNode node) {
+        return node == null || node.isNull() ? null : node;
+    }
+}
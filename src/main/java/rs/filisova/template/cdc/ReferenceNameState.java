@@ -0,0 +1,96 @@
+package rs.filisova.template.cdc;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import rs.filisova.template.entity.OracleUserGrantEntity;
+import rs.filisova.template.entity.OracleUserRoleEntity;
+import rs.filisova.template.service.ReferenceDataCache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Role and grant names keyed by id, kept up to date from the role/grant CDC topics.
+ * Ids not seen on the topics yet (e.g. right after startup, when committed offsets skip
+ * the history) are resolved through the Oracle reference-data cache. An id that cannot be resolved yet (the user
+ * event overtook its role or grant) is not remembered as missing: the next event with it looks it up again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.cdc.applier", name = "enabled", havingValue = "true")
+public class ReferenceNameState {
+
+    static final String ROLE_TABLE = "ORACLE_USERS_ROLE";
+    static final String GRANT_TABLE = "ORACLE_USERS_GRANT";
+
+    private final Map<Long, String> roleNames = new ConcurrentHashMap<>();
+    private final Map<Long, String> grantNames = new ConcurrentHashMap<>();
+
+    private final ReferenceDataCache<OracleUserRoleEntity> oracleRoleCache;
+    private final ReferenceDataCache<OracleUserGrantEntity> oracleGrantCache;
+
+    public boolean handles(DebeziumChangeEvent event) {
+        return ROLE_TABLE.equals(event.table()) || GRANT_TABLE.equals(event.table());
+    }
+
+    public void apply(DebeziumChangeEvent event) {
+        Map<Long, String> names = ROLE_TABLE.equals(event.table()) ? roleNames : grantNames;
+        Long id = DebeziumEventDecoder.longValue(event.row(), "ID");
+        if (id == null) {
+            return;
+        }
+        if (event.isDelete()) {
+            names.remove(id);
+        } else {
+            String name = DebeziumEventDecoder.textValue(event.after(), "NAME");
+            if (name != null) {
+                names.put(id, name);
+            } else {
+                names.remove(id);
+            }
+        }
+    }
+
+    public String roleName(Long roleId) {
+        if (roleId == null) {
+            return null;
+        }
+        return resolve(roleNames, roleId, "role", () -> oracleRoleCache.getRecheckingMissing(roleId)
+                .map(OracleUserRoleEntity::getName).orElse(null));
+    }
+
+    public String grantName(Long grantId) {
+        if (grantId == null) {
+            return null;
+        }
+        return resolve(grantNames, grantId, "grant", () -> oracleGrantCache.getRecheckingMissing(grantId)
+                .map(OracleUserGrantEntity::getName).orElse(null));
+    }
+
+    // Looked up outside the map's compute; a name from the topic that arrives meanwhile wins
+    private static String resolve(Map<Long, String> names, Long id, String kind, Supplier<String> loader) {
+        String name = names.get(id);
+        if (name != null) {
+            return name;
+        }
+        name = lookup(kind, loader);
+        if (name == null) {
+            return null;
+        }
+        String current = names.putIfAbsent(id, name);
+        return current != null ? current : name;
+    }
+
+    private static String lookup(String kind, Supplier<String> loader) {
+        try {
+            return loader.get();
+        } catch (RuntimeException e) {
+            log.warn("Cannot resolve Oracle {} name, replicating without it: {}", kind, e.getMessage());
+            return null;
+        }
+    }
+}
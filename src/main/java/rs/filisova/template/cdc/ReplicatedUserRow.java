@@ -0,0 +1,10 @@
+package rs.filisova.template.cdc;
+
+import java.time.LocalDate;
+
+/**
+ * Enriched oracle_users row as written to postgres_users, with the source position of the change.
+ */
+public record ReplicatedUserRow(long id, String name, LocalDate birthDate, String gender, String role, String grantField,
+                                Long sourceTsMs, Long sourceScn) {
+}
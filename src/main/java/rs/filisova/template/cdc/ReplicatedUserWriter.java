@@ -0,0 +1,76 @@
+package rs.filisova.template.cdc;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * JDBC batch upserts/deletes of replicated rows in postgres_users.
+ * Runs inside the caller's postgresTransactionManager transaction.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.cdc.applier", name = "enabled", havingValue = "true")
+public class ReplicatedUserWriter {
+
+    private static final String UPSERT = """
+            INSERT INTO postgres.postgres_users (id, name, birth_date, gender, role, grant_field, source_ts, source_scn)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (id) DO UPDATE SET
+                name = EXCLUDED.name,
+                birth_date = EXCLUDED.birth_date,
+                gender = EXCLUDED.gender,
+                role = EXCLUDED.role,
+                grant_field = EXCLUDED.grant_field,
+                source_ts = EXCLUDED.source_ts,
+                source_scn = EXCLUDED.source_scn,
+                updated_at = CURRENT_TIMESTAMP""";
+
+    private static final String DELETE = "DELETE FROM postgres.postgres_users WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReplicatedUserWriter(@Qualifier("postgresJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void upsert(List<ReplicatedUserRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.id());
+            ps.setString(2, row.name());
+            if (row.birthDate() != null) {
+                ps.setDate(3, Date.valueOf(row.birthDate()));
+            } else {
+                ps.setNull(3, Types.DATE);
+            }
+            ps.setString(4, row.gender());
+            ps.setString(5, row.role());
+            ps.setString(6, row.grantField());
+            if (row.sourceTsMs() != null) {
+                ps.setTimestamp(7, new Timestamp(row.sourceTsMs()));
+            } else {
+                ps.setNull(7, Types.TIMESTAMP_WITH_TIMEZONE);
+            }
+            if (row.sourceScn() != null) {
+                ps.setLong(8, row.sourceScn());
+            } else {
+                ps.setNull(8, Types.BIGINT);
+            }
+        });
+    }
+
+    public void delete(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(DELETE, ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+    }
+}
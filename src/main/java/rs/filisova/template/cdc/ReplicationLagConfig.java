@@ -0,0 +1,14 @@
+package rs.filisova.template.cdc;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Replication lag metrics and health; active for both the embedded applier and the ksqlDB/JDBC sink pipeline.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties({ReplicationLagProperties.class, CdcApplierProperties.class})
+public class ReplicationLagConfig {
+}
@@ -0,0 +1,58 @@
+package rs.filisova.template.cdc;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Reports DEGRADED while the replicating consumer group has records pending and has not made progress (or, for the
+ * embedded applier, applied a batch later than its source commit) for longer than
+ * app.replication.lag.degraded-threshold. A caught-up group is UP however old its last batch was, and a stalled one
+ * turns DEGRADED even though no batch reports a lag. Freshness is shown but not judged: it also grows while Oracle
+ * is idle.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplicationLagHealthIndicator extends AbstractHealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "Replication lag above threshold");
+
+    private final ReplicationLagMonitor monitor;
+    private final ReplicationLagProperties properties;
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        Duration threshold = properties.getDegradedThreshold();
+        builder.withDetail("threshold", threshold.toString());
+        Duration freshness = monitor.freshness();
+        if (freshness != null) {
+            builder.withDetail("freshness", freshness.toString());
+        }
+        ReplicationLagMonitor.ConsumerLag consumerLag = monitor.consumerLag();
+        if (consumerLag == null) {
+            builder.up().withDetail("pending", "unknown");
+            return;
+        }
+        builder.withDetail("consumerGroup", consumerLag.group())
+                .withDetail("pending", consumerLag.pending());
+        if (consumerLag.pending() == 0) {
+            builder.up().withDetail("lag", Duration.ZERO.toString());
+            return;
+        }
+        Duration lag = Duration.between(consumerLag.lastProgress(), monitor.now());
+        Duration lastApplyLag = monitor.lastApplyLag();
+        if (lastApplyLag != null && lastApplyLag.compareTo(lag) > 0) {
+            lag = lastApplyLag;
+        }
+        builder.withDetail("lag", lag.toString());
+        if (lag.compareTo(threshold) > 0) {
+            builder.status(DEGRADED);
+        } else {
+            builder.up();
+        }
+    }
+}
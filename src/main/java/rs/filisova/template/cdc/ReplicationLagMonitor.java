@@ -0,0 +1,256 @@
+package rs.filisova.template.cdc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsOptions;
+import org.apache.kafka.clients.admin.ListOffsetsOptions;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Replication lag of postgres_users behind Oracle.
+ * <ul>
+ *     <li>{@code replication.apply.lag} - Oracle commit to Postgres commit, per row applied by the embedded applier</li>
+ *     <li>{@code replication.rows.applied} - rows applied by the embedded applier (rate() gives rows/s)</li>
+ *     <li>{@code replication.freshness} - age of the newest replicated row; works for the ksqlDB/JDBC sink path too,
+ *     but also grows while Oracle is simply idle, so it is a metric only</li>
+ *     <li>{@code replication.consumer.lag} - records of the replicating consumer group not applied yet, summed over
+ *     partitions; probed with the Kafka admin client</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ReplicationLagMonitor {
+
+    private static final String MAX_SOURCE_TS = "SELECT max(source_ts) FROM postgres.postgres_users";
+    private static final int KAFKA_TIMEOUT_MS = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<KafkaAdmin> kafkaAdmin;
+    private final String consumerGroup;
+    private final Clock clock = Clock.systemUTC();
+    private final Timer applyLag;
+    private final Counter rowsApplied;
+
+    private final AtomicReference<Instant> newestSourceTs = new AtomicReference<>();
+    private final AtomicReference<Duration> lastApplyLag = new AtomicReference<>();
+    private final AtomicReference<ConsumerLag> consumerLag = new AtomicReference<>();
+    private final AtomicReference<Instant> lastProgress = new AtomicReference<>();
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+    private long lastCommitted = -1;
+    private Admin admin;
+
+    public ReplicationLagMonitor(@Qualifier("postgresJdbcTemplate") JdbcTemplate jdbcTemplate,
+                                 ReplicationLagProperties properties,
+                                 CdcApplierProperties applierProperties,
+                                 ObjectProvider<KafkaAdmin> kafkaAdmin,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaAdmin = kafkaAdmin;
+        this.consumerGroup = !properties.getConsumerGroup().isBlank() ? properties.getConsumerGroup()
+                : applierProperties.isEnabled() ? applierProperties.getGroupId() : "";
+        this.applyLag = Timer.builder("replication.apply.lag")
+                .description("Time from Oracle commit to Postgres commit of a replicated row")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofHours(1))
+                .register(meterRegistry);
+        this.rowsApplied = Counter.builder("replication.rows.applied")
+                .description("Rows applied to postgres_users by the embedded CDC applier")
+                .register(meterRegistry);
+        TimeGauge.builder("replication.freshness", this, TimeUnit.MILLISECONDS, ReplicationLagMonitor::freshnessMillis)
+                .description("Age of the newest replicated row in postgres_users")
+                .register(meterRegistry);
+        Gauge.builder("replication.consumer.lag", this, ReplicationLagMonitor::pendingRecords)
+                .description("Records of the replicating consumer group not applied yet")
+                .baseUnit("records")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Backlog of the replicating consumer group at the last probe.
+     *
+     * @param pending      records not applied yet, summed over partitions
+     * @param lastProgress last time the group was caught up or its committed offsets (or the embedded applier) moved on
+     */
+    public record ConsumerLag(String group, long pending, Instant lastProgress, Instant probedAt) {
+    }
+
+    /**
+     * Called after the applier's Postgres transaction has committed.
+     */
+    public void recordApplied(Collection<Long> sourceTsMillis) {
+        long now = clock.millis();
+        long maxLag = -1;
+        for (Long sourceTs : sourceTsMillis) {
+            if (sourceTs != null) {
+                long lag = Math.max(0, now - sourceTs);
+                applyLag.record(lag, TimeUnit.MILLISECONDS);
+                maxLag = Math.max(maxLag, lag);
+                newestSourceTs.accumulateAndGet(Instant.ofEpochMilli(sourceTs),
+                        (current, candidate) -> current == null || candidate.isAfter(current) ? candidate : current);
+            }
+        }
+        rowsApplied.increment(sourceTsMillis.size());
+        if (maxLag >= 0) {
+            lastApplyLag.set(Duration.ofMillis(maxLag));
+        }
+        lastProgress.set(Instant.ofEpochMilli(now));
+    }
+
+    @Scheduled(fixedDelayString = "${app.replication.lag.probe-interval:15s}")
+    public void probeNewestSourceTs() {
+        try {
+            Timestamp newest = jdbcTemplate.queryForObject(MAX_SOURCE_TS, Timestamp.class);
+            newestSourceTs.set(newest != null ? newest.toInstant() : null);
+        } catch (RuntimeException e) {
+            log.debug("Replication freshness probe failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Committed offsets of the consumer group against the end offsets of its partitions. Asynchronous: the
+     * scheduler thread is shared with the SSE poll and must not wait for Kafka.
+     */
+    @Scheduled(fixedDelayString = "${app.replication.lag.probe-interval:15s}")
+    public void probeConsumerLag() {
+        if (consumerGroup.isEmpty() || !probeInFlight.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Admin client = admin();
+            client.listConsumerGroupOffsets(consumerGroup, new ListConsumerGroupOffsetsOptions().timeoutMs(KAFKA_TIMEOUT_MS))
+                    .partitionsToOffsetAndMetadata().toCompletionStage()
+                    .thenCompose(committed -> endOffsets(client, committed.keySet())
+                            .thenAccept(endOffsets -> recordOffsets(committed, endOffsets)))
+                    .whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            probeFailed(error);
+                        }
+                        probeInFlight.set(false);
+                    });
+        } catch (RuntimeException e) {
+            probeFailed(e);
+            probeInFlight.set(false);
+        }
+    }
+
+    /**
+     * Lag of the last batch applied in-process, if the embedded applier has applied anything.
+     */
+    public Duration lastApplyLag() {
+        return lastApplyLag.get();
+    }
+
+    /**
+     * Age of the newest replicated row, or null when no row carries a source timestamp yet.
+     */
+    public Duration freshness() {
+        Instant newest = newestSourceTs.get();
+        return newest != null ? Duration.between(newest, clock.instant()) : null;
+    }
+
+    /**
+     * Consumer group backlog, or null when no group is monitored or the last probe failed.
+     */
+    public ConsumerLag consumerLag() {
+        return consumerLag.get();
+    }
+
+    public Instant now() {
+        return clock.instant();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (admin != null) {
+            admin.close(Duration.ofSeconds(1));
+            admin = null;
+        }
+    }
+
+    private static CompletionStage<Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo>> endOffsets(
+            Admin client, Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        partitions.forEach(partition -> latest.put(partition, OffsetSpec.latest()));
+        return client.listOffsets(latest, new ListOffsetsOptions().timeoutMs(KAFKA_TIMEOUT_MS)).all().toCompletionStage();
+    }
+
+    private synchronized void recordOffsets(Map<TopicPartition, OffsetAndMetadata> committed,
+                                            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets) {
+        if (committed.isEmpty()) {
+            // The group has not committed anything yet: nothing to compare with
+            consumerLag.set(null);
+            return;
+        }
+        long committedTotal = 0;
+        long pending = 0;
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : committed.entrySet()) {
+            ListOffsetsResult.ListOffsetsResultInfo end = endOffsets.get(entry.getKey());
+            if (entry.getValue() != null && end != null) {
+                committedTotal += entry.getValue().offset();
+                pending += Math.max(0, end.offset() - entry.getValue().offset());
+            }
+        }
+        Instant now = clock.instant();
+        if (pending == 0 || committedTotal > lastCommitted || lastProgress.get() == null) {
+            lastProgress.accumulateAndGet(now, (current, candidate) -> current == null || candidate.isAfter(current) ? candidate : current);
+        }
+        lastCommitted = committedTotal;
+        consumerLag.set(new ConsumerLag(consumerGroup, pending, lastProgress.get(), now));
+    }
+
+    private synchronized Admin admin() {
+        if (admin == null) {
+            KafkaAdmin kafka = kafkaAdmin.getIfAvailable();
+            if (kafka == null) {
+                throw new IllegalStateException("No KafkaAdmin to probe consumer group " + consumerGroup);
+            }
+            admin = Admin.create(kafka.getConfigurationProperties());
+        }
+        return admin;
+    }
+
+    // A client of an unreachable cluster keeps reconnecting in the background, so it is recreated on the next probe
+    private void probeFailed(Throwable error) {
+        log.debug("Consumer lag probe of group {} failed: {}", consumerGroup, error.getMessage());
+        consumerLag.set(null);
+        close();
+    }
+
+    private double freshnessMillis() {
+        Duration freshness = freshness();
+        return freshness != null ? freshness.toMillis() : Double.NaN;
+    }
+
+    private double pendingRecords() {
+        ConsumerLag lag = consumerLag.get();
+        return lag != null ? lag.pending() : Double.NaN;
+    }
+}
@@ -0,0 +1,31 @@
+package rs.filisova.template.cdc;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Thresholds and probe settings of the Oracle -> Postgres replication lag monitoring.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.replication.lag")
+public class ReplicationLagProperties {
+
+    /**
+     * Lag above which the replicationLag health indicator (and readiness) reports DEGRADED.
+     */
+    private Duration degradedThreshold = Duration.ofMinutes(1);
+
+    /**
+     * How often max(source_ts) of postgres_users and the consumer group lag are probed.
+     */
+    private Duration probeInterval = Duration.ofSeconds(15);
+
+    /**
+     * Kafka consumer group whose backlog is the replication lag; defaults to app.cdc.applier.group-id while the
+     * embedded applier is enabled. For the ksqlDB/JDBC sink pipeline: connect-postgres-enriched-sink-connector.
+     * Empty: no lag probe, and the health indicator reports UP with pending=unknown.
+     */
+    private String consumerGroup = "";
+}
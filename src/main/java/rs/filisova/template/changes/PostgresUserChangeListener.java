@@ -0,0 +1,174 @@
+package rs.filisova.template.changes;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import rs.filisova.template.config.PostgresUserCacheProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Listens on the postgres_users_changed channel over a dedicated connection (outside the pool, since LISTEN
+ * is tied to the session) and republishes notifications as {@link PostgresUserChangedEvent}s.
+ * <p>
+ * Notifications sent while the connection is down are lost, so after every (re)connect a flush event is
+ * published. {@link #isConnected()} and {@link #getEpoch()} let consumers bypass or discard cached state
+ * that may have missed notifications.
+ */
+@Slf4j
+@Component
+public class PostgresUserChangeListener implements SmartLifecycle {
+
+    static final String CHANNEL = "postgres_users_changed";
+
+    private final DataSourceProperties dataSourceProperties;
+    private final PostgresUserCacheProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter reconnects;
+
+    private final AtomicLong epoch = new AtomicLong();
+    private volatile boolean connected;
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread thread;
+
+    public PostgresUserChangeListener(@Qualifier("postgresDataSourceProperties") DataSourceProperties dataSourceProperties,
+                                      PostgresUserCacheProperties properties,
+                                      ApplicationEventPublisher eventPublisher,
+                                      MeterRegistry meterRegistry) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.reconnects = Counter.builder("postgres.listen.reconnects")
+                .description("Reconnects of the LISTEN connection for postgres_users changes")
+                .register(meterRegistry);
+        Gauge.builder("postgres.listen.connected", this, listener -> listener.connected ? 1 : 0)
+                .description("Whether postgres_users change notifications are being received")
+                .register(meterRegistry);
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Changes whenever the connection is lost or re-established.
+     */
+    public long getEpoch() {
+        return epoch.get();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::listen, "pg-listen-" + CHANNEL);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Connection current = connection;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException ignored) {
+                // the listen loop ends anyway
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection listenConnection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                connection = listenConnection;
+                try (Statement statement = listenConnection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                // Subscribed first, flushed second: nothing committed after this point can be missed
+                epoch.incrementAndGet();
+                eventPublisher.publishEvent(PostgresUserChangedEvent.flush(0));
+                connected = true;
+                log.info("Listening for {} notifications", CHANNEL);
+                receive(listenConnection);
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("{} listener connection failed, retrying in {}: {}", CHANNEL, properties.getReconnectBackoff(), e.getMessage());
+                }
+            } finally {
+                if (connected) {
+                    connected = false;
+                    epoch.incrementAndGet();
+                }
+                connection = null;
+            }
+            if (running) {
+                reconnects.increment();
+                sleep();
+            }
+        }
+    }
+
+    private void receive(Connection listenConnection) throws SQLException {
+        PGConnection pgConnection = listenConnection.unwrap(PGConnection.class);
+        int pollTimeoutMillis = (int) properties.getListenPollTimeout().toMillis();
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMillis);
+            if (notifications == null || notifications.length == 0) {
+                if (!listenConnection.isValid(5)) {
+                    throw new SQLException("LISTEN connection is no longer valid");
+                }
+                continue;
+            }
+            for (PGNotification notification : notifications) {
+                PostgresUserChangedEvent event = parse(notification.getParameter());
+                if (event != null) {
+                    eventPublisher.publishEvent(event);
+                }
+            }
+        }
+    }
+
+    private static PostgresUserChangedEvent parse(String payload) {
+        int comma = payload.indexOf(',');
+        try {
+            String id = comma >= 0 ? payload.substring(0, comma) : payload;
+            long changedAt = comma >= 0 ? Long.parseLong(payload.substring(comma + 1)) : 0;
+            return "*".equals(id) ? PostgresUserChangedEvent.flush(changedAt) : new PostgresUserChangedEvent(Long.valueOf(id), changedAt);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed {} payload: {}", CHANNEL, payload);
+            return null;
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(properties.getReconnectBackoff().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package rs.filisova.template.changes;
+
+/**
+ * A committed change of postgres_users, received over LISTEN/NOTIFY.
+ *
+ * @param id         changed row, or null when every row must be considered changed (flush)
+ * @param changedAt  time the change was made in Postgres, epoch millis; 0 if unknown
+ */
+public record PostgresUserChangedEvent(Long id, long changedAt) {
+
+    public static PostgresUserChangedEvent flush(long changedAt) {
+        return new PostgresUserChangedEvent(null, changedAt);
+    }
+
+    public boolean isFlush() {
+        return id == null;
+    }
+}
@@ -0,0 +1,149 @@
+package rs.filisova.template.coalescing;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Collects concurrent lookups by key into one batched query (DataLoader-style).
+ * The first lookup of a batch waits up to {@code maxWait} for others to join and then runs the query itself on
+ * its own thread; the lookup that fills the batch to {@code maxBatchSize} runs it at once. Lookups of the same key
+ * share one result. A batch accepts new keys only until its query starts, so every result is read after the
+ * lookup began.
+ * Metrics: lookup.batch.size tagged with the coalescer name (distinct keys per query).
+ */
+public class LookupCoalescer<K, V> {
+
+    private final Function<List<K>, Map<K, V>> batchLoader;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final DistributionSummary batchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Batch<K, V> pending;
+
+    /**
+     * @param batchLoader loads the given keys with one query; keys that do not exist are left out of the result
+     */
+    public LookupCoalescer(String name,
+                           Function<List<K>, Map<K, V>> batchLoader,
+                           LookupCoalescingProperties properties,
+                           MeterRegistry meterRegistry) {
+        if (properties.getMaxBatchSize() < 1 || properties.getMaxBatchSize() > 1000) {
+            throw new IllegalArgumentException("app.lookup.coalescing.max-batch-size must be between 1 and 1000");
+        }
+        this.batchLoader = batchLoader;
+        this.enabled = properties.isEnabled() && properties.getMaxBatchSize() > 1 && !properties.getMaxWait().isZero();
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.maxWaitNanos = properties.getMaxWait().toNanos();
+        this.batchSize = DistributionSummary.builder("lookup.batch.size")
+                .description("Distinct keys loaded per batched lookup query")
+                .tag("name", name)
+                .publishPercentileHistogram()
+                .maximumExpectedValue((double) maxBatchSize)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the value, or null if the key does not exist; exceptions of the batch query are rethrown to every
+     * lookup of the batch
+     */
+    public V get(K key) {
+        if (!enabled) {
+            batchSize.record(1);
+            return batchLoader.apply(List.of(key)).get(key);
+        }
+        Batch<K, V> batch;
+        CompletableFuture<V> result;
+        boolean first;
+        boolean full;
+        lock.lock();
+        try {
+            first = pending == null;
+            if (first) {
+                pending = new Batch<>(Thread.currentThread());
+            }
+            batch = pending;
+            result = batch.results.computeIfAbsent(key, ignored -> new CompletableFuture<>());
+            full = batch.results.size() >= maxBatchSize;
+            if (full) {
+                pending = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full) {
+            run(batch);
+            // The first lookup may still be parked for the rest of maxWait
+            LockSupport.unpark(batch.first);
+        } else if (first) {
+            long deadline = System.nanoTime() + maxWaitNanos;
+            long remaining;
+            while (pending == batch && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+            if (close(batch)) {
+                run(batch);
+            }
+        }
+        return join(result);
+    }
+
+    // False when the lookup that filled the batch has already taken it
+    private boolean close(Batch<K, V> batch) {
+        lock.lock();
+        try {
+            if (pending != batch) {
+                return false;
+            }
+            pending = null;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run(Batch<K, V> batch) {
+        batchSize.record(batch.results.size());
+        try {
+            Map<K, V> loaded = batchLoader.apply(List.copyOf(batch.results.keySet()));
+            batch.results.forEach((key, result) -> result.complete(loaded.get(key)));
+        } catch (Throwable e) {
+            batch.results.values().forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    // Only modified under the lock while pending; read-only once closed
+    private static final class Batch<K, V> {
+
+        final Map<K, CompletableFuture<V>> results = new LinkedHashMap<>();
+        final Thread first;
+
+        Batch(Thread first) {
+            this.first = first;
+        }
+    }
+}
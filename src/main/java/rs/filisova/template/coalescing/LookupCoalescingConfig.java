@@ -0,0 +1,42 @@
+package rs.filisova.template.coalescing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import rs.filisova.template.entity.OracleUserEntity;
+import rs.filisova.template.entity.PostgresUserEntity;
+import rs.filisova.template.repository.OracleUserRepository;
+import rs.filisova.template.repository.PostgresUserRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Coalescers of the single-user lookups; each batch is one findAllById (WHERE id IN (...)) query.
+ */
+@Configuration
+@EnableConfigurationProperties(LookupCoalescingProperties.class)
+public class LookupCoalescingConfig {
+
+    @Bean
+    public LookupCoalescer<Long, PostgresUserEntity> postgresUserLookups(
+            PostgresUserRepository repository, LookupCoalescingProperties properties, MeterRegistry meterRegistry) {
+        return new LookupCoalescer<>("postgresUsers",
+                ids -> byId(repository.findAllById(ids), PostgresUserEntity::getId), properties, meterRegistry);
+    }
+
+    @Bean
+    public LookupCoalescer<Long, OracleUserEntity> oracleUserLookups(
+            OracleUserRepository repository, LookupCoalescingProperties properties, MeterRegistry meterRegistry) {
+        return new LookupCoalescer<>("oracleUsers",
+                ids -> byId(repository.findAllById(ids), OracleUserEntity::getId), properties, meterRegistry);
+    }
+
+    private static <T> Map<Long, T> byId(Iterable<T> rows, Function<T, Long> id) {
+        Map<Long, T> result = new HashMap<>();
+        rows.forEach(row -> result.put(id.apply(row), row));
+        return result;
+    }
+}
@@ -0,0 +1,29 @@
+package rs.filisova.template.coalescing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the by-id lookup coalescers (GET /postgres-users/{id}, GET /oracle/users/{id}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.lookup.coalescing")
+public class LookupCoalescingProperties {
+
+    /**
+     * When disabled every lookup runs its own query immediately.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Distinct ids per batched query; a full batch is sent without waiting. At most 1000 (Oracle IN-list limit).
+     */
+    private int maxBatchSize = 100;
+
+    /**
+     * How long the first lookup of a batch waits for others to join; this is added to its latency.
+     */
+    private Duration maxWait = Duration.ofNanos(200_000);
+}
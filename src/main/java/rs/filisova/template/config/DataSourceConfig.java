@@ -1,5 +1,6 @@
 package rs.filisova.template.config;
 
+import com.zaxxer.hikari.HikariDataSource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
@@ -11,6 +12,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -48,13 +50,15 @@ public class DataSourceConfig {
     /**
      * PostgreSQL DataSource - PRIMARY
      * Used by Liquibase for schema migrations
+     * Pool settings: spring.datasource.postgres.hikari.*
      */
     @Primary
     @Bean(name = "postgresDataSource")
-    public DataSource postgresDataSource(
+    @ConfigurationProperties("spring.datasource.postgres.hikari")
+    public HikariDataSource postgresDataSource(
             @Qualifier("postgresDataSourceProperties") DataSourceProperties properties) {
         log.info("Configuring PostgreSQL datasource: {}", properties.getUrl());
-        return properties.initializeDataSourceBuilder().build();
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
     }
 
     /**
@@ -82,6 +86,16 @@ public class DataSourceConfig {
         return new JpaTransactionManager(Objects.requireNonNull(entityManagerFactory.getObject()));
     }
 
+    /**
+     * PostgreSQL JdbcTemplate - PRIMARY
+     * Declared explicitly because oracleJdbcTemplate disables the auto-configured one
+     */
+    @Primary
+    @Bean(name = "postgresJdbcTemplate")
+    public JdbcTemplate postgresJdbcTemplate(@Qualifier("postgresDataSource") DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
     // ============================================
     // Oracle DataSource Configuration
     // NO LIQUIBASE - Manual management via code
@@ -99,12 +113,14 @@ public class DataSourceConfig {
     /**
      * Oracle DataSource - SECONDARY
      * NO Liquibase migrations, managed via code only
+     * Pool settings: spring.datasource.oracle.hikari.*
      */
     @Bean(name = "oracleDataSource")
-    public DataSource oracleDataSource(
+    @ConfigurationProperties("spring.datasource.oracle.hikari")
+    public HikariDataSource oracleDataSource(
             @Qualifier("oracleDataSourceProperties") DataSourceProperties properties) {
         log.info("Configuring Oracle datasource: {}", properties.getUrl());
         log.warn("Oracle datasource configured WITHOUT Liquibase - schema management via code only");
-        return properties.initializeDataSourceBuilder().build();
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
     }
 }
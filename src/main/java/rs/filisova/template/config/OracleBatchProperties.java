@@ -0,0 +1,22 @@
+package rs.filisova.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the JDBC batch write endpoints for Oracle tables.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.oracle.batch")
+public class OracleBatchProperties {
+
+    /**
+     * Number of rows sent to Oracle per JDBC batch execution.
+     */
+    private int size = 500;
+
+    /**
+     * Maximum number of items accepted in one batch request.
+     */
+    private int maxItems = 50000;
+}
@@ -2,12 +2,14 @@ package rs.filisova.template.config;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -22,6 +24,7 @@ import java.util.Objects;
  */
 @Slf4j
 @Configuration
+@EnableConfigurationProperties(OracleBatchProperties.class)
 @EnableJpaRepositories(
         basePackages = "rs.filisova.template.repository",
         entityManagerFactoryRef = "oracleEntityManagerFactory",
@@ -59,4 +62,12 @@ public class OracleJpaConfig {
             @Qualifier("oracleEntityManagerFactory") LocalContainerEntityManagerFactoryBean entityManagerFactory) {
         return new JpaTransactionManager(Objects.requireNonNull(entityManagerFactory.getObject()));
     }
+
+    /**
+     * Oracle JdbcTemplate for batch writes; participates in oracleTransactionManager transactions
+     */
+    @Bean(name = "oracleJdbcTemplate")
+    public JdbcTemplate oracleJdbcTemplate(@Qualifier("oracleDataSource") DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
 }
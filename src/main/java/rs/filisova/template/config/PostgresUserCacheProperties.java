@@ -0,0 +1,33 @@
+package rs.filisova.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the per-id cache of postgres_users reads and of its LISTEN/NOTIFY invalidation.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.postgres.user-cache")
+public class PostgresUserCacheProperties {
+
+    private boolean enabled = true;
+
+    private long maximumSize = 10_000;
+
+    /**
+     * Safety net for lost notifications; normally entries are dropped by NOTIFY long before.
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+    /**
+     * How long the listener waits for notifications before checking that its connection is still alive.
+     */
+    private Duration listenPollTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Pause before reconnecting the listener; the cache is bypassed meanwhile.
+     */
+    private Duration reconnectBackoff = Duration.ofSeconds(5);
+}
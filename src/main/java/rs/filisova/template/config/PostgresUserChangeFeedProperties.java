@@ -0,0 +1,26 @@
+package rs.filisova.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the postgres_users delta feed (GET /postgres-users/changes).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.postgres.changes")
+public class PostgresUserChangeFeedProperties {
+
+    private int defaultSize = 500;
+
+    private int maxSize = 5000;
+
+    /**
+     * How long tombstones of deleted ids are kept. Tokens older than this are rejected (410),
+     * the client has to re-read the full list.
+     */
+    private Duration tombstoneRetention = Duration.ofDays(30);
+
+    private Duration purgeInterval = Duration.ofHours(1);
+}
@@ -0,0 +1,33 @@
+package rs.filisova.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the fuzzy name search over postgres_users.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.postgres.search")
+public class PostgresUserSearchProperties {
+
+    private int defaultLimit = 20;
+
+    private int maxLimit = 100;
+
+    /**
+     * Server-side statement_timeout of one search query.
+     */
+    private Duration timeout = Duration.ofSeconds(2);
+
+    /**
+     * pg_trgm word_similarity threshold (0-1) a name must reach to be returned.
+     */
+    private double similarityThreshold = 0.3;
+
+    /**
+     * Shorter queries produce too few trigrams to use the index.
+     */
+    private int minQueryLength = 3;
+}
@@ -0,0 +1,54 @@
+package rs.filisova.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the Server-Sent Events stream of postgres_users changes (GET /postgres-users/stream).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.postgres.stream")
+public class PostgresUserStreamProperties {
+
+    /**
+     * Pending changes per subscriber; changes of the same id are coalesced, a subscriber with more distinct
+     * pending ids is disconnected and resumes through Last-Event-ID.
+     */
+    private int bufferSize = 256;
+
+    /**
+     * Connection lifetime; browsers' EventSource reconnects with Last-Event-ID afterwards.
+     */
+    private Duration emitterTimeout = Duration.ofMinutes(30);
+
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * Fallback poll of the change feed when no notification arrives (lost NOTIFY, transactions finishing
+     * out of order).
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * Rows read per change feed query, both for broadcasting and for resuming subscribers.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Changes replayed on resume before the subscriber is told to reload instead (event "reset").
+     */
+    private int maxReplay = 10_000;
+
+    /**
+     * Threads writing to subscriber connections.
+     */
+    private int senderThreads = 4;
+
+    /**
+     * Longest one write to a subscriber may block. A client that stops reading is disconnected after it, and a
+     * replacement sender thread serves the others until the blocked write returns.
+     */
+    private Duration writeTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,33 @@
+package rs.filisova.template.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import rs.filisova.template.entity.OracleUserGrantEntity;
+import rs.filisova.template.entity.OracleUserRoleEntity;
+import rs.filisova.template.repository.OracleUserGrantRepository;
+import rs.filisova.template.repository.OracleUserRoleRepository;
+import rs.filisova.template.service.ReferenceDataCache;
+
+/**
+ * In-process caches for the Oracle reference tables; also registers the settings of the postgres_users per-id cache.
+ * Metrics are published as cache.* meters tagged with the cache name.
+ */
+@Configuration
+@EnableConfigurationProperties({ReferenceCacheProperties.class, PostgresUserCacheProperties.class, PostgresUserSearchProperties.class,
+        PostgresUserChangeFeedProperties.class, PostgresUserStreamProperties.class})
+public class ReferenceCacheConfig {
+
+    @Bean
+    public ReferenceDataCache<OracleUserRoleEntity> oracleRoleCache(
+            OracleUserRoleRepository repository, ReferenceCacheProperties properties, MeterRegistry meterRegistry) {
+        return new ReferenceDataCache<>("oracleRoles", repository::findById, repository::findAll, properties, meterRegistry);
+    }
+
+    @Bean
+    public ReferenceDataCache<OracleUserGrantEntity> oracleGrantCache(
+            OracleUserGrantRepository repository, ReferenceCacheProperties properties, MeterRegistry meterRegistry) {
+        return new ReferenceDataCache<>("oracleGrants", repository::findById, repository::findAll, properties, meterRegistry);
+    }
+}
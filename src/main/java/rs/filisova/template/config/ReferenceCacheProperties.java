@@ -0,0 +1,29 @@
+package rs.filisova.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the in-process cache for Oracle reference tables (roles, grants).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.oracle.reference-cache")
+public class ReferenceCacheProperties {
+
+    /**
+     * Maximum number of cached ids per reference table.
+     */
+    private long maximumSize = 1000;
+
+    /**
+     * Age after which the next read triggers a background reload while the stale value is still served.
+     */
+    private Duration refreshAfterWrite = Duration.ofMinutes(1);
+
+    /**
+     * Hard upper bound on staleness; entries older than this are reloaded synchronously.
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+}
@@ -0,0 +1,32 @@
+package rs.filisova.template.controller;
+
+/**
+ * ETag values for conditional GET; pass them to {@code WebRequest.checkNotModified}.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String strong(Object... parts) {
+        return "\"" + join(parts) + "\"";
+    }
+
+    /**
+     * For responses that may change without the validator changing (e.g. planner estimates).
+     */
+    static String weak(Object... parts) {
+        return "W/" + strong(parts);
+    }
+
+    private static String join(Object... parts) {
+        StringBuilder value = new StringBuilder();
+        for (Object part : parts) {
+            if (!value.isEmpty()) {
+                value.append('-');
+            }
+            value.append(part);
+        }
+        return value.toString();
+    }
+}
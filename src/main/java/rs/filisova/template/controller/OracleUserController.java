@@ -5,6 +5,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,8 +13,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import rs.filisova.template.dto.BatchItemResultDTO;
 import rs.filisova.template.dto.OracleUserDTO;
 import rs.filisova.template.entity.OracleUserEntity;
 import rs.filisova.template.entity.OracleUserGrantEntity;
@@ -44,6 +49,21 @@ public class OracleUserController {
         return oracleUserService.getAllUsers();
     }
 
+    @GetMapping(value = "users", params = "ids")
+    @Operation(summary = "Получение нескольких пользователей по списку ID одним запросом",
+            description = "Порядок как в запросе, несуществующие ID пропускаются; не более " + OracleUserService.MAX_IDS + " ID")
+    public List<OracleUserDTO> getUsersByIds(@RequestParam List<Long> ids) {
+        log.info("Get Oracle users by IDs: {}", ids);
+        return oracleUserService.getUsersByIds(ids);
+    }
+
+    @GetMapping(value = "users/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Потоковая выгрузка всех пользователей Oracle в формате NDJSON")
+    public StreamingResponseBody exportUsers() {
+        log.info("Export Oracle users as NDJSON");
+        return oracleUserService::exportUsers;
+    }
+
     @GetMapping("users/{id}")
     @Operation(summary = "Получение пользователя по ID")
     public OracleUserDTO getUserById(@PathVariable Long id) {
@@ -59,6 +79,21 @@ public class OracleUserController {
         oracleUserService.createUser(user);
     }
 
+    @PostMapping("users/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Пакетное создание пользователей (JDBC batch в одной транзакции)")
+    public List<BatchItemResultDTO> createUsers(@RequestBody List<OracleUserDTO> users) {
+        log.info("Create {} Oracle users in batch", users.size());
+        return oracleUserService.createUsers(users);
+    }
+
+    @PutMapping("users/batch")
+    @Operation(summary = "Пакетное обновление пользователей (JDBC batch в одной транзакции)")
+    public List<BatchItemResultDTO> updateUsers(@RequestBody List<OracleUserDTO> users) {
+        log.info("Update {} Oracle users in batch", users.size());
+        return oracleUserService.updateUsers(users);
+    }
+
     @PutMapping("users/{id}")
     @Operation(summary = "Обновление данных пользователя")
     public void updateUser(@PathVariable Long id, @RequestBody OracleUserDTO user) {
@@ -77,9 +112,12 @@ public class OracleUserController {
     // ===== Oracle User Grants =====
 
     @GetMapping("grants")
-    @Operation(summary = "Получение всех грантов пользователей")
-    public List<OracleUserGrantEntity> getAllGrants() {
+    @Operation(summary = "Получение всех грантов пользователей", description = "Поддерживает ETag/If-None-Match")
+    public List<OracleUserGrantEntity> getAllGrants(WebRequest request) {
         log.info("Get all Oracle user grants");
+        if (request.checkNotModified(ETags.strong("grants", oracleUserGrantService.getAllGrantsVersion()))) {
+            return null;
+        }
         return oracleUserGrantService.getAllGrants();
     }
 
@@ -98,6 +136,21 @@ public class OracleUserController {
         oracleUserGrantService.createGrant(grant.getName(), grant.getDescribe());
     }
 
+    @PostMapping("grants/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Пакетное создание грантов (JDBC batch в одной транзакции)")
+    public List<BatchItemResultDTO> createGrants(@RequestBody List<OracleUserGrantEntity> grants) {
+        log.info("Create {} Oracle user grants in batch", grants.size());
+        return oracleUserGrantService.createGrants(grants);
+    }
+
+    @PutMapping("grants/batch")
+    @Operation(summary = "Пакетное обновление грантов (JDBC batch в одной транзакции)")
+    public List<BatchItemResultDTO> updateGrants(@RequestBody List<OracleUserGrantEntity> grants) {
+        log.info("Update {} Oracle user grants in batch", grants.size());
+        return oracleUserGrantService.updateGrants(grants);
+    }
+
     @PutMapping("grants/{id}")
     @Operation(summary = "Обновление данных гранта")
     public void updateGrant(@PathVariable Long id, @RequestBody OracleUserGrantEntity grant) {
@@ -116,9 +169,12 @@ public class OracleUserController {
     // ===== Oracle User Roles =====
 
     @GetMapping("roles")
-    @Operation(summary = "Получение всех ролей пользователей")
-    public List<OracleUserRoleEntity> getAllRoles() {
+    @Operation(summary = "Получение всех ролей пользователей", description = "Поддерживает ETag/If-None-Match")
+    public List<OracleUserRoleEntity> getAllRoles(WebRequest request) {
         log.info("Get all Oracle user roles");
+        if (request.checkNotModified(ETags.strong("roles", oracleUserRoleService.getAllRolesVersion()))) {
+            return null;
+        }
         return oracleUserRoleService.getAllRoles();
     }
 
@@ -137,6 +193,21 @@ public class OracleUserController {
         oracleUserRoleService.createRole(role.getName(), role.getDescribe());
     }
 
+    @PostMapping("roles/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Пакетное создание ролей (JDBC batch в одной транзакции)")
+    public List<BatchItemResultDTO> createRoles(@RequestBody List<OracleUserRoleEntity> roles) {
+        log.info("Create {} Oracle user roles in batch", roles.size());
+        return oracleUserRoleService.createRoles(roles);
+    }
+
+    @PutMapping("roles/batch")
+    @Operation(summary = "Пакетное обновление ролей (JDBC batch в одной транзакции)")
+    public List<BatchItemResultDTO> updateRoles(@RequestBody List<OracleUserRoleEntity> roles) {
+        log.info("Update {} Oracle user roles in batch", roles.size());
+        return oracleUserRoleService.updateRoles(roles);
+    }
+
     @PutMapping("roles/{id}")
     @Operation(summary = "Обновление данных роли")
     public void updateRole(@PathVariable Long id, @RequestBody OracleUserRoleEntity role) {
@@ -1,22 +1,46 @@
 package rs.filisova.template.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import rs.filisova.template.dto.CursorPageDTO;
+import rs.filisova.template.dto.PostgresUserChangeFeedDTO;
 import rs.filisova.template.dto.PostgresUserDTO;
+import rs.filisova.template.dto.PostgresUserFilter;
+import rs.filisova.template.dto.PostgresUserIngestResultDTO;
+import rs.filisova.template.dto.PostgresUserSearchResultDTO;
+import rs.filisova.template.service.PostgresUserCache;
+import rs.filisova.template.service.PostgresUserChangeFeedService;
+import rs.filisova.template.service.PostgresUserIngestService;
+import rs.filisova.template.service.PostgresUserQueryService;
+import rs.filisova.template.service.PostgresUserSearchService;
 import rs.filisova.template.service.PostgresUserService;
+import rs.filisova.template.service.PostgresUserStreamService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -25,20 +49,123 @@ import java.util.List;
 @Tag(name = "Postgres Users", description = "API для управления пользователями в PostgreSQL")
 public class PostgresUserController {
 
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     private final PostgresUserService postgresUserService;
+    private final PostgresUserIngestService postgresUserIngestService;
+    private final PostgresUserQueryService postgresUserQueryService;
+    private final PostgresUserSearchService postgresUserSearchService;
+    private final PostgresUserChangeFeedService postgresUserChangeFeedService;
+    private final PostgresUserStreamService postgresUserStreamService;
 
     @GetMapping
-    @Operation(summary = "Получение всех пользователей из БД PostgreSQL")
-    public List<PostgresUserDTO> getAllPostgresUsers() {
-        log.info("Get all postgresUsers");
-        return postgresUserService.getAllPostgresUsers();
+    @Operation(summary = "Постраничное получение пользователей из БД PostgreSQL (keyset-пагинация по id)",
+            description = "Поддерживает ETag/If-None-Match: 304, если таблица не менялась")
+    public CursorPageDTO<PostgresUserDTO> getPostgresUsers(
+            @Parameter(description = "Вернуть пользователей с id больше указанного")
+            @RequestParam(required = false) Long afterId,
+            @Parameter(description = "Курсор nextCursor из предыдущего ответа (имеет приоритет над afterId)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы (1-" + PostgresUserService.MAX_PAGE_SIZE + ")")
+            @RequestParam(defaultValue = "" + PostgresUserService.DEFAULT_PAGE_SIZE) int size,
+            @Parameter(description = "Добавить приблизительное общее количество строк по статистике планировщика")
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            WebRequest request) {
+        log.info("Get postgresUsers page: afterId={}, cursor={}, size={}", afterId, cursor, size);
+        // The planner estimate can move without any write, so the ETag is only weak when it is included
+        String version = postgresUserService.getPostgresUsersVersion();
+        String etag = includeTotal ? ETags.weak("pu", version) : ETags.strong("pu", version);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return postgresUserService.getPostgresUsersPage(afterId, cursor, size, includeTotal);
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Получение нескольких пользователей по списку ID одним запросом",
+            description = "Порядок как в запросе, несуществующие ID пропускаются; не более "
+                    + PostgresUserService.MAX_PAGE_SIZE + " ID")
+    public List<PostgresUserDTO> getPostgresUsersByIds(
+            @Parameter(description = "ID пользователей через запятую")
+            @RequestParam List<Long> ids) {
+        log.info("Get postgresUsers by IDs: {}", ids);
+        return postgresUserService.getPostgresUsersByIds(ids);
+    }
+
+    @GetMapping("/query")
+    @Operation(summary = "Поиск пользователей с фильтрами, выбором полей и сортировкой по индексированным полям",
+            description = "Фильтры используют индексы role/gender/birth_date/name; пагинация курсором nextCursor, "
+                    + "курсор действителен только для той же сортировки")
+    public CursorPageDTO<Map<String, Object>> queryPostgresUsers(
+            @ParameterObject PostgresUserFilter filter,
+            @Parameter(description = "Возвращаемые поля через запятую (id всегда включается): id,name,birthDate,gender,role,grantField")
+            @RequestParam(required = false) List<String> fields,
+            @Parameter(description = "Поле сортировки: id, name, birthDate, gender, role")
+            @RequestParam(defaultValue = "id") String sort,
+            @Parameter(description = "Направление сортировки: asc или desc")
+            @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Курсор nextCursor из предыдущего ответа")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы (1-" + PostgresUserService.MAX_PAGE_SIZE + ")")
+            @RequestParam(defaultValue = "" + PostgresUserService.DEFAULT_PAGE_SIZE) int size) {
+        log.info("Query postgresUsers: filter={}, fields={}, sort={} {}, cursor={}, size={}", filter, fields, sort, direction, cursor, size);
+        return postgresUserQueryService.query(filter, fields, sort, direction, cursor, size);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Нечёткий поиск пользователей по имени",
+            description = "Ранжирование по сходству (pg_trgm word_similarity), допускает опечатки и часть имени; "
+                    + "возвращает не более limit лучших совпадений, при превышении времени запроса - 504")
+    public List<PostgresUserSearchResultDTO> searchPostgresUsers(
+            @Parameter(description = "Строка поиска (не короче 3 символов)")
+            @RequestParam String q,
+            @Parameter(description = "Максимальное количество результатов (по умолчанию 20, не более 100)")
+            @RequestParam(required = false) Integer limit) {
+        log.info("Search postgresUsers: q={}, limit={}", q, limit);
+        return postgresUserSearchService.searchByName(q, limit);
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "Лента изменений пользователей с момента, заданного токеном",
+            description = "Без since возвращает все текущие строки как UPSERT; затем только созданные, изменённые (UPSERT) "
+                    + "и удалённые (DELETE) после токена. Клиент сохраняет nextToken и запрашивает дальше, пока hasMore=true. "
+                    + "Токен старше срока хранения удалений отклоняется с 410 - нужна полная перезагрузка")
+    public PostgresUserChangeFeedDTO getPostgresUserChanges(
+            @Parameter(description = "Токен nextToken из предыдущего ответа")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Размер страницы (по умолчанию 500, не более 5000)")
+            @RequestParam(required = false) Integer size) {
+        log.info("Get postgresUser changes: since={}, size={}", since, size);
+        return postgresUserChangeFeedService.getChanges(since, size);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Поток изменений пользователей (Server-Sent Events)",
+            description = "События upsert (создание или изменение, текущее состояние) и delete по мере фиксации в БД. "
+                    + "id события - токен ленты изменений: при переподключении с Last-Event-ID пропущенные события "
+                    + "досылаются. Медленный клиент отключается и догоняет через Last-Event-ID")
+    public SseEmitter streamPostgresUserChanges(
+            @Parameter(description = "id последнего полученного события (EventSource передаёт автоматически)")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return postgresUserStreamService.subscribe(lastEventId);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Потоковая выгрузка всех пользователей PostgreSQL в формате NDJSON")
+    public StreamingResponseBody exportPostgresUsers() {
+        log.info("Export postgresUsers as NDJSON");
+        return postgresUserService::exportPostgresUsers;
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Получение пользователя по ID")
-    public PostgresUserDTO getPostgresUserById(@PathVariable Long id) {
+    @Operation(summary = "Получение пользователя по ID", description = "Поддерживает ETag/If-None-Match по версии строки")
+    public PostgresUserDTO getPostgresUserById(@PathVariable Long id, WebRequest request) {
         log.info("Get postgresUser by ID {}", id);
-        return postgresUserService.getPostgresUserById(id);
+        PostgresUserCache.Entry postgresUser = postgresUserService.getPostgresUserById(id);
+        if (request.checkNotModified(ETags.strong("pu", id, postgresUser.rowVersion()))) {
+            return null;
+        }
+        return postgresUser.user();
     }
 
     @PostMapping
@@ -48,6 +175,18 @@ public class PostgresUserController {
         return postgresUserService.createPostgresUser(postgresUserDTO);
     }
 
+    @PostMapping(value = "/ingest", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    @Operation(summary = "Массовая загрузка пользователей (NDJSON или CSV с заголовком) через COPY с upsert по id")
+    public PostgresUserIngestResultDTO ingestPostgresUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException, SQLException {
+        PostgresUserIngestService.Format format = TEXT_CSV.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? PostgresUserIngestService.Format.CSV
+                : PostgresUserIngestService.Format.NDJSON;
+        log.info("Ingest postgresUsers as {}", format);
+        return postgresUserIngestService.ingest(body, format);
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Обновление данных пользователя")
     public PostgresUserDTO updatePostgresUser(@PathVariable Long id, @Valid @RequestBody PostgresUserDTO postgresUserDTO) {
@@ -0,0 +1,53 @@
+package rs.filisova.template.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import rs.filisova.template.dto.PostgresUserDTO;
+import rs.filisova.template.dto.PostgresUserFilter;
+import rs.filisova.template.service.PostgresUserReactiveService;
+
+/**
+ * Non-blocking read API over R2DBC. No request thread is held while rows are fetched: an NDJSON response
+ * is written as rows arrive, and the next rows are requested only after the previous ones were written.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/reactive/postgres-users")
+@RequiredArgsConstructor
+@Tag(name = "Postgres Users (reactive)", description = "Неблокирующее чтение пользователей PostgreSQL через R2DBC")
+public class PostgresUserReactiveController {
+
+    private final PostgresUserReactiveService postgresUserReactiveService;
+
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Потоковое получение пользователей с фильтрами (NDJSON с backpressure или JSON-массив)")
+    public Flux<PostgresUserDTO> getPostgresUsers(
+            @ParameterObject PostgresUserFilter filter,
+            @Parameter(description = "Вернуть пользователей с id больше указанного")
+            @RequestParam(required = false) Long afterId,
+            @Parameter(description = "Максимальное количество строк (1-" + PostgresUserReactiveService.MAX_LIMIT
+                    + "); дальше — с afterId последней полученной строки")
+            @RequestParam(defaultValue = "" + PostgresUserReactiveService.DEFAULT_LIMIT) int limit) {
+        log.info("Get postgresUsers reactively: filter={}, afterId={}, limit={}", filter, afterId, limit);
+        return postgresUserReactiveService.getPostgresUsers(filter, afterId, limit);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Получение пользователя по ID")
+    public Mono<PostgresUserDTO> getPostgresUserById(@PathVariable Long id) {
+        log.info("Get postgresUser reactively by ID {}", id);
+        return postgresUserReactiveService.getPostgresUserById(id);
+    }
+}
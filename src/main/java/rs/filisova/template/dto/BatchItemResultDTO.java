@@ -0,0 +1,28 @@
+package rs.filisova.template.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Результат обработки одного элемента пакетного запроса")
+public class BatchItemResultDTO {
+
+    @Schema(description = "Позиция элемента в запросе", example = "0")
+    private int index;
+
+    @Schema(description = "Идентификатор записи (null для созданных записей: id генерируется Oracle)", example = "1")
+    private Long id;
+
+    @Schema(description = "Статус обработки", example = "UPDATED")
+    private Status status;
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        NOT_FOUND
+    }
+}
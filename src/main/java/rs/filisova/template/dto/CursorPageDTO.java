@@ -0,0 +1,24 @@
+package rs.filisova.template.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Страница результатов с курсорной (keyset) пагинацией")
+public class CursorPageDTO<T> {
+
+    @Schema(description = "Элементы страницы")
+    private List<T> items;
+
+    @Schema(description = "Непрозрачный курсор следующей страницы (null, если страница последняя)", example = "aWQ6MTAw")
+    private String nextCursor;
+
+    @Schema(description = "Приблизительное общее количество строк по статистике планировщика (только при includeTotal=true)", example = "250000")
+    private Long approximateTotal;
+}
@@ -0,0 +1,31 @@
+package rs.filisova.template.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Изменение пользователя в ленте изменений")
+public class PostgresUserChangeDTO {
+
+    public enum Operation {
+        UPSERT, DELETE
+    }
+
+    @Schema(description = "Идентификатор пользователя")
+    private Long id;
+
+    @Schema(description = "UPSERT - пользователь создан или изменён, DELETE - удалён")
+    private Operation operation;
+
+    @Schema(description = "Текущее состояние пользователя (null для DELETE)")
+    private PostgresUserDTO user;
+
+    @Schema(description = "Время изменения")
+    private LocalDateTime changedAt;
+}
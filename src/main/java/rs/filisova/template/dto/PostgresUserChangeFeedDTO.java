@@ -0,0 +1,24 @@
+package rs.filisova.template.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Страница ленты изменений пользователей")
+public class PostgresUserChangeFeedDTO {
+
+    @Schema(description = "Изменения в порядке фиксации транзакций")
+    private List<PostgresUserChangeDTO> changes;
+
+    @Schema(description = "Непрозрачный токен для следующего запроса (since); сохраняется клиентом после применения изменений")
+    private String nextToken;
+
+    @Schema(description = "Есть ли уже доступные изменения после этой страницы")
+    private boolean hasMore;
+}
@@ -0,0 +1,28 @@
+package rs.filisova.template.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Data
+public class PostgresUserFilter {
+
+    @Schema(description = "Пол (точное совпадение)")
+    private String gender;
+
+    @Schema(description = "Роль (точное совпадение)")
+    private String role;
+
+    @Schema(description = "Начало имени")
+    private String namePrefix;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @Schema(description = "Дата рождения не раньше")
+    private LocalDate birthDateFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    @Schema(description = "Дата рождения не позже")
+    private LocalDate birthDateTo;
+}
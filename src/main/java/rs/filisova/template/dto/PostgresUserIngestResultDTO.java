@@ -0,0 +1,43 @@
+package rs.filisova.template.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Результат массовой загрузки пользователей PostgreSQL")
+public class PostgresUserIngestResultDTO {
+
+    @Schema(description = "Прочитано строк данных", example = "1000000")
+    private long linesRead;
+
+    @Schema(description = "Загружено строк в staging-таблицу через COPY", example = "999998")
+    private long rowsStaged;
+
+    @Schema(description = "Вставлено или обновлено строк в postgres_users", example = "999998")
+    private long rowsMerged;
+
+    @Schema(description = "Количество отклоненных строк", example = "2")
+    private long errorCount;
+
+    @Schema(description = "Первые отклоненные строки с номерами")
+    private List<LineError> errors;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Ошибка разбора или валидации строки")
+    public static class LineError {
+
+        @Schema(description = "Номер строки во входных данных (с 1)", example = "42")
+        private long line;
+
+        @Schema(description = "Описание ошибки", example = "name: must not be blank")
+        private String message;
+    }
+}
@@ -0,0 +1,19 @@
+package rs.filisova.template.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Результат нечёткого поиска по имени")
+public class PostgresUserSearchResultDTO {
+
+    @Schema(description = "Найденный пользователь")
+    private PostgresUserDTO user;
+
+    @Schema(description = "Сходство имени с запросом (pg_trgm word_similarity, 0-1)", example = "0.83")
+    private double similarity;
+}
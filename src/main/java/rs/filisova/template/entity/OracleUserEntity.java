@@ -2,6 +2,7 @@ package rs.filisova.template.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -9,6 +10,8 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDate;
 
@@ -28,11 +31,22 @@ public class OracleUserEntity {
 
     private String sex;
 
-    @ManyToOne
+    @Column(name = "role_id", insertable = false, updatable = false)
+    private Long roleId;
+
+    @Column(name = "grant_id", insertable = false, updatable = false)
+    private Long grantId;
+
+    // Lazy proxies: left out of toString/equals/hashCode, which would otherwise load them (or fail outside a session)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "role_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private OracleUserRoleEntity role;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "grant_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private OracleUserGrantEntity grant;
 }
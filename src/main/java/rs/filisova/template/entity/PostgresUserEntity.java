@@ -30,4 +30,8 @@ public class PostgresUserEntity {
 
     @Column(name = "grant_field")
     private String grantField;
+
+    // Maintained by the database (sequence default + update trigger), used for ETags
+    @Column(name = "row_version", insertable = false, updatable = false)
+    private Long rowVersion;
 }
@@ -0,0 +1,23 @@
+package rs.filisova.template.exception;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * Error body of every handler, in the spirit of RFC 7807: a fixed set of members where status and error (title)
+ * come from the HTTP status, message is the detail and path the instance. Field names stay the ones clients
+ * already parse. One record per response instead of a map.
+ */
+public record ApiError(LocalDateTime timestamp, int status, String error, String message, String path) {
+
+    public static ApiError of(HttpStatus status, String message, String path) {
+        return new ApiError(LocalDateTime.now(), status.value(), status.getReasonPhrase(), message, path);
+    }
+
+    public static ResponseEntity<ApiError> response(HttpStatus status, String message, HttpServletRequest request) {
+        return ResponseEntity.status(status).body(of(status, message, request.getRequestURI()));
+    }
+}
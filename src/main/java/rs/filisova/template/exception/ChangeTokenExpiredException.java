@@ -0,0 +1,11 @@
+package rs.filisova.template.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GONE)
+public class ChangeTokenExpiredException extends ClientErrorException {
+    public ChangeTokenExpiredException(String token) {
+        super("Change token is older than the tombstone retention, re-read the full list: " + token);
+    }
+}
@@ -0,0 +1,12 @@
+package rs.filisova.template.exception;
+
+/**
+ * Expected client error (unknown id, expired token). No stack trace is captured: these are thrown on every miss,
+ * the handler answers them without logging a trace, and filling one in dominates the cost of the miss path.
+ */
+public abstract class ClientErrorException extends RuntimeException {
+
+    protected ClientErrorException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,46 @@
+package rs.filisova.template.exception;
+
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logging of expected client errors: every occurrence at DEBUG, and per kind at most one WARN per interval
+ * carrying the number of occurrences since the previous one, so a client probing unknown ids cannot flood the log.
+ */
+final class ClientErrorLog {
+
+    private final Logger logger;
+    private final long intervalNanos;
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    ClientErrorLog(Logger logger, Duration interval) {
+        this.logger = logger;
+        this.intervalNanos = interval.toNanos();
+    }
+
+    void log(String kind, String message) {
+        logger.debug("{}: {}", kind, message);
+        Window window = windows.computeIfAbsent(kind, ignored -> new Window(System.nanoTime() - intervalNanos));
+        window.count.incrementAndGet();
+        long now = System.nanoTime();
+        long start = window.start.get();
+        if (now - start >= intervalNanos && window.start.compareAndSet(start, now)) {
+            logger.warn("{}: {} in the last {}s, latest: {}", kind, window.count.getAndSet(0),
+                    Math.max(1, Duration.ofNanos(now - start).toSeconds()), message);
+        }
+    }
+
+    private static final class Window {
+
+        private final AtomicLong start;
+        private final AtomicLong count = new AtomicLong();
+
+        private Window(long start) {
+            this.start = new AtomicLong(start);
+        }
+    }
+}
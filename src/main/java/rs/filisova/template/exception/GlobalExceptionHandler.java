@@ -1,165 +1,133 @@
 package rs.filisova.template.exception;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
-import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
-import java.time.LocalDateTime;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.time.Duration;
 import java.util.stream.Collectors;
 
+/**
+ * Maps exceptions to {@link ApiError} responses. Expected client errors (4xx) go through {@link ClientErrorLog};
+ * only server-side failures are logged at ERROR.
+ */
 @RestControllerAdvice(basePackages = "rs.filisova.template.controller")
 public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    private static final Duration CLIENT_ERROR_LOG_INTERVAL = Duration.ofSeconds(10);
+
+    private final ClientErrorLog clientErrors = new ClientErrorLog(logger, CLIENT_ERROR_LOG_INTERVAL);
+
     @ExceptionHandler(PostgresUserNotFoundException.class)
-    public ResponseEntity<Map<String, Object>> handlePostgresUserNotFoundException(
-            PostgresUserNotFoundException ex, WebRequest request) {
-        logger.error("PostgresUser not found: {}", ex.getMessage());
-        
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.NOT_FOUND.value());
-        body.put("error", HttpStatus.NOT_FOUND.getReasonPhrase());
-        body.put("message", ex.getMessage());
-        body.put("path", request.getDescription(false).replace("uri=", ""));
-
-        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+    public ResponseEntity<ApiError> handlePostgresUserNotFoundException(
+            PostgresUserNotFoundException ex, HttpServletRequest request) {
+        clientErrors.log("PostgresUser not found", ex.getMessage());
+        return ApiError.response(HttpStatus.NOT_FOUND, ex.getMessage(), request);
     }
 
     @ExceptionHandler(OracleUserNotFoundException.class)
-    public ResponseEntity<Map<String, Object>> handleOracleUserNotFoundException(
-            OracleUserNotFoundException ex, WebRequest request) {
-        logger.error("Oracle user not found: {}", ex.getMessage());
-        
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.NOT_FOUND.value());
-        body.put("error", HttpStatus.NOT_FOUND.getReasonPhrase());
-        body.put("message", ex.getMessage());
-        body.put("path", request.getDescription(false).replace("uri=", ""));
-
-        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+    public ResponseEntity<ApiError> handleOracleUserNotFoundException(
+            OracleUserNotFoundException ex, HttpServletRequest request) {
+        clientErrors.log("Oracle user not found", ex.getMessage());
+        return ApiError.response(HttpStatus.NOT_FOUND, ex.getMessage(), request);
     }
 
     @ExceptionHandler(OracleUserGrantNotFoundException.class)
-    public ResponseEntity<Map<String, Object>> handleOracleUserGrantNotFoundException(
-            OracleUserGrantNotFoundException ex, WebRequest request) {
-        logger.error("Oracle user grant not found: {}", ex.getMessage());
-        
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.NOT_FOUND.value());
-        body.put("error", HttpStatus.NOT_FOUND.getReasonPhrase());
-        body.put("message", ex.getMessage());
-        body.put("path", request.getDescription(false).replace("uri=", ""));
-
-        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+    public ResponseEntity<ApiError> handleOracleUserGrantNotFoundException(
+            OracleUserGrantNotFoundException ex, HttpServletRequest request) {
+        clientErrors.log("Oracle user grant not found", ex.getMessage());
+        return ApiError.response(HttpStatus.NOT_FOUND, ex.getMessage(), request);
     }
 
     @ExceptionHandler(OracleUserRoleNotFoundException.class)
-    public ResponseEntity<Map<String, Object>> handleOracleUserRoleNotFoundException(
-            OracleUserRoleNotFoundException ex, WebRequest request) {
-        logger.error("Oracle user role not found: {}", ex.getMessage());
-        
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.NOT_FOUND.value());
-        body.put("error", HttpStatus.NOT_FOUND.getReasonPhrase());
-        body.put("message", ex.getMessage());
-        body.put("path", request.getDescription(false).replace("uri=", ""));
-
-        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+    public ResponseEntity<ApiError> handleOracleUserRoleNotFoundException(
+            OracleUserRoleNotFoundException ex, HttpServletRequest request) {
+        clientErrors.log("Oracle user role not found", ex.getMessage());
+        return ApiError.response(HttpStatus.NOT_FOUND, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(ChangeTokenExpiredException.class)
+    public ResponseEntity<ApiError> handleChangeTokenExpiredException(
+            ChangeTokenExpiredException ex, HttpServletRequest request) {
+        clientErrors.log("Change token expired", ex.getMessage());
+        return ApiError.response(HttpStatus.GONE, ex.getMessage(), request);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Map<String, Object>> handleValidationExceptions(
-            MethodArgumentNotValidException ex, WebRequest request) {
-        logger.error("Validation error: {}", ex.getMessage());
-        
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.BAD_REQUEST.value());
-        body.put("error", HttpStatus.BAD_REQUEST.getReasonPhrase());
-        
+    public ResponseEntity<ApiError> handleValidationExceptions(
+            MethodArgumentNotValidException ex, HttpServletRequest request) {
         String errors = ex.getBindingResult()
                 .getFieldErrors()
                 .stream()
                 .map(error -> error.getField() + ": " + error.getDefaultMessage())
                 .collect(Collectors.joining(", "));
-        
-        body.put("message", errors);
-        body.put("path", request.getDescription(false).replace("uri=", ""));
-
-        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        clientErrors.log("Validation error", errors);
+        return ApiError.response(HttpStatus.BAD_REQUEST, errors, request);
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
-    public ResponseEntity<Map<String, Object>> handleIllegalArgumentException(
-            IllegalArgumentException ex, WebRequest request) {
-        logger.error("Illegal argument: {}", ex.getMessage());
-        
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.BAD_REQUEST.value());
-        body.put("error", HttpStatus.BAD_REQUEST.getReasonPhrase());
-        body.put("message", ex.getMessage());
-        body.put("path", request.getDescription(false).replace("uri=", ""));
-
-        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    public ResponseEntity<ApiError> handleIllegalArgumentException(
+            IllegalArgumentException ex, HttpServletRequest request) {
+        clientErrors.log("Illegal argument", ex.getMessage());
+        return ApiError.response(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
     }
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
-    public ResponseEntity<Map<String, Object>> handleHttpMessageNotReadableException(
-            HttpMessageNotReadableException ex, WebRequest request) {
-        logger.error("Malformed JSON request: {}", ex.getMessage());
-        
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.BAD_REQUEST.value());
-        body.put("error", HttpStatus.BAD_REQUEST.getReasonPhrase());
-        body.put("message", "Malformed JSON request");
-        body.put("path", request.getDescription(false).replace("uri=", ""));
-
-        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    public ResponseEntity<ApiError> handleHttpMessageNotReadableException(
+            HttpMessageNotReadableException ex, HttpServletRequest request) {
+        clientErrors.log("Malformed JSON request", ex.getMessage());
+        return ApiError.response(HttpStatus.BAD_REQUEST, "Malformed JSON request", request);
     }
 
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
-    public ResponseEntity<Map<String, Object>> handleMethodArgumentTypeMismatchException(
-            MethodArgumentTypeMismatchException ex, WebRequest request) {
-        logger.error("Type mismatch: {}", ex.getMessage());
-        
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.BAD_REQUEST.value());
-        body.put("error", HttpStatus.BAD_REQUEST.getReasonPhrase());
-        body.put("message", String.format("Invalid value '%s' for parameter '%s'", ex.getValue(), ex.getName()));
-        body.put("path", request.getDescription(false).replace("uri=", ""));
-
-        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    public ResponseEntity<ApiError> handleMethodArgumentTypeMismatchException(
+            MethodArgumentTypeMismatchException ex, HttpServletRequest request) {
+        String message = "Invalid value '" + ex.getValue() + "' for parameter '" + ex.getName() + "'";
+        clientErrors.log("Type mismatch", message);
+        return ApiError.response(HttpStatus.BAD_REQUEST, message, request);
+    }
+
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<ApiError> handleQueryTimeoutException(
+            QueryTimeoutException ex, HttpServletRequest request) {
+        logger.error("Query timeout: {}", ex.getMessage());
+        return ApiError.response(HttpStatus.GATEWAY_TIMEOUT, "Query timed out", request);
+    }
+
+    @ExceptionHandler(StatementBudgetExceededException.class)
+    public ResponseEntity<ApiError> handleStatementBudgetExceededException(
+            StatementBudgetExceededException ex, HttpServletRequest request) {
+        logger.error("Statement budget exceeded: {}", ex.getMessage(), ex);
+        return ApiError.response(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage(), request);
+    }
+
+    // The client is gone (e.g. an SSE subscriber dropped after a stalled write): there is no response to write to
+    @ExceptionHandler(AsyncRequestNotUsableException.class)
+    public void handleAsyncRequestNotUsableException(AsyncRequestNotUsableException ex) {
+        logger.debug("Async response no longer usable: {}", ex.getMessage());
     }
 
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<Map<String, Object>> handleGlobalException(
-            Exception ex, WebRequest request) {
+    public ResponseEntity<ApiError> handleGlobalException(
+            Exception ex, HttpServletRequest request, HttpServletResponse response) {
+        if (response.isCommitted()) {
+            // A streamed response (SSE, NDJSON export) failed mid-body, e.g. a write to a client that stopped reading
+            logger.warn("Failed after the response was committed: {}", ex.toString());
+            return null;
+        }
         logger.error("Unexpected error occurred: {}", ex.getMessage(), ex);
-        
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
-        body.put("error", HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase());
-        body.put("message", "An unexpected error occurred");
-        body.put("path", request.getDescription(false).replace("uri=", ""));
-
-        return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
+        return ApiError.response(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred", request);
     }
 }
@@ -0,0 +1,12 @@
+package rs.filisova.template.exception;
+
+/**
+ * A request tried to run more JDBC statements than its budget (app.jdbc.instrumentation.budget), usually an
+ * N+1 pattern. Keeps its stack trace: it points at the code issuing the statements.
+ */
+public class StatementBudgetExceededException extends RuntimeException {
+
+    public StatementBudgetExceededException(String endpoint, int budget) {
+        super("Request " + endpoint + " exceeded the budget of " + budget + " JDBC statements");
+    }
+}
@@ -0,0 +1,261 @@
+package rs.filisova.template.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every statement executed through the datasource (Hibernate and JdbcTemplate alike) and counts the rows
+ * read from its result sets. Metrics are tagged by datasource and repository method; the current
+ * {@link JdbcRequestContext}, if any, accumulates the same figures per HTTP request and enforces the budget.
+ * Connections, statements and result sets are JDK proxies; unwrap() reaches the driver objects as before.
+ */
+@Slf4j
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final int MAX_LOGGED_SQL_LENGTH = 300;
+
+    private final String name;
+    private final MeterRegistry meterRegistry;
+    private final long slowStatementNanos;
+    private final Map<RepositoryMethods.RepositoryMethod, StatementMeters> meters = new ConcurrentHashMap<>();
+
+    public InstrumentedDataSource(DataSource target, String name, JdbcInstrumentationProperties properties,
+                                  MeterRegistry meterRegistry) {
+        super(target);
+        this.name = name;
+        this.meterRegistry = meterRegistry;
+        this.slowStatementNanos = properties.getSlowStatementThreshold().toNanos();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(obtainTargetDataSource().getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(obtainTargetDataSource().getConnection(username, password)));
+    }
+
+    private StatementMeters meters(RepositoryMethods.RepositoryMethod method) {
+        return meters.computeIfAbsent(method, key -> new StatementMeters(
+                Timer.builder("jdbc.statements")
+                        .description("JDBC statement executions")
+                        .tag("datasource", name)
+                        .tag("repository", key.repository())
+                        .tag("method", key.method())
+                        .register(meterRegistry),
+                DistributionSummary.builder("jdbc.statement.rows")
+                        .description("Rows read from the result set of a JDBC statement")
+                        .tag("datasource", name)
+                        .tag("repository", key.repository())
+                        .tag("method", key.method())
+                        .register(meterRegistry)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Identity semantics for the proxies: Hibernate keys its resource registry by statement and result set.
+     */
+    private static Object objectMethod(Object proxy, Object target, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> target.toString();
+        };
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        return method.getDeclaringClass() == Object.class;
+    }
+
+    static String abbreviate(String sql) {
+        if (sql == null) {
+            return "(batch)";
+        }
+        return sql.length() <= MAX_LOGGED_SQL_LENGTH ? sql : sql.substring(0, MAX_LOGGED_SQL_LENGTH) + "...";
+    }
+
+    private record StatementMeters(Timer statements, DistributionSummary rows) {
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isObjectMethod(method)) {
+                return objectMethod(proxy, target, method, args);
+            }
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            if (result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                return InstrumentedDataSource.proxy(method.getReturnType(), new StatementHandler(statement, sql, (Connection) proxy));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private final Connection connection;
+        private ResultSet lastResultSet;
+        private ResultSet lastResultSetProxy;
+
+        private StatementHandler(Statement target, String preparedSql, Connection connection) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isObjectMethod(method)) {
+                return objectMethod(proxy, target, method, args);
+            }
+            String methodName = method.getName();
+            if (methodName.startsWith("execute")) {
+                return execute((Statement) proxy, method, args);
+            }
+            if (methodName.equals("getConnection")) {
+                return connection;
+            }
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            if (result instanceof ResultSet resultSet && methodName.equals("getResultSet")) {
+                return wrap(resultSet, (Statement) proxy, meters(RepositoryMethods.current()));
+            }
+            return result;
+        }
+
+        private Object execute(Statement proxy, Method method, Object[] args) throws Throwable {
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            RepositoryMethods.RepositoryMethod repositoryMethod = RepositoryMethods.current();
+            StatementMeters statementMeters = meters(repositoryMethod);
+            JdbcRequestContext context = JdbcRequestContext.current();
+            if (context != null) {
+                context.beforeStatement(name, sql);
+            }
+            long start = System.nanoTime();
+            try {
+                Object result = InstrumentedDataSource.invoke(target, method, args);
+                return result instanceof ResultSet resultSet ? wrap(resultSet, proxy, statementMeters) : result;
+            } finally {
+                long nanos = System.nanoTime() - start;
+                statementMeters.statements().record(nanos, TimeUnit.NANOSECONDS);
+                if (context != null) {
+                    context.afterStatement(name, nanos);
+                }
+                if (nanos >= slowStatementNanos) {
+                    log.warn("Slow {} statement: {} ms in {}.{}: {}", name, TimeUnit.NANOSECONDS.toMillis(nanos),
+                            repositoryMethod.repository(), repositoryMethod.method(), abbreviate(sql));
+                }
+            }
+        }
+
+        private ResultSet wrap(ResultSet resultSet, Statement statement, StatementMeters statementMeters) {
+            if (resultSet != lastResultSet) {
+                lastResultSet = resultSet;
+                lastResultSetProxy = InstrumentedDataSource.proxy(ResultSet.class,
+                        new ResultSetHandler(resultSet, statement, statementMeters, JdbcRequestContext.current()));
+            }
+            return lastResultSetProxy;
+        }
+    }
+
+    private final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+        private final Statement statement;
+        private final StatementMeters statementMeters;
+        private final JdbcRequestContext context;
+        private long rows;
+        private boolean recorded;
+
+        private ResultSetHandler(ResultSet target, Statement statement, StatementMeters statementMeters,
+                                 JdbcRequestContext context) {
+            this.target = target;
+            this.statement = statement;
+            this.statementMeters = statementMeters;
+            this.context = context;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isObjectMethod(method)) {
+                return objectMethod(proxy, target, method, args);
+            }
+            switch (method.getName()) {
+                case "next" -> {
+                    boolean hasRow = target.next();
+                    if (hasRow) {
+                        rows++;
+                    } else {
+                        record();
+                    }
+                    return hasRow;
+                }
+                case "close" -> {
+                    record();
+                    target.close();
+                    return null;
+                }
+                case "getStatement" -> {
+                    return statement;
+                }
+                default -> {
+                    return InstrumentedDataSource.invoke(target, method, args);
+                }
+            }
+        }
+
+        private void record() {
+            if (!recorded) {
+                recorded = true;
+                statementMeters.rows().record(rows);
+                if (context != null) {
+                    context.addRows(name, rows);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package rs.filisova.template.jdbc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * JDBC statement instrumentation for both persistence units: the postgres and oracle datasources are wrapped in
+ * {@link InstrumentedDataSource}, repository beans get an interceptor naming the repository method for metric tags,
+ * and {@link JdbcRequestFilter} aggregates per HTTP request. Pool wait and usage come from Boot's Hikari metrics
+ * (hikaricp_connections_acquire/usage, tagged by pool), which unwrap through these wrappers.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(JdbcInstrumentationProperties.class)
+@ConditionalOnProperty(prefix = "app.jdbc.instrumentation", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JdbcInstrumentationConfig {
+
+    private static final Map<String, String> INSTRUMENTED_DATASOURCES = Map.of(
+            "postgresDataSource", "postgres",
+            "oracleDataSource", "oracle");
+
+    private static final String REPOSITORY_PACKAGE = "rs.filisova.template.repository";
+
+    @Bean
+    public static BeanPostProcessor jdbcInstrumentingPostProcessor(ObjectProvider<JdbcInstrumentationProperties> properties,
+                                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                String name = INSTRUMENTED_DATASOURCES.get(beanName);
+                if (name == null || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                log.info("JDBC statement instrumentation enabled for {}", beanName);
+                return new InstrumentedDataSource(dataSource, name, properties.getObject(), meterRegistry.getObject());
+            }
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor repositoryMethodTaggingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!isRepository(bean)) {
+                    return bean;
+                }
+                RepositoryMethods.Interceptor interceptor = new RepositoryMethods.Interceptor(beanName);
+                if (bean instanceof Advised advised && !advised.isFrozen()) {
+                    advised.addAdvice(0, interceptor);
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.setProxyTargetClass(true);
+                proxyFactory.addAdvice(interceptor);
+                return proxyFactory.getProxy();
+            }
+        };
+    }
+
+    private static boolean isRepository(Object bean) {
+        if (AopUtils.getTargetClass(bean).getPackageName().equals(REPOSITORY_PACKAGE)) {
+            return true;
+        }
+        return bean instanceof Advised advised && Arrays.stream(advised.getProxiedInterfaces())
+                .anyMatch(type -> type.getPackageName().equals(REPOSITORY_PACKAGE));
+    }
+
+    @Bean
+    public FilterRegistrationBean<JdbcRequestFilter> jdbcRequestFilter(JdbcInstrumentationProperties properties,
+                                                                       MeterRegistry meterRegistry) {
+        FilterRegistrationBean<JdbcRequestFilter> registration =
+                new FilterRegistrationBean<>(new JdbcRequestFilter(properties, meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 110);
+        return registration;
+    }
+}
@@ -0,0 +1,62 @@
+package rs.filisova.template.jdbc;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Statement metrics for the postgres and oracle datasources and the per-request statement budget.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.jdbc.instrumentation")
+public class JdbcInstrumentationProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Statements running at least this long are logged at WARN with their SQL.
+     */
+    private Duration slowStatementThreshold = Duration.ofMillis(500);
+
+    /**
+     * The same SQL executed this many times within one request is reported as a probable N+1; 0 disables.
+     */
+    private int repeatedStatementThreshold = 10;
+
+    /**
+     * Minimum time between two WARN reports (budget, N+1) for the same endpoint.
+     */
+    private Duration reportInterval = Duration.ofMinutes(1);
+
+    private Budget budget = new Budget();
+
+    @Data
+    public static class Budget {
+
+        /**
+         * Statements allowed per HTTP request over both datasources; 0 disables the check.
+         */
+        private int maxStatements = 100;
+
+        private Action action = Action.LOG;
+
+        /**
+         * Overrides by "METHOD /pattern" as mapped in the controllers, e.g. "[POST /oracle/users/batch]": 1000; 0 disables the check for that endpoint.
+         */
+        private Map<String, Integer> endpoints = new LinkedHashMap<>();
+    }
+
+    public enum Action {
+        /**
+         * Count and report requests over the budget, let them finish.
+         */
+        LOG,
+        /**
+         * Fail the statement that goes over the budget with StatementBudgetExceededException (HTTP 500).
+         */
+        REJECT
+    }
+}
@@ -0,0 +1,137 @@
+package rs.filisova.template.jdbc;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+import rs.filisova.template.exception.StatementBudgetExceededException;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JDBC work of the HTTP request bound to the current thread, opened and closed by {@link JdbcRequestFilter}.
+ * Statements on other threads (async exports, SSE, schedulers) only show up in the per-statement metrics.
+ */
+final class JdbcRequestContext {
+
+    private static final ThreadLocal<JdbcRequestContext> CURRENT = new ThreadLocal<>();
+
+    private final HttpServletRequest request;
+    private final JdbcInstrumentationProperties.Budget budget;
+    private final int repeatedStatementThreshold;
+    private final Map<String, Usage> usage = new LinkedHashMap<>(4);
+    private final Map<String, int[]> executionsBySql = new HashMap<>();
+    private int statements;
+    private int limit = -1;
+    private String uri;
+
+    private JdbcRequestContext(HttpServletRequest request, JdbcInstrumentationProperties properties) {
+        this.request = request;
+        this.budget = properties.getBudget();
+        this.repeatedStatementThreshold = properties.getRepeatedStatementThreshold();
+    }
+
+    static JdbcRequestContext open(HttpServletRequest request, JdbcInstrumentationProperties properties) {
+        JdbcRequestContext context = new JdbcRequestContext(request, properties);
+        CURRENT.set(context);
+        return context;
+    }
+
+    static void close() {
+        CURRENT.remove();
+    }
+
+    static JdbcRequestContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Counts the statement before it runs; with the REJECT action the statement over the budget never executes.
+     */
+    void beforeStatement(String dataSource, String sql) {
+        statements++;
+        usage.computeIfAbsent(dataSource, ignored -> new Usage()).statements++;
+        if (repeatedStatementThreshold > 0 && sql != null) {
+            executionsBySql.computeIfAbsent(sql, ignored -> new int[1])[0]++;
+        }
+        int allowed = limit();
+        if (allowed > 0 && statements > allowed && budget.getAction() == JdbcInstrumentationProperties.Action.REJECT) {
+            throw new StatementBudgetExceededException(method() + " " + uri(), allowed);
+        }
+    }
+
+    void afterStatement(String dataSource, long nanos) {
+        usage.get(dataSource).nanos += nanos;
+    }
+
+    void addRows(String dataSource, long rows) {
+        Usage dataSourceUsage = usage.get(dataSource);
+        if (dataSourceUsage != null) {
+            dataSourceUsage.rows += rows;
+        }
+    }
+
+    int statements() {
+        return statements;
+    }
+
+    Map<String, Usage> usage() {
+        return usage;
+    }
+
+    /**
+     * SQL executed at least repeatedStatementThreshold times, with counts.
+     */
+    Map<String, Integer> repeatedStatements() {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        if (repeatedStatementThreshold > 0) {
+            executionsBySql.forEach((sql, count) -> {
+                if (count[0] >= repeatedStatementThreshold) {
+                    repeated.put(sql, count[0]);
+                }
+            });
+        }
+        return repeated;
+    }
+
+    String method() {
+        return request.getMethod();
+    }
+
+    /**
+     * Handler mapping pattern such as /postgres-users/{id}; known once the request has been mapped.
+     */
+    String uri() {
+        if (uri == null) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern == null) {
+                return "UNKNOWN";
+            }
+            uri = pattern.toString();
+        }
+        return uri;
+    }
+
+    /**
+     * Statement budget of this request's endpoint; 0 means unlimited.
+     */
+    int limit() {
+        if (limit < 0) {
+            if (budget.getMaxStatements() <= 0 && budget.getEndpoints().isEmpty()) {
+                limit = 0;
+            } else if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) != null) {
+                limit = budget.getEndpoints().getOrDefault(method() + " " + uri(), budget.getMaxStatements());
+            } else {
+                return budget.getMaxStatements();
+            }
+        }
+        return limit;
+    }
+
+    static final class Usage {
+
+        int statements;
+        long nanos;
+        long rows;
+    }
+}
@@ -0,0 +1,99 @@
+package rs.filisova.template.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Opens a {@link JdbcRequestContext} per request and, when the request ran statements, publishes its totals per
+ * datasource and endpoint and reports budget overruns and repeated statements (probable N+1).
+ */
+@Slf4j
+public class JdbcRequestFilter extends OncePerRequestFilter {
+
+    private final JdbcInstrumentationProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final long reportIntervalNanos;
+    private final Map<String, Long> lastReports = new ConcurrentHashMap<>();
+
+    public JdbcRequestFilter(JdbcInstrumentationProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.reportIntervalNanos = properties.getReportInterval().toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        JdbcRequestContext context = JdbcRequestContext.open(request, properties);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            JdbcRequestContext.close();
+            if (context.statements() > 0) {
+                publish(context);
+            }
+        }
+    }
+
+    private void publish(JdbcRequestContext context) {
+        String method = context.method();
+        String uri = context.uri();
+        context.usage().forEach((dataSource, usage) -> {
+            DistributionSummary.builder("jdbc.request.statements")
+                    .description("JDBC statements per HTTP request")
+                    .tags("datasource", dataSource, "method", method, "uri", uri)
+                    .register(meterRegistry)
+                    .record(usage.statements);
+            Timer.builder("jdbc.request.time")
+                    .description("Time spent executing JDBC statements per HTTP request")
+                    .tags("datasource", dataSource, "method", method, "uri", uri)
+                    .register(meterRegistry)
+                    .record(usage.nanos, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("jdbc.request.rows")
+                    .description("Rows read through JDBC per HTTP request")
+                    .tags("datasource", dataSource, "method", method, "uri", uri)
+                    .register(meterRegistry)
+                    .record(usage.rows);
+        });
+
+        int limit = context.limit();
+        if (limit > 0 && context.statements() > limit) {
+            meterRegistry.counter("jdbc.request.budget.exceeded", "method", method, "uri", uri).increment();
+            if (shouldReport("budget " + method + " " + uri)) {
+                log.warn("Request {} {} ran {} JDBC statements, budget is {}", method, uri, context.statements(), limit);
+            }
+        }
+
+        Map<String, Integer> repeated = context.repeatedStatements();
+        if (!repeated.isEmpty()) {
+            meterRegistry.counter("jdbc.request.repeated.statements", "method", method, "uri", uri).increment();
+            if (shouldReport("repeated " + method + " " + uri)) {
+                log.warn("Probable N+1 in {} {}: {}", method, uri, repeated.entrySet().stream()
+                        .map(entry -> entry.getValue() + "x " + InstrumentedDataSource.abbreviate(entry.getKey()))
+                        .collect(Collectors.joining("; ")));
+            }
+        }
+    }
+
+    private boolean shouldReport(String key) {
+        long now = System.nanoTime();
+        Long last = lastReports.get(key);
+        if (last != null && now - last < reportIntervalNanos) {
+            return false;
+        }
+        return last == null ? lastReports.putIfAbsent(key, now) == null : lastReports.replace(key, last, now);
+    }
+}
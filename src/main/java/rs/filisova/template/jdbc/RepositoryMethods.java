@@ -0,0 +1,58 @@
+package rs.filisova.template.jdbc;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Repository method running on the current thread, used to tag statement metrics. Statements outside any
+ * repository call (lazy loads during mapping, schedulers) are tagged "none".
+ */
+final class RepositoryMethods {
+
+    static final RepositoryMethod NONE = new RepositoryMethod("none", "none");
+
+    private static final ThreadLocal<RepositoryMethod> CURRENT = new ThreadLocal<>();
+
+    private RepositoryMethods() {
+    }
+
+    static RepositoryMethod current() {
+        RepositoryMethod method = CURRENT.get();
+        return method != null ? method : NONE;
+    }
+
+    record RepositoryMethod(String repository, String method) {
+    }
+
+    /**
+     * Added to every repository bean; the innermost repository call wins.
+     */
+    static final class Interceptor implements MethodInterceptor {
+
+        private final String repository;
+        private final Map<Method, RepositoryMethod> methods = new ConcurrentHashMap<>();
+
+        Interceptor(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            RepositoryMethod previous = CURRENT.get();
+            CURRENT.set(methods.computeIfAbsent(invocation.getMethod(), method -> new RepositoryMethod(repository, method.getName())));
+            try {
+                return invocation.proceed();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        }
+    }
+}
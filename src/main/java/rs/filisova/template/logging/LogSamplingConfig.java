@@ -0,0 +1,28 @@
+package rs.filisova.template.logging;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Production logging mode (Spring profile "production-logging"): logback-spring.xml switches the console to
+ * asynchronous structured output and installs {@link SampledOutTurboFilter}; this config samples the requests.
+ */
+@Configuration
+@EnableConfigurationProperties(LogSamplingProperties.class)
+@ConditionalOnProperty(prefix = "app.logging.sampling", name = "enabled", havingValue = "true")
+public class LogSamplingConfig implements WebMvcConfigurer {
+
+    private final LogSamplingProperties properties;
+
+    public LogSamplingConfig(LogSamplingProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new LogSamplingInterceptor(properties));
+    }
+}
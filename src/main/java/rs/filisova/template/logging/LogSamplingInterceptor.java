@@ -0,0 +1,53 @@
+package rs.filisova.template.logging;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides once per request whether its success-path lines are written and leaves the decision in the MDC,
+ * where {@link SampledOutTurboFilter} drops the lines before any event or message is built.
+ */
+class LogSamplingInterceptor implements AsyncHandlerInterceptor {
+
+    static final String ENDPOINT_KEY = "endpoint";
+    static final String SAMPLED_KEY = "log.sampled";
+    static final String SAMPLED_OUT = "false";
+
+    private final LogSamplingProperties properties;
+
+    LogSamplingInterceptor(LogSamplingProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        MDC.put(ENDPOINT_KEY, endpoint);
+        double rate = properties.getEndpoints().getOrDefault(endpoint, properties.getDefaultRate());
+        if (rate < 1.0 && ThreadLocalRandom.current().nextDouble() >= rate) {
+            MDC.put(SAMPLED_KEY, SAMPLED_OUT);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        clear();
+    }
+
+    private static void clear() {
+        MDC.remove(ENDPOINT_KEY);
+        MDC.remove(SAMPLED_KEY);
+    }
+}
@@ -0,0 +1,27 @@
+package rs.filisova.template.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-endpoint sampling of success-path (INFO and below) request logs; WARN and ERROR are always written.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.logging.sampling")
+public class LogSamplingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Share of requests (0..1) whose INFO/DEBUG lines are written, for endpoints not listed in {@link #endpoints}.
+     */
+    private double defaultRate = 1.0;
+
+    /**
+     * Rates by "METHOD /pattern" as mapped in the controllers, e.g. "[GET /postgres-users/{id}]": 0.01.
+     */
+    private Map<String, Double> endpoints = new LinkedHashMap<>();
+}
@@ -0,0 +1,26 @@
+package rs.filisova.template.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Drops INFO and lower on threads of requests sampled out by {@link LogSamplingInterceptor}. Turbo filters run
+ * before the logging event exists, so arguments such as DTOs are never rendered for dropped lines.
+ * Registered in logback-spring.xml under the production-logging profile.
+ */
+public class SampledOutTurboFilter extends TurboFilter {
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        return LogSamplingInterceptor.SAMPLED_OUT.equals(MDC.get(LogSamplingInterceptor.SAMPLED_KEY))
+                ? FilterReply.DENY
+                : FilterReply.NEUTRAL;
+    }
+}
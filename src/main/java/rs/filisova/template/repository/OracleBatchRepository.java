@@ -0,0 +1,108 @@
+package rs.filisova.template.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import rs.filisova.template.dto.OracleUserDTO;
+import rs.filisova.template.entity.OracleUserGrantEntity;
+import rs.filisova.template.entity.OracleUserRoleEntity;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Plain JDBC batch writes for Oracle tables.
+ * Hibernate cannot batch inserts into GENERATED ALWAYS AS IDENTITY tables, so bulk writes bypass it;
+ * statements join the surrounding oracleTransactionManager transaction.
+ */
+@Repository
+public class OracleBatchRepository {
+
+    private static final String INSERT_USER =
+            "INSERT INTO oracle_users (name, birth_date_ora, sex, role_id, grant_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_USER =
+            "UPDATE oracle_users SET name = ?, birth_date_ora = ?, sex = ?, role_id = ?, grant_id = ? WHERE id = ?";
+
+    private final JdbcTemplate oracleJdbcTemplate;
+
+    public OracleBatchRepository(@Qualifier("oracleJdbcTemplate") JdbcTemplate oracleJdbcTemplate) {
+        this.oracleJdbcTemplate = oracleJdbcTemplate;
+    }
+
+    public int[] insertUsers(List<OracleUserDTO> users, int batchSize) {
+        return flatten(oracleJdbcTemplate.batchUpdate(INSERT_USER, users, batchSize, OracleBatchRepository::setUserColumns));
+    }
+
+    public int[] updateUsers(List<OracleUserDTO> users, int batchSize) {
+        return flatten(oracleJdbcTemplate.batchUpdate(UPDATE_USER, users, batchSize, (ps, user) -> {
+            setUserColumns(ps, user);
+            ps.setLong(6, user.getId());
+        }));
+    }
+
+    public int[] insertRoles(List<OracleUserRoleEntity> roles, int batchSize) {
+        return insertNamed("oracle_users_role", roles, OracleUserRoleEntity::getName, OracleUserRoleEntity::getDescribe, batchSize);
+    }
+
+    public int[] updateRoles(List<OracleUserRoleEntity> roles, int batchSize) {
+        return updateNamed("oracle_users_role", roles, OracleUserRoleEntity::getId,
+                OracleUserRoleEntity::getName, OracleUserRoleEntity::getDescribe, batchSize);
+    }
+
+    public int[] insertGrants(List<OracleUserGrantEntity> grants, int batchSize) {
+        return insertNamed("oracle_users_grant", grants, OracleUserGrantEntity::getName, OracleUserGrantEntity::getDescribe, batchSize);
+    }
+
+    public int[] updateGrants(List<OracleUserGrantEntity> grants, int batchSize) {
+        return updateNamed("oracle_users_grant", grants, OracleUserGrantEntity::getId,
+                OracleUserGrantEntity::getName, OracleUserGrantEntity::getDescribe, batchSize);
+    }
+
+    private <T> int[] insertNamed(String table, List<T> rows, Function<T, String> name, Function<T, String> describe,
+                                  int batchSize) {
+        String sql = "INSERT INTO " + table + " (name, describe) VALUES (?, ?)";
+        return flatten(oracleJdbcTemplate.batchUpdate(sql, rows, batchSize, (ps, row) -> {
+            ps.setString(1, name.apply(row));
+            ps.setString(2, describe.apply(row));
+        }));
+    }
+
+    private <T> int[] updateNamed(String table, List<T> rows, Function<T, Long> id, Function<T, String> name,
+                                  Function<T, String> describe, int batchSize) {
+        String sql = "UPDATE " + table + " SET name = ?, describe = ? WHERE id = ?";
+        return flatten(oracleJdbcTemplate.batchUpdate(sql, rows, batchSize, (ps, row) -> {
+            ps.setString(1, name.apply(row));
+            ps.setString(2, describe.apply(row));
+            ps.setLong(3, id.apply(row));
+        }));
+    }
+
+    private static void setUserColumns(PreparedStatement ps, OracleUserDTO user) throws SQLException {
+        ps.setString(1, user.getName());
+        if (user.getBirthDateOra() != null) {
+            ps.setDate(2, Date.valueOf(user.getBirthDateOra()));
+        } else {
+            ps.setNull(2, Types.DATE);
+        }
+        ps.setString(3, user.getSex());
+        setNullableLong(ps, 4, user.getRole() != null ? user.getRole().getId() : null);
+        setNullableLong(ps, 5, user.getGrant() != null ? user.getGrant().getId() : null);
+    }
+
+    private static void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.NUMERIC);
+        }
+    }
+
+    private static int[] flatten(int[][] counts) {
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).toArray();
+    }
+}
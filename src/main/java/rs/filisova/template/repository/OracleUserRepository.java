@@ -1,17 +1,37 @@
 package rs.filisova.template.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import rs.filisova.template.entity.OracleUserEntity;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OracleUserRepository extends JpaRepository<OracleUserEntity, Long> {
 
+    /**
+     * Single-table read; role and grant are resolved from the reference-data cache by id.
+     */
+    List<OracleUserEntity> findAllByOrderByIdAsc();
+
+    /**
+     * Server-side cursor over all users; must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM OracleUserEntity u ORDER BY u.id")
+    Stream<OracleUserEntity> streamAllOrderById();
+
     @Modifying
     @Query(value = "INSERT INTO oracle_users (name, birth_date_ora, sex, role_id, grant_id) VALUES (:name, :birthDateOra, :sex, :roleId, :grantId)", nativeQuery = true)
     void insertUser(@Param("name") String name, @Param("birthDateOra") LocalDate birthDateOra, @Param("sex") String sex, @Param("roleId") Long roleId, @Param("grantId") Long grantId);
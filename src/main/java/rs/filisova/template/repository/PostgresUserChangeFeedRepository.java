@@ -0,0 +1,93 @@
+package rs.filisova.template.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import rs.filisova.template.dto.PostgresUserChangeDTO;
+import rs.filisova.template.dto.PostgresUserDTO;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reads postgres_users and postgres_users_tombstones in change_xid order (see 7-add-postgres-users-change-feed.sql).
+ * Only changes of transactions below the snapshot xmin are returned: those are finished, so nothing can later
+ * commit behind the returned position.
+ */
+@Repository
+public class PostgresUserChangeFeedRepository {
+
+    // Each branch is an index range scan on (change_xid, id) stopped by its own LIMIT
+    private static final String FIND_CHANGES = """
+            WITH horizon AS (SELECT pg_snapshot_xmin(pg_current_snapshot()) AS xmin)
+            SELECT * FROM (
+                (SELECT u.change_xid, u.id, 'UPSERT' AS operation, u.name, u.birth_date, u.gender, u.role, u.grant_field,
+                        u.updated_at AS changed_at
+                 FROM postgres.postgres_users u, horizon h
+                 WHERE (u.change_xid, u.id) > (?::xid8, ?) AND u.change_xid < h.xmin
+                 ORDER BY u.change_xid, u.id
+                 LIMIT ?)
+                UNION ALL
+                (SELECT t.change_xid, t.id, 'DELETE', NULL, NULL, NULL, NULL, NULL, t.deleted_at
+                 FROM postgres.postgres_users_tombstones t, horizon h
+                 WHERE (t.change_xid, t.id) > (?::xid8, ?) AND t.change_xid < h.xmin
+                 ORDER BY t.change_xid, t.id
+                 LIMIT ?)
+            ) c
+            ORDER BY change_xid, id
+            LIMIT ?""";
+
+    private static final String FIND_HORIZON = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text";
+
+    // The newest tombstone stays: its row_version is part of the list ETag validator
+    private static final String PURGE_TOMBSTONES = """
+            DELETE FROM postgres.postgres_users_tombstones
+            WHERE deleted_at < ?
+              AND (row_version IS NULL
+                   OR row_version < (SELECT max(row_version) FROM postgres.postgres_users_tombstones))""";
+
+    /**
+     * A change with its feed position.
+     */
+    public record ChangeRow(long xid, PostgresUserChangeDTO change) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresUserChangeFeedRepository(@Qualifier("postgresJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<ChangeRow> findChangesAfter(long afterXid, long afterId, int limit) {
+        String xid = Long.toString(afterXid);
+        return jdbcTemplate.query(FIND_CHANGES, (rs, rowNum) -> {
+            PostgresUserChangeDTO.Operation operation = PostgresUserChangeDTO.Operation.valueOf(rs.getString("operation"));
+            PostgresUserDTO user = null;
+            if (operation == PostgresUserChangeDTO.Operation.UPSERT) {
+                user = new PostgresUserDTO();
+                user.setId(rs.getLong("id"));
+                user.setName(rs.getString("name"));
+                user.setBirthDate(rs.getObject("birth_date", LocalDate.class));
+                user.setGender(rs.getString("gender"));
+                user.setRole(rs.getString("role"));
+                user.setGrantField(rs.getString("grant_field"));
+            }
+            Timestamp changedAt = rs.getTimestamp("changed_at");
+            return new ChangeRow(Long.parseLong(rs.getString("change_xid")), new PostgresUserChangeDTO(rs.getLong("id"),
+                    operation, user, changedAt != null ? changedAt.toLocalDateTime() : null));
+        }, xid, afterId, limit, xid, afterId, limit, limit);
+    }
+
+    /**
+     * Oldest transaction still running: every change below it is already visible to the feed.
+     */
+    public long findHorizon() {
+        return Long.parseLong(jdbcTemplate.queryForObject(FIND_HORIZON, String.class));
+    }
+
+    public int purgeTombstones(LocalDateTime deletedBefore) {
+        return jdbcTemplate.update(PURGE_TOMBSTONES, Timestamp.valueOf(deletedBefore));
+    }
+}
@@ -0,0 +1,76 @@
+package rs.filisova.template.repository;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Bulk load of postgres_users through the COPY protocol.
+ * All methods must run inside one postgresTransactionManager transaction: the staging table
+ * is a temporary table dropped on commit.
+ */
+@Repository
+public class PostgresUserCopyRepository {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMP TABLE postgres_users_staging (
+                line_no BIGINT,
+                id BIGINT,
+                name VARCHAR(255),
+                birth_date DATE,
+                gender VARCHAR(10),
+                role VARCHAR(255),
+                grant_field VARCHAR(255)
+            ) ON COMMIT DROP""";
+
+    private static final String COPY_STAGING =
+            "COPY postgres_users_staging (line_no, id, name, birth_date, gender, role, grant_field) FROM STDIN WITH (FORMAT csv)";
+
+    // The last line wins when an id appears several times in one upload
+    private static final String MERGE_STAGING = """
+            INSERT INTO postgres.postgres_users (id, name, birth_date, gender, role, grant_field)
+            SELECT DISTINCT ON (id) id, name, birth_date, gender, role, grant_field
+            FROM postgres_users_staging
+            ORDER BY id, line_no DESC
+            ON CONFLICT (id) DO UPDATE SET
+                name = EXCLUDED.name,
+                birth_date = EXCLUDED.birth_date,
+                gender = EXCLUDED.gender,
+                role = EXCLUDED.role,
+                grant_field = EXCLUDED.grant_field""";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresUserCopyRepository(@Qualifier("postgresDataSource") DataSource dataSource,
+                                      @Qualifier("postgresJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void createStagingTable() {
+        jdbcTemplate.execute(CREATE_STAGING);
+    }
+
+    /**
+     * Opens a COPY FROM STDIN into the staging table; rows are CSV lines
+     * (line_no, id, name, birth_date, gender, role, grant_field). Closing the stream ends the COPY.
+     */
+    public PGCopyOutputStream openStagingCopy() throws SQLException {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        return new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_STAGING, COPY_BUFFER_SIZE);
+    }
+
+    public int mergeStaging() {
+        return jdbcTemplate.update(MERGE_STAGING);
+    }
+}
@@ -0,0 +1,46 @@
+package rs.filisova.template.repository;
+
+import java.util.Arrays;
+
+/**
+ * Whitelist of postgres_users fields for projections and sorting in generated SQL.
+ * Only fields backed by a (field, id) index are sortable.
+ */
+public enum PostgresUserField {
+
+    ID("id", "id", true),
+    NAME("name", "name", true),
+    BIRTH_DATE("birthDate", "birth_date", true),
+    GENDER("gender", "gender", true),
+    ROLE("role", "role", true),
+    GRANT_FIELD("grantField", "grant_field", false);
+
+    private final String fieldName;
+    private final String column;
+    private final boolean sortable;
+
+    PostgresUserField(String fieldName, String column, boolean sortable) {
+        this.fieldName = fieldName;
+        this.column = column;
+        this.sortable = sortable;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean isSortable() {
+        return sortable;
+    }
+
+    public static PostgresUserField fromFieldName(String fieldName) {
+        return Arrays.stream(values())
+                .filter(field -> field.fieldName.equals(fieldName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown field: " + fieldName));
+    }
+}
@@ -0,0 +1,162 @@
+package rs.filisova.template.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import rs.filisova.template.dto.PostgresUserFilter;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Generated SQL for filtered, projected and sorted reads of postgres_users.
+ * Every predicate and ORDER BY is shaped to match an index from script 5: equality on role/gender,
+ * byte-wise range for the name prefix, and (sort column, id) row comparisons for the keyset seek.
+ * Only whitelisted column names from {@link PostgresUserField} ever reach the SQL text.
+ */
+@Repository
+public class PostgresUserQueryRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public PostgresUserQueryRepository(@Qualifier("postgresJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Keyset position: the sort value (null for a NULL value) and id of the last row already returned.
+     */
+    public record After(Object value, long id) {
+    }
+
+    /**
+     * @return rows holding the requested fields plus id and the sort field, in page order
+     */
+    public List<Map<PostgresUserField, Object>> find(PostgresUserFilter filter,
+                                                     Set<PostgresUserField> fields,
+                                                     PostgresUserField sort,
+                                                     boolean descending,
+                                                     After after,
+                                                     int limit) {
+        Set<PostgresUserField> selected = EnumSet.copyOf(fields);
+        selected.add(PostgresUserField.ID);
+        selected.add(sort);
+
+        List<String> conditions = new ArrayList<>();
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        addFilter(filter, conditions, params);
+        if (after != null) {
+            conditions.add(seek(sort, descending, after.value() == null));
+            params.addValue("afterId", after.id());
+            params.addValue("afterValue", after.value());
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(selected.stream().map(PostgresUserField::getColumn).collect(Collectors.joining(", ")))
+                .append(" FROM postgres.postgres_users");
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ").append(orderBy(sort, descending)).append(" LIMIT :limit");
+        params.addValue("limit", limit);
+
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> toRow(rs, selected));
+    }
+
+    private static void addFilter(PostgresUserFilter filter, List<String> conditions, MapSqlParameterSource params) {
+        if (filter.getRole() != null) {
+            conditions.add("role = :role");
+            params.addValue("role", filter.getRole());
+        }
+        if (filter.getGender() != null) {
+            conditions.add("gender = :gender");
+            params.addValue("gender", filter.getGender());
+        }
+        if (filter.getBirthDateFrom() != null) {
+            conditions.add("birth_date >= :birthDateFrom");
+            params.addValue("birthDateFrom", filter.getBirthDateFrom());
+        }
+        if (filter.getBirthDateTo() != null) {
+            conditions.add("birth_date <= :birthDateTo");
+            params.addValue("birthDateTo", filter.getBirthDateTo());
+        }
+        String prefix = filter.getNamePrefix();
+        if (prefix != null && !prefix.isEmpty()) {
+            // The same rewrite the planner does for LIKE 'abc%' with a constant, spelled out so it also
+            // holds for generic plans of the prepared statement
+            conditions.add("name ~>=~ :namePrefix");
+            params.addValue("namePrefix", prefix);
+            String upperBound = nextPrefix(prefix);
+            if (upperBound != null) {
+                conditions.add("name ~<~ :namePrefixUpper");
+                params.addValue("namePrefixUpper", upperBound);
+            }
+            conditions.add("name LIKE :namePattern");
+            params.addValue("namePattern", escapeLike(prefix) + "%");
+        }
+    }
+
+    /**
+     * Rows after (afterValue, afterId) in ORDER BY column ASC NULLS LAST, id ASC
+     * or column DESC NULLS FIRST, id DESC, i.e. the (column, id) index order read forwards or backwards.
+     */
+    private static String seek(PostgresUserField sort, boolean descending, boolean afterNull) {
+        if (sort == PostgresUserField.ID) {
+            return descending ? "id < :afterId" : "id > :afterId";
+        }
+        String column = sort.getColumn();
+        if (!descending) {
+            return afterNull
+                    ? "(" + column + " IS NULL AND id > :afterId)"
+                    : "((" + column + ", id) > (:afterValue, :afterId) OR " + column + " IS NULL)";
+        }
+        return afterNull
+                ? "((" + column + " IS NULL AND id < :afterId) OR " + column + " IS NOT NULL)"
+                : "(" + column + ", id) < (:afterValue, :afterId)";
+    }
+
+    private static String orderBy(PostgresUserField sort, boolean descending) {
+        if (sort == PostgresUserField.ID) {
+            return descending ? "id DESC" : "id ASC";
+        }
+        return descending
+                ? sort.getColumn() + " DESC NULLS FIRST, id DESC"
+                : sort.getColumn() + " ASC NULLS LAST, id ASC";
+    }
+
+    private static Map<PostgresUserField, Object> toRow(ResultSet rs, Set<PostgresUserField> selected) throws SQLException {
+        Map<PostgresUserField, Object> row = new EnumMap<>(PostgresUserField.class);
+        for (PostgresUserField field : selected) {
+            Object value = switch (field) {
+                case ID -> rs.getLong(field.getColumn());
+                case BIRTH_DATE -> rs.getObject(field.getColumn(), LocalDate.class);
+                default -> rs.getString(field.getColumn());
+            };
+            row.put(field, value);
+        }
+        return row;
+    }
+
+    private static String nextPrefix(String prefix) {
+        int last = prefix.codePointBefore(prefix.length());
+        if (last == Character.MAX_CODE_POINT) {
+            return null;
+        }
+        int next = last + 1 == Character.MIN_SURROGATE ? Character.MAX_SURROGATE + 1 : last + 1;
+        return prefix.substring(0, prefix.length() - Character.charCount(last)) + new String(Character.toChars(next));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
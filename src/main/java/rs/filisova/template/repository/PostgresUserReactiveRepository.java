@@ -0,0 +1,100 @@
+package rs.filisova.template.repository;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import rs.filisova.template.dto.PostgresUserFilter;
+import rs.filisova.template.entity.PostgresUserEntity;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking reads of postgres_users over R2DBC. Rows are fetched from a portal in chunks of
+ * {@link #FETCH_SIZE}, so a slow subscriber throttles the query instead of buffering the result set.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PostgresUserReactiveRepository {
+
+    private static final int FETCH_SIZE = 250;
+
+    private static final String SELECT = "SELECT id, name, birth_date, gender, role, grant_field FROM postgres.postgres_users";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<PostgresUserEntity> findById(long id) {
+        return databaseClient.sql(SELECT + " WHERE id = :id")
+                .bind("id", id)
+                .map(PostgresUserReactiveRepository::toEntity)
+                .one();
+    }
+
+    /**
+     * @param afterId keyset position, exclusive; null to start from the first id
+     * @param limit   maximum rows
+     */
+    public Flux<PostgresUserEntity> find(PostgresUserFilter filter, Long afterId, int limit) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (afterId != null) {
+            conditions.add("id > :afterId");
+            params.put("afterId", afterId);
+        }
+        if (filter.getGender() != null) {
+            conditions.add("gender = :gender");
+            params.put("gender", filter.getGender());
+        }
+        if (filter.getRole() != null) {
+            conditions.add("role = :role");
+            params.put("role", filter.getRole());
+        }
+        if (filter.getNamePrefix() != null) {
+            conditions.add("name LIKE :namePrefix");
+            params.put("namePrefix", escapeLike(filter.getNamePrefix()) + "%");
+        }
+        if (filter.getBirthDateFrom() != null) {
+            conditions.add("birth_date >= :birthDateFrom");
+            params.put("birthDateFrom", filter.getBirthDateFrom());
+        }
+        if (filter.getBirthDateTo() != null) {
+            conditions.add("birth_date <= :birthDateTo");
+            params.put("birthDateTo", filter.getBirthDateTo());
+        }
+
+        StringBuilder sql = new StringBuilder(SELECT);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY id LIMIT :limit");
+        params.put("limit", limit);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .filter((statement, next) -> next.execute(statement.fetchSize(FETCH_SIZE)));
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec.map(PostgresUserReactiveRepository::toEntity).all();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static PostgresUserEntity toEntity(Readable row) {
+        PostgresUserEntity entity = new PostgresUserEntity();
+        entity.setId(row.get("id", Long.class));
+        entity.setName(row.get("name", String.class));
+        entity.setBirthDate(row.get("birth_date", LocalDate.class));
+        entity.setGender(row.get("gender", String.class));
+        entity.setRole(row.get("role", String.class));
+        entity.setGrantField(row.get("grant_field", String.class));
+        return entity;
+    }
+}
@@ -1,12 +1,62 @@
 package rs.filisova.template.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import rs.filisova.template.entity.PostgresUserEntity;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PostgresUserRepository extends JpaRepository<PostgresUserEntity, Long> {
-    List<PostgresUserEntity> findAllByOrderByIdAsc();
+
+    List<PostgresUserEntity> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    /**
+     * Server-side cursor over the whole table; must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM PostgresUserEntity u ORDER BY u.id")
+    Stream<PostgresUserEntity> streamAllOrderById();
+
+    /**
+     * Row estimate maintained by ANALYZE/autovacuum; null if the table has never been analyzed.
+     */
+    @Query(value = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass('postgres.postgres_users') AND reltuples >= 0", nativeQuery = true)
+    Long estimateRowCount();
+
+    /**
+     * Validator for list ETags (see 8-replace-postgres-users-table-version.sql): the highest row_version of the rows
+     * and of the tombstones, two reads from the end of an index. While any transaction is in progress its snapshot
+     * is added, as that transaction may still commit a lower version.
+     */
+    @Query(value = """
+            SELECT coalesce((SELECT max(row_version) FROM postgres.postgres_users), 0) AS "usersVersion",
+                   coalesce((SELECT max(row_version) FROM postgres.postgres_users_tombstones), 0) AS "tombstonesVersion",
+                   CASE WHEN EXISTS (SELECT FROM pg_snapshot_xip(pg_current_snapshot()))
+                        THEN left(md5(pg_current_snapshot()::text), 16) END AS snapshot""", nativeQuery = true)
+    TableVersion findTableVersion();
+
+    /**
+     * @see #findTableVersion()
+     */
+    interface TableVersion {
+
+        long getUsersVersion();
+
+        long getTombstonesVersion();
+
+        /**
+         * Hash of the snapshot, null when no transaction was in progress.
+         */
+        String getSnapshot();
+    }
 }
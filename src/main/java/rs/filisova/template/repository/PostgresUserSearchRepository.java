@@ -0,0 +1,51 @@
+package rs.filisova.template.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import rs.filisova.template.dto.PostgresUserDTO;
+import rs.filisova.template.dto.PostgresUserSearchResultDTO;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Trigram search over postgres_users.name through idx_postgres_users_name_trgm.
+ * Must run inside a transaction: timeout and threshold are set with set_config(..., true), i.e. transaction-local,
+ * so they never leak to other users of the pooled connection.
+ */
+@Repository
+public class PostgresUserSearchRepository {
+
+    private static final String SET_LIMITS =
+            "SELECT set_config('statement_timeout', ?, true), set_config('pg_trgm.word_similarity_threshold', ?, true)";
+
+    // <% is the index-backed form of word_similarity(q, name) >= threshold
+    private static final String SEARCH = """
+            SELECT id, name, birth_date, gender, role, grant_field, public.word_similarity(?, name) AS similarity
+            FROM postgres.postgres_users
+            WHERE ? OPERATOR(public.<%) name
+            ORDER BY similarity DESC, name, id
+            LIMIT ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresUserSearchRepository(@Qualifier("postgresJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<PostgresUserSearchResultDTO> searchByName(String query, double threshold, Duration timeout, int limit) {
+        jdbcTemplate.queryForList(SET_LIMITS, String.valueOf(timeout.toMillis()), String.valueOf(threshold));
+        return jdbcTemplate.query(SEARCH, (rs, rowNum) -> {
+            PostgresUserDTO user = new PostgresUserDTO();
+            user.setId(rs.getLong("id"));
+            user.setName(rs.getString("name"));
+            user.setBirthDate(rs.getObject("birth_date", LocalDate.class));
+            user.setGender(rs.getString("gender"));
+            user.setRole(rs.getString("role"));
+            user.setGrantField(rs.getString("grant_field"));
+            return new PostgresUserSearchResultDTO(user, rs.getDouble("similarity"));
+        }, query, query, limit);
+    }
+}
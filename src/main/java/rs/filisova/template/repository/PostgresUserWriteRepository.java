@@ -0,0 +1,87 @@
+package rs.filisova.template.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import rs.filisova.template.entity.PostgresUserEntity;
+
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Single-statement writes of postgres_users for the API: each returns what the caller needs (the stored row,
+ * or whether the id existed) in the same round trip, instead of a SELECT by id before the write.
+ * Row triggers maintain row_version, updated_at and the change feed as for any other writer.
+ */
+@Repository
+public class PostgresUserWriteRepository {
+
+    private static final String RETURNING = " RETURNING id, name, birth_date, gender, role, grant_field, row_version";
+
+    // Same result as merge() of an entity with an assigned id: inserts, or overwrites the existing row
+    private static final String UPSERT = """
+            INSERT INTO postgres.postgres_users (id, name, birth_date, gender, role, grant_field)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (id) DO UPDATE SET
+                name = EXCLUDED.name,
+                birth_date = EXCLUDED.birth_date,
+                gender = EXCLUDED.gender,
+                role = EXCLUDED.role,
+                grant_field = EXCLUDED.grant_field""" + RETURNING;
+
+    private static final String UPDATE = """
+            UPDATE postgres.postgres_users
+            SET name = ?, birth_date = ?, gender = ?, role = ?, grant_field = ?
+            WHERE id = ?""" + RETURNING;
+
+    private static final String DELETE = "DELETE FROM postgres.postgres_users WHERE id = ?";
+
+    // Typed parameters: a null without a type makes the driver describe the statement first, another round trip
+    private static final int[] USER_TYPES = {Types.BIGINT, Types.VARCHAR, Types.DATE, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR};
+    private static final int[] UPDATE_TYPES = {Types.VARCHAR, Types.DATE, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BIGINT};
+
+    private static final RowMapper<PostgresUserEntity> ROW_MAPPER = (rs, rowNum) -> {
+        PostgresUserEntity user = new PostgresUserEntity();
+        user.setId(rs.getLong("id"));
+        user.setName(rs.getString("name"));
+        user.setBirthDate(rs.getObject("birth_date", LocalDate.class));
+        user.setGender(rs.getString("gender"));
+        user.setRole(rs.getString("role"));
+        user.setGrantField(rs.getString("grant_field"));
+        user.setRowVersion(rs.getLong("row_version"));
+        return user;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresUserWriteRepository(@Qualifier("postgresJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the row as stored
+     */
+    public PostgresUserEntity upsert(PostgresUserEntity user) {
+        Object[] args = {user.getId(), user.getName(), user.getBirthDate(), user.getGender(), user.getRole(), user.getGrantField()};
+        return jdbcTemplate.queryForObject(UPSERT, args, USER_TYPES, ROW_MAPPER);
+    }
+
+    /**
+     * @return the updated row, or empty if there is no row with this id
+     */
+    public Optional<PostgresUserEntity> update(Long id, PostgresUserEntity values) {
+        Object[] args = {values.getName(), values.getBirthDate(), values.getGender(), values.getRole(), values.getGrantField(), id};
+        List<PostgresUserEntity> updated = jdbcTemplate.query(UPDATE, args, UPDATE_TYPES, ROW_MAPPER);
+        return updated.stream().findFirst();
+    }
+
+    /**
+     * @return false if there was no row with this id
+     */
+    public boolean delete(Long id) {
+        return jdbcTemplate.update(DELETE, new Object[]{id}, new int[]{Types.BIGINT}) > 0;
+    }
+}
@@ -0,0 +1,49 @@
+package rs.filisova.template.service;
+
+import rs.filisova.template.dto.BatchItemResultDTO;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns JDBC batch update counts into per-item results.
+ */
+final class BatchResults {
+
+    private BatchResults() {
+    }
+
+    static List<BatchItemResultDTO> created(int[] counts) {
+        List<BatchItemResultDTO> results = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            results.add(new BatchItemResultDTO(i, null, BatchItemResultDTO.Status.CREATED));
+        }
+        return results;
+    }
+
+    static List<BatchItemResultDTO> updated(int[] counts, List<Long> ids) {
+        List<BatchItemResultDTO> results = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            // SUCCESS_NO_INFO: the driver executed the row but did not report how many rows matched
+            boolean matched = counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+            results.add(new BatchItemResultDTO(i, ids.get(i),
+                    matched ? BatchItemResultDTO.Status.UPDATED : BatchItemResultDTO.Status.NOT_FOUND));
+        }
+        return results;
+    }
+
+    static void checkSize(List<?> items, int maxItems) {
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("Batch contains " + items.size() + " items, maximum is " + maxItems);
+        }
+    }
+
+    static void checkIds(List<Long> ids) {
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) == null) {
+                throw new IllegalArgumentException("Batch item " + i + " has no id");
+            }
+        }
+    }
+}
@@ -4,11 +4,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rs.filisova.template.config.OracleBatchProperties;
+import rs.filisova.template.dto.BatchItemResultDTO;
 import rs.filisova.template.entity.OracleUserGrantEntity;
 import rs.filisova.template.exception.OracleUserGrantNotFoundException;
+import rs.filisova.template.repository.OracleBatchRepository;
 import rs.filisova.template.repository.OracleUserGrantRepository;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -16,15 +20,25 @@ import java.util.List;
 public class OracleUserGrantService {
 
     private final OracleUserGrantRepository oracleUserGrantRepository;
+    private final ReferenceDataCache<OracleUserGrantEntity> oracleGrantCache;
+    private final OracleBatchRepository oracleBatchRepository;
+    private final OracleBatchProperties batchProperties;
 
     public List<OracleUserGrantEntity> getAllGrants() {
         log.info("Getting all Oracle user grants");
-        return oracleUserGrantRepository.findAll();
+        return oracleGrantCache.getAll();
+    }
+
+    /**
+     * Content hash of the cached grant list, computed once per cache load.
+     */
+    public String getAllGrantsVersion() {
+        return oracleGrantCache.getAllVersion();
     }
 
     public OracleUserGrantEntity getGrantById(Long id) {
         log.info("Getting Oracle user grant by ID: {}", id);
-        return oracleUserGrantRepository.findById(id)
+        return oracleGrantCache.get(id)
                 .orElseThrow(() -> new OracleUserGrantNotFoundException(id));
     }
 
@@ -32,17 +46,40 @@ public class OracleUserGrantService {
     public void createGrant(String name, String describe) {
         log.info("Creating Oracle user grant via SQL: name={}, describe={}", name, describe);
         oracleUserGrantRepository.insertGrant(name, describe);
+        oracleGrantCache.invalidateAllAfterCommit();
     }
 
     @Transactional("oracleTransactionManager")
     public void updateGrant(Long id, String name, String describe) {
         log.info("Updating Oracle user grant via SQL: id={}, name={}, describe={}", id, name, describe);
         oracleUserGrantRepository.updateGrant(id, name, describe);
+        oracleGrantCache.invalidateAfterCommit(id);
+    }
+
+    @Transactional("oracleTransactionManager")
+    public List<BatchItemResultDTO> createGrants(List<OracleUserGrantEntity> grants) {
+        BatchResults.checkSize(grants, batchProperties.getMaxItems());
+        log.info("Creating {} Oracle user grants via JDBC batch", grants.size());
+        int[] counts = oracleBatchRepository.insertGrants(grants, batchProperties.getSize());
+        oracleGrantCache.invalidateAllAfterCommit();
+        return BatchResults.created(counts);
+    }
+
+    @Transactional("oracleTransactionManager")
+    public List<BatchItemResultDTO> updateGrants(List<OracleUserGrantEntity> grants) {
+        BatchResults.checkSize(grants, batchProperties.getMaxItems());
+        List<Long> ids = grants.stream().map(OracleUserGrantEntity::getId).collect(Collectors.toList());
+        BatchResults.checkIds(ids);
+        log.info("Updating {} Oracle user grants via JDBC batch", grants.size());
+        int[] counts = oracleBatchRepository.updateGrants(grants, batchProperties.getSize());
+        oracleGrantCache.invalidateAllAfterCommit();
+        return BatchResults.updated(counts, ids);
     }
 
     @Transactional("oracleTransactionManager")
     public void deleteGrant(Long id) {
         log.info("Deleting Oracle user grant: {}", id);
         oracleUserGrantRepository.deleteById(id);
+        oracleGrantCache.invalidateAfterCommit(id);
     }
 }
@@ -4,11 +4,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rs.filisova.template.config.OracleBatchProperties;
+import rs.filisova.template.dto.BatchItemResultDTO;
 import rs.filisova.template.entity.OracleUserRoleEntity;
 import rs.filisova.template.exception.OracleUserRoleNotFoundException;
+import rs.filisova.template.repository.OracleBatchRepository;
 import rs.filisova.template.repository.OracleUserRoleRepository;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -16,15 +20,25 @@ import java.util.List;
 public class OracleUserRoleService {
 
     private final OracleUserRoleRepository oracleUserRoleRepository;
+    private final ReferenceDataCache<OracleUserRoleEntity> oracleRoleCache;
+    private final OracleBatchRepository oracleBatchRepository;
+    private final OracleBatchProperties batchProperties;
 
     public List<OracleUserRoleEntity> getAllRoles() {
         log.info("Getting all Oracle user roles");
-        return oracleUserRoleRepository.findAll();
+        return oracleRoleCache.getAll();
+    }
+
+    /**
+     * Content hash of the cached role list, computed once per cache load.
+     */
+    public String getAllRolesVersion() {
+        return oracleRoleCache.getAllVersion();
     }
 
     public OracleUserRoleEntity getRoleById(Long id) {
         log.info("Getting Oracle user role by ID: {}", id);
-        return oracleUserRoleRepository.findById(id)
+        return oracleRoleCache.get(id)
                 .orElseThrow(() -> new OracleUserRoleNotFoundException(id));
     }
 
@@ -32,17 +46,40 @@ public class OracleUserRoleService {
     public void createRole(String name, String describe) {
         log.info("Creating Oracle user role via SQL: name={}, describe={}", name, describe);
         oracleUserRoleRepository.insertRole(name, describe);
+        oracleRoleCache.invalidateAllAfterCommit();
     }
 
     @Transactional("oracleTransactionManager")
     public void updateRole(Long id, String name, String describe) {
         log.info("Updating Oracle user role via SQL: id={}, name={}, describe={}", id, name, describe);
         oracleUserRoleRepository.updateRole(id, name, describe);
+        oracleRoleCache.invalidateAfterCommit(id);
+    }
+
+    @Transactional("oracleTransactionManager")
+    public List<BatchItemResultDTO> createRoles(List<OracleUserRoleEntity> roles) {
+        BatchResults.checkSize(roles, batchProperties.getMaxItems());
+        log.info("Creating {} Oracle user roles via JDBC batch", roles.size());
+        int[] counts = oracleBatchRepository.insertRoles(roles, batchProperties.getSize());
+        oracleRoleCache.invalidateAllAfterCommit();
+        return BatchResults.created(counts);
+    }
+
+    @Transactional("oracleTransactionManager")
+    public List<BatchItemResultDTO> updateRoles(List<OracleUserRoleEntity> roles) {
+        BatchResults.checkSize(roles, batchProperties.getMaxItems());
+        List<Long> ids = roles.stream().map(OracleUserRoleEntity::getId).collect(Collectors.toList());
+        BatchResults.checkIds(ids);
+        log.info("Updating {} Oracle user roles via JDBC batch", roles.size());
+        int[] counts = oracleBatchRepository.updateRoles(roles, batchProperties.getSize());
+        oracleRoleCache.invalidateAllAfterCommit();
+        return BatchResults.updated(counts, ids);
     }
 
     @Transactional("oracleTransactionManager")
     public void deleteRole(Long id) {
         log.info("Deleting Oracle user role: {}", id);
         oracleUserRoleRepository.deleteById(id);
+        oracleRoleCache.invalidateAfterCommit(id);
     }
 }
@@ -1,66 +1,142 @@
 package rs.filisova.template.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rs.filisova.template.coalescing.LookupCoalescer;
+import rs.filisova.template.config.OracleBatchProperties;
+import rs.filisova.template.dto.BatchItemResultDTO;
 import rs.filisova.template.dto.OracleUserDTO;
 import rs.filisova.template.dto.OracleUserGrantDTO;
 import rs.filisova.template.dto.OracleUserRoleDTO;
 import rs.filisova.template.entity.OracleUserEntity;
+import rs.filisova.template.entity.OracleUserGrantEntity;
+import rs.filisova.template.entity.OracleUserRoleEntity;
 import rs.filisova.template.exception.OracleUserNotFoundException;
+import rs.filisova.template.repository.OracleBatchRepository;
 import rs.filisova.template.repository.OracleUserRepository;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class OracleUserService {
 
+    // Oracle accepts at most 1000 expressions in an IN list
+    public static final int MAX_IDS = 1000;
+
     private final OracleUserRepository oracleUserRepository;
+    private final OracleBatchRepository oracleBatchRepository;
+    private final OracleBatchProperties batchProperties;
+    private final NdjsonWriter ndjsonWriter;
+    private final ReferenceDataCache<OracleUserRoleEntity> oracleRoleCache;
+    private final ReferenceDataCache<OracleUserGrantEntity> oracleGrantCache;
+    private final LookupCoalescer<Long, OracleUserEntity> oracleUserLookups;
+
+    @PersistenceContext(unitName = "oracle")
+    private EntityManager entityManager;
 
-    private OracleUserDTO mapToDTO(OracleUserEntity entity) {
+    OracleUserDTO mapToDTO(OracleUserEntity entity) {
         OracleUserDTO dto = new OracleUserDTO();
         dto.setId(entity.getId());
         dto.setName(entity.getName());
         dto.setBirthDateOra(entity.getBirthDateOra());
         dto.setSex(entity.getSex());
         
-        if (entity.getRole() != null) {
-            OracleUserRoleDTO roleDTO = new OracleUserRoleDTO();
-            roleDTO.setId(entity.getRole().getId());
-            roleDTO.setName(entity.getRole().getName());
-            roleDTO.setDescription(entity.getRole().getDescribe());
-            dto.setRole(roleDTO);
+        // Role and grant come from the reference-data cache, not from the user query
+        if (entity.getRoleId() != null) {
+            oracleRoleCache.get(entity.getRoleId()).ifPresent(role -> {
+                OracleUserRoleDTO roleDTO = new OracleUserRoleDTO();
+                roleDTO.setId(role.getId());
+                roleDTO.setName(role.getName());
+                roleDTO.setDescription(role.getDescribe());
+                dto.setRole(roleDTO);
+            });
         }
         
-        if (entity.getGrant() != null) {
-            OracleUserGrantDTO grantDTO = new OracleUserGrantDTO();
-            grantDTO.setId(entity.getGrant().getId());
-            grantDTO.setName(entity.getGrant().getName());
-            grantDTO.setDescription(entity.getGrant().getDescribe());
-            dto.setGrant(grantDTO);
+        if (entity.getGrantId() != null) {
+            oracleGrantCache.get(entity.getGrantId()).ifPresent(grant -> {
+                OracleUserGrantDTO grantDTO = new OracleUserGrantDTO();
+                grantDTO.setId(grant.getId());
+                grantDTO.setName(grant.getName());
+                grantDTO.setDescription(grant.getDescribe());
+                dto.setGrant(grantDTO);
+            });
         }
         
         return dto;
     }
 
+    @Transactional(value = "oracleTransactionManager", readOnly = true)
     public List<OracleUserDTO> getAllUsers() {
         log.info("Getting all Oracle users");
-        return oracleUserRepository.findAll().stream()
+        return oracleUserRepository.findAllByOrderByIdAsc().stream()
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Streams all users as NDJSON through a server-side cursor.
+     * Users are detached once written; roles and grants come from the reference-data cache.
+     */
+    @Transactional(value = "oracleTransactionManager", readOnly = true)
+    public long exportUsers(OutputStream out) throws IOException {
+        try (Stream<OracleUserEntity> users = oracleUserRepository.streamAllOrderById()) {
+            long exported = ndjsonWriter.write(users.map(user -> {
+                OracleUserDTO dto = mapToDTO(user);
+                entityManager.detach(user);
+                return dto;
+            }), out);
+            log.info("Exported {} Oracle users", exported);
+            return exported;
+        }
+    }
+
+    /**
+     * Concurrent lookups share one query through the coalescer, so no transaction (and connection) is held
+     * while waiting for the batch.
+     */
     public OracleUserDTO getUserById(Long id) {
         log.info("Getting Oracle user by ID: {}", id);
-        OracleUserEntity entity = oracleUserRepository.findById(id)
-                .orElseThrow(() -> new OracleUserNotFoundException(id));
+        OracleUserEntity entity = oracleUserLookups.get(id);
+        if (entity == null) {
+            throw new OracleUserNotFoundException(id);
+        }
         return mapToDTO(entity);
     }
 
+    /**
+     * Users with the given ids in request order, unknown ids left out; one IN query.
+     */
+    @Transactional(value = "oracleTransactionManager", readOnly = true)
+    public List<OracleUserDTO> getUsersByIds(List<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        if (distinctIds.isEmpty() || distinctIds.size() > MAX_IDS) {
+            throw new IllegalArgumentException("Number of ids must be between 1 and " + MAX_IDS);
+        }
+        log.info("Getting {} Oracle users by IDs", distinctIds.size());
+        Map<Long, OracleUserEntity> users = oracleUserRepository.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(OracleUserEntity::getId, Function.identity()));
+        return distinctIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
+    }
+
     @Transactional("oracleTransactionManager")
     public void createUser(OracleUserDTO dto) {
         log.info("Creating Oracle user via SQL: {}", dto);
@@ -77,6 +153,22 @@ public class OracleUserService {
         oracleUserRepository.updateUser(id, dto.getName(), dto.getBirthDateOra(), dto.getSex(), roleId, grantId);
     }
 
+    @Transactional("oracleTransactionManager")
+    public List<BatchItemResultDTO> createUsers(List<OracleUserDTO> users) {
+        BatchResults.checkSize(users, batchProperties.getMaxItems());
+        log.info("Creating {} Oracle users via JDBC batch", users.size());
+        return BatchResults.created(oracleBatchRepository.insertUsers(users, batchProperties.getSize()));
+    }
+
+    @Transactional("oracleTransactionManager")
+    public List<BatchItemResultDTO> updateUsers(List<OracleUserDTO> users) {
+        BatchResults.checkSize(users, batchProperties.getMaxItems());
+        List<Long> ids = users.stream().map(OracleUserDTO::getId).collect(Collectors.toList());
+        BatchResults.checkIds(ids);
+        log.info("Updating {} Oracle users via JDBC batch", users.size());
+        return BatchResults.updated(oracleBatchRepository.updateUsers(users, batchProperties.getSize()), ids);
+    }
+
     @Transactional("oracleTransactionManager")
     public void deleteUser(Long id) {
         log.info("Deleting Oracle user: {}", id);
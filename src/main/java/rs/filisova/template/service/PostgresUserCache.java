@@ -0,0 +1,160 @@
+package rs.filisova.template.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.filisova.template.changes.PostgresUserChangeListener;
+import rs.filisova.template.changes.PostgresUserChangedEvent;
+import rs.filisova.template.config.PostgresUserCacheProperties;
+import rs.filisova.template.dto.PostgresUserDTO;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Per-id cache of postgres_users reads. Rows are mostly written by the CDC sink, outside this service,
+ * so entries are invalidated by Postgres NOTIFY (see {@link PostgresUserChangeListener}) rather than on local writes.
+ * While the listener is disconnected the cache is bypassed, and it is flushed on every reconnect.
+ * Loads run on the calling thread outside Caffeine's map compute: a pending future is mapped first, so concurrent
+ * readers of the id wait for the same load and an invalidation removes the pending future without waiting for it.
+ * Metrics: cache.* meters tagged cache=postgresUsers, and cache.invalidation.latency (change in Postgres -> eviction).
+ */
+@Component
+public class PostgresUserCache {
+
+    static final String NAME = "postgresUsers";
+
+    private final AsyncCache<Long, Entry> cache;
+    private final PostgresUserChangeListener changeListener;
+    private final PostgresUserCacheProperties properties;
+    private final Timer invalidationLatency;
+
+    public PostgresUserCache(PostgresUserChangeListener changeListener,
+                             PostgresUserCacheProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.changeListener = changeListener;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        this.invalidationLatency = Timer.builder("cache.invalidation.latency")
+                .description("Time from a change in Postgres to the eviction of the cached row")
+                .tag("cache", NAME)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+    }
+
+    /**
+     * Cached row with its row_version. The DTO instance is shared between readers and must not be modified.
+     */
+    public record Entry(PostgresUserDTO user, long rowVersion) {
+    }
+
+    /**
+     * @param loader loads the row; exceptions (e.g. not found) propagate and nothing is cached
+     */
+    public Entry get(Long id, Function<Long, Entry> loader) {
+        if (!properties.isEnabled() || !changeListener.isConnected()) {
+            return loader.apply(id);
+        }
+        long epoch = changeListener.getEpoch();
+        CompletableFuture<Entry> load = new CompletableFuture<>();
+        CompletableFuture<Entry> entry = cache.get(id, (key, executor) -> load);
+        if (entry == load) {
+            // Mapped before the row is read: an invalidation from now on removes the pending load
+            complete(load, () -> loader.apply(id));
+            if (changeListener.getEpoch() != epoch) {
+                // Notifications may have been missed while this row was loaded
+                cache.asMap().remove(id, load);
+            }
+        }
+        return join(entry);
+    }
+
+    /**
+     * Entries of {@code ids}: completed cached ones plus the rest loaded together by {@code loader}, which are cached
+     * like {@link #get} loads. Ids that do not exist are left out.
+     */
+    public Map<Long, Entry> getAll(Set<Long> ids, Function<Set<Long>, Map<Long, Entry>> loader) {
+        if (!properties.isEnabled() || !changeListener.isConnected()) {
+            return loader.apply(ids);
+        }
+        long epoch = changeListener.getEpoch();
+        // Pending futures of the missing ids are mapped before the bulk load reads them, as in get
+        Map<Long, Entry> entries = join(cache.getAll(ids, (missing, executor) -> {
+            CompletableFuture<Map<Long, Entry>> load = new CompletableFuture<>();
+            complete(load, () -> loader.apply(Set.copyOf(missing)));
+            return load;
+        }));
+        if (changeListener.getEpoch() != epoch) {
+            cache.synchronous().invalidateAll(entries.keySet());
+        }
+        return entries;
+    }
+
+    /**
+     * Local writes drop their row right after commit, so the writer reads its own write
+     * without waiting for the notification.
+     */
+    public void invalidateAfterCommit(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.synchronous().invalidate(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.synchronous().invalidate(id);
+            }
+        });
+    }
+
+    @EventListener
+    public void onPostgresUserChanged(PostgresUserChangedEvent event) {
+        if (event.isFlush()) {
+            cache.synchronous().invalidateAll();
+        } else {
+            cache.synchronous().invalidate(event.id());
+        }
+        if (event.changedAt() > 0) {
+            invalidationLatency.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - event.changedAt())));
+        }
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, Supplier<T> load) {
+        try {
+            future.complete(load.get());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
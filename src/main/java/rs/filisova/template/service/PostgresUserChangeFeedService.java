@@ -0,0 +1,68 @@
+package rs.filisova.template.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import rs.filisova.template.config.PostgresUserChangeFeedProperties;
+import rs.filisova.template.dto.PostgresUserChangeDTO;
+import rs.filisova.template.dto.PostgresUserChangeFeedDTO;
+import rs.filisova.template.exception.ChangeTokenExpiredException;
+import rs.filisova.template.repository.PostgresUserChangeFeedRepository;
+import rs.filisova.template.repository.PostgresUserChangeFeedRepository.ChangeRow;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostgresUserChangeFeedService {
+
+    private final PostgresUserChangeFeedRepository postgresUserChangeFeedRepository;
+    private final PostgresUserChangeFeedProperties properties;
+
+    /**
+     * Changes after {@code since} (null: from the beginning, i.e. every current row), oldest first.
+     * The returned token is stored by the client after it has applied the page.
+     */
+    @Transactional(readOnly = true)
+    public PostgresUserChangeFeedDTO getChanges(String since, Integer size) {
+        int pageSize = size != null ? size : properties.getDefaultSize();
+        if (pageSize < 1 || pageSize > properties.getMaxSize()) {
+            throw new IllegalArgumentException("size must be between 1 and " + properties.getMaxSize());
+        }
+        long now = System.currentTimeMillis();
+        PostgresUserCursor.Change position = since == null ? new PostgresUserCursor.Change(0, 0, now)
+                : PostgresUserCursor.decodeChange(since);
+        // Tombstones issued after the token may already be purged
+        if (position.issuedAtMillis() < now - properties.getTombstoneRetention().toMillis()) {
+            throw new ChangeTokenExpiredException(since);
+        }
+
+        List<ChangeRow> rows = postgresUserChangeFeedRepository.findChangesAfter(position.xid(), position.id(), pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        List<PostgresUserChangeDTO> changes = rows.stream().map(ChangeRow::change).toList();
+        // Until the client has caught up, the token keeps the time of its last catch-up:
+        // tombstones it has not seen yet are younger than that
+        long issuedAt = hasMore ? position.issuedAtMillis() : now;
+        PostgresUserCursor.Change next = rows.isEmpty()
+                ? new PostgresUserCursor.Change(position.xid(), position.id(), issuedAt)
+                : new PostgresUserCursor.Change(rows.get(rows.size() - 1).xid(), changes.get(changes.size() - 1).getId(), issuedAt);
+        log.info("Retrieved {} postgresUser changes, hasMore={}", changes.size(), hasMore);
+        return new PostgresUserChangeFeedDTO(changes, PostgresUserCursor.encode(next), hasMore);
+    }
+
+    @Scheduled(fixedDelayString = "${app.postgres.changes.purge-interval:1h}", initialDelayString = "${app.postgres.changes.purge-interval:1h}")
+    public void purgeTombstones() {
+        int purged = postgresUserChangeFeedRepository.purgeTombstones(
+                LocalDateTime.now().minus(properties.getTombstoneRetention()));
+        if (purged > 0) {
+            log.info("Purged {} postgresUser tombstones", purged);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package rs.filisova.template.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursors for postgres_users pages: by id for the list endpoint,
+ * by (sort field, id) for the query endpoint, by (transaction, id) for the change feed.
+ * Clients must treat the value as a token and pass it back unchanged.
+ */
+public final class PostgresUserCursor {
+
+    private static final String ID_PREFIX = "id:";
+    private static final String KEYSET_PREFIX = "k|";
+    private static final String CHANGE_PREFIX = "c|";
+
+    /**
+     * Position after the last row of a page sorted by {@code sort}; {@code value} is null for rows with a NULL sort value.
+     */
+    public record Keyset(String sort, boolean descending, String value, long id) {
+    }
+
+    /**
+     * Position in the change feed: last delivered change and the time the token was issued.
+     */
+    public record Change(long xid, long id, long issuedAtMillis) {
+    }
+
+    private PostgresUserCursor() {
+    }
+
+    public static String encode(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((ID_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(ID_PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return Long.parseLong(value.substring(ID_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public static String encode(Keyset keyset) {
+        String value = KEYSET_PREFIX + keyset.sort() + "|" + (keyset.descending() ? "desc" : "asc") + "|" + keyset.id() + "|"
+                + (keyset.value() == null ? "n" : "v" + keyset.value());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Keyset decodeKeyset(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = value.split("\\|", 5);
+            if (!value.startsWith(KEYSET_PREFIX) || parts.length != 5
+                    || !(parts[4].startsWith("v") || parts[4].equals("n"))) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            boolean descending = switch (parts[2]) {
+                case "asc" -> false;
+                case "desc" -> true;
+                default -> throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            };
+            String sortValue = parts[4].charAt(0) == 'v' ? parts[4].substring(1) : null;
+            return new Keyset(parts[1], descending, sortValue, Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public static String encode(Change change) {
+        String value = CHANGE_PREFIX + change.xid() + "|" + change.id() + "|" + change.issuedAtMillis();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Change decodeChange(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split("\\|");
+            if (!value.startsWith(CHANGE_PREFIX) || parts.length != 4) {
+                throw new IllegalArgumentException("Invalid change token: " + token);
+            }
+            return new Change(Long.parseLong(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid change token: " + token);
+        }
+    }
+}
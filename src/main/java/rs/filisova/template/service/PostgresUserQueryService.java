@@ -0,0 +1,119 @@
+package rs.filisova.template.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import rs.filisova.template.dto.CursorPageDTO;
+import rs.filisova.template.dto.PostgresUserFilter;
+import rs.filisova.template.repository.PostgresUserField;
+import rs.filisova.template.repository.PostgresUserQueryRepository;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Filtered and projected reads of postgres_users with keyset pagination on any indexed field.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostgresUserQueryService {
+
+    private final PostgresUserQueryRepository postgresUserQueryRepository;
+
+    @Transactional(readOnly = true)
+    public CursorPageDTO<Map<String, Object>> query(PostgresUserFilter filter,
+                                                    List<String> fieldNames,
+                                                    String sortName,
+                                                    String direction,
+                                                    String cursor,
+                                                    int size) {
+        if (size < 1 || size > PostgresUserService.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + PostgresUserService.MAX_PAGE_SIZE);
+        }
+        if (filter.getBirthDateFrom() != null && filter.getBirthDateTo() != null
+                && filter.getBirthDateFrom().isAfter(filter.getBirthDateTo())) {
+            throw new IllegalArgumentException("birthDateFrom must not be after birthDateTo");
+        }
+        Set<PostgresUserField> fields = parseFields(fieldNames);
+        PostgresUserField sort = PostgresUserField.fromFieldName(sortName);
+        if (!sort.isSortable()) {
+            throw new IllegalArgumentException("Sorting by " + sortName + " is not supported, it is not indexed");
+        }
+        boolean descending = parseDirection(direction);
+
+        PostgresUserQueryRepository.After after = null;
+        if (cursor != null) {
+            PostgresUserCursor.Keyset keyset = PostgresUserCursor.decodeKeyset(cursor);
+            if (!keyset.sort().equals(sort.getFieldName()) || keyset.descending() != descending) {
+                throw new IllegalArgumentException("Cursor was issued for a different sort: " + keyset.sort()
+                        + (keyset.descending() ? " desc" : " asc"));
+            }
+            after = new PostgresUserQueryRepository.After(parseValue(sort, keyset.value()), keyset.id());
+        }
+
+        List<Map<PostgresUserField, Object>> rows =
+                postgresUserQueryRepository.find(filter, fields, sort, descending, after, size + 1);
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Map<PostgresUserField, Object> last = rows.get(size - 1);
+            Object lastValue = last.get(sort);
+            nextCursor = PostgresUserCursor.encode(new PostgresUserCursor.Keyset(sort.getFieldName(), descending,
+                    lastValue != null ? lastValue.toString() : null, (Long) last.get(PostgresUserField.ID)));
+        }
+
+        List<Map<String, Object>> items = new ArrayList<>(rows.size());
+        for (Map<PostgresUserField, Object> row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            for (PostgresUserField field : fields) {
+                item.put(field.getFieldName(), row.get(field));
+            }
+            items.add(item);
+        }
+        log.info("Queried {} postgresUsers: filter={}, sort={} {}", items.size(), filter, sort.getFieldName(), descending ? "desc" : "asc");
+        return new CursorPageDTO<>(items, nextCursor, null);
+    }
+
+    private static Set<PostgresUserField> parseFields(List<String> fieldNames) {
+        if (fieldNames == null || fieldNames.isEmpty()) {
+            return EnumSet.allOf(PostgresUserField.class);
+        }
+        Set<PostgresUserField> fields = EnumSet.of(PostgresUserField.ID);
+        for (String fieldName : fieldNames) {
+            fields.add(PostgresUserField.fromFieldName(fieldName.trim()));
+        }
+        return fields;
+    }
+
+    private static boolean parseDirection(String direction) {
+        return switch (direction.toLowerCase()) {
+            case "asc" -> false;
+            case "desc" -> true;
+            default -> throw new IllegalArgumentException("Sort direction must be asc or desc");
+        };
+    }
+
+    private static Object parseValue(PostgresUserField sort, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return switch (sort) {
+                case ID -> Long.valueOf(value);
+                case BIRTH_DATE -> LocalDate.parse(value);
+                default -> value;
+            };
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor value: " + value);
+        }
+    }
+}
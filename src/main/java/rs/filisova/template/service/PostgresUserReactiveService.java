@@ -0,0 +1,49 @@
+package rs.filisova.template.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import rs.filisova.template.dto.PostgresUserDTO;
+import rs.filisova.template.dto.PostgresUserFilter;
+import rs.filisova.template.entity.PostgresUserEntity;
+import rs.filisova.template.exception.PostgresUserNotFoundException;
+import rs.filisova.template.repository.PostgresUserReactiveRepository;
+
+/**
+ * Read-only, non-blocking counterpart of {@link PostgresUserService}; writes stay on the JPA path.
+ */
+@Service
+@RequiredArgsConstructor
+public class PostgresUserReactiveService {
+
+    public static final int DEFAULT_LIMIT = 1000;
+    // Larger reads continue from the last id with afterId
+    public static final int MAX_LIMIT = 10_000;
+
+    private final PostgresUserReactiveRepository postgresUserReactiveRepository;
+
+    public Flux<PostgresUserDTO> getPostgresUsers(PostgresUserFilter filter, Long afterId, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return Flux.error(new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT));
+        }
+        return postgresUserReactiveRepository.find(filter, afterId, limit).map(this::convertToDTO);
+    }
+
+    public Mono<PostgresUserDTO> getPostgresUserById(Long id) {
+        return postgresUserReactiveRepository.findById(id)
+                .map(this::convertToDTO)
+                .switchIfEmpty(Mono.error(() -> new PostgresUserNotFoundException(id)));
+    }
+
+    private PostgresUserDTO convertToDTO(PostgresUserEntity postgresUser) {
+        PostgresUserDTO dto = new PostgresUserDTO();
+        dto.setId(postgresUser.getId());
+        dto.setName(postgresUser.getName());
+        dto.setBirthDate(postgresUser.getBirthDate());
+        dto.setGender(postgresUser.getGender());
+        dto.setRole(postgresUser.getRole());
+        dto.setGrantField(postgresUser.getGrantField());
+        return dto;
+    }
+}
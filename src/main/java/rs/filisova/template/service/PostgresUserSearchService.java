@@ -0,0 +1,40 @@
+package rs.filisova.template.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import rs.filisova.template.config.PostgresUserSearchProperties;
+import rs.filisova.template.dto.PostgresUserSearchResultDTO;
+import rs.filisova.template.repository.PostgresUserSearchRepository;
+
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostgresUserSearchService {
+
+    private final PostgresUserSearchRepository postgresUserSearchRepository;
+    private final PostgresUserSearchProperties properties;
+
+    /**
+     * Top-{@code limit} users whose name contains a word similar to {@code query}, best match first.
+     * Exceeding the configured timeout surfaces as {@link org.springframework.dao.QueryTimeoutException}.
+     */
+    @Transactional(readOnly = true)
+    public List<PostgresUserSearchResultDTO> searchByName(String query, Integer limit) {
+        String normalized = query == null ? "" : query.trim();
+        if (normalized.length() < properties.getMinQueryLength()) {
+            throw new IllegalArgumentException("Search query must have at least " + properties.getMinQueryLength() + " characters");
+        }
+        int topK = limit != null ? limit : properties.getDefaultLimit();
+        if (topK < 1 || topK > properties.getMaxLimit()) {
+            throw new IllegalArgumentException("limit must be between 1 and " + properties.getMaxLimit());
+        }
+        List<PostgresUserSearchResultDTO> results = postgresUserSearchRepository.searchByName(
+                normalized, properties.getSimilarityThreshold(), properties.getTimeout(), topK);
+        log.info("Search '{}' returned {} postgresUsers", normalized, results.size());
+        return results;
+    }
+}
@@ -1,78 +1,190 @@
 package rs.filisova.template.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rs.filisova.template.coalescing.LookupCoalescer;
+import rs.filisova.template.dto.CursorPageDTO;
 import rs.filisova.template.dto.PostgresUserDTO;
 import rs.filisova.template.entity.PostgresUserEntity;
 import rs.filisova.template.exception.PostgresUserNotFoundException;
 import rs.filisova.template.repository.PostgresUserRepository;
+import rs.filisova.template.repository.PostgresUserWriteRepository;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PostgresUserService {
 
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final PostgresUserRepository postgresUserRepository;
+    private final PostgresUserWriteRepository postgresUserWriteRepository;
+    private final NdjsonWriter ndjsonWriter;
+    private final PostgresUserCache postgresUserCache;
+    private final LookupCoalescer<Long, PostgresUserEntity> postgresUserLookups;
+
+    @PersistenceContext(unitName = "postgres")
+    private EntityManager entityManager;
 
+    /**
+     * Keyset page ordered by id: seeks past {@code afterId} (or the decoded {@code cursor})
+     * instead of using OFFSET, so every page costs the same index range scan.
+     */
     @Transactional(readOnly = true)
-    public List<PostgresUserDTO> getAllPostgresUsers() {
-        List<PostgresUserDTO> postgresUsers = postgresUserRepository.findAllByOrderByIdAsc().stream()
+    public CursorPageDTO<PostgresUserDTO> getPostgresUsersPage(Long afterId, String cursor, int size, boolean includeTotal) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Long startAfter = cursor != null ? PostgresUserCursor.decode(cursor) : afterId;
+        if (startAfter == null) {
+            startAfter = Long.MIN_VALUE;
+        }
+
+        // One extra row tells whether a next page exists without a COUNT(*)
+        List<PostgresUserDTO> postgresUsers = postgresUserRepository
+                .findByIdGreaterThanOrderByIdAsc(startAfter, Limit.of(size + 1)).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
-        log.info("Retrieved {} postgresUsers", postgresUsers.size());
-        return postgresUsers;
+
+        String nextCursor = null;
+        if (postgresUsers.size() > size) {
+            postgresUsers = postgresUsers.subList(0, size);
+            nextCursor = PostgresUserCursor.encode(postgresUsers.get(size - 1).getId());
+        }
+        Long approximateTotal = includeTotal ? postgresUserRepository.estimateRowCount() : null;
+
+        log.info("Retrieved {} postgresUsers after id {}", postgresUsers.size(), startAfter);
+        return new CursorPageDTO<>(postgresUsers, nextCursor, approximateTotal);
     }
 
+    /**
+     * Streams the whole table as NDJSON through a server-side cursor.
+     * Each entity is detached once written, so the persistence context stays empty.
+     */
     @Transactional(readOnly = true)
-    public PostgresUserDTO getPostgresUserById(Long id) {
-        PostgresUserEntity postgresUser = postgresUserRepository.findById(id)
-                .orElseThrow(() -> new PostgresUserNotFoundException(id));
-        PostgresUserDTO postgresUserDTO = convertToDTO(postgresUser);
-        log.info("Retrieved postgresUser: {}", postgresUserDTO);
-        return postgresUserDTO;
+    public long exportPostgresUsers(OutputStream out) throws IOException {
+        try (Stream<PostgresUserEntity> postgresUsers = postgresUserRepository.streamAllOrderById()) {
+            long exported = ndjsonWriter.write(postgresUsers.map(postgresUser -> {
+                PostgresUserDTO dto = convertToDTO(postgresUser);
+                entityManager.detach(postgresUser);
+                return dto;
+            }), out);
+            log.info("Exported {} postgresUsers", exported);
+            return exported;
+        }
+    }
+
+    /**
+     * Version of the whole table; changes with every committed write.
+     */
+    @Transactional(readOnly = true)
+    public String getPostgresUsersVersion() {
+        PostgresUserRepository.TableVersion version = postgresUserRepository.findTableVersion();
+        String committed = version.getUsersVersion() + "-" + version.getTombstonesVersion();
+        return version.getSnapshot() != null ? committed + "-" + version.getSnapshot() : committed;
+    }
+
+    /**
+     * Row with its row_version, served from the per-id cache; only a miss opens a (repository) transaction,
+     * so a 304 costs no query on a hit. The ETag and the body must both come from the one returned entry.
+     */
+    public PostgresUserCache.Entry getPostgresUserById(Long id) {
+        PostgresUserCache.Entry entry = postgresUserCache.get(id, this::loadPostgresUser);
+        log.info("Retrieved postgresUser: {}", entry.user());
+        return entry;
     }
 
-    @Transactional
+    /**
+     * Users with the given ids in request order, unknown ids left out: cached rows plus one query for the rest.
+     */
+    public List<PostgresUserDTO> getPostgresUsersByIds(List<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        if (distinctIds.isEmpty() || distinctIds.size() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Number of ids must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Map<Long, PostgresUserCache.Entry> entries = postgresUserCache.getAll(distinctIds, this::loadPostgresUsers);
+        List<PostgresUserDTO> postgresUsers = new ArrayList<>(entries.size());
+        for (Long id : distinctIds) {
+            PostgresUserCache.Entry entry = entries.get(id);
+            if (entry != null) {
+                postgresUsers.add(entry.user());
+            }
+        }
+        log.info("Retrieved {} of {} requested postgresUsers", postgresUsers.size(), distinctIds.size());
+        return postgresUsers;
+    }
+
+    // Concurrent cache misses share one query through the coalescer
+    private PostgresUserCache.Entry loadPostgresUser(Long id) {
+        PostgresUserEntity postgresUser = postgresUserLookups.get(id);
+        if (postgresUser == null) {
+            throw new PostgresUserNotFoundException(id);
+        }
+        return toCacheEntry(postgresUser);
+    }
+
+    private Map<Long, PostgresUserCache.Entry> loadPostgresUsers(Set<Long> ids) {
+        Map<Long, PostgresUserCache.Entry> entries = new HashMap<>();
+        postgresUserRepository.findAllById(ids).forEach(postgresUser -> entries.put(postgresUser.getId(), toCacheEntry(postgresUser)));
+        return entries;
+    }
+
+    private PostgresUserCache.Entry toCacheEntry(PostgresUserEntity postgresUser) {
+        return new PostgresUserCache.Entry(convertToDTO(postgresUser), postgresUser.getRowVersion());
+    }
+
+    /**
+     * One INSERT ... ON CONFLICT in autocommit; an existing id is overwritten, as merge() of the entity did.
+     */
     public PostgresUserDTO createPostgresUser(PostgresUserDTO postgresUserDTO) {
-        PostgresUserEntity postgresUser = convertToEntity(postgresUserDTO);
-        PostgresUserEntity savedPostgresUser = postgresUserRepository.save(postgresUser);
+        PostgresUserEntity savedPostgresUser = postgresUserWriteRepository.upsert(convertToEntity(postgresUserDTO));
+        postgresUserCache.invalidateAfterCommit(savedPostgresUser.getId());
         PostgresUserDTO result = convertToDTO(savedPostgresUser);
         log.info("Created postgresUser: {}", result);
         return result;
     }
 
-    @Transactional
+    /**
+     * One UPDATE ... RETURNING in autocommit; no returned row means the id does not exist.
+     */
     public PostgresUserDTO updatePostgresUser(Long id, PostgresUserDTO postgresUserDTO) {
-        PostgresUserEntity existingPostgresUser = postgresUserRepository.findById(id)
+        PostgresUserEntity updatedPostgresUser = postgresUserWriteRepository.update(id, convertToEntity(postgresUserDTO))
                 .orElseThrow(() -> new PostgresUserNotFoundException(id));
-
-        existingPostgresUser.setName(postgresUserDTO.getName());
-        existingPostgresUser.setBirthDate(postgresUserDTO.getBirthDate());
-        existingPostgresUser.setGender(postgresUserDTO.getGender());
-        existingPostgresUser.setRole(postgresUserDTO.getRole());
-        existingPostgresUser.setGrantField(postgresUserDTO.getGrantField());
-
-        PostgresUserEntity updatedPostgresUser = postgresUserRepository.save(existingPostgresUser);
+        postgresUserCache.invalidateAfterCommit(id);
         PostgresUserDTO result = convertToDTO(updatedPostgresUser);
         log.info("Updated postgresUser: {}", result);
         return result;
     }
 
-    @Transactional
+    /**
+     * One DELETE in autocommit; no deleted row means the id does not exist.
+     */
     public void deletePostgresUser(Long id) {
-        if (!postgresUserRepository.existsById(id)) {
+        if (!postgresUserWriteRepository.delete(id)) {
             throw new PostgresUserNotFoundException(id);
         }
-        postgresUserRepository.deleteById(id);
+        postgresUserCache.invalidateAfterCommit(id);
         log.info("Deleted postgresUser with id: {}", id);
     }
 
-    private PostgresUserDTO convertToDTO(PostgresUserEntity postgresUser) {
+    PostgresUserDTO convertToDTO(PostgresUserEntity postgresUser) {
         PostgresUserDTO dto = new PostgresUserDTO();
         dto.setId(postgresUser.getId());
         dto.setName(postgresUser.getName());
@@ -83,7 +195,7 @@ public class PostgresUserService {
         return dto;
     }
 
-    private PostgresUserEntity convertToEntity(PostgresUserDTO dto) {
+    PostgresUserEntity convertToEntity(PostgresUserDTO dto) {
         PostgresUserEntity entity = new PostgresUserEntity();
         // Don't set ID for new entities - let the database generate it
         if (dto.getId() != null && dto.getId() > 0) {
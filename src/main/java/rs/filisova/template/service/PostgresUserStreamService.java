@@ -0,0 +1,300 @@
+package rs.filisova.template.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import rs.filisova.template.changes.PostgresUserChangedEvent;
+import rs.filisova.template.config.PostgresUserChangeFeedProperties;
+import rs.filisova.template.config.PostgresUserStreamProperties;
+import rs.filisova.template.exception.ChangeTokenExpiredException;
+import rs.filisova.template.repository.PostgresUserChangeFeedRepository;
+import rs.filisova.template.repository.PostgresUserChangeFeedRepository.ChangeRow;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events of postgres_users changes. One poller reads the change feed (woken by LISTEN/NOTIFY,
+ * with a periodic fallback), serializes each change once and offers it to every subscriber's bounded buffer;
+ * a small pool of sender threads writes the buffers out. Event ids are change feed tokens, so a reconnecting
+ * client resumes with Last-Event-ID and a dropped slow consumer loses nothing.
+ * Writes block while the client's socket buffer is full; a write blocked longer than write-timeout drops its
+ * subscriber, and the pool gets a thread in place of the blocked one until that write returns.
+ */
+@Slf4j
+@Service
+public class PostgresUserStreamService {
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final PostgresUserChangeFeedRepository postgresUserChangeFeedRepository;
+    private final PostgresUserStreamProperties properties;
+    private final PostgresUserChangeFeedProperties feedProperties;
+    private final ObjectMapper objectMapper;
+    private final Counter dropped;
+    private final Counter stalled;
+    private final Counter published;
+
+    private final Set<PostgresUserStreamSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService poller;
+    private final ThreadPoolExecutor senders;
+    private final AtomicBoolean pollScheduled = new AtomicBoolean();
+
+    // Last broadcast position, owned by the poller thread; null until the first poll with subscribers
+    private PostgresUserCursor.Change position;
+
+    public PostgresUserStreamService(PostgresUserChangeFeedRepository postgresUserChangeFeedRepository,
+                                     PostgresUserStreamProperties properties,
+                                     PostgresUserChangeFeedProperties feedProperties,
+                                     ObjectMapper objectMapper,
+                                     MeterRegistry meterRegistry) {
+        this.postgresUserChangeFeedRepository = postgresUserChangeFeedRepository;
+        this.properties = properties;
+        this.feedProperties = feedProperties;
+        this.objectMapper = objectMapper;
+        this.poller = Executors.newSingleThreadExecutor(daemonThreads("postgres-users-stream-poll"));
+        this.senders = new ThreadPoolExecutor(properties.getSenderThreads(), properties.getSenderThreads(),
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), daemonThreads("postgres-users-stream-send"));
+        this.dropped = Counter.builder("postgres.users.stream.dropped")
+                .description("SSE subscribers disconnected because their buffer overflowed")
+                .register(meterRegistry);
+        this.stalled = Counter.builder("postgres.users.stream.stalled")
+                .description("SSE subscribers disconnected because a write blocked longer than the write timeout")
+                .register(meterRegistry);
+        this.published = Counter.builder("postgres.users.stream.published")
+                .description("postgres_users changes broadcast to SSE subscribers")
+                .register(meterRegistry);
+        Gauge.builder("postgres.users.stream.subscribers", subscribers, Set::size)
+                .description("Open SSE connections of GET /postgres-users/stream")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream; with {@code lastEventId} the changes after it are replayed first.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        PostgresUserCursor.Change resumeFrom = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            resumeFrom = PostgresUserCursor.decodeChange(lastEventId);
+            if (resumeFrom.issuedAtMillis() < System.currentTimeMillis() - feedProperties.getTombstoneRetention().toMillis()) {
+                throw new ChangeTokenExpiredException(lastEventId);
+            }
+        }
+
+        SseEmitter emitter = new SseEmitter(properties.getEmitterTimeout().toMillis());
+        PostgresUserStreamSubscriber subscriber = new PostgresUserStreamSubscriber(emitter, properties.getBufferSize(), resumeFrom);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        // Registered before the catch-up query, so nothing committed in between is missed
+        subscribers.add(subscriber);
+        if (resumeFrom != null) {
+            senders.execute(() -> catchUp(subscriber));
+        }
+        log.info("Opened postgresUser stream, resume={}, subscribers={}", resumeFrom != null, subscribers.size());
+        return emitter;
+    }
+
+    @EventListener
+    public void onChanged(PostgresUserChangedEvent event) {
+        schedulePoll();
+    }
+
+    @Scheduled(fixedDelayString = "${app.postgres.stream.poll-interval:1s}")
+    public void schedulePoll() {
+        if (pollScheduled.compareAndSet(false, true)) {
+            poller.execute(this::poll);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.postgres.stream.heartbeat-interval:15s}")
+    public void heartbeat() {
+        long idleSince = System.nanoTime() - properties.getHeartbeatInterval().toNanos();
+        for (PostgresUserStreamSubscriber subscriber : subscribers) {
+            if (subscriber.lastSentNanos() < idleSince) {
+                subscriber.requestHeartbeat();
+                scheduleDrain(subscriber);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.postgres.stream.poll-interval:1s}")
+    public void expireStalledWrites() {
+        long startedBefore = System.nanoTime() - properties.getWriteTimeout().toNanos();
+        for (PostgresUserStreamSubscriber subscriber : subscribers) {
+            if (subscriber.expireWrite(startedBefore)) {
+                stalled.increment();
+                log.warn("Dropping postgresUser stream subscriber, a write blocked for more than {}", properties.getWriteTimeout());
+                resizeSenders(1);
+                remove(subscriber);
+                subscriber.emitter().complete();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter().complete());
+    }
+
+    private void poll() {
+        pollScheduled.set(false);
+        try {
+            if (subscribers.isEmpty()) {
+                position = null;
+                return;
+            }
+            if (position == null) {
+                position = new PostgresUserCursor.Change(postgresUserChangeFeedRepository.findHorizon() - 1, Long.MAX_VALUE, 0);
+            }
+            List<ChangeRow> rows;
+            do {
+                rows = postgresUserChangeFeedRepository.findChangesAfter(position.xid(), position.id(), properties.getBatchSize());
+                for (ChangeRow row : rows) {
+                    position = new PostgresUserCursor.Change(row.xid(), row.change().getId(), System.currentTimeMillis());
+                    broadcast(row.change().getId(), new PostgresUserStreamSubscriber.Pending(position, frame(row, position)));
+                }
+            } while (rows.size() == properties.getBatchSize());
+        } catch (Exception e) {
+            log.warn("Failed to poll postgresUser changes for the stream: {}", e.getMessage());
+        }
+    }
+
+    private void broadcast(long userId, PostgresUserStreamSubscriber.Pending pending) {
+        published.increment();
+        for (PostgresUserStreamSubscriber subscriber : subscribers) {
+            if (subscriber.offer(userId, pending)) {
+                scheduleDrain(subscriber);
+            } else {
+                dropped.increment();
+                log.warn("Dropping slow postgresUser stream subscriber, buffer of {} changes is full", properties.getBufferSize());
+                remove(subscriber);
+                subscriber.emitter().complete();
+            }
+        }
+    }
+
+    private void catchUp(PostgresUserStreamSubscriber subscriber) {
+        try {
+            PostgresUserCursor.Change from = subscriber.delivered();
+            int replayed = 0;
+            List<ChangeRow> rows;
+            do {
+                rows = postgresUserChangeFeedRepository.findChangesAfter(from.xid(), from.id(), properties.getBatchSize());
+                for (ChangeRow row : rows) {
+                    // Keeps the resumed token's issue time until the subscriber has caught up
+                    from = new PostgresUserCursor.Change(row.xid(), row.change().getId(), from.issuedAtMillis());
+                    send(subscriber, frame(row, from));
+                    subscriber.delivered(from);
+                }
+                replayed += rows.size();
+                if (replayed > properties.getMaxReplay()) {
+                    send(subscriber, SseEmitter.event().name("reset").data("too many changes to replay, reload the list").build());
+                    remove(subscriber);
+                    subscriber.emitter().complete();
+                    return;
+                }
+            } while (rows.size() == properties.getBatchSize());
+        } catch (Exception e) {
+            remove(subscriber);
+            subscriber.emitter().completeWithError(e);
+            return;
+        }
+        drain(subscriber);
+    }
+
+    private void scheduleDrain(PostgresUserStreamSubscriber subscriber) {
+        if (subscriber.tryStartDraining()) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Runs with the subscriber's draining flag held
+    private void drain(PostgresUserStreamSubscriber subscriber) {
+        while (true) {
+            Set<DataWithMediaType> frame;
+            while ((frame = subscriber.next(HEARTBEAT)) != null) {
+                try {
+                    send(subscriber, frame);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; the container completes the emitter
+                    remove(subscriber);
+                    return;
+                }
+            }
+            subscriber.stopDraining();
+            if (!subscriber.hasWork() || !subscriber.tryStartDraining()) {
+                return;
+            }
+        }
+    }
+
+    private void send(PostgresUserStreamSubscriber subscriber, Set<DataWithMediaType> frame) throws IOException {
+        try {
+            subscriber.send(frame);
+        } finally {
+            if (subscriber.releaseExpiredWrite()) {
+                resizeSenders(-1);
+            }
+        }
+    }
+
+    // Grows before it shrinks: the core size may never exceed the maximum
+    private synchronized void resizeSenders(int delta) {
+        int size = senders.getCorePoolSize() + delta;
+        if (delta > 0) {
+            senders.setMaximumPoolSize(size);
+            senders.setCorePoolSize(size);
+        } else {
+            senders.setCorePoolSize(size);
+            senders.setMaximumPoolSize(size);
+        }
+    }
+
+    private void remove(PostgresUserStreamSubscriber subscriber) {
+        subscriber.close();
+        subscribers.remove(subscriber);
+    }
+
+    private Set<DataWithMediaType> frame(ChangeRow row, PostgresUserCursor.Change position) {
+        try {
+            return SseEmitter.event()
+                    .id(PostgresUserCursor.encode(position))
+                    .name(row.change().getOperation().name().toLowerCase())
+                    .data(objectMapper.writeValueAsString(row.change()))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize postgresUser change " + row.change().getId(), e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,156 @@
+package rs.filisova.template.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One SSE connection: a bounded buffer of pending changes, coalesced by user id, drained by at most one
+ * sender thread at a time.
+ */
+final class PostgresUserStreamSubscriber {
+
+    record Pending(PostgresUserCursor.Change position, Set<DataWithMediaType> frame) {
+    }
+
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final Map<Long, Pending> buffer = new LinkedHashMap<>();
+    private final AtomicBoolean draining;
+    private boolean heartbeatDue;
+    private volatile boolean closed;
+    private volatile long lastSentNanos = System.nanoTime();
+    private volatile boolean writing;
+    private volatile long writeStartedNanos;
+    private final AtomicBoolean writeExpired = new AtomicBoolean();
+    private final AtomicBoolean expiredWriteReleased = new AtomicBoolean();
+
+    // Last position written to the connection, guarded by this
+    private PostgresUserCursor.Change delivered;
+
+    /**
+     * @param resumeFrom position from Last-Event-ID; the subscriber starts owned by its catch-up task
+     */
+    PostgresUserStreamSubscriber(SseEmitter emitter, int capacity, PostgresUserCursor.Change resumeFrom) {
+        this.emitter = emitter;
+        this.capacity = capacity;
+        this.delivered = resumeFrom;
+        this.draining = new AtomicBoolean(resumeFrom != null);
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    synchronized PostgresUserCursor.Change delivered() {
+        return delivered;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    long lastSentNanos() {
+        return lastSentNanos;
+    }
+
+    /**
+     * @return false if the buffer is full; the caller drops the subscriber
+     */
+    synchronized boolean offer(long userId, Pending pending) {
+        // Re-append so the buffer stays in feed order
+        buffer.remove(userId);
+        if (buffer.size() >= capacity) {
+            return false;
+        }
+        buffer.put(userId, pending);
+        return true;
+    }
+
+    synchronized void requestHeartbeat() {
+        heartbeatDue = true;
+    }
+
+    synchronized boolean hasWork() {
+        return !closed && (!buffer.isEmpty() || heartbeatDue);
+    }
+
+    /**
+     * Next frame to write, or null if there is nothing to do; skips changes already delivered by the catch-up.
+     */
+    synchronized Set<DataWithMediaType> next(Set<DataWithMediaType> heartbeat) {
+        Iterator<Pending> iterator = buffer.values().iterator();
+        while (iterator.hasNext()) {
+            Pending pending = iterator.next();
+            iterator.remove();
+            if (delivered == null || compare(pending.position(), delivered) > 0) {
+                delivered = pending.position();
+                heartbeatDue = false;
+                return pending.frame();
+            }
+        }
+        if (heartbeatDue) {
+            heartbeatDue = false;
+            return heartbeat;
+        }
+        return null;
+    }
+
+    void send(Set<DataWithMediaType> frame) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Subscriber is closed");
+        }
+        writeStartedNanos = System.nanoTime();
+        writing = true;
+        try {
+            emitter.send(frame);
+        } finally {
+            writing = false;
+        }
+        lastSentNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the write in progress as expired if it started before {@code startedBefore}; true only once.
+     */
+    boolean expireWrite(long startedBefore) {
+        return writing && writeStartedNanos - startedBefore < 0 && writeExpired.compareAndSet(false, true);
+    }
+
+    /**
+     * True once, for the sender thread whose write was expired, after that write has returned.
+     */
+    boolean releaseExpiredWrite() {
+        return writeExpired.get() && expiredWriteReleased.compareAndSet(false, true);
+    }
+
+    synchronized void delivered(PostgresUserCursor.Change position) {
+        delivered = position;
+    }
+
+    boolean tryStartDraining() {
+        return draining.compareAndSet(false, true);
+    }
+
+    void stopDraining() {
+        draining.set(false);
+    }
+
+    void close() {
+        closed = true;
+        synchronized (this) {
+            buffer.clear();
+        }
+    }
+
+    static int compare(PostgresUserCursor.Change a, PostgresUserCursor.Change b) {
+        int byXid = Long.compare(a.xid(), b.xid());
+        return byXid != 0 ? byXid : Long.compare(a.id(), b.id());
+    }
+}
@@ -0,0 +1,141 @@
+package rs.filisova.template.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.filisova.template.config.ReferenceCacheProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for a small, rarely changing reference table.
+ * Entries are refreshed in the background after {@code refreshAfterWrite} (stale-while-revalidate)
+ * and dropped after local writes commit.
+ */
+public class ReferenceDataCache<T> {
+
+    private static final String ALL_KEY = "all";
+
+    private final Function<Long, Optional<T>> byIdLoader;
+    private final LoadingCache<Long, Optional<T>> byId;
+    private final LoadingCache<String, Snapshot<T>> all;
+
+    public ReferenceDataCache(String name,
+                              Function<Long, Optional<T>> byIdLoader,
+                              Supplier<List<T>> allLoader,
+                              ReferenceCacheProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.byIdLoader = byIdLoader;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .refreshAfterWrite(properties.getRefreshAfterWrite())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build(byIdLoader::apply);
+        this.all = Caffeine.newBuilder()
+                .maximumSize(1)
+                .refreshAfterWrite(properties.getRefreshAfterWrite())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build(key -> Snapshot.of(allLoader.get()));
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, name);
+        CaffeineCacheMetrics.monitor(meterRegistry, all, name + ".all");
+    }
+
+    public Optional<T> get(Long id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Like {@link #get}, but an id cached as missing is looked up again, and a miss is not cached. For callers that
+     * can see an id before its row is visible here, e.g. CDC events that arrive ahead of the reference row.
+     */
+    public Optional<T> getRecheckingMissing(Long id) {
+        Optional<T> cached = byId.getIfPresent(id);
+        if (cached != null && cached.isPresent()) {
+            return cached;
+        }
+        Optional<T> loaded = byIdLoader.apply(id);
+        loaded.ifPresent(value -> byId.put(id, loaded));
+        return loaded;
+    }
+
+    public List<T> getAll() {
+        return all.get(ALL_KEY).items();
+    }
+
+    /**
+     * Content hash of {@link #getAll()}; changes whenever a reload returns different rows.
+     */
+    public String getAllVersion() {
+        return all.get(ALL_KEY).version();
+    }
+
+    /**
+     * Drops the entry for {@code id} and the full list once the current transaction commits,
+     * so concurrent readers cannot re-cache the pre-commit state.
+     */
+    public void invalidateAfterCommit(Long id) {
+        afterCommit(() -> {
+            byId.invalidate(id);
+            all.invalidateAll();
+        });
+    }
+
+    /**
+     * Drops everything once the current transaction commits (used when new ids appear).
+     */
+    public void invalidateAllAfterCommit() {
+        afterCommit(() -> {
+            byId.invalidateAll();
+            all.invalidateAll();
+        });
+    }
+
+    /**
+     * Loaded list with its content hash; items are hashed by toString(), which covers all fields of the Lombok @Data entities.
+     */
+    private record Snapshot<T>(List<T> items, String version) {
+
+        static <T> Snapshot<T> of(List<T> loaded) {
+            List<T> items = List.copyOf(loaded);
+            MessageDigest digest = sha256();
+            for (T item : items) {
+                digest.update(String.valueOf(item).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return new Snapshot<>(items, HexFormat.of().formatHex(digest.digest(), 0, 16));
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package rs.filisova.template.virtualthreads;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of connections borrowed concurrently from a pool. With virtual threads there is no
+ * worker-pool size bounding JDBC concurrency any more; thousands of virtual threads would otherwise pile
+ * up inside the pool's own hand-off queue. A fair semaphore keeps them parked in FIFO order instead and
+ * fails fast with {@link SQLTransientConnectionException} after the configured wait. That wait is one deadline
+ * for the permit and the pool together, so a caller never waits longer than the pool's own connectionTimeout
+ * would let it; the pool is therefore wrapped directly, below any other datasource wrapper.
+ */
+public class ConcurrencyLimitingDataSource extends DelegatingDataSource {
+
+    private final HikariDataSource pool;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long acquireTimeoutNanos;
+    private final String name;
+
+    public ConcurrencyLimitingDataSource(HikariDataSource pool, String name, int maxConcurrency, Duration acquireTimeout) {
+        super(pool);
+        this.pool = pool;
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long deadline = System.nanoTime() + acquireTimeoutNanos;
+        acquire(deadline);
+        return borrow(() -> pooledConnection(deadline));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire(System.nanoTime() + acquireTimeoutNanos);
+        return borrow(() -> pool.getConnection(username, password));
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    // Whatever the permit wait left of the deadline; the pool starts on its first borrow, with its own timeout
+    private Connection pooledConnection(long deadline) throws SQLException {
+        if (!(pool.getHikariPoolMXBean() instanceof HikariPool started)) {
+            return pool.getConnection();
+        }
+        return started.getConnection(Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+    }
+
+    private void acquire(long deadline) throws SQLException {
+        try {
+            if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException(
+                        name + " - JDBC concurrency limit of " + maxConcurrency + " reached, timed out after "
+                                + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException(name + " - interrupted while waiting for a JDBC permit", e);
+        }
+    }
+
+    private Connection borrow(ConnectionSupplier supplier) throws SQLException {
+        Connection connection;
+        try {
+            connection = supplier.get();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return (Connection) Proxy.newProxyInstance(ConcurrencyLimitingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new PermitReleasingHandler(connection, permits));
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+
+    /**
+     * Returns the permit when the connection is closed (i.e. handed back to the pool); everything else,
+     * including unwrap() used for COPY, goes straight to the pooled connection.
+     */
+    private static final class PermitReleasingHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private PermitReleasingHandler(Connection target, Semaphore permits) {
+            this.target = target;
+            this.permits = permits;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                try {
+                    target.close();
+                } finally {
+                    if (released.compareAndSet(false, true)) {
+                        permits.release();
+                    }
+                }
+                return null;
+            }
+            if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package rs.filisova.template.virtualthreads;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Virtual-thread runtime mode, active with spring.threads.virtual.enabled=true on Java 21+
+ * (Spring profile "virtual-threads"). Boot then runs Tomcat requests, async exports, scheduling and the
+ * Kafka listener on virtual threads; JPA/JDBC work executes on the request's virtual thread, and the
+ * postgres/oracle transaction managers are unaffected since their state stays thread-bound.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@EnableConfigurationProperties(VirtualThreadsProperties.class)
+public class VirtualThreadsConfig {
+
+    private static final Set<String> LIMITED_DATASOURCES = Set.of("postgresDataSource", "oracleDataSource");
+
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyLimitingPostProcessor(ObjectProvider<VirtualThreadsProperties> properties,
+                                                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!LIMITED_DATASOURCES.contains(beanName) || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                // may already be wrapped, e.g. by the JDBC statement instrumentation
+                HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+                if (hikari == null || (dataSource != hikari
+                        && !(dataSource instanceof DelegatingDataSource wrapper && wrapper.getTargetDataSource() == hikari))) {
+                    return bean;
+                }
+                int configured = properties.getObject().getJdbcMaxConcurrency();
+                int maxConcurrency = configured > 0 ? configured : hikari.getMaximumPoolSize();
+                // Directly around the pool, so the limiter can hand the pool what is left of its deadline
+                ConcurrencyLimitingDataSource limited = new ConcurrencyLimitingDataSource(hikari, beanName, maxConcurrency,
+                        Duration.ofMillis(hikari.getConnectionTimeout()));
+                meterRegistry.ifAvailable(registry -> Gauge.builder("jdbc.concurrency.waiting", limited, ConcurrencyLimitingDataSource::getQueueLength)
+                        .description("Threads waiting for a JDBC concurrency permit")
+                        .tag("datasource", hikari.getPoolName())
+                        .register(registry));
+                log.info("JDBC concurrency of {} capped at {} for virtual threads", beanName, maxConcurrency);
+                if (dataSource == hikari) {
+                    return limited;
+                }
+                ((DelegatingDataSource) dataSource).setTargetDataSource(limited);
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(VirtualThreadsProperties properties, MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(properties.getPinnedThreshold(), meterRegistry);
+    }
+}
@@ -0,0 +1,24 @@
+package rs.filisova.template.virtualthreads;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the virtual-threads runtime mode (Spring profile "virtual-threads", Java 21+).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.virtual-threads")
+public class VirtualThreadsProperties {
+
+    /**
+     * Maximum concurrent JDBC connections per datasource; 0 means the datasource's maximum pool size.
+     */
+    private int jdbcMaxConcurrency = 0;
+
+    /**
+     * Pinning events shorter than this are not reported.
+     */
+    private Duration pinnedThreshold = Duration.ofMillis(20);
+}
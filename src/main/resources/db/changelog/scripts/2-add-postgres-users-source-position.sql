@@ -0,0 +1,18 @@
+--liquibase formatted sql
+
+--changeset service-template:2-add-postgres-users-source-position
+-- Source position of each replicated row, taken from the Debezium envelope:
+-- - source_ts: commit time of the change in Oracle (source.ts_ms)
+-- - source_scn: Oracle SCN of the change (source.scn)
+-- Both stay NULL for rows written through the REST API or the bulk ingest.
+-- Databases that ran the earlier plain version of this script run it once more; every statement is then a no-op.
+
+ALTER TABLE postgres.postgres_users ADD COLUMN IF NOT EXISTS source_ts TIMESTAMPTZ;
+ALTER TABLE postgres.postgres_users ADD COLUMN IF NOT EXISTS source_scn BIGINT;
+
+COMMENT ON COLUMN postgres.postgres_users.source_ts IS 'Oracle commit timestamp of the last replicated change';
+COMMENT ON COLUMN postgres.postgres_users.source_scn IS 'Oracle SCN of the last replicated change';
+
+--changeset service-template:2-add-postgres-users-source-ts-index runInTransaction:false
+-- Serves the max(source_ts) freshness probe, built without blocking writes
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_postgres_users_source_ts ON postgres.postgres_users(source_ts);
@@ -0,0 +1,106 @@
+--liquibase formatted sql
+
+--changeset service-template:3-backfill-postgres-users-row-version splitStatements:true endDelimiter:/ runInTransaction:false
+--preconditions onFail:MARK_RAN
+--precondition-sql-check expectedResult:0 SELECT count(*) FROM information_schema.columns WHERE table_schema = 'postgres' AND table_name = 'postgres_users' AND column_name = 'row_version' AND is_nullable = 'NO'
+-- Adds row_version before 3-add-postgres-users-versions, whose ADD COLUMN ... IF NOT EXISTS then skips it.
+-- Its volatile default would rewrite the whole table under an exclusive lock; here existing rows are backfilled
+-- in committed batches instead. Marked as ran where row_version is already NOT NULL, e.g. on databases that ran
+-- 3-add-postgres-users-versions before this changeset existed. Every statement can be re-run.
+
+CREATE SEQUENCE IF NOT EXISTS postgres.postgres_users_row_version_seq
+/
+
+ALTER TABLE postgres.postgres_users ADD COLUMN IF NOT EXISTS row_version BIGINT
+/
+
+-- New rows get a version from here on, the backfill below only has to cover the rows that exist now
+ALTER TABLE postgres.postgres_users
+    ALTER COLUMN row_version SET DEFAULT nextval('postgres.postgres_users_row_version_seq')
+/
+
+DO $$
+DECLARE
+    last_id BIGINT;
+    batch_end BIGINT;
+BEGIN
+    SELECT min(id) - 1 INTO last_id FROM postgres.postgres_users WHERE row_version IS NULL;
+    WHILE last_id IS NOT NULL LOOP
+        SELECT max(id) INTO batch_end
+        FROM (SELECT id FROM postgres.postgres_users WHERE id > last_id ORDER BY id LIMIT 10000) batch;
+        EXIT WHEN batch_end IS NULL;
+        UPDATE postgres.postgres_users SET row_version = nextval('postgres.postgres_users_row_version_seq')
+        WHERE id > last_id AND id <= batch_end AND row_version IS NULL;
+        last_id := batch_end;
+        COMMIT;
+    END LOOP;
+END
+$$
+/
+
+-- A validated check lets SET NOT NULL skip its own full-table scan under the exclusive lock
+ALTER TABLE postgres.postgres_users DROP CONSTRAINT IF EXISTS postgres_users_row_version_not_null
+/
+
+ALTER TABLE postgres.postgres_users
+    ADD CONSTRAINT postgres_users_row_version_not_null CHECK (row_version IS NOT NULL) NOT VALID
+/
+
+ALTER TABLE postgres.postgres_users VALIDATE CONSTRAINT postgres_users_row_version_not_null
+/
+
+ALTER TABLE postgres.postgres_users ALTER COLUMN row_version SET NOT NULL
+/
+
+ALTER TABLE postgres.postgres_users DROP CONSTRAINT postgres_users_row_version_not_null
+/
+
+--changeset service-template:3-add-postgres-users-versions splitStatements:false
+-- Validators for conditional GET (ETag / If-None-Match):
+-- - row_version: per-row version, taken from a sequence so a deleted and re-inserted id never repeats a version
+-- - table_versions: per-table counter bumped by every writing statement; read before the rows, in the same
+--   transaction visibility as the data, so an ETag never describes data that is not committed yet
+
+CREATE SEQUENCE IF NOT EXISTS postgres.postgres_users_row_version_seq;
+
+ALTER TABLE postgres.postgres_users
+    ADD COLUMN IF NOT EXISTS row_version BIGINT NOT NULL DEFAULT nextval('postgres.postgres_users_row_version_seq');
+
+CREATE OR REPLACE FUNCTION postgres.postgres_users_touch_row() RETURNS trigger AS $$
+BEGIN
+    NEW.row_version := nextval('postgres.postgres_users_row_version_seq');
+    NEW.updated_at := CURRENT_TIMESTAMP;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS postgres_users_touch_row ON postgres.postgres_users;
+CREATE TRIGGER postgres_users_touch_row
+    BEFORE UPDATE ON postgres.postgres_users
+    FOR EACH ROW
+    WHEN (OLD.* IS DISTINCT FROM NEW.*)
+    EXECUTE FUNCTION postgres.postgres_users_touch_row();
+
+CREATE TABLE IF NOT EXISTS postgres.table_versions (
+    table_name VARCHAR(63) PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+INSERT INTO postgres.table_versions (table_name, version) VALUES ('postgres_users', 1)
+ON CONFLICT (table_name) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION postgres.bump_table_version() RETURNS trigger AS $$
+BEGIN
+    UPDATE postgres.table_versions SET version = version + 1 WHERE table_name = TG_TABLE_NAME;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS postgres_users_table_version ON postgres.postgres_users;
+CREATE TRIGGER postgres_users_table_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON postgres.postgres_users
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION postgres.bump_table_version();
+
+COMMENT ON COLUMN postgres.postgres_users.row_version IS 'Row version for ETags, changes on every update';
+COMMENT ON TABLE postgres.table_versions IS 'Per-table write counters for list ETags';
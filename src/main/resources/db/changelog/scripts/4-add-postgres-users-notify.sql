@@ -0,0 +1,53 @@
+--liquibase formatted sql
+
+--changeset service-template:4-add-postgres-users-notify splitStatements:false
+-- NOTIFY postgres_users_changed on every committed change, consumed by the service's per-id cache.
+-- Payload: "<id>,<change time in epoch millis>", or "*,<millis>" when the whole cache must be flushed
+-- (TRUNCATE, or statements touching more rows than are worth notifying one by one).
+
+CREATE OR REPLACE FUNCTION postgres.postgres_users_notify_rows() RETURNS trigger AS $$
+DECLARE
+    changed_at TEXT := (extract(epoch FROM clock_timestamp()) * 1000)::BIGINT::TEXT;
+BEGIN
+    IF (SELECT count(*) FROM changed_rows) > 1000 THEN
+        PERFORM pg_notify('postgres_users_changed', '*,' || changed_at);
+    ELSE
+        PERFORM pg_notify('postgres_users_changed', id || ',' || changed_at) FROM changed_rows;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION postgres.postgres_users_notify_truncate() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('postgres_users_changed', '*,' || (extract(epoch FROM clock_timestamp()) * 1000)::BIGINT::TEXT);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS postgres_users_notify_insert ON postgres.postgres_users;
+CREATE TRIGGER postgres_users_notify_insert
+    AFTER INSERT ON postgres.postgres_users
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION postgres.postgres_users_notify_rows();
+
+DROP TRIGGER IF EXISTS postgres_users_notify_update ON postgres.postgres_users;
+CREATE TRIGGER postgres_users_notify_update
+    AFTER UPDATE ON postgres.postgres_users
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION postgres.postgres_users_notify_rows();
+
+DROP TRIGGER IF EXISTS postgres_users_notify_delete ON postgres.postgres_users;
+CREATE TRIGGER postgres_users_notify_delete
+    AFTER DELETE ON postgres.postgres_users
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION postgres.postgres_users_notify_rows();
+
+DROP TRIGGER IF EXISTS postgres_users_notify_truncate ON postgres.postgres_users;
+CREATE TRIGGER postgres_users_notify_truncate
+    AFTER TRUNCATE ON postgres.postgres_users
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION postgres.postgres_users_notify_truncate();
@@ -0,0 +1,19 @@
+--liquibase formatted sql
+
+--changeset service-template:5-add-postgres-users-query-indexes runInTransaction:false
+-- Indexes for GET /postgres-users/query (filters + keyset pagination on indexed columns)
+-- - (column, id): equality filter or sort on the column with id as keyset tie-breaker;
+--   scanned backwards for descending sorts. They replace the single-column indexes from script 1.
+-- - name varchar_pattern_ops: name prefix filter (byte-wise range, independent of the database collation)
+-- Built and dropped concurrently, so writes to postgres_users are not blocked while this runs. Databases that ran
+-- the earlier plain version of this script run it once more; every statement is then a no-op.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_postgres_users_name_id ON postgres.postgres_users(name, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_postgres_users_role_id ON postgres.postgres_users(role, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_postgres_users_gender_id ON postgres.postgres_users(gender, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_postgres_users_birth_date_id ON postgres.postgres_users(birth_date, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_postgres_users_name_pattern ON postgres.postgres_users(name varchar_pattern_ops);
+
+DROP INDEX CONCURRENTLY IF EXISTS postgres.idx_postgres_users_name;
+DROP INDEX CONCURRENTLY IF EXISTS postgres.idx_postgres_users_role;
+DROP INDEX CONCURRENTLY IF EXISTS postgres.idx_postgres_users_gender;
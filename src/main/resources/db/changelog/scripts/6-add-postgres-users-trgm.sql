@@ -0,0 +1,12 @@
+--liquibase formatted sql
+
+--changeset service-template:6-add-postgres-users-trgm runInTransaction:false
+-- Fuzzy name search (GET /postgres-users/search): trigram GIN index on name.
+-- Serves the word-similarity operator (q <% name) and ILIKE '%q%', which the B-tree indexes cannot.
+-- pg_trgm is a trusted extension (PostgreSQL 13+), so the database owner can create it.
+-- A GIN trigram build is slow on a populated table, so it runs concurrently and does not block writes. Databases
+-- that ran the earlier plain version of this script run it once more; every statement is then a no-op.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA public;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_postgres_users_name_trgm ON postgres.postgres_users USING gin (name public.gin_trgm_ops);
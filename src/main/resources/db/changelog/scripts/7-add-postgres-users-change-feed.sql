@@ -0,0 +1,70 @@
+--liquibase formatted sql
+
+--changeset service-template:7-add-postgres-users-change-feed splitStatements:false
+--validCheckSum: 9:8cae109f34ee3c3ca47091e19baa84f3
+-- Delta feed (GET /postgres-users/changes):
+-- - change_xid: id of the transaction that last wrote the row. The feed only returns rows whose writing
+--   transaction is older than the snapshot xmin, i.e. already finished, so a change committed late can never
+--   land behind a position a client has already passed (row_version alone has that gap)
+-- - postgres_users_tombstones: deleted ids with the deleting transaction, removed again when the id is re-inserted
+-- - updated_at and change_xid are maintained by triggers on insert as well as update, whatever the writer sends
+-- The indexes are built by 7-add-postgres-users-change-feed-indexes. The checksum above is this changeset from
+-- before they moved there; where it ran, the index changeset finds them in place and does nothing.
+
+ALTER TABLE postgres.postgres_users
+    ADD COLUMN IF NOT EXISTS change_xid xid8 NOT NULL DEFAULT '0';
+
+CREATE TABLE IF NOT EXISTS postgres.postgres_users_tombstones (
+    id BIGINT PRIMARY KEY,
+    change_xid xid8 NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE OR REPLACE FUNCTION postgres.postgres_users_touch_row() RETURNS trigger AS $$
+BEGIN
+    NEW.row_version := nextval('postgres.postgres_users_row_version_seq');
+    NEW.updated_at := CURRENT_TIMESTAMP;
+    NEW.change_xid := pg_current_xact_id();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION postgres.postgres_users_touch_inserted_row() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := CURRENT_TIMESTAMP;
+    NEW.change_xid := pg_current_xact_id();
+    DELETE FROM postgres.postgres_users_tombstones WHERE id = NEW.id;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS postgres_users_touch_inserted_row ON postgres.postgres_users;
+CREATE TRIGGER postgres_users_touch_inserted_row
+    BEFORE INSERT ON postgres.postgres_users
+    FOR EACH ROW
+    EXECUTE FUNCTION postgres.postgres_users_touch_inserted_row();
+
+CREATE OR REPLACE FUNCTION postgres.postgres_users_record_tombstones() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO postgres.postgres_users_tombstones (id, change_xid, deleted_at)
+    SELECT id, pg_current_xact_id(), CURRENT_TIMESTAMP FROM deleted_rows
+    ON CONFLICT (id) DO UPDATE SET change_xid = EXCLUDED.change_xid, deleted_at = EXCLUDED.deleted_at;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS postgres_users_record_tombstones ON postgres.postgres_users;
+CREATE TRIGGER postgres_users_record_tombstones
+    AFTER DELETE ON postgres.postgres_users
+    REFERENCING OLD TABLE AS deleted_rows
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION postgres.postgres_users_record_tombstones();
+
+COMMENT ON COLUMN postgres.postgres_users.change_xid IS 'Transaction that last wrote the row, position in the change feed';
+COMMENT ON TABLE postgres.postgres_users_tombstones IS 'Deleted user ids for the change feed, purged after the retention period';
+
+--changeset service-template:7-add-postgres-users-change-feed-indexes runInTransaction:false
+-- Feed reads by (change_xid, id) and the tombstone purge by deleted_at, built without blocking writes
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_postgres_users_change_xid ON postgres.postgres_users (change_xid, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_postgres_users_tombstones_change_xid ON postgres.postgres_users_tombstones (change_xid, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_postgres_users_tombstones_deleted_at ON postgres.postgres_users_tombstones (deleted_at);
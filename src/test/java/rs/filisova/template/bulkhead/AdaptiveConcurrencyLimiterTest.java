@@ -0,0 +1,125 @@
+package rs.filisova.template.bulkhead;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void rejectsOnceTheLimitIsInFlight() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limit(2, 1, 10));
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release(-1, false);
+
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void growsWhileLatencyIsStableAndTheLimitIsUsed() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limit(10, 2, 50));
+
+        for (int round = 0; round < 20; round++) {
+            saturate(limiter, FAST);
+        }
+
+        assertTrue(limiter.getLimit() > 10, "limit " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limit(20, 2, 20));
+        saturate(limiter, FAST);
+
+        saturate(limiter, SLOW);
+
+        assertTrue(limiter.getLimit() < 20, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void sustainedLatencyBecomesTheNewBaseline() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limit(20, 2, 20));
+        saturate(limiter, FAST);
+
+        for (int round = 0; round < 5; round++) {
+            saturate(limiter, SLOW);
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limit(20, 2, 50));
+
+        for (int request = 0; request < 100; request++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST, false);
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void failureCutsTheLimitDownToTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limit(20, 5, 50));
+
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+        assertEquals(18, limiter.getLimit());
+
+        for (int request = 0; request < 50; request++) {
+            limiter.tryAcquire();
+            limiter.release(FAST, true);
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void releaseWithoutSampleKeepsTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limit(4, 2, 50));
+
+        for (int round = 0; round < 20; round++) {
+            saturate(limiter, -1);
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void initialLimitIsClampedToTheBounds() {
+        assertEquals(10, new AdaptiveConcurrencyLimiter(limit(100, 2, 10)).getLimit());
+        assertEquals(3, new AdaptiveConcurrencyLimiter(limit(1, 3, 10)).getLimit());
+    }
+
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long rttNanos) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(rttNanos, false);
+        }
+    }
+
+    static BulkheadProperties.Limit limit(int initial, int min, int max) {
+        BulkheadProperties.Limit limit = new BulkheadProperties.Limit();
+        limit.setInitialLimit(initial);
+        limit.setMinLimit(min);
+        limit.setMaxLimit(max);
+        return limit;
+    }
+}
@@ -0,0 +1,122 @@
+package rs.filisova.template.bulkhead;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkheadFilterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BulkheadFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        BulkheadProperties.Limit postgres = AdaptiveConcurrencyLimiterTest.limit(1, 1, 10);
+        postgres.setPaths(List.of("/postgres-users"));
+        postgres.setExcludedPaths(List.of("/postgres-users/stream"));
+        postgres.setRetryAfter(Duration.ofSeconds(3));
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.getLimits().put("postgres", postgres);
+        filter = new BulkheadFilter(properties, meterRegistry, objectMapper);
+    }
+
+    @Test
+    void requestOverTheLimitIsRejectedWithRetryAfter() throws Exception {
+        AtomicReference<MockHttpServletResponse> rejected = new AtomicReference<>();
+
+        // The first request holds the only slot while the second one arrives
+        filter.doFilter(request("/postgres-users/1"), new MockHttpServletResponse(), (request, response) -> {
+            MockHttpServletResponse second = new MockHttpServletResponse();
+            filter.doFilter(request("/postgres-users/2"), second, failingChain());
+            rejected.set(second);
+        });
+
+        MockHttpServletResponse response = rejected.get();
+        assertEquals(503, response.getStatus());
+        assertEquals("3", response.getHeader("Retry-After"));
+        JsonNode body = objectMapper.readTree(response.getContentAsString());
+        assertEquals(503, body.get("status").asInt());
+        assertEquals("/postgres-users/2", body.get("path").asText());
+        assertEquals(1.0, meterRegistry.get("bulkhead.rejected").tag("name", "postgres").counter().count());
+        assertEquals(0.0, inFlight());
+    }
+
+    @Test
+    void pathsOutsideTheBulkheadPassWhileItIsFull() throws Exception {
+        AtomicReference<Integer> excluded = new AtomicReference<>();
+        AtomicReference<Integer> unguarded = new AtomicReference<>();
+
+        filter.doFilter(request("/postgres-users"), new MockHttpServletResponse(), (request, response) -> {
+            excluded.set(passThrough("/postgres-users/stream"));
+            unguarded.set(passThrough("/oracle/users"));
+        });
+
+        assertEquals(200, excluded.get());
+        assertEquals(200, unguarded.get());
+    }
+
+    @Test
+    void exceptionReleasesTheSlotAsAFailure() {
+        BulkheadProperties.Limit limit = AdaptiveConcurrencyLimiterTest.limit(20, 2, 50);
+        limit.setPaths(List.of("/oracle"));
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.getLimits().put("oracle", limit);
+        filter = new BulkheadFilter(properties, meterRegistry, objectMapper);
+
+        assertThrows(IOException.class, () -> filter.doFilter(request("/oracle/users"), new MockHttpServletResponse(),
+                (request, response) -> {
+                    throw new IOException("connection reset");
+                }));
+
+        assertEquals(0.0, meterRegistry.get("bulkhead.inflight").tag("name", "oracle").gauge().value());
+        assertEquals(18.0, meterRegistry.get("bulkhead.limit").tag("name", "oracle").gauge().value());
+    }
+
+    @Test
+    void asyncRequestHoldsTheSlotUntilItCompletes() throws Exception {
+        MockHttpServletRequest export = request("/postgres-users/export");
+        export.setAsyncSupported(true);
+
+        filter.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        assertEquals(1.0, inFlight());
+        export.getAsyncContext().complete();
+        assertEquals(0.0, inFlight());
+    }
+
+    private int passThrough(String uri) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(uri), response, (request, chainResponse) -> {
+        });
+        return response.getStatus();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("bulkhead.inflight").tag("name", "postgres").gauge().value();
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        return new MockHttpServletRequest("GET", uri);
+    }
+
+    private static FilterChain failingChain() {
+        return (request, response) -> {
+            throw new AssertionError("rejected request reached the chain");
+        };
+    }
+}
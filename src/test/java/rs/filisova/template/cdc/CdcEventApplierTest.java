@@ -0,0 +1,139 @@
+package rs.filisova.template.cdc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.filisova.template.config.ReferenceCacheProperties;
+import rs.filisova.template.entity.OracleUserGrantEntity;
+import rs.filisova.template.entity.OracleUserRoleEntity;
+import rs.filisova.template.service.ReferenceDataCache;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Replays decoded Debezium fixtures (src/test/resources/cdc) through the applier, without Kafka or Postgres.
+ */
+class CdcEventApplierTest {
+
+    private static final String USERS_TOPIC = "oracle_cdc.ORACLEUSER.ORACLE_USERS";
+    private static final String ROLES_TOPIC = "oracle_cdc.ORACLEUSER.ORACLE_USERS_ROLE";
+
+    private final DebeziumEventDecoder decoder = new DebeziumEventDecoder(new ObjectMapper());
+    private final ReplicatedUserWriter replicatedUserWriter = mock(ReplicatedUserWriter.class);
+    private final ReplicationLagMonitor replicationLagMonitor = mock(ReplicationLagMonitor.class);
+    private CdcEventApplier applier;
+
+    @BeforeEach
+    void setUp() {
+        // Reference rows as they are in Oracle when the events are applied
+        Map<Long, String> roles = Map.of(2L, "DEVELOPER", 4L, "MANAGER", 5L, "ADMINISTRATOR");
+        Map<Long, String> grants = Map.of(2L, "WRITE_ACCESS");
+        ReferenceCacheProperties properties = new ReferenceCacheProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReferenceDataCache<OracleUserRoleEntity> roleCache = new ReferenceDataCache<>("oracleRoles",
+                id -> Optional.ofNullable(roles.get(id)).map(name -> role(id, name)), List::of, properties, meterRegistry);
+        ReferenceDataCache<OracleUserGrantEntity> grantCache = new ReferenceDataCache<>("oracleGrants",
+                id -> Optional.ofNullable(grants.get(id)).map(name -> grant(id, name)), List::of, properties, meterRegistry);
+        applier = new CdcEventApplier(new ReferenceNameState(roleCache, grantCache), replicatedUserWriter, replicationLagMonitor);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void insertIsUpsertedWithRoleAndGrantNames() throws IOException {
+        applier.apply(List.of(event(USERS_TOPIC, "users-insert.json")));
+
+        assertEquals(List.of(new ReplicatedUserRow(101L, "Ivan Petrov", LocalDate.of(1990, 5, 15), "M", "MANAGER", "WRITE_ACCESS",
+                1760771400000L, 2803120L)), upserts());
+        verify(replicatedUserWriter).delete(List.of());
+    }
+
+    @Test
+    void onlyTheLastChangeOfAUserInABatchIsWritten() throws IOException {
+        applier.apply(List.of(event(USERS_TOPIC, "users-insert.json"), event(USERS_TOPIC, "users-update.json")));
+
+        List<ReplicatedUserRow> upserts = upserts();
+        assertEquals(1, upserts.size());
+        assertEquals("Ivan Petrov-Vodkin", upserts.get(0).name());
+        assertEquals(2803188L, upserts.get(0).sourceScn());
+    }
+
+    @Test
+    void roleChangeInTheSameBatchIsAppliedBeforeTheUsers() throws IOException {
+        // users-update moves the user to role 5, which roles-update renames in the same transaction
+        applier.apply(List.of(event(USERS_TOPIC, "users-update.json"), event(ROLES_TOPIC, "roles-update.json")));
+
+        assertEquals("SUPERVISOR", upserts().get(0).role());
+    }
+
+    @Test
+    void deleteAfterSnapshotReadDeletesTheUser() throws IOException {
+        applier.apply(List.of(event(USERS_TOPIC, "users-snapshot.json"), event(USERS_TOPIC, "users-delete.json")));
+
+        assertEquals(List.of(), upserts());
+        verify(replicatedUserWriter).delete(List.of(102L));
+    }
+
+    @Test
+    void snapshotRowWithoutRoleIsReplicatedWithNulls() throws IOException {
+        applier.apply(List.of(event(USERS_TOPIC, "users-snapshot.json")));
+
+        assertEquals(List.of(new ReplicatedUserRow(102L, "Maria Sidorova", null, "F", null, "WRITE_ACCESS", 1760771300000L, 2803000L)),
+                upserts());
+    }
+
+    @Test
+    void lagIsRecordedOnlyAfterCommit() throws IOException {
+        applier.apply(List.of(event(USERS_TOPIC, "users-insert.json"), event(USERS_TOPIC, "users-delete.json")));
+        verify(replicationLagMonitor, never()).recordApplied(anyList());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(replicationLagMonitor).recordApplied(List.of(1760771400000L, 1760771520000L));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ReplicatedUserRow> upserts() {
+        ArgumentCaptor<List<ReplicatedUserRow>> rows = ArgumentCaptor.forClass(List.class);
+        verify(replicatedUserWriter).upsert(rows.capture());
+        return new ArrayList<>(rows.getValue());
+    }
+
+    private DebeziumChangeEvent event(String topic, String fixture) throws IOException {
+        return decoder.decode(topic, DebeziumEventDecoderTest.fixture(fixture)).orElseThrow();
+    }
+
+    private static OracleUserRoleEntity role(Long id, String name) {
+        OracleUserRoleEntity role = new OracleUserRoleEntity();
+        role.setId(id);
+        role.setName(name);
+        return role;
+    }
+
+    private static OracleUserGrantEntity grant(Long id, String name) {
+        OracleUserGrantEntity grant = new OracleUserGrantEntity();
+        grant.setId(id);
+        grant.setName(name);
+        return grant;
+    }
+}
@@ -0,0 +1,56 @@
+package rs.filisova.template.cdc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class CdcKafkaListenerTest {
+
+    private static final String USERS_TOPIC = "oracle_cdc.ORACLEUSER.ORACLE_USERS";
+
+    private final CdcEventApplier applier = mock(CdcEventApplier.class);
+    private final CdcKafkaListener listener = new CdcKafkaListener(new DebeziumEventDecoder(new ObjectMapper()), applier);
+
+    @Test
+    void undecodableAndEmptyRecordsAreSkipped() throws IOException {
+        listener.onBatch(List.of(
+                record(0, DebeziumEventDecoderTest.fixture("users-insert.json")),
+                record(1, "{not json"),
+                record(2, null),
+                record(3, DebeziumEventDecoderTest.fixture("users-update.json"))));
+
+        List<DebeziumChangeEvent> events = appliedEvents();
+        assertEquals(2, events.size());
+        assertEquals(List.of("c", "u"), events.stream().map(DebeziumChangeEvent::op).toList());
+    }
+
+    @Test
+    void failedBatchesAreRetriedWithTheConfiguredBackoff() {
+        CdcApplierProperties properties = new CdcApplierProperties();
+        properties.setRetryBackoff(Duration.ofSeconds(2));
+
+        assertInstanceOf(DefaultErrorHandler.class, new CdcApplierConfig().cdcApplierErrorHandler(properties));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DebeziumChangeEvent> appliedEvents() {
+        ArgumentCaptor<List<DebeziumChangeEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(applier).apply(events.capture());
+        return events.getValue();
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String value) {
+        return new ConsumerRecord<>(USERS_TOPIC, 0, offset, null, value);
+    }
+}
@@ -0,0 +1,88 @@
+package rs.filisova.template.cdc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Decoding of Debezium Oracle connector values (src/test/resources/cdc) as they appear on the CDC topics,
+ * with and without the JsonConverter schema wrapper.
+ */
+class DebeziumEventDecoderTest {
+
+    private static final String USERS_TOPIC = "oracle_cdc.ORACLEUSER.ORACLE_USERS";
+
+    private final DebeziumEventDecoder decoder = new DebeziumEventDecoder(new ObjectMapper());
+
+    @Test
+    void decodesInsertWrappedInSchema() throws IOException {
+        DebeziumChangeEvent event = decoder.decode(USERS_TOPIC, fixture("users-insert.json")).orElseThrow();
+
+        assertEquals("ORACLE_USERS", event.table());
+        assertEquals("c", event.op());
+        assertFalse(event.isDelete());
+        assertNull(event.before());
+        assertEquals(1760771400000L, event.sourceTsMs());
+        assertEquals("2803120", event.scn());
+        assertEquals(101L, DebeziumEventDecoder.longValue(event.row(), "ID"));
+        assertEquals("Ivan Petrov", DebeziumEventDecoder.textValue(event.after(), "NAME"));
+        assertEquals(LocalDate.of(1990, 5, 15), DebeziumEventDecoder.dateValue(event.after(), "BIRTH_DATE_ORA"));
+        assertEquals(4L, DebeziumEventDecoder.longValue(event.after(), "ROLE_ID"));
+    }
+
+    @Test
+    void decodesUpdateWithBothRowImages() throws IOException {
+        DebeziumChangeEvent event = decoder.decode(USERS_TOPIC, fixture("users-update.json")).orElseThrow();
+
+        assertEquals("u", event.op());
+        assertEquals("Ivan Petrov", DebeziumEventDecoder.textValue(event.before(), "NAME"));
+        assertEquals("Ivan Petrov-Vodkin", DebeziumEventDecoder.textValue(event.after(), "NAME"));
+        assertEquals(5L, DebeziumEventDecoder.longValue(event.row(), "ROLE_ID"));
+    }
+
+    @Test
+    void deleteIsIdentifiedByItsBeforeImage() throws IOException {
+        DebeziumChangeEvent event = decoder.decode(USERS_TOPIC, fixture("users-delete.json")).orElseThrow();
+
+        assertTrue(event.isDelete());
+        assertNull(event.after());
+        assertEquals(102L, DebeziumEventDecoder.longValue(event.row(), "ID"));
+    }
+
+    @Test
+    void snapshotReadKeepsNullColumnsNull() throws IOException {
+        DebeziumChangeEvent event = decoder.decode(USERS_TOPIC, fixture("users-snapshot.json")).orElseThrow();
+
+        assertEquals("r", event.op());
+        assertNull(DebeziumEventDecoder.dateValue(event.after(), "BIRTH_DATE_ORA"));
+        assertNull(DebeziumEventDecoder.longValue(event.after(), "ROLE_ID"));
+        assertNull(DebeziumEventDecoder.textValue(event.after(), "MISSING_COLUMN"));
+    }
+
+    @Test
+    void takesTheTableFromTheTopic() throws IOException {
+        DebeziumChangeEvent event = decoder.decode("oracle_cdc.ORACLEUSER.ORACLE_USERS_ROLE", fixture("roles-update.json")).orElseThrow();
+
+        assertEquals(ReferenceNameState.ROLE_TABLE, event.table());
+    }
+
+    @Test
+    void skipsTombstonesAndValuesWithoutAnOperation() throws IOException {
+        assertTrue(decoder.decode(USERS_TOPIC, null).isEmpty());
+        assertTrue(decoder.decode(USERS_TOPIC, fixture("heartbeat.json")).isEmpty());
+        assertTrue(decoder.decode(USERS_TOPIC, "{\"schema\": null, \"payload\": null}").isEmpty());
+    }
+
+    static String fixture(String name) throws IOException {
+        return new ClassPathResource("cdc/" + name).getContentAsString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,78 @@
+package rs.filisova.template.cdc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rs.filisova.template.config.ReferenceCacheProperties;
+import rs.filisova.template.entity.OracleUserGrantEntity;
+import rs.filisova.template.entity.OracleUserRoleEntity;
+import rs.filisova.template.service.ReferenceDataCache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ReferenceNameStateTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Long, OracleUserRoleEntity> oracleRoles = new ConcurrentHashMap<>();
+    private final AtomicInteger roleQueries = new AtomicInteger();
+    private ReferenceNameState referenceNameState;
+
+    @BeforeEach
+    void setUp() {
+        ReferenceCacheProperties properties = new ReferenceCacheProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReferenceDataCache<OracleUserRoleEntity> roleCache = new ReferenceDataCache<>("oracleRoles", id -> {
+            roleQueries.incrementAndGet();
+            return Optional.ofNullable(oracleRoles.get(id));
+        }, () -> List.copyOf(oracleRoles.values()), properties, meterRegistry);
+        ReferenceDataCache<OracleUserGrantEntity> grantCache = new ReferenceDataCache<>("oracleGrants",
+                id -> Optional.empty(), List::of, properties, meterRegistry);
+        referenceNameState = new ReferenceNameState(roleCache, grantCache);
+    }
+
+    @Test
+    void roleNotInOracleYetIsLookedUpAgainOnTheNextEvent() {
+        assertNull(referenceNameState.roleName(7L));
+
+        oracleRoles.put(7L, role(7L, "AUDITOR"));
+
+        assertEquals("AUDITOR", referenceNameState.roleName(7L));
+        assertEquals(2, roleQueries.get());
+    }
+
+    @Test
+    void resolvedRoleIsNotLookedUpAgain() {
+        oracleRoles.put(3L, role(3L, "ANALYST"));
+
+        assertEquals("ANALYST", referenceNameState.roleName(3L));
+        assertEquals("ANALYST", referenceNameState.roleName(3L));
+        assertEquals(1, roleQueries.get());
+    }
+
+    @Test
+    void nameFromTheTopicWinsOverTheLookup() {
+        oracleRoles.put(5L, role(5L, "MANAGER"));
+        ObjectNode after = objectMapper.createObjectNode().put("ID", 5.0).put("NAME", "HEAD_MANAGER");
+
+        referenceNameState.apply(new DebeziumChangeEvent(ReferenceNameState.ROLE_TABLE, "u", null, after, 1L, "1"));
+
+        assertEquals("HEAD_MANAGER", referenceNameState.roleName(5L));
+        assertEquals(0, roleQueries.get());
+    }
+
+    private static OracleUserRoleEntity role(Long id, String name) {
+        OracleUserRoleEntity role = new OracleUserRoleEntity();
+        role.setId(id);
+        role.setName(name);
+        return role;
+    }
+}
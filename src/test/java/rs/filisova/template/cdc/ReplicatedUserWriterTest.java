@@ -0,0 +1,89 @@
+package rs.filisova.template.cdc;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class ReplicatedUserWriterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ReplicatedUserWriter writer = new ReplicatedUserWriter(jdbcTemplate);
+
+    @Test
+    void upsertBindsEveryColumn() throws SQLException {
+        ReplicatedUserRow row = new ReplicatedUserRow(101L, "Ivan Petrov", LocalDate.of(1990, 5, 15), "M", "MANAGER",
+                "WRITE_ACCESS", 1760771400000L, 2803120L);
+
+        writer.upsert(List.of(row));
+
+        PreparedStatement ps = bind(row);
+        verify(ps).setLong(1, 101L);
+        verify(ps).setString(2, "Ivan Petrov");
+        verify(ps).setDate(3, Date.valueOf(LocalDate.of(1990, 5, 15)));
+        verify(ps).setString(4, "M");
+        verify(ps).setString(5, "MANAGER");
+        verify(ps).setString(6, "WRITE_ACCESS");
+        verify(ps).setTimestamp(7, new Timestamp(1760771400000L));
+        verify(ps).setLong(8, 2803120L);
+    }
+
+    @Test
+    void missingValuesAreBoundAsTypedNulls() throws SQLException {
+        ReplicatedUserRow row = new ReplicatedUserRow(102L, "Maria Sidorova", null, "F", null, null, null, null);
+
+        writer.upsert(List.of(row));
+
+        PreparedStatement ps = bind(row);
+        verify(ps).setNull(3, Types.DATE);
+        verify(ps).setNull(7, Types.TIMESTAMP_WITH_TIMEZONE);
+        verify(ps).setNull(8, Types.BIGINT);
+    }
+
+    @Test
+    void deleteBindsTheIds() throws SQLException {
+        writer.delete(List.of(7L));
+
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Long>> setter = setterCaptor();
+        verify(jdbcTemplate).batchUpdate(eq("DELETE FROM postgres.postgres_users WHERE id = ?"), eq(List.of(7L)), eq(1), setter.capture());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, 7L);
+        verify(ps).setLong(1, 7L);
+    }
+
+    @Test
+    void emptyBatchesRunNoStatement() {
+        writer.upsert(List.of());
+        writer.delete(List.of());
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private PreparedStatement bind(ReplicatedUserRow row) throws SQLException {
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<ReplicatedUserRow>> setter = setterCaptor();
+        verify(jdbcTemplate).batchUpdate(anyString(), eq(List.of(row)), anyInt(), setter.capture());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, row);
+        return ps;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArgumentCaptor<ParameterizedPreparedStatementSetter<T>> setterCaptor() {
+        return ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+    }
+}
@@ -0,0 +1,73 @@
+package rs.filisova.template.cdc;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicationLagHealthIndicatorTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    private final ReplicationLagMonitor monitor = mock(ReplicationLagMonitor.class);
+    private ReplicationLagHealthIndicator indicator;
+
+    @BeforeEach
+    void setUp() {
+        indicator = new ReplicationLagHealthIndicator(monitor, new ReplicationLagProperties());
+        when(monitor.now()).thenReturn(NOW);
+    }
+
+    @Test
+    void stalledConsumerWithPendingRecordsIsDegraded() {
+        when(monitor.consumerLag()).thenReturn(lag(120, NOW.minus(Duration.ofMinutes(5))));
+
+        Health health = indicator.health();
+
+        assertEquals(ReplicationLagHealthIndicator.DEGRADED, health.getStatus());
+        assertEquals("PT5M", health.getDetails().get("lag"));
+    }
+
+    @Test
+    void slowLastBatchDoesNotStickOnceCaughtUp() {
+        when(monitor.lastApplyLag()).thenReturn(Duration.ofMinutes(10));
+        when(monitor.consumerLag()).thenReturn(lag(0, NOW.minus(Duration.ofMinutes(30))));
+
+        assertEquals(Status.UP, indicator.health().getStatus());
+    }
+
+    @Test
+    void slowBatchWhileRecordsArePendingIsDegraded() {
+        when(monitor.lastApplyLag()).thenReturn(Duration.ofMinutes(3));
+        when(monitor.consumerLag()).thenReturn(lag(40, NOW.minusSeconds(2)));
+
+        assertEquals(ReplicationLagHealthIndicator.DEGRADED, indicator.health().getStatus());
+    }
+
+    @Test
+    void oldFreshnessAloneIsNotDegraded() {
+        when(monitor.freshness()).thenReturn(Duration.ofHours(6));
+        when(monitor.consumerLag()).thenReturn(lag(0, NOW));
+
+        assertEquals(Status.UP, indicator.health().getStatus());
+    }
+
+    @Test
+    void unknownConsumerLagIsUp() {
+        Health health = indicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals("unknown", health.getDetails().get("pending"));
+    }
+
+    private static ReplicationLagMonitor.ConsumerLag lag(long pending, Instant lastProgress) {
+        return new ReplicationLagMonitor.ConsumerLag("service-template-atb-cdc-applier", pending, lastProgress, NOW);
+    }
+}
@@ -0,0 +1,235 @@
+package rs.filisova.template.cdc;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsOptions;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListOffsetsOptions;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Probes run against a mocked JdbcTemplate and a mocked Kafka admin client whose futures complete at once.
+ */
+class ReplicationLagMonitorTest {
+
+    private static final String GROUP = "oracle-cdc-applier";
+    private static final TopicPartition USERS = new TopicPartition("oracle_cdc.ORACLEUSER.ORACLE_USERS", 0);
+    private static final TopicPartition ROLES = new TopicPartition("oracle_cdc.ORACLEUSER.ORACLE_USERS_ROLE", 0);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final KafkaAdmin kafkaAdmin = mock(KafkaAdmin.class);
+    private final Admin admin = mock(Admin.class);
+    private final ReplicationLagProperties properties = new ReplicationLagProperties();
+    private final CdcApplierProperties applierProperties = new CdcApplierProperties();
+    private MockedStatic<Admin> admins;
+
+    @BeforeEach
+    void setUp() {
+        admins = mockStatic(Admin.class);
+        admins.when(() -> Admin.create(anyMap())).thenReturn(admin);
+        when(kafkaAdmin.getConfigurationProperties()).thenReturn(Map.of("bootstrap.servers", "localhost:9092"));
+        properties.setConsumerGroup(GROUP);
+    }
+
+    @AfterEach
+    void tearDown() {
+        admins.close();
+    }
+
+    @Test
+    void appliedRowsRecordLagAndFreshness() {
+        ReplicationLagMonitor monitor = monitor(kafkaAdmin);
+        long now = System.currentTimeMillis();
+
+        monitor.recordApplied(Arrays.asList(now - 2000, null, now - 500));
+
+        assertEquals(2, meterRegistry.get("replication.apply.lag").timer().count());
+        assertEquals(3.0, meterRegistry.get("replication.rows.applied").counter().count());
+        assertTrue(monitor.lastApplyLag().compareTo(Duration.ofMillis(2000)) >= 0);
+        assertTrue(monitor.freshness().compareTo(Duration.ofMillis(500)) >= 0);
+        assertTrue(monitor.freshness().compareTo(Duration.ofMillis(2000)) < 0);
+        assertTrue(meterRegistry.get("replication.freshness").timeGauge().value(TimeUnit.MILLISECONDS) >= 500);
+    }
+
+    @Test
+    void deletesOnlyDoNotChangeTheLastLag() {
+        ReplicationLagMonitor monitor = monitor(kafkaAdmin);
+
+        monitor.recordApplied(Arrays.asList(null, null));
+
+        assertNull(monitor.lastApplyLag());
+        assertNull(monitor.freshness());
+        assertTrue(Double.isNaN(meterRegistry.get("replication.freshness").timeGauge().value()));
+    }
+
+    @Test
+    void freshnessComesFromTheNewestReplicatedRow() {
+        ReplicationLagMonitor monitor = monitor(kafkaAdmin);
+        Instant newest = Instant.now().minusSeconds(60);
+        when(jdbcTemplate.queryForObject("SELECT max(source_ts) FROM postgres.postgres_users", Timestamp.class))
+                .thenReturn(Timestamp.from(newest))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(null);
+
+        monitor.probeNewestSourceTs();
+        assertTrue(monitor.freshness().compareTo(Duration.ofSeconds(60)) >= 0);
+
+        // A failed probe keeps the last value
+        monitor.probeNewestSourceTs();
+        assertTrue(monitor.freshness().compareTo(Duration.ofSeconds(60)) >= 0);
+
+        monitor.probeNewestSourceTs();
+        assertNull(monitor.freshness());
+    }
+
+    @Test
+    void consumerLagIsTheBacklogOverAllPartitions() {
+        ReplicationLagMonitor monitor = monitor(kafkaAdmin);
+        offsets(Map.of(USERS, 90L, ROLES, 5L), Map.of(USERS, 100L, ROLES, 5L));
+
+        monitor.probeConsumerLag();
+
+        ReplicationLagMonitor.ConsumerLag lag = monitor.consumerLag();
+        assertEquals(GROUP, lag.group());
+        assertEquals(10, lag.pending());
+        assertEquals(10.0, meterRegistry.get("replication.consumer.lag").gauge().value());
+        assertFalse(lag.lastProgress().isAfter(monitor.now()));
+    }
+
+    @Test
+    void lastProgressStaysWhileTheGroupIsStuck() throws InterruptedException {
+        ReplicationLagMonitor monitor = monitor(kafkaAdmin);
+        offsets(Map.of(USERS, 90L), Map.of(USERS, 100L));
+        monitor.probeConsumerLag();
+        Instant firstProgress = monitor.consumerLag().lastProgress();
+        Thread.sleep(5);
+
+        offsets(Map.of(USERS, 90L), Map.of(USERS, 120L));
+        monitor.probeConsumerLag();
+        assertEquals(firstProgress, monitor.consumerLag().lastProgress());
+        assertEquals(30, monitor.consumerLag().pending());
+
+        offsets(Map.of(USERS, 110L), Map.of(USERS, 120L));
+        monitor.probeConsumerLag();
+        assertTrue(monitor.consumerLag().lastProgress().isAfter(firstProgress));
+        // One client for all probes
+        admins.verify(() -> Admin.create(anyMap()), times(1));
+    }
+
+    @Test
+    void groupWithoutCommittedOffsetsHasNoLag() {
+        ReplicationLagMonitor monitor = monitor(kafkaAdmin);
+        offsets(Map.of(), Map.of());
+
+        monitor.probeConsumerLag();
+
+        assertNull(monitor.consumerLag());
+        assertTrue(Double.isNaN(meterRegistry.get("replication.consumer.lag").gauge().value()));
+    }
+
+    @Test
+    void failedProbeDropsTheLagAndTheClient() {
+        ReplicationLagMonitor monitor = monitor(kafkaAdmin);
+        offsets(Map.of(USERS, 90L), Map.of(USERS, 100L));
+        monitor.probeConsumerLag();
+        ListConsumerGroupOffsetsResult failed = mock(ListConsumerGroupOffsetsResult.class);
+        KafkaFuture<Map<TopicPartition, OffsetAndMetadata>> timeout = KafkaFuture.completedFuture(null)
+                .thenApply(ignored -> {
+                    throw new TimeoutException("Timed out waiting for a node assignment");
+                });
+        when(failed.partitionsToOffsetAndMetadata()).thenReturn(timeout);
+        when(admin.listConsumerGroupOffsets(eq(GROUP), any(ListConsumerGroupOffsetsOptions.class))).thenReturn(failed);
+
+        monitor.probeConsumerLag();
+
+        assertNull(monitor.consumerLag());
+        verify(admin).close(Duration.ofSeconds(1));
+        monitor.probeConsumerLag();
+        admins.verify(() -> Admin.create(anyMap()), times(2));
+    }
+
+    @Test
+    void probeWithoutKafkaAdminReportsNoLag() {
+        ReplicationLagMonitor monitor = monitor(null);
+
+        monitor.probeConsumerLag();
+
+        assertNull(monitor.consumerLag());
+        admins.verifyNoInteractions();
+    }
+
+    @Test
+    void groupDefaultsToTheEmbeddedApplier() {
+        properties.setConsumerGroup("");
+        ReplicationLagMonitor withoutGroup = monitor(kafkaAdmin);
+        withoutGroup.probeConsumerLag();
+        admins.verifyNoInteractions();
+
+        applierProperties.setEnabled(true);
+        offsets(Map.of(USERS, 100L), Map.of(USERS, 100L));
+        ReplicationLagMonitor monitor = monitor(kafkaAdmin);
+        monitor.probeConsumerLag();
+
+        assertEquals(applierProperties.getGroupId(), monitor.consumerLag().group());
+        assertEquals(0, monitor.consumerLag().pending());
+        monitor.close();
+        verify(admin).close(Duration.ofSeconds(1));
+    }
+
+    private ReplicationLagMonitor monitor(KafkaAdmin kafka) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<KafkaAdmin> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(kafka);
+        return new ReplicationLagMonitor(jdbcTemplate, properties, applierProperties, provider, meterRegistry);
+    }
+
+    private void offsets(Map<TopicPartition, Long> committed, Map<TopicPartition, Long> end) {
+        Map<TopicPartition, OffsetAndMetadata> committedOffsets = new HashMap<>();
+        committed.forEach((partition, offset) -> committedOffsets.put(partition, new OffsetAndMetadata(offset)));
+        ListConsumerGroupOffsetsResult groupOffsets = mock(ListConsumerGroupOffsetsResult.class);
+        when(groupOffsets.partitionsToOffsetAndMetadata()).thenReturn(KafkaFuture.completedFuture(committedOffsets));
+        when(admin.listConsumerGroupOffsets(any(String.class), any(ListConsumerGroupOffsetsOptions.class))).thenReturn(groupOffsets);
+
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets = new HashMap<>();
+        end.forEach((partition, offset) -> endOffsets.put(partition,
+                new ListOffsetsResult.ListOffsetsResultInfo(offset, -1, Optional.empty())));
+        ListOffsetsResult listOffsets = mock(ListOffsetsResult.class);
+        when(listOffsets.all()).thenReturn(KafkaFuture.completedFuture(endOffsets));
+        when(admin.listOffsets(anyMap(), any(ListOffsetsOptions.class))).thenReturn(listOffsets);
+    }
+}
@@ -0,0 +1,193 @@
+package rs.filisova.template.changes;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import rs.filisova.template.config.PostgresUserCacheProperties;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the LISTEN loop against a stub JDBC driver that hands out mocked connections.
+ */
+class PostgresUserChangeListenerTest {
+
+    private static final String URL = "jdbc:listen-stub:postgres";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Connection> connections = new LinkedBlockingQueue<>();
+    private final StubDriver driver = new StubDriver();
+    private PostgresUserChangeListener listener;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DriverManager.registerDriver(driver);
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(URL);
+        dataSourceProperties.setUsername("postgres");
+        dataSourceProperties.setPassword("secret");
+        PostgresUserCacheProperties properties = new PostgresUserCacheProperties();
+        properties.setListenPollTimeout(Duration.ofMillis(10));
+        properties.setReconnectBackoff(Duration.ofMillis(10));
+        listener = new PostgresUserChangeListener(dataSourceProperties, properties, events::add, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        listener.stop();
+        DriverManager.deregisterDriver(driver);
+    }
+
+    @Test
+    void notificationsArePublishedAfterAFlush() throws Exception {
+        Connection connection = connection(true, notification("42,1700000000000"), notification("*,5"),
+                notification("not-an-id"), notification("7"));
+        connections.add(connection);
+
+        listener.start();
+
+        assertEquals(PostgresUserChangedEvent.flush(0), nextEvent());
+        assertEquals(new PostgresUserChangedEvent(42L, 1700000000000L), nextEvent());
+        assertEquals(PostgresUserChangedEvent.flush(5), nextEvent());
+        assertEquals(new PostgresUserChangedEvent(7L, 0), nextEvent());
+        assertTrue(listener.isRunning());
+        assertTrue(listener.isConnected());
+        assertEquals(1, listener.getEpoch());
+        assertEquals(1.0, meterRegistry.get("postgres.listen.connected").gauge().value());
+        Statement statement = connection.createStatement();
+        verify(statement).execute("LISTEN postgres_users_changed");
+    }
+
+    @Test
+    void lostConnectionIsReplacedAndFlushedAgain() throws Exception {
+        connections.add(connection(false));
+        connections.add(connection(true));
+
+        listener.start();
+
+        assertEquals(PostgresUserChangedEvent.flush(0), nextEvent());
+        assertEquals(PostgresUserChangedEvent.flush(0), nextEvent());
+        // Connected, lost, connected again
+        assertEquals(3, listener.getEpoch());
+        assertEquals(1.0, meterRegistry.get("postgres.listen.reconnects").counter().count());
+    }
+
+    @Test
+    void failedConnectIsRetriedWithoutAFlush() throws Exception {
+        listener.start();
+        Thread.sleep(50);
+
+        assertFalse(listener.isConnected());
+        assertTrue(events.isEmpty());
+        assertEquals(0, listener.getEpoch());
+        assertTrue(meterRegistry.get("postgres.listen.reconnects").counter().count() >= 1);
+    }
+
+    @Test
+    void stopClosesTheConnection() throws Exception {
+        Connection connection = connection(true);
+        connections.add(connection);
+        listener.start();
+        nextEvent();
+
+        listener.stop();
+
+        assertFalse(listener.isRunning());
+        verify(connection, atLeastOnce()).close();
+    }
+
+    private Object nextEvent() throws InterruptedException {
+        Object event = events.poll(5, TimeUnit.SECONDS);
+        if (event == null) {
+            throw new AssertionError("no event published");
+        }
+        return event;
+    }
+
+    private static Connection connection(boolean valid, PGNotification... notifications) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(connection.isValid(anyInt())).thenReturn(valid);
+        when(pgConnection.getNotifications(anyInt())).thenReturn(notifications, new PGNotification[0]);
+        return connection;
+    }
+
+    private static PGNotification notification(String payload) {
+        PGNotification notification = mock(PGNotification.class);
+        when(notification.getParameter()).thenReturn(payload);
+        return notification;
+    }
+
+    private class StubDriver implements Driver {
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            Connection connection = connections.poll();
+            if (connection == null) {
+                throw new SQLException("Connection refused");
+            }
+            return connection;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return URL.equals(url);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package rs.filisova.template.coalescing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import rs.filisova.template.entity.PostgresUserEntity;
+import rs.filisova.template.repository.PostgresUserRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LookupCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<Long>> queries = new CopyOnWriteArrayList<>();
+    private final ExecutorService callers = Executors.newFixedThreadPool(3);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentLookupsShareOneQuery() throws Exception {
+        // A long wait: only the lookup that fills the batch can have sent it
+        LookupCoalescer<Long, String> coalescer = coalescer(properties(3, Duration.ofSeconds(30)));
+
+        List<Future<String>> results = lookUp(coalescer, 1L, 2L, 3L);
+
+        assertEquals(List.of("user-1", "user-2", "user-3"), values(results));
+        assertEquals(1, queries.size());
+        assertEquals(3, queries.get(0).size());
+        assertEquals(3.0, meterRegistry.get("lookup.batch.size").summary().max());
+    }
+
+    @Test
+    void lookupsOfTheSameKeyShareOneResult() throws Exception {
+        // One distinct key never fills the batch; the first lookup sends it after maxWait
+        LookupCoalescer<Long, String> coalescer = coalescer(properties(2, Duration.ofMillis(500)));
+
+        List<Future<String>> results = lookUp(coalescer, 7L, 7L);
+
+        assertEquals(List.of("user-7", "user-7"), values(results));
+        assertEquals(List.of(List.of(7L)), queries);
+    }
+
+    @Test
+    void firstLookupRunsTheBatchAfterMaxWait() {
+        LookupCoalescer<Long, String> coalescer = coalescer(properties(100, Duration.ofMillis(5)));
+
+        assertEquals("user-4", coalescer.get(4L));
+        assertNull(coalescer.get(-1L));
+        assertEquals(List.of(List.of(4L), List.of(-1L)), queries);
+    }
+
+    @Test
+    void queryFailureReachesEveryLookupOfTheBatch() throws Exception {
+        LookupCoalescer<Long, String> coalescer = new LookupCoalescer<>("users", keys -> {
+            throw new IllegalStateException("database unavailable");
+        }, properties(2, Duration.ofSeconds(30)), meterRegistry);
+
+        List<Future<String>> results = lookUp(coalescer, 1L, 2L);
+
+        for (Future<String> result : results) {
+            ExecutionException failure = assertThrows(ExecutionException.class, result::get);
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+        }
+    }
+
+    @Test
+    void disabledCoalescerQueriesEveryLookupAtOnce() {
+        LookupCoalescingProperties properties = properties(100, Duration.ofSeconds(30));
+        properties.setEnabled(false);
+        LookupCoalescer<Long, String> coalescer = coalescer(properties);
+
+        assertEquals("user-1", coalescer.get(1L));
+        assertEquals("user-1", coalescer.get(1L));
+        assertEquals(List.of(List.of(1L), List.of(1L)), queries);
+    }
+
+    @Test
+    void batchSizeAboveTheInListLimitIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> coalescer(properties(1001, Duration.ofMillis(1))));
+    }
+
+    @Test
+    void configuredCoalescerLoadsWithFindAllById() {
+        PostgresUserRepository repository = mock(PostgresUserRepository.class);
+        PostgresUserEntity user = new PostgresUserEntity();
+        user.setId(5L);
+        when(repository.findAllById(List.of(5L))).thenReturn(List.of(user));
+
+        LookupCoalescer<Long, PostgresUserEntity> coalescer = new LookupCoalescingConfig()
+                .postgresUserLookups(repository, properties(100, Duration.ofMillis(1)), meterRegistry);
+
+        assertEquals(user, coalescer.get(5L));
+    }
+
+    private <V> List<Future<V>> lookUp(LookupCoalescer<Long, V> coalescer, Long... keys) {
+        List<Future<V>> results = new ArrayList<>();
+        for (Long key : keys) {
+            results.add(callers.submit(() -> coalescer.get(key)));
+        }
+        return results;
+    }
+
+    private static <V> List<V> values(List<Future<V>> results) throws Exception {
+        List<V> values = new ArrayList<>();
+        for (Future<V> result : results) {
+            values.add(result.get());
+        }
+        return values;
+    }
+
+    private LookupCoalescer<Long, String> coalescer(LookupCoalescingProperties properties) {
+        return new LookupCoalescer<>("users", keys -> {
+            queries.add(List.copyOf(keys));
+            Map<Long, String> found = new HashMap<>();
+            keys.stream().filter(key -> key > 0).forEach(key -> found.put(key, "user-" + key));
+            return found;
+        }, properties, meterRegistry);
+    }
+
+    private static LookupCoalescingProperties properties(int maxBatchSize, Duration maxWait) {
+        LookupCoalescingProperties properties = new LookupCoalescingProperties();
+        properties.setMaxBatchSize(maxBatchSize);
+        properties.setMaxWait(maxWait);
+        return properties;
+    }
+}
@@ -0,0 +1,50 @@
+package rs.filisova.template.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import rs.filisova.template.entity.OracleUserGrantEntity;
+import rs.filisova.template.entity.OracleUserRoleEntity;
+import rs.filisova.template.repository.OracleUserGrantRepository;
+import rs.filisova.template.repository.OracleUserRoleRepository;
+import rs.filisova.template.service.ReferenceDataCache;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReferenceCacheConfigTest {
+
+    private final ReferenceCacheConfig config = new ReferenceCacheConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void roleCacheReadsThroughTheRoleRepository() {
+        OracleUserRoleRepository repository = mock(OracleUserRoleRepository.class);
+        OracleUserRoleEntity role = new OracleUserRoleEntity();
+        when(repository.findById(1L)).thenReturn(Optional.of(role));
+        when(repository.findAll()).thenReturn(List.of(role));
+
+        ReferenceDataCache<OracleUserRoleEntity> cache =
+                config.oracleRoleCache(repository, new ReferenceCacheProperties(), meterRegistry);
+
+        assertEquals(Optional.of(role), cache.get(1L));
+        assertEquals(List.of(role), cache.getAll());
+    }
+
+    @Test
+    void grantCacheReadsThroughTheGrantRepository() {
+        OracleUserGrantRepository repository = mock(OracleUserGrantRepository.class);
+        OracleUserGrantEntity grant = new OracleUserGrantEntity();
+        when(repository.findById(1L)).thenReturn(Optional.of(grant));
+        when(repository.findAll()).thenReturn(List.of(grant));
+
+        ReferenceDataCache<OracleUserGrantEntity> cache =
+                config.oracleGrantCache(repository, new ReferenceCacheProperties(), meterRegistry);
+
+        assertEquals(Optional.of(grant), cache.get(1L));
+        assertEquals(List.of(grant), cache.getAll());
+    }
+}
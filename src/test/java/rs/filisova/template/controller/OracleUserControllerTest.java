@@ -0,0 +1,196 @@
+package rs.filisova.template.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import rs.filisova.template.dto.BatchItemResultDTO;
+import rs.filisova.template.dto.OracleUserDTO;
+import rs.filisova.template.entity.OracleUserGrantEntity;
+import rs.filisova.template.entity.OracleUserRoleEntity;
+import rs.filisova.template.exception.GlobalExceptionHandler;
+import rs.filisova.template.exception.OracleUserGrantNotFoundException;
+import rs.filisova.template.exception.OracleUserNotFoundException;
+import rs.filisova.template.exception.OracleUserRoleNotFoundException;
+import rs.filisova.template.service.OracleUserGrantService;
+import rs.filisova.template.service.OracleUserRoleService;
+import rs.filisova.template.service.OracleUserService;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OracleUserControllerTest {
+
+    private final OracleUserService oracleUserService = mock(OracleUserService.class);
+    private final OracleUserGrantService oracleUserGrantService = mock(OracleUserGrantService.class);
+    private final OracleUserRoleService oracleUserRoleService = mock(OracleUserRoleService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new OracleUserController(oracleUserService, oracleUserGrantService, oracleUserRoleService))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void unchangedGrantsAndRolesAreNotModified() throws Exception {
+        when(oracleUserGrantService.getAllGrantsVersion()).thenReturn("3");
+        when(oracleUserRoleService.getAllRolesVersion()).thenReturn("5");
+
+        mockMvc.perform(get("/oracle/grants").header(HttpHeaders.IF_NONE_MATCH, "\"grants-3\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/oracle/roles").header(HttpHeaders.IF_NONE_MATCH, "\"roles-5\""))
+                .andExpect(status().isNotModified());
+
+        verify(oracleUserGrantService, never()).getAllGrants();
+        verify(oracleUserRoleService, never()).getAllRoles();
+    }
+
+    @Test
+    void changedGrantsAndRolesAreReturnedWithTheirETag() throws Exception {
+        when(oracleUserGrantService.getAllGrantsVersion()).thenReturn("4");
+        when(oracleUserGrantService.getAllGrants()).thenReturn(List.of(grant(2L, "WRITE_ACCESS")));
+        when(oracleUserRoleService.getAllRolesVersion()).thenReturn("5");
+        when(oracleUserRoleService.getAllRoles()).thenReturn(List.of(role(4L, "MANAGER")));
+
+        mockMvc.perform(get("/oracle/grants").header(HttpHeaders.IF_NONE_MATCH, "\"grants-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"grants-4\""))
+                .andExpect(jsonPath("$[0].name").value("WRITE_ACCESS"));
+        mockMvc.perform(get("/oracle/roles"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"roles-5\""))
+                .andExpect(jsonPath("$[0].name").value("MANAGER"));
+    }
+
+    @Test
+    void unknownIdsAreNotFound() throws Exception {
+        when(oracleUserService.getUserById(1L)).thenThrow(new OracleUserNotFoundException(1L));
+        when(oracleUserGrantService.getGrantById(2L)).thenThrow(new OracleUserGrantNotFoundException(2L));
+        when(oracleUserRoleService.getRoleById(3L)).thenThrow(new OracleUserRoleNotFoundException(3L));
+
+        mockMvc.perform(get("/oracle/users/1"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Oracle user not found with id: 1"));
+        mockMvc.perform(get("/oracle/grants/2"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Oracle user grant not found with id: 2"));
+        mockMvc.perform(get("/oracle/roles/3"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Oracle user role not found with id: 3"));
+    }
+
+    @Test
+    void userEndpointsDelegateToTheService() throws Exception {
+        when(oracleUserService.getAllUsers()).thenReturn(List.of(user(1L)));
+        when(oracleUserService.getUsersByIds(List.of(1L))).thenReturn(List.of(user(1L)));
+        when(oracleUserService.getUserById(1L)).thenReturn(user(1L));
+        when(oracleUserService.createUsers(anyList())).thenReturn(List.of(new BatchItemResultDTO(0, null, BatchItemResultDTO.Status.CREATED)));
+        when(oracleUserService.updateUsers(anyList())).thenReturn(List.of(new BatchItemResultDTO(0, 1L, BatchItemResultDTO.Status.UPDATED)));
+        String body = "{\"name\":\"Ivan Petrov\",\"birthDateOra\":\"1990-05-15\",\"sex\":\"M\"}";
+
+        mockMvc.perform(get("/oracle/users")).andExpect(jsonPath("$[0].id").value(1));
+        mockMvc.perform(get("/oracle/users").param("ids", "1")).andExpect(jsonPath("$[0].id").value(1));
+        mockMvc.perform(get("/oracle/users/1")).andExpect(jsonPath("$.name").value("Ivan Petrov"));
+        mockMvc.perform(post("/oracle/users").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/oracle/users/batch").contentType(MediaType.APPLICATION_JSON).content("[" + body + "]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].status").value("CREATED"));
+        mockMvc.perform(put("/oracle/users/batch").contentType(MediaType.APPLICATION_JSON).content("[" + body + "]"))
+                .andExpect(jsonPath("$[0].status").value("UPDATED"));
+        mockMvc.perform(put("/oracle/users/1").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/oracle/users/1")).andExpect(status().isNoContent());
+
+        verify(oracleUserService).createUser(any());
+        verify(oracleUserService).updateUser(eq(1L), any());
+        verify(oracleUserService).deleteUser(1L);
+    }
+
+    @Test
+    void grantAndRoleEndpointsDelegateToTheirServices() throws Exception {
+        when(oracleUserGrantService.getGrantById(2L)).thenReturn(grant(2L, "WRITE_ACCESS"));
+        when(oracleUserRoleService.getRoleById(4L)).thenReturn(role(4L, "MANAGER"));
+        String body = "{\"name\":\"AUDIT\",\"describe\":\"Read-only audit access\"}";
+
+        mockMvc.perform(get("/oracle/grants/2")).andExpect(jsonPath("$.name").value("WRITE_ACCESS"));
+        mockMvc.perform(post("/oracle/grants").contentType(MediaType.APPLICATION_JSON).content(body)).andExpect(status().isCreated());
+        mockMvc.perform(post("/oracle/grants/batch").contentType(MediaType.APPLICATION_JSON).content("[" + body + "]")).andExpect(status().isCreated());
+        mockMvc.perform(put("/oracle/grants/batch").contentType(MediaType.APPLICATION_JSON).content("[" + body + "]")).andExpect(status().isOk());
+        mockMvc.perform(put("/oracle/grants/2").contentType(MediaType.APPLICATION_JSON).content(body)).andExpect(status().isOk());
+        mockMvc.perform(delete("/oracle/grants/2")).andExpect(status().isNoContent());
+        mockMvc.perform(get("/oracle/roles/4")).andExpect(jsonPath("$.name").value("MANAGER"));
+        mockMvc.perform(post("/oracle/roles").contentType(MediaType.APPLICATION_JSON).content(body)).andExpect(status().isCreated());
+        mockMvc.perform(post("/oracle/roles/batch").contentType(MediaType.APPLICATION_JSON).content("[" + body + "]")).andExpect(status().isCreated());
+        mockMvc.perform(put("/oracle/roles/batch").contentType(MediaType.APPLICATION_JSON).content("[" + body + "]")).andExpect(status().isOk());
+        mockMvc.perform(put("/oracle/roles/4").contentType(MediaType.APPLICATION_JSON).content(body)).andExpect(status().isOk());
+        mockMvc.perform(delete("/oracle/roles/4")).andExpect(status().isNoContent());
+
+        verify(oracleUserGrantService).createGrant("AUDIT", "Read-only audit access");
+        verify(oracleUserGrantService).updateGrant(2L, "AUDIT", "Read-only audit access");
+        verify(oracleUserGrantService).deleteGrant(2L);
+        verify(oracleUserRoleService).createRole("AUDIT", "Read-only audit access");
+        verify(oracleUserRoleService).updateRole(4L, "AUDIT", "Read-only audit access");
+        verify(oracleUserRoleService).deleteRole(4L);
+    }
+
+    @Test
+    void exportStreamsWhatTheServiceWrites() throws Exception {
+        when(oracleUserService.exportUsers(any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/oracle/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    private static OracleUserDTO user(Long id) {
+        OracleUserDTO user = new OracleUserDTO();
+        user.setId(id);
+        user.setName("Ivan Petrov");
+        return user;
+    }
+
+    private static OracleUserGrantEntity grant(Long id, String name) {
+        OracleUserGrantEntity grant = new OracleUserGrantEntity();
+        grant.setId(id);
+        grant.setName(name);
+        return grant;
+    }
+
+    private static OracleUserRoleEntity role(Long id, String name) {
+        OracleUserRoleEntity role = new OracleUserRoleEntity();
+        role.setId(id);
+        role.setName(name);
+        return role;
+    }
+}
@@ -0,0 +1,243 @@
+package rs.filisova.template.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import rs.filisova.template.dto.CursorPageDTO;
+import rs.filisova.template.dto.PostgresUserChangeFeedDTO;
+import rs.filisova.template.dto.PostgresUserDTO;
+import rs.filisova.template.dto.PostgresUserIngestResultDTO;
+import rs.filisova.template.dto.PostgresUserSearchResultDTO;
+import rs.filisova.template.exception.ChangeTokenExpiredException;
+import rs.filisova.template.exception.GlobalExceptionHandler;
+import rs.filisova.template.exception.PostgresUserNotFoundException;
+import rs.filisova.template.service.PostgresUserCache;
+import rs.filisova.template.service.PostgresUserChangeFeedService;
+import rs.filisova.template.service.PostgresUserIngestService;
+import rs.filisova.template.service.PostgresUserQueryService;
+import rs.filisova.template.service.PostgresUserSearchService;
+import rs.filisova.template.service.PostgresUserService;
+import rs.filisova.template.service.PostgresUserStreamService;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PostgresUserControllerTest {
+
+    private final PostgresUserService postgresUserService = mock(PostgresUserService.class);
+    private final PostgresUserIngestService postgresUserIngestService = mock(PostgresUserIngestService.class);
+    private final PostgresUserQueryService postgresUserQueryService = mock(PostgresUserQueryService.class);
+    private final PostgresUserSearchService postgresUserSearchService = mock(PostgresUserSearchService.class);
+    private final PostgresUserChangeFeedService postgresUserChangeFeedService = mock(PostgresUserChangeFeedService.class);
+    private final PostgresUserStreamService postgresUserStreamService = mock(PostgresUserStreamService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new PostgresUserController(postgresUserService, postgresUserIngestService,
+                        postgresUserQueryService, postgresUserSearchService, postgresUserChangeFeedService, postgresUserStreamService))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void userIsReturnedWithItsRowVersionAsETag() throws Exception {
+        when(postgresUserService.getPostgresUserById(1L)).thenReturn(new PostgresUserCache.Entry(user(1L, "Ivan Petrov"), 3));
+
+        mockMvc.perform(get("/postgres-users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"pu-1-3\""))
+                .andExpect(jsonPath("$.name").value("Ivan Petrov"));
+    }
+
+    @Test
+    void unchangedUserIsNotModified() throws Exception {
+        when(postgresUserService.getPostgresUserById(1L)).thenReturn(new PostgresUserCache.Entry(user(1L, "Ivan Petrov"), 3));
+
+        mockMvc.perform(get("/postgres-users/1").header(HttpHeaders.IF_NONE_MATCH, "\"pu-1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/postgres-users/1").header(HttpHeaders.IF_NONE_MATCH, "\"pu-1-2\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void unknownUserIsNotFound() throws Exception {
+        when(postgresUserService.getPostgresUserById(9L)).thenThrow(new PostgresUserNotFoundException(9L));
+
+        mockMvc.perform(get("/postgres-users/9"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.error").value("Not Found"))
+                .andExpect(jsonPath("$.message").value("PostgresUser not found with id: 9"))
+                .andExpect(jsonPath("$.path").value("/postgres-users/9"));
+    }
+
+    @Test
+    void unchangedPageIsNotModified() throws Exception {
+        when(postgresUserService.getPostgresUsersVersion()).thenReturn("42");
+
+        mockMvc.perform(get("/postgres-users").header(HttpHeaders.IF_NONE_MATCH, "\"pu-42\""))
+                .andExpect(status().isNotModified());
+
+        verify(postgresUserService, never()).getPostgresUsersPage(any(), any(), eq(100), eq(false));
+    }
+
+    @Test
+    void pageWithPlannerEstimateHasAWeakETag() throws Exception {
+        when(postgresUserService.getPostgresUsersVersion()).thenReturn("42");
+        when(postgresUserService.getPostgresUsersPage(5L, null, 2, true))
+                .thenReturn(new CursorPageDTO<>(List.of(user(6L, "Anna Smirnova")), "next", 250L));
+
+        mockMvc.perform(get("/postgres-users").param("afterId", "5").param("size", "2").param("includeTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"pu-42\""))
+                .andExpect(jsonPath("$.items[0].id").value(6))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.approximateTotal").value(250));
+    }
+
+    @Test
+    void readEndpointsDelegateToTheirServices() throws Exception {
+        when(postgresUserService.getPostgresUsersByIds(List.of(2L, 1L))).thenReturn(List.of(user(2L, "Olga"), user(1L, "Ivan")));
+        when(postgresUserQueryService.query(any(), eq(List.of("name")), eq("name"), eq("desc"), eq(null), eq(10)))
+                .thenReturn(new CursorPageDTO<>(List.of(Map.of("id", 1, "name", "Ivan")), null, null));
+        when(postgresUserSearchService.searchByName("ivan", 5))
+                .thenReturn(List.of(new PostgresUserSearchResultDTO()));
+        when(postgresUserChangeFeedService.getChanges("token", null))
+                .thenReturn(new PostgresUserChangeFeedDTO(List.of(), "next", false));
+
+        mockMvc.perform(get("/postgres-users").param("ids", "2,1"))
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[1].id").value(1));
+        mockMvc.perform(get("/postgres-users/query").param("fields", "name").param("sort", "name")
+                        .param("direction", "desc").param("size", "10"))
+                .andExpect(jsonPath("$.items[0].name").value("Ivan"));
+        mockMvc.perform(get("/postgres-users/search").param("q", "ivan").param("limit", "5"))
+                .andExpect(jsonPath("$.length()").value(1));
+        mockMvc.perform(get("/postgres-users/changes").param("since", "token"))
+                .andExpect(jsonPath("$.nextToken").value("next"))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void expiredChangeTokenIsGone() throws Exception {
+        when(postgresUserChangeFeedService.getChanges("old", null)).thenThrow(new ChangeTokenExpiredException("old"));
+
+        mockMvc.perform(get("/postgres-users/changes").param("since", "old"))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.status").value(410));
+    }
+
+    @Test
+    void invalidArgumentsAreBadRequests() throws Exception {
+        when(postgresUserService.getPostgresUsersVersion()).thenReturn("42");
+        when(postgresUserService.getPostgresUsersPage(null, null, 0, false))
+                .thenThrow(new IllegalArgumentException("Page size must be between 1 and 1000"));
+
+        mockMvc.perform(get("/postgres-users").param("size", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Page size must be between 1 and 1000"));
+        mockMvc.perform(get("/postgres-users/abc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid value 'abc' for parameter 'id'"));
+        mockMvc.perform(post("/postgres-users").contentType(MediaType.APPLICATION_JSON).content("{\"name\":"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Malformed JSON request"));
+        mockMvc.perform(post("/postgres-users").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Iv\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+    }
+
+    @Test
+    void writeEndpointsDelegateToTheService() throws Exception {
+        when(postgresUserService.createPostgresUser(any())).thenReturn(user(7L, "Ivan Petrov"));
+        when(postgresUserService.updatePostgresUser(eq(7L), any())).thenReturn(user(7L, "Ivan Petrov-Vodkin"));
+        String body = "{\"name\":\"Ivan Petrov\",\"role\":\"MANAGER\"}";
+
+        mockMvc.perform(post("/postgres-users").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(7));
+        mockMvc.perform(put("/postgres-users/7").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(jsonPath("$.name").value("Ivan Petrov-Vodkin"));
+        mockMvc.perform(delete("/postgres-users/7"))
+                .andExpect(status().isOk());
+
+        verify(postgresUserService).deletePostgresUser(7L);
+    }
+
+    @Test
+    void ingestFormatFollowsTheContentType() throws Exception {
+        PostgresUserIngestResultDTO result = new PostgresUserIngestResultDTO(1, 1, 1, 0, List.of());
+        when(postgresUserIngestService.ingest(any(), eq(PostgresUserIngestService.Format.CSV))).thenReturn(result);
+        when(postgresUserIngestService.ingest(any(), eq(PostgresUserIngestService.Format.NDJSON))).thenReturn(result);
+
+        mockMvc.perform(post("/postgres-users/ingest").contentType("text/csv; charset=UTF-8").content("name,role\n"))
+                .andExpect(jsonPath("$.rowsMerged").value(1));
+        mockMvc.perform(post("/postgres-users/ingest").contentType(MediaType.APPLICATION_NDJSON).content("{}\n"))
+                .andExpect(jsonPath("$.linesRead").value(1));
+
+        verify(postgresUserIngestService).ingest(any(), eq(PostgresUserIngestService.Format.CSV));
+        verify(postgresUserIngestService).ingest(any(), eq(PostgresUserIngestService.Format.NDJSON));
+    }
+
+    @Test
+    void exportStreamsWhatTheServiceWrites() throws Exception {
+        when(postgresUserService.exportPostgresUsers(any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/postgres-users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    @Test
+    void streamResumesFromTheLastEventId() throws Exception {
+        when(postgresUserStreamService.subscribe("token")).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/postgres-users/stream").header("Last-Event-ID", "token"))
+                .andExpect(request().asyncStarted());
+
+        verify(postgresUserStreamService).subscribe("token");
+    }
+
+    private static PostgresUserDTO user(Long id, String name) {
+        PostgresUserDTO user = new PostgresUserDTO();
+        user.setId(id);
+        user.setName(name);
+        user.setRole("MANAGER");
+        return user;
+    }
+}
@@ -0,0 +1,60 @@
+package rs.filisova.template.controller;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import rs.filisova.template.dto.PostgresUserDTO;
+import rs.filisova.template.dto.PostgresUserFilter;
+import rs.filisova.template.entity.PostgresUserEntity;
+import rs.filisova.template.exception.PostgresUserNotFoundException;
+import rs.filisova.template.repository.PostgresUserReactiveRepository;
+import rs.filisova.template.service.PostgresUserReactiveService;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PostgresUserReactiveControllerTest {
+
+    private final PostgresUserReactiveRepository repository = mock(PostgresUserReactiveRepository.class);
+    private final PostgresUserReactiveController controller =
+            new PostgresUserReactiveController(new PostgresUserReactiveService(repository));
+
+    @Test
+    void usersAreMappedAsTheyArrive() {
+        PostgresUserFilter filter = new PostgresUserFilter();
+        when(repository.find(filter, 5L, 2)).thenReturn(Flux.just(entity(6L), entity(7L)));
+
+        List<PostgresUserDTO> users = controller.getPostgresUsers(filter, 5L, 2).collectList().block();
+
+        assertEquals(List.of(6L, 7L), users.stream().map(PostgresUserDTO::getId).toList());
+        assertEquals("MANAGER", users.get(0).getRole());
+    }
+
+    @Test
+    void limitOutOfRangeFailsTheFlux() {
+        Flux<PostgresUserDTO> users = controller.getPostgresUsers(new PostgresUserFilter(), null, 0);
+
+        assertThrows(IllegalArgumentException.class, users::blockFirst);
+    }
+
+    @Test
+    void missingUserFailsWithNotFound() {
+        when(repository.findById(1L)).thenReturn(Mono.just(entity(1L)));
+        when(repository.findById(2L)).thenReturn(Mono.empty());
+
+        assertEquals("Ivan Petrov", controller.getPostgresUserById(1L).block().getName());
+        assertThrows(PostgresUserNotFoundException.class, () -> controller.getPostgresUserById(2L).block());
+    }
+
+    private static PostgresUserEntity entity(Long id) {
+        PostgresUserEntity entity = new PostgresUserEntity();
+        entity.setId(id);
+        entity.setName("Ivan Petrov");
+        entity.setRole("MANAGER");
+        return entity;
+    }
+}
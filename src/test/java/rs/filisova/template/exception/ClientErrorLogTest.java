@@ -0,0 +1,45 @@
+package rs.filisova.template.exception;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ClientErrorLogTest {
+
+    private final Logger logger = mock(Logger.class);
+
+    @Test
+    void oneWarningPerKindAndInterval() {
+        ClientErrorLog log = new ClientErrorLog(logger, Duration.ofHours(1));
+
+        for (int i = 0; i < 5; i++) {
+            log.log("PostgresUser not found", "id " + i);
+        }
+        log.log("Validation error", "name: must not be blank");
+
+        verify(logger, times(6)).debug(eq("{}: {}"), anyString(), anyString());
+        verify(logger).warn("{}: {} in the last {}s, latest: {}", "PostgresUser not found", 1L, 3600L, "id 0");
+        verify(logger).warn("{}: {} in the last {}s, latest: {}", "Validation error", 1L, 3600L, "name: must not be blank");
+    }
+
+    @Test
+    void occurrencesSinceTheLastWarningAreCounted() throws InterruptedException {
+        ClientErrorLog log = new ClientErrorLog(logger, Duration.ofMillis(20));
+
+        log.log("PostgresUser not found", "id 1");
+        log.log("PostgresUser not found", "id 2");
+        log.log("PostgresUser not found", "id 3");
+        Thread.sleep(30);
+        log.log("PostgresUser not found", "id 4");
+
+        verify(logger).warn(eq("{}: {} in the last {}s, latest: {}"), eq("PostgresUser not found"), eq(3L), anyLong(), eq("id 4"));
+    }
+}
@@ -0,0 +1,55 @@
+package rs.filisova.template.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/postgres-users/search");
+
+    @Test
+    void queryTimeoutIsAGatewayTimeout() {
+        ResponseEntity<ApiError> response = handler.handleQueryTimeoutException(new QueryTimeoutException("canceling statement"), request);
+
+        assertEquals(504, response.getStatusCode().value());
+        assertEquals(new ApiError(response.getBody().timestamp(), 504, "Gateway Timeout", "Query timed out", "/postgres-users/search"),
+                response.getBody());
+    }
+
+    @Test
+    void exceededStatementBudgetIsAServerError() {
+        ResponseEntity<ApiError> response = handler.handleStatementBudgetExceededException(
+                new StatementBudgetExceededException("GET /postgres-users", 10), request);
+
+        assertEquals(500, response.getStatusCode().value());
+        assertEquals("Request GET /postgres-users exceeded the budget of 10 JDBC statements", response.getBody().message());
+    }
+
+    @Test
+    void unexpectedErrorHidesItsMessage() {
+        ResponseEntity<ApiError> response = handler.handleGlobalException(new IllegalStateException("pool exhausted"), request,
+                new MockHttpServletResponse());
+
+        assertEquals(500, response.getStatusCode().value());
+        assertEquals("An unexpected error occurred", response.getBody().message());
+    }
+
+    @Test
+    void errorAfterTheResponseWasCommittedWritesNothing() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCommitted(true);
+
+        assertNull(handler.handleGlobalException(new IOException("Broken pipe"), request, response));
+        handler.handleAsyncRequestNotUsableException(new AsyncRequestNotUsableException("Broken pipe"));
+    }
+}
@@ -0,0 +1,149 @@
+package rs.filisova.template.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the JDBC proxies over Mockito connections, statements and result sets.
+ */
+class InstrumentedDataSourceTest {
+
+    private static final String SELECT = "SELECT id FROM postgres.postgres_users WHERE role = ?";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DataSource target = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final PreparedStatement statement = mock(PreparedStatement.class);
+    private final ResultSet resultSet = mock(ResultSet.class);
+    private final JdbcInstrumentationProperties properties = new JdbcInstrumentationProperties();
+    private InstrumentedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+        when(target.getConnection("postgres", "secret")).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(statement.getResultSet()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getLong(1)).thenReturn(42L);
+        dataSource = new InstrumentedDataSource(target, "postgres", properties, meterRegistry);
+    }
+
+    @Test
+    void statementIsTimedAndItsRowsCounted() throws SQLException {
+        try (Connection proxy = dataSource.getConnection();
+             PreparedStatement prepared = proxy.prepareStatement(SELECT)) {
+            prepared.setString(1, "MANAGER");
+            ResultSet rows = prepared.executeQuery();
+            while (rows.next()) {
+                assertEquals(42L, rows.getLong(1));
+            }
+            rows.close();
+        }
+
+        assertEquals("postgres", dataSource.getName());
+        assertEquals(1, meterRegistry.get("jdbc.statements").tag("datasource", "postgres")
+                .tag("repository", "none").tag("method", "none").timer().count());
+        DistributionSummary rows = meterRegistry.get("jdbc.statement.rows").summary();
+        assertEquals(1, rows.count());
+        assertEquals(2.0, rows.totalAmount());
+        verify(statement).setString(1, "MANAGER");
+        verify(connection).close();
+    }
+
+    @Test
+    void navigationReturnsTheProxies() throws SQLException {
+        when(statement.unwrap(PreparedStatement.class)).thenReturn(statement);
+        Connection proxy = dataSource.getConnection("postgres", "secret");
+        Statement created = proxy.createStatement();
+
+        created.execute(SELECT);
+        ResultSet rows = created.getResultSet();
+
+        assertSame(proxy, created.getConnection());
+        assertSame(created, rows.getStatement());
+        assertSame(rows, created.getResultSet());
+        assertSame(statement, created.unwrap(PreparedStatement.class));
+    }
+
+    @Test
+    void proxiesHaveIdentitySemantics() throws SQLException {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        assertEquals(first, first);
+        assertNotEquals(first, second);
+        assertEquals(System.identityHashCode(first), first.hashCode());
+        assertEquals(connection.toString(), first.toString());
+        Statement created = first.createStatement();
+        assertEquals(created, created);
+        assertEquals(statement.toString(), created.toString());
+        ResultSet rows = created.executeQuery(SELECT);
+        assertEquals(rows, rows);
+        assertFalse(rows.equals(resultSet));
+        assertEquals(System.identityHashCode(rows), rows.hashCode());
+        assertEquals(resultSet.toString(), rows.toString());
+    }
+
+    @Test
+    void rowsAreRecordedOnceWhenTheResultSetIsExhaustedAndClosed() throws SQLException {
+        ResultSet rows = dataSource.getConnection().prepareStatement(SELECT).executeQuery();
+        while (rows.next()) {
+            // read all rows
+        }
+        rows.close();
+
+        assertEquals(1, meterRegistry.get("jdbc.statement.rows").summary().count());
+        verify(resultSet).close();
+    }
+
+    @Test
+    void driverExceptionsPropagateUnwrapped() throws SQLException {
+        SQLException failure = new SQLException("canceling statement due to statement timeout", "57014");
+        when(statement.executeUpdate()).thenThrow(failure);
+        PreparedStatement prepared = dataSource.getConnection().prepareStatement("UPDATE postgres.postgres_users SET role = ?");
+
+        assertSame(failure, assertThrows(SQLException.class, prepared::executeUpdate));
+        assertEquals(1, meterRegistry.get("jdbc.statements").timer().count());
+    }
+
+    @Test
+    void slowStatementIsStillRecorded() throws SQLException {
+        properties.setSlowStatementThreshold(Duration.ZERO);
+        dataSource = new InstrumentedDataSource(target, "postgres", properties, meterRegistry);
+
+        dataSource.getConnection().createStatement().executeBatch();
+
+        assertEquals(1, meterRegistry.get("jdbc.statements").timer().count());
+    }
+
+    @Test
+    void longSqlIsAbbreviatedInLogs() {
+        assertEquals("(batch)", InstrumentedDataSource.abbreviate(null));
+        assertEquals(SELECT, InstrumentedDataSource.abbreviate(SELECT));
+        assertEquals("x".repeat(300) + "...", InstrumentedDataSource.abbreviate("x".repeat(301)));
+    }
+}
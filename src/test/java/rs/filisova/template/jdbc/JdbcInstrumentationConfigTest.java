@@ -0,0 +1,89 @@
+package rs.filisova.template.jdbc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import rs.filisova.template.repository.PostgresUserSearchRepository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JdbcInstrumentationConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(JdbcInstrumentationConfig.class)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withBean("postgresDataSource", DataSource.class, JdbcInstrumentationConfigTest::dataSource)
+            .withBean("otherDataSource", DataSource.class, () -> mock(DataSource.class))
+            .withUserConfiguration(PostgresJdbcConfig.class)
+            .withBean(PostgresUserSearchRepository.class);
+
+    @Test
+    void datasourcesAndRepositoriesAreInstrumented() {
+        contextRunner.run(context -> {
+            assertInstanceOf(InstrumentedDataSource.class, context.getBean("postgresDataSource"));
+            assertFalse(context.getBean("otherDataSource") instanceof InstrumentedDataSource);
+            assertTrue(context.getBean(FilterRegistrationBean.class).getFilter() instanceof JdbcRequestFilter);
+
+            PostgresUserSearchRepository repository = context.getBean(PostgresUserSearchRepository.class);
+            assertTrue(AopUtils.isAopProxy(repository));
+            repository.searchByName("ivan", 0.3, Duration.ofSeconds(2), 20);
+            context.getBean("postgresJdbcTemplate", JdbcTemplate.class).queryForList("SELECT 1", 1);
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            assertEquals(2, meterRegistry.get("jdbc.statements").tag("datasource", "postgres")
+                    .tag("repository", "postgresUserSearchRepository").tag("method", "searchByName").timer().count());
+            assertEquals(1, meterRegistry.get("jdbc.statements").tag("repository", "none").timer().count());
+        });
+    }
+
+    @Test
+    void instrumentationCanBeDisabled() {
+        contextRunner.withPropertyValues("app.jdbc.instrumentation.enabled=false").run(context -> {
+            assertFalse(context.getBean("postgresDataSource") instanceof InstrumentedDataSource);
+            assertFalse(AopUtils.isAopProxy(context.getBean(PostgresUserSearchRepository.class)));
+        });
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class PostgresJdbcConfig {
+
+        @Bean
+        JdbcTemplate postgresJdbcTemplate(@Qualifier("postgresDataSource") DataSource postgresDataSource) {
+            return new JdbcTemplate(postgresDataSource);
+        }
+    }
+
+    private static DataSource dataSource() {
+        try {
+            DataSource dataSource = mock(DataSource.class);
+            Connection connection = mock(Connection.class);
+            PreparedStatement statement = mock(PreparedStatement.class);
+            when(dataSource.getConnection()).thenReturn(connection);
+            when(connection.prepareStatement(anyString())).thenReturn(statement);
+            when(statement.executeQuery()).thenReturn(mock(ResultSet.class));
+            return dataSource;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
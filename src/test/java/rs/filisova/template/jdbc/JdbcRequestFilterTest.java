@@ -0,0 +1,159 @@
+package rs.filisova.template.jdbc;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import rs.filisova.template.exception.StatementBudgetExceededException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JdbcRequestFilterTest {
+
+    private static final String FIND_ROLE = "SELECT name FROM oracle_users_role WHERE id = ?";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JdbcInstrumentationProperties properties = new JdbcInstrumentationProperties();
+    private InstrumentedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        // One row per query
+        when(statement.executeQuery()).thenAnswer(invocation -> {
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.next()).thenReturn(true, false);
+            return resultSet;
+        });
+        dataSource = new InstrumentedDataSource(target, "oracle", properties, meterRegistry);
+    }
+
+    @Test
+    void requestTotalsArePublishedPerEndpoint() throws Exception {
+        filter().doFilter(request("GET", "/oracle/users/{id}"), new MockHttpServletResponse(), statements(3, false));
+
+        assertEquals(3.0, meterRegistry.get("jdbc.request.statements").tag("datasource", "oracle")
+                .tag("method", "GET").tag("uri", "/oracle/users/{id}").summary().totalAmount());
+        assertEquals(3.0, meterRegistry.get("jdbc.request.rows").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("jdbc.request.time").timer().count());
+        assertTrue(meterRegistry.find("jdbc.request.budget.exceeded").counters().isEmpty());
+        assertNull(JdbcRequestContext.current());
+    }
+
+    @Test
+    void requestWithoutStatementsPublishesNothing() throws Exception {
+        filter().doFilter(request("GET", "/actuator/health"), new MockHttpServletResponse(), (request, response) -> {
+        });
+
+        assertTrue(meterRegistry.find("jdbc.request.statements").summaries().isEmpty());
+    }
+
+    @Test
+    void requestOverTheBudgetIsCountedAndFinishes() throws Exception {
+        properties.getBudget().setMaxStatements(2);
+        JdbcRequestFilter filter = filter();
+
+        filter.doFilter(request("GET", "/oracle/users"), new MockHttpServletResponse(), statements(3, false));
+        filter.doFilter(request("GET", "/oracle/users"), new MockHttpServletResponse(), statements(3, false));
+
+        assertEquals(2.0, meterRegistry.get("jdbc.request.budget.exceeded").tag("uri", "/oracle/users").counter().count());
+    }
+
+    @Test
+    void rejectFailsTheStatementOverTheBudget() {
+        properties.getBudget().setMaxStatements(2);
+        properties.getBudget().setAction(JdbcInstrumentationProperties.Action.REJECT);
+
+        StatementBudgetExceededException failure = assertThrows(StatementBudgetExceededException.class, () ->
+                filter().doFilter(request("GET", "/oracle/users"), new MockHttpServletResponse(), statements(3, false)));
+
+        assertEquals("Request GET /oracle/users exceeded the budget of 2 JDBC statements", failure.getMessage());
+        // The rejected statement is counted, but never reached the driver
+        assertEquals(3.0, meterRegistry.get("jdbc.request.statements").summary().totalAmount());
+        assertEquals(2, meterRegistry.get("jdbc.statements").timer().count());
+    }
+
+    @Test
+    void endpointOverrideReplacesTheDefaultBudget() throws Exception {
+        properties.getBudget().setMaxStatements(2);
+        properties.getBudget().setAction(JdbcInstrumentationProperties.Action.REJECT);
+        properties.getBudget().getEndpoints().put("POST /oracle/users/batch", 0);
+
+        filter().doFilter(request("POST", "/oracle/users/batch"), new MockHttpServletResponse(), statements(3, false));
+
+        assertEquals(3.0, meterRegistry.get("jdbc.request.statements").summary().totalAmount());
+    }
+
+    @Test
+    void unmappedRequestFallsBackToTheDefaultBudget() {
+        properties.getBudget().setMaxStatements(1);
+        properties.getBudget().setAction(JdbcInstrumentationProperties.Action.REJECT);
+
+        StatementBudgetExceededException failure = assertThrows(StatementBudgetExceededException.class, () ->
+                filter().doFilter(request("GET", null), new MockHttpServletResponse(), statements(2, false)));
+
+        assertEquals("Request GET UNKNOWN exceeded the budget of 1 JDBC statements", failure.getMessage());
+    }
+
+    @Test
+    void repeatedStatementIsReportedAsProbableNPlusOne() throws Exception {
+        properties.setRepeatedStatementThreshold(3);
+        JdbcRequestFilter filter = filter();
+
+        filter.doFilter(request("GET", "/oracle/users"), new MockHttpServletResponse(), statements(3, true));
+        filter.doFilter(request("GET", "/oracle/users"), new MockHttpServletResponse(), statements(2, true));
+
+        assertEquals(1.0, meterRegistry.get("jdbc.request.repeated.statements").tag("uri", "/oracle/users").counter().count());
+    }
+
+    private JdbcRequestFilter filter() {
+        return new JdbcRequestFilter(properties, meterRegistry);
+    }
+
+    /**
+     * Runs {@code count} queries, all with the same SQL when {@code same}, and reads their rows.
+     */
+    private FilterChain statements(int count, boolean same) {
+        return (request, response) -> {
+            try (Connection connection = dataSource.getConnection()) {
+                for (int i = 0; i < count; i++) {
+                    try (PreparedStatement statement = connection.prepareStatement(same ? FIND_ROLE : FIND_ROLE + " -- " + i)) {
+                        ResultSet rows = statement.executeQuery();
+                        while (rows.next()) {
+                            // read all rows
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static MockHttpServletRequest request(String method, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/oracle/users");
+        if (pattern != null) {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,69 @@
+package rs.filisova.template.loadtest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every PostgresUserController and OracleUserController endpoint runs exactly the JDBC statements of its
+ * {@link QueryBudgets} entry, at both volumes of {@link QueryBudgetRunner}. Runs on Testcontainers PostgreSQL and
+ * Oracle XE, or on the databases given with -Dloadtest.postgres.url / -Dloadtest.oracle.url
+ * (-Dloadtest.oracle=false leaves Oracle out); skipped when neither Docker nor those databases are available.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIf("databasesAvailable")
+@DirtiesContext
+class QueryBudgetTest {
+
+    private static final LoadTestSettings SETTINGS =
+            LoadTestSettings.fromSystemProperties().withAppDefaults(QueryBudgetRunner.APP_DEFAULTS);
+
+    private static StandIns standIns;
+
+    @Autowired
+    private ApplicationContext application;
+
+    static boolean databasesAvailable() {
+        boolean given = !SETTINGS.postgresUrl().isBlank() && (!SETTINGS.oracle() || !SETTINGS.oracleUrl().isBlank());
+        return given || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    @DynamicPropertySource
+    static void databases(DynamicPropertyRegistry registry) {
+        standIns = new StandIns(SETTINGS);
+        LoadTestRunner.applicationProperties(SETTINGS, standIns).forEach((name, value) -> registry.add(name, () -> value));
+    }
+
+    @AfterAll
+    static void stopDatabases() {
+        if (standIns != null) {
+            standIns.close();
+        }
+    }
+
+    @Test
+    void everyEndpointRunsExactlyItsQueryBudget() throws Exception {
+        List<QueryBudgetRunner.Measurement> measurements = QueryBudgetRunner.measure(application, standIns, SETTINGS);
+
+        assertAll(measurements.stream().map(measurement -> () -> {
+            String call = measurement.operation() + " at " + measurement.rows();
+            assertNull(measurement.problem(), measurement.operation());
+            assertTrue(measurement.status() < 400, call + ": HTTP " + measurement.status());
+            assertEquals(measurement.expected(), measurement.actual(), call + ": JDBC statements by datasource");
+        }));
+    }
+}
@@ -0,0 +1,69 @@
+package rs.filisova.template.logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogSamplingInterceptorTest {
+
+    private final LogSamplingProperties properties = new LogSamplingProperties();
+    private final LogSamplingInterceptor interceptor = new LogSamplingInterceptor(properties);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    void endpointIsTheMappedPattern() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/postgres-users/42");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/postgres-users/{id}");
+
+        assertTrue(interceptor.preHandle(request, response, new Object()));
+
+        assertEquals("GET /postgres-users/{id}", MDC.get(LogSamplingInterceptor.ENDPOINT_KEY));
+        assertNull(MDC.get(LogSamplingInterceptor.SAMPLED_KEY));
+    }
+
+    @Test
+    void endpointWithRateZeroIsSampledOut() {
+        properties.getEndpoints().put("GET /actuator/health", 0.0);
+
+        interceptor.preHandle(new MockHttpServletRequest("GET", "/actuator/health"), response, new Object());
+
+        assertEquals("GET /actuator/health", MDC.get(LogSamplingInterceptor.ENDPOINT_KEY));
+        assertEquals(LogSamplingInterceptor.SAMPLED_OUT, MDC.get(LogSamplingInterceptor.SAMPLED_KEY));
+    }
+
+    @Test
+    void defaultRateAppliesToUnlistedEndpoints() {
+        properties.setDefaultRate(0.0);
+        properties.getEndpoints().put("GET /postgres-users/{id}", 1.0);
+
+        interceptor.preHandle(new MockHttpServletRequest("POST", "/postgres-users"), response, new Object());
+
+        assertEquals(LogSamplingInterceptor.SAMPLED_OUT, MDC.get(LogSamplingInterceptor.SAMPLED_KEY));
+    }
+
+    @Test
+    void decisionIsClearedWhenTheThreadLeavesTheRequest() {
+        properties.setDefaultRate(0.0);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/postgres-users/export");
+
+        interceptor.preHandle(request, response, new Object());
+        interceptor.afterConcurrentHandlingStarted(request, response, new Object());
+        assertNull(MDC.get(LogSamplingInterceptor.ENDPOINT_KEY));
+
+        interceptor.preHandle(request, response, new Object());
+        interceptor.afterCompletion(request, response, new Object(), null);
+        assertNull(MDC.get(LogSamplingInterceptor.SAMPLED_KEY));
+    }
+}
@@ -0,0 +1,41 @@
+package rs.filisova.template.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SampledOutTurboFilterTest {
+
+    private final SampledOutTurboFilter filter = new SampledOutTurboFilter();
+    private final Logger logger = new LoggerContext().getLogger(SampledOutTurboFilterTest.class);
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    void sampledOutRequestKeepsOnlyWarningsAndErrors() {
+        MDC.put(LogSamplingInterceptor.SAMPLED_KEY, LogSamplingInterceptor.SAMPLED_OUT);
+
+        assertEquals(FilterReply.DENY, decide(Level.INFO));
+        assertEquals(FilterReply.DENY, decide(Level.DEBUG));
+        assertEquals(FilterReply.NEUTRAL, decide(Level.WARN));
+        assertEquals(FilterReply.NEUTRAL, decide(Level.ERROR));
+    }
+
+    @Test
+    void sampledInRequestIsNotFiltered() {
+        assertEquals(FilterReply.NEUTRAL, decide(Level.INFO));
+    }
+
+    private FilterReply decide(Level level) {
+        return filter.decide(null, logger, level, "Get postgresUser by ID {}", new Object[]{42L}, null);
+    }
+}
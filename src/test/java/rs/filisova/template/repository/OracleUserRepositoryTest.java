@@ -0,0 +1,161 @@
+package rs.filisova.template.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.OracleContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import rs.filisova.template.entity.OracleUserEntity;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * The read methods of {@link OracleUserRepository} run one statement however many users they return, and leave
+ * role and grant unloaded: mapping and toString/equals of the users must not add a query per user.
+ * Counted with the jdbc.statements meters; statements outside a repository call are tagged repository=none.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "app.jdbc.instrumentation.enabled=true",
+        "app.replication.lag.probe-interval=1h",
+        "app.postgres.changes.purge-interval=1h",
+        "app.postgres.stream.poll-interval=1h",
+        "app.postgres.stream.heartbeat-interval=1h"})
+@Testcontainers(disabledWithoutDocker = true)
+@DirtiesContext
+class OracleUserRepositoryTest {
+
+    private static final int ADDED_USERS = 50;
+
+    private static long users;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Container
+    static final OracleContainer ORACLE = new OracleContainer("gvenzl/oracle-xe:21-slim-faststart");
+
+    @Autowired
+    private OracleUserRepository oracleUserRepository;
+
+    @Autowired
+    @Qualifier("oracleTransactionManager")
+    private PlatformTransactionManager oracleTransactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void databases(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.postgres.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.postgres.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.postgres.password", POSTGRES::getPassword);
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://" + POSTGRES.getHost() + ":"
+                + POSTGRES.getFirstMappedPort() + "/" + POSTGRES.getDatabaseName());
+        registry.add("spring.r2dbc.username", POSTGRES::getUsername);
+        registry.add("spring.r2dbc.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.oracle.url", ORACLE::getJdbcUrl);
+        registry.add("spring.datasource.oracle.username", ORACLE::getUsername);
+        registry.add("spring.datasource.oracle.password", ORACLE::getPassword);
+    }
+
+    // Same script as make setup-oracle, plus enough users that a query per user would show
+    @BeforeAll
+    static void createOracleSchema() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource(ORACLE.getJdbcUrl(), ORACLE.getUsername(), ORACLE.getPassword());
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("oracle-init.sql"));
+        populator.setSeparator("/");
+        populator.execute(dataSource);
+        JdbcTemplate oracle = new JdbcTemplate(dataSource);
+        List<Long> roleIds = oracle.queryForList("SELECT id FROM oracle_users_role ORDER BY id", Long.class);
+        List<Long> grantIds = oracle.queryForList("SELECT id FROM oracle_users_grant ORDER BY id", Long.class);
+        for (int i = 0; i < ADDED_USERS; i++) {
+            oracle.update("INSERT INTO oracle_users (name, sex, role_id, grant_id) VALUES (?, ?, ?, ?)",
+                    "Test User " + i, i % 2 == 0 ? "M" : "F", roleIds.get(i % roleIds.size()), grantIds.get(i % grantIds.size()));
+        }
+        users = oracle.queryForObject("SELECT COUNT(*) FROM oracle_users", Long.class);
+    }
+
+    @Test
+    void findAllByOrderByIdAscRunsOneStatement() {
+        long before = statements("none");
+        long beforeMethod = statements("findAllByOrderByIdAsc");
+
+        List<OracleUserEntity> all = oracleUserRepository.findAllByOrderByIdAsc();
+        all.forEach(OracleUserRepositoryTest::touch);
+
+        assertEquals(users, all.size());
+        assertEquals(1, statements("findAllByOrderByIdAsc") - beforeMethod);
+        assertEquals(0, statements("none") - before, "statements outside the repository call");
+    }
+
+    @Test
+    void findAllByIdRunsOneStatement() {
+        List<Long> ids = oracleUserRepository.findAllByOrderByIdAsc().stream().map(OracleUserEntity::getId).limit(20).toList();
+        long before = statements("none");
+        long beforeMethod = statements("findAllById");
+
+        List<OracleUserEntity> found = oracleUserRepository.findAllById(ids);
+        found.forEach(OracleUserRepositoryTest::touch);
+
+        assertEquals(ids.size(), found.size());
+        assertEquals(1, statements("findAllById") - beforeMethod);
+        assertEquals(0, statements("none") - before, "statements outside the repository call");
+    }
+
+    @Test
+    void streamAllOrderByIdRunsOneStatement() {
+        long before = statements("none");
+        long beforeMethod = statements("streamAllOrderById");
+
+        long streamed = new TransactionTemplate(oracleTransactionManager).execute(status -> {
+            try (Stream<OracleUserEntity> stream = oracleUserRepository.streamAllOrderById()) {
+                return stream.peek(OracleUserRepositoryTest::touch).count();
+            }
+        });
+
+        assertEquals(users, streamed, "streamed users");
+        assertEquals(1, statements("streamAllOrderById") - beforeMethod);
+        assertEquals(0, statements("none") - before, "statements outside the repository call");
+    }
+
+    // What mapping and logging do with a user; none of it may initialize the lazy associations
+    private static void touch(OracleUserEntity user) {
+        assertNotNull(user.getRoleId());
+        assertNotNull(user.getGrantId());
+        assertNotNull(user.toString());
+        assertEquals(user.hashCode(), user.hashCode());
+        assertFalse(Hibernate.isInitialized(user.getRole()), "role of user " + user.getId());
+        assertFalse(Hibernate.isInitialized(user.getGrant()), "grant of user " + user.getId());
+    }
+
+    private long statements(String method) {
+        String repository = method.equals("none") ? "none" : "oracleUserRepository";
+        return meterRegistry.find("jdbc.statements")
+                .tags("datasource", "oracle", "repository", repository, "method", method)
+                .timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+}
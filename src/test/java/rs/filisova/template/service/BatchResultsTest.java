@@ -0,0 +1,41 @@
+package rs.filisova.template.service;
+
+import org.junit.jupiter.api.Test;
+import rs.filisova.template.dto.BatchItemResultDTO;
+
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchResultsTest {
+
+    @Test
+    void createdItemsHaveNoId() {
+        assertEquals(List.of(new BatchItemResultDTO(0, null, BatchItemResultDTO.Status.CREATED),
+                        new BatchItemResultDTO(1, null, BatchItemResultDTO.Status.CREATED)),
+                BatchResults.created(new int[]{1, Statement.SUCCESS_NO_INFO}));
+    }
+
+    @Test
+    void updateCountsMapToUpdatedOrNotFound() {
+        List<BatchItemResultDTO> results = BatchResults.updated(new int[]{1, 0, Statement.SUCCESS_NO_INFO}, List.of(5L, 6L, 7L));
+
+        assertEquals(List.of(new BatchItemResultDTO(0, 5L, BatchItemResultDTO.Status.UPDATED),
+                new BatchItemResultDTO(1, 6L, BatchItemResultDTO.Status.NOT_FOUND),
+                new BatchItemResultDTO(2, 7L, BatchItemResultDTO.Status.UPDATED)), results);
+    }
+
+    @Test
+    void oversizedBatchesAndMissingIdsAreRejected() {
+        BatchResults.checkSize(List.of(1, 2), 2);
+        BatchResults.checkIds(List.of(1L, 2L));
+
+        assertEquals("Batch contains 3 items, maximum is 2",
+                assertThrows(IllegalArgumentException.class, () -> BatchResults.checkSize(List.of(1, 2, 3), 2)).getMessage());
+        assertEquals("Batch item 1 has no id",
+                assertThrows(IllegalArgumentException.class, () -> BatchResults.checkIds(Arrays.asList(1L, null))).getMessage());
+    }
+}
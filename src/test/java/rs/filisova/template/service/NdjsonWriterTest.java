@@ -0,0 +1,49 @@
+package rs.filisova.template.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NdjsonWriterTest {
+
+    private final NdjsonWriter writer = new NdjsonWriter(new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+    @Test
+    void eachValueIsWrittenOnItsOwnLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = writer.write(Stream.of(Map.of("id", 1), Map.of("birthDate", LocalDate.of(1990, 5, 15))), out);
+
+        assertEquals(2, count);
+        assertEquals("{\"id\":1}\n{\"birthDate\":\"1990-05-15\"}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void largeStreamsAreWrittenCompletely() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = writer.write(IntStream.range(0, 1201).boxed(), out);
+
+        assertEquals(1201, count);
+        assertEquals(1201, out.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void emptyStreamWritesNothing() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(0, writer.write(Stream.empty(), out));
+        assertEquals(0, out.size());
+    }
+}
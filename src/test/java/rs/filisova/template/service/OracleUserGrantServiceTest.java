@@ -0,0 +1,65 @@
+package rs.filisova.template.service;
+
+import org.junit.jupiter.api.Test;
+import rs.filisova.template.config.OracleBatchProperties;
+import rs.filisova.template.dto.BatchItemResultDTO;
+import rs.filisova.template.entity.OracleUserGrantEntity;
+import rs.filisova.template.exception.OracleUserGrantNotFoundException;
+import rs.filisova.template.repository.OracleBatchRepository;
+import rs.filisova.template.repository.OracleUserGrantRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OracleUserGrantServiceTest {
+
+    private final OracleUserGrantRepository repository = mock(OracleUserGrantRepository.class);
+    @SuppressWarnings("unchecked")
+    private final ReferenceDataCache<OracleUserGrantEntity> cache = mock(ReferenceDataCache.class);
+    private final OracleBatchRepository batchRepository = mock(OracleBatchRepository.class);
+    private final OracleUserGrantService service =
+            new OracleUserGrantService(repository, cache, batchRepository, new OracleBatchProperties());
+
+    @Test
+    void readsAreServedByTheCache() {
+        OracleUserGrantEntity grant = new OracleUserGrantEntity();
+        when(cache.getAll()).thenReturn(List.of(grant));
+        when(cache.getAllVersion()).thenReturn("v1");
+        when(cache.get(1L)).thenReturn(Optional.of(grant));
+        when(cache.get(2L)).thenReturn(Optional.empty());
+
+        assertEquals(List.of(grant), service.getAllGrants());
+        assertEquals("v1", service.getAllGrantsVersion());
+        assertEquals(grant, service.getGrantById(1L));
+        assertThrows(OracleUserGrantNotFoundException.class, () -> service.getGrantById(2L));
+    }
+
+    @Test
+    void everyWriteInvalidatesTheCache() {
+        OracleUserGrantEntity grant = new OracleUserGrantEntity();
+        grant.setId(3L);
+        List<OracleUserGrantEntity> grants = List.of(grant);
+        when(batchRepository.insertGrants(grants, 500)).thenReturn(new int[]{1});
+        when(batchRepository.updateGrants(grants, 500)).thenReturn(new int[]{1});
+
+        service.createGrant("read", "Read only");
+        service.updateGrant(3L, "write", "Read and write");
+        service.deleteGrant(3L);
+        service.createGrants(grants);
+        List<BatchItemResultDTO> updated = service.updateGrants(grants);
+
+        assertEquals(BatchItemResultDTO.Status.UPDATED, updated.get(0).getStatus());
+        verify(repository).insertGrant("read", "Read only");
+        verify(repository).updateGrant(3L, "write", "Read and write");
+        verify(repository).deleteById(3L);
+        verify(cache, times(3)).invalidateAllAfterCommit();
+        verify(cache, times(2)).invalidateAfterCommit(3L);
+    }
+}
@@ -0,0 +1,65 @@
+package rs.filisova.template.service;
+
+import org.junit.jupiter.api.Test;
+import rs.filisova.template.config.OracleBatchProperties;
+import rs.filisova.template.dto.BatchItemResultDTO;
+import rs.filisova.template.entity.OracleUserRoleEntity;
+import rs.filisova.template.exception.OracleUserRoleNotFoundException;
+import rs.filisova.template.repository.OracleBatchRepository;
+import rs.filisova.template.repository.OracleUserRoleRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OracleUserRoleServiceTest {
+
+    private final OracleUserRoleRepository repository = mock(OracleUserRoleRepository.class);
+    @SuppressWarnings("unchecked")
+    private final ReferenceDataCache<OracleUserRoleEntity> cache = mock(ReferenceDataCache.class);
+    private final OracleBatchRepository batchRepository = mock(OracleBatchRepository.class);
+    private final OracleUserRoleService service =
+            new OracleUserRoleService(repository, cache, batchRepository, new OracleBatchProperties());
+
+    @Test
+    void readsAreServedByTheCache() {
+        OracleUserRoleEntity role = new OracleUserRoleEntity();
+        when(cache.getAll()).thenReturn(List.of(role));
+        when(cache.getAllVersion()).thenReturn("v1");
+        when(cache.get(1L)).thenReturn(Optional.of(role));
+        when(cache.get(2L)).thenReturn(Optional.empty());
+
+        assertEquals(List.of(role), service.getAllRoles());
+        assertEquals("v1", service.getAllRolesVersion());
+        assertEquals(role, service.getRoleById(1L));
+        assertThrows(OracleUserRoleNotFoundException.class, () -> service.getRoleById(2L));
+    }
+
+    @Test
+    void everyWriteInvalidatesTheCache() {
+        OracleUserRoleEntity role = new OracleUserRoleEntity();
+        role.setId(3L);
+        List<OracleUserRoleEntity> roles = List.of(role);
+        when(batchRepository.insertRoles(roles, 500)).thenReturn(new int[]{1});
+        when(batchRepository.updateRoles(roles, 500)).thenReturn(new int[]{1});
+
+        service.createRole("admin", "Administrator");
+        service.updateRole(3L, "auditor", "Read-only access");
+        service.deleteRole(3L);
+        service.createRoles(roles);
+        List<BatchItemResultDTO> updated = service.updateRoles(roles);
+
+        assertEquals(BatchItemResultDTO.Status.UPDATED, updated.get(0).getStatus());
+        verify(repository).insertRole("admin", "Administrator");
+        verify(repository).updateRole(3L, "auditor", "Read-only access");
+        verify(repository).deleteById(3L);
+        verify(cache, times(3)).invalidateAllAfterCommit();
+        verify(cache, times(2)).invalidateAfterCommit(3L);
+    }
+}
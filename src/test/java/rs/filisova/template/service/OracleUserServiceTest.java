@@ -0,0 +1,175 @@
+package rs.filisova.template.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import rs.filisova.template.coalescing.LookupCoalescer;
+import rs.filisova.template.config.OracleBatchProperties;
+import rs.filisova.template.dto.BatchItemResultDTO;
+import rs.filisova.template.dto.OracleUserDTO;
+import rs.filisova.template.dto.OracleUserGrantDTO;
+import rs.filisova.template.dto.OracleUserRoleDTO;
+import rs.filisova.template.entity.OracleUserEntity;
+import rs.filisova.template.entity.OracleUserGrantEntity;
+import rs.filisova.template.entity.OracleUserRoleEntity;
+import rs.filisova.template.exception.OracleUserNotFoundException;
+import rs.filisova.template.repository.OracleBatchRepository;
+import rs.filisova.template.repository.OracleUserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OracleUserServiceTest {
+
+    private final OracleUserRepository repository = mock(OracleUserRepository.class);
+    private final OracleBatchRepository batchRepository = mock(OracleBatchRepository.class);
+    private final OracleBatchProperties batchProperties = new OracleBatchProperties();
+    @SuppressWarnings("unchecked")
+    private final ReferenceDataCache<OracleUserRoleEntity> roleCache = mock(ReferenceDataCache.class);
+    @SuppressWarnings("unchecked")
+    private final ReferenceDataCache<OracleUserGrantEntity> grantCache = mock(ReferenceDataCache.class);
+    @SuppressWarnings("unchecked")
+    private final LookupCoalescer<Long, OracleUserEntity> lookups = mock(LookupCoalescer.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final OracleUserService service = new OracleUserService(repository, batchRepository, batchProperties,
+            new NdjsonWriter(new ObjectMapper().findAndRegisterModules()), roleCache, grantCache, lookups);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        OracleUserRoleEntity role = new OracleUserRoleEntity();
+        role.setId(10L);
+        role.setName("admin");
+        role.setDescribe("Administrator");
+        OracleUserGrantEntity grant = new OracleUserGrantEntity();
+        grant.setId(20L);
+        grant.setName("read");
+        grant.setDescribe("Read only");
+        when(roleCache.get(anyLong())).thenReturn(Optional.empty());
+        when(roleCache.get(10L)).thenReturn(Optional.of(role));
+        when(grantCache.get(20L)).thenReturn(Optional.of(grant));
+    }
+
+    @Test
+    void roleAndGrantComeFromTheReferenceCaches() {
+        when(lookups.get(1L)).thenReturn(user(1L, 10L, 20L));
+
+        OracleUserDTO dto = service.getUserById(1L);
+
+        assertEquals("user-1", dto.getName());
+        assertEquals("admin", dto.getRole().getName());
+        assertEquals("Administrator", dto.getRole().getDescription());
+        assertEquals("read", dto.getGrant().getName());
+        assertEquals("Read only", dto.getGrant().getDescription());
+    }
+
+    @Test
+    void referencesMissingFromTheCacheAreLeftEmpty() {
+        when(repository.findAllByOrderByIdAsc()).thenReturn(List.of(user(1L, 11L, null), user(2L, null, null)));
+
+        List<OracleUserDTO> users = service.getAllUsers();
+
+        assertEquals(2, users.size());
+        assertNull(users.get(0).getRole());
+        assertNull(users.get(0).getGrant());
+        verifyNoInteractions(grantCache);
+    }
+
+    @Test
+    void unknownUserIsNotFound() {
+        assertThrows(OracleUserNotFoundException.class, () -> service.getUserById(404L));
+    }
+
+    @Test
+    void usersByIdsKeepTheRequestOrder() {
+        when(repository.findAllById(new LinkedHashSet<>(List.of(3L, 1L, 2L))))
+                .thenReturn(List.of(user(1L, null, null), user(3L, null, null)));
+
+        List<OracleUserDTO> users = service.getUsersByIds(List.of(3L, 1L, 3L, 2L));
+
+        assertEquals(List.of(3L, 1L), users.stream().map(OracleUserDTO::getId).toList());
+        assertThrows(IllegalArgumentException.class, () -> service.getUsersByIds(List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getUsersByIds(LongStream.rangeClosed(1, 1001).boxed().toList()));
+    }
+
+    @Test
+    void exportDetachesEachWrittenUser() throws Exception {
+        OracleUserEntity first = user(1L, 10L, null);
+        OracleUserEntity second = user(2L, null, null);
+        when(repository.streamAllOrderById()).thenReturn(Stream.of(first, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(2, service.exportUsers(out));
+
+        assertEquals(2, out.toString(StandardCharsets.UTF_8).lines().count());
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    void writesPassTheReferenceIds() {
+        OracleUserDTO dto = new OracleUserDTO();
+        dto.setName("Ivan");
+        dto.setSex("M");
+        OracleUserRoleDTO role = new OracleUserRoleDTO();
+        role.setId(10L);
+        dto.setRole(role);
+
+        service.createUser(dto);
+        OracleUserGrantDTO grant = new OracleUserGrantDTO();
+        grant.setId(20L);
+        dto.setGrant(grant);
+        dto.setRole(null);
+        service.updateUser(5L, dto);
+        service.deleteUser(5L);
+
+        verify(repository).insertUser("Ivan", null, "M", 10L, null);
+        verify(repository).updateUser(5L, "Ivan", null, "M", null, 20L);
+        verify(repository).deleteById(5L);
+    }
+
+    @Test
+    void batchesAreReportedPerItem() {
+        OracleUserDTO known = new OracleUserDTO();
+        known.setId(1L);
+        OracleUserDTO unknown = new OracleUserDTO();
+        unknown.setId(2L);
+        List<OracleUserDTO> users = List.of(known, unknown);
+        when(batchRepository.insertUsers(users, 500)).thenReturn(new int[]{1, 1});
+        when(batchRepository.updateUsers(users, 500)).thenReturn(new int[]{Statement.SUCCESS_NO_INFO, 0});
+
+        assertEquals(2, service.createUsers(users).size());
+        assertEquals(List.of(BatchItemResultDTO.Status.UPDATED, BatchItemResultDTO.Status.NOT_FOUND),
+                service.updateUsers(users).stream().map(BatchItemResultDTO::getStatus).toList());
+
+        batchProperties.setMaxItems(1);
+        assertThrows(IllegalArgumentException.class, () -> service.createUsers(users));
+    }
+
+    private static OracleUserEntity user(Long id, Long roleId, Long grantId) {
+        OracleUserEntity user = new OracleUserEntity();
+        user.setId(id);
+        user.setName("user-" + id);
+        user.setRoleId(roleId);
+        user.setGrantId(grantId);
+        return user;
+    }
+}
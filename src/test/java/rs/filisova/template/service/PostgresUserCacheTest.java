@@ -0,0 +1,174 @@
+package rs.filisova.template.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.filisova.template.changes.PostgresUserChangeListener;
+import rs.filisova.template.changes.PostgresUserChangedEvent;
+import rs.filisova.template.config.PostgresUserCacheProperties;
+import rs.filisova.template.dto.PostgresUserDTO;
+import rs.filisova.template.exception.PostgresUserNotFoundException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PostgresUserCacheTest {
+
+    private final PostgresUserChangeListener changeListener = mock(PostgresUserChangeListener.class);
+    private final PostgresUserCacheProperties properties = new PostgresUserCacheProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong epoch = new AtomicLong(1);
+    private final List<Object> loads = new CopyOnWriteArrayList<>();
+    private final Map<Long, Long> versions = new HashMap<>(Map.of(1L, 3L, 2L, 5L));
+    private PostgresUserCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(changeListener.isConnected()).thenReturn(true);
+        when(changeListener.getEpoch()).thenAnswer(invocation -> epoch.get());
+        cache = new PostgresUserCache(changeListener, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rowIsLoadedOnceUntilItChanges() {
+        assertEquals(3, cache.get(1L, this::load).rowVersion());
+        versions.put(1L, 4L);
+        assertEquals(3, cache.get(1L, this::load).rowVersion());
+
+        cache.onPostgresUserChanged(new PostgresUserChangedEvent(1L, System.currentTimeMillis()));
+
+        assertEquals(4, cache.get(1L, this::load).rowVersion());
+        assertEquals(List.of(1L, 1L), loads);
+        assertEquals(1, meterRegistry.get("cache.invalidation.latency").timer().count());
+    }
+
+    @Test
+    void cacheIsBypassedWhileTheListenerIsDisconnected() {
+        when(changeListener.isConnected()).thenReturn(false);
+
+        cache.get(1L, this::load);
+        cache.get(1L, this::load);
+        cache.getAll(Set.of(1L), this::loadAll);
+
+        assertEquals(List.of(1L, 1L, Set.of(1L)), loads);
+    }
+
+    @Test
+    void disabledCacheLoadsEveryRead() {
+        properties.setEnabled(false);
+
+        cache.get(1L, this::load);
+        cache.get(1L, this::load);
+
+        assertEquals(List.of(1L, 1L), loads);
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        assertThrows(PostgresUserNotFoundException.class, () -> cache.get(9L, this::load));
+        versions.put(9L, 1L);
+
+        assertEquals(1, cache.get(9L, this::load).rowVersion());
+        assertEquals(List.of(9L, 9L), loads);
+    }
+
+    @Test
+    void rowLoadedAcrossAReconnectIsNotCached() {
+        Function<Long, PostgresUserCache.Entry> reconnectingLoad = id -> {
+            epoch.incrementAndGet();
+            return load(id);
+        };
+
+        cache.get(1L, reconnectingLoad);
+        cache.get(1L, this::load);
+        cache.getAll(Set.of(2L), ids -> {
+            epoch.incrementAndGet();
+            return loadAll(ids);
+        });
+        cache.getAll(Set.of(2L), this::loadAll);
+
+        assertEquals(List.of(1L, 1L, Set.of(2L), Set.of(2L)), loads);
+    }
+
+    @Test
+    void bulkReadLoadsOnlyTheMissingRows() {
+        cache.get(1L, this::load);
+
+        Map<Long, PostgresUserCache.Entry> entries = cache.getAll(Set.of(1L, 2L, 7L), this::loadAll);
+
+        assertEquals(Set.of(1L, 2L), entries.keySet());
+        assertEquals(List.of(1L, Set.of(2L, 7L)), loads);
+        assertEquals(5, cache.get(2L, this::load).rowVersion());
+    }
+
+    @Test
+    void flushDropsEveryRow() {
+        cache.get(1L, this::load);
+        cache.get(2L, this::load);
+
+        cache.onPostgresUserChanged(PostgresUserChangedEvent.flush(0));
+        cache.get(1L, this::load);
+        cache.get(2L, this::load);
+
+        assertEquals(List.of(1L, 2L, 1L, 2L), loads);
+        assertEquals(0, meterRegistry.get("cache.invalidation.latency").timer().count());
+    }
+
+    @Test
+    void localWriteDropsItsRowAfterCommit() {
+        cache.get(1L, this::load);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidateAfterCommit(1L);
+        cache.get(1L, this::load);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+        cache.get(1L, this::load);
+        cache.invalidateAfterCommit(1L);
+        cache.get(1L, this::load);
+
+        assertEquals(List.of(1L, 1L, 1L), loads);
+    }
+
+    private PostgresUserCache.Entry load(Long id) {
+        loads.add(id);
+        Long version = versions.get(id);
+        if (version == null) {
+            throw new PostgresUserNotFoundException(id);
+        }
+        return entry(id, version);
+    }
+
+    private Map<Long, PostgresUserCache.Entry> loadAll(Set<Long> ids) {
+        loads.add(ids);
+        Map<Long, PostgresUserCache.Entry> entries = new HashMap<>();
+        ids.stream().filter(versions::containsKey).forEach(id -> entries.put(id, entry(id, versions.get(id))));
+        return entries;
+    }
+
+    private static PostgresUserCache.Entry entry(Long id, long rowVersion) {
+        PostgresUserDTO user = new PostgresUserDTO();
+        user.setId(id);
+        return new PostgresUserCache.Entry(user, rowVersion);
+    }
+}
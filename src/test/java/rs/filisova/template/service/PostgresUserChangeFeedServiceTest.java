@@ -0,0 +1,103 @@
+package rs.filisova.template.service;
+
+import org.junit.jupiter.api.Test;
+import rs.filisova.template.config.PostgresUserChangeFeedProperties;
+import rs.filisova.template.dto.PostgresUserChangeDTO;
+import rs.filisova.template.dto.PostgresUserChangeFeedDTO;
+import rs.filisova.template.exception.ChangeTokenExpiredException;
+import rs.filisova.template.repository.PostgresUserChangeFeedRepository;
+import rs.filisova.template.repository.PostgresUserChangeFeedRepository.ChangeRow;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostgresUserChangeFeedServiceTest {
+
+    private final PostgresUserChangeFeedRepository repository = mock(PostgresUserChangeFeedRepository.class);
+    private final PostgresUserChangeFeedProperties properties = new PostgresUserChangeFeedProperties();
+    private final PostgresUserChangeFeedService service = new PostgresUserChangeFeedService(repository, properties);
+
+    @Test
+    void firstPageStartsAtTheBeginningAndContinuesAfterItsLastChange() {
+        when(repository.findChangesAfter(0, 0, 3)).thenReturn(List.of(change(100, 1), change(100, 2), change(101, 1)));
+
+        PostgresUserChangeFeedDTO page = service.getChanges(null, 2);
+
+        assertTrue(page.isHasMore());
+        assertEquals(List.of(1L, 2L), page.getChanges().stream().map(PostgresUserChangeDTO::getId).toList());
+        PostgresUserCursor.Change next = PostgresUserCursor.decodeChange(page.getNextToken());
+        assertEquals(100, next.xid());
+        assertEquals(2, next.id());
+    }
+
+    @Test
+    void tokenKeepsItsIssueTimeUntilTheClientHasCaughtUp() {
+        long issuedAt = System.currentTimeMillis() - Duration.ofDays(1).toMillis();
+        String since = PostgresUserCursor.encode(new PostgresUserCursor.Change(100, 2, issuedAt));
+        when(repository.findChangesAfter(100, 2, 2)).thenReturn(List.of(change(101, 1), change(102, 5)));
+        when(repository.findChangesAfter(101, 1, 2)).thenReturn(List.of(change(102, 5)));
+
+        PostgresUserChangeFeedDTO behind = service.getChanges(since, 1);
+        assertEquals(issuedAt, PostgresUserCursor.decodeChange(behind.getNextToken()).issuedAtMillis());
+
+        PostgresUserChangeFeedDTO caughtUp = service.getChanges(behind.getNextToken(), 1);
+        assertFalse(caughtUp.isHasMore());
+        PostgresUserCursor.Change next = PostgresUserCursor.decodeChange(caughtUp.getNextToken());
+        assertEquals(new PostgresUserCursor.Change(102, 5, next.issuedAtMillis()), next);
+        assertTrue(next.issuedAtMillis() > issuedAt);
+    }
+
+    @Test
+    void emptyPageKeepsThePosition() {
+        String since = PostgresUserCursor.encode(new PostgresUserCursor.Change(100, 2, System.currentTimeMillis()));
+        when(repository.findChangesAfter(100, 2, 501)).thenReturn(List.of());
+
+        PostgresUserChangeFeedDTO page = service.getChanges(since, null);
+
+        PostgresUserCursor.Change next = PostgresUserCursor.decodeChange(page.getNextToken());
+        assertEquals(100, next.xid());
+        assertEquals(2, next.id());
+        assertEquals(List.of(), page.getChanges());
+    }
+
+    @Test
+    void tokenOlderThanTheTombstoneRetentionIsExpired() {
+        long issuedAt = System.currentTimeMillis() - properties.getTombstoneRetention().toMillis() - 1000;
+        String since = PostgresUserCursor.encode(new PostgresUserCursor.Change(100, 2, issuedAt));
+
+        assertThrows(ChangeTokenExpiredException.class, () -> service.getChanges(since, null));
+    }
+
+    @Test
+    void invalidSizeAndTokenAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.getChanges(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.getChanges(null, properties.getMaxSize() + 1));
+        assertThrows(IllegalArgumentException.class, () -> service.getChanges("garbage", null));
+    }
+
+    @Test
+    void purgeRemovesTombstonesPastTheRetention() {
+        when(repository.purgeTombstones(any())).thenReturn(3, 0);
+
+        service.purgeTombstones();
+        service.purgeTombstones();
+
+        verify(repository, times(2)).purgeTombstones(argThat(cutoff -> cutoff.isBefore(LocalDateTime.now().minusDays(29))));
+    }
+
+    private static ChangeRow change(long xid, long id) {
+        return new ChangeRow(xid, new PostgresUserChangeDTO(id, PostgresUserChangeDTO.Operation.UPSERT, null, LocalDateTime.now()));
+    }
+}
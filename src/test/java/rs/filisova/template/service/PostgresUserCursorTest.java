@@ -0,0 +1,77 @@
+package rs.filisova.template.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PostgresUserCursorTest {
+
+    @Test
+    void idCursorRoundTrips() {
+        String cursor = PostgresUserCursor.encode(100L);
+
+        assertEquals("aWQ6MTAw", cursor);
+        assertEquals(100L, PostgresUserCursor.decode(cursor));
+    }
+
+    @Test
+    void keysetCursorRoundTripsValuesWithSeparators() {
+        PostgresUserCursor.Keyset keyset = new PostgresUserCursor.Keyset("name", true, "Petrov|Vodkin", 42L);
+
+        String cursor = PostgresUserCursor.encode(keyset);
+
+        assertFalse(cursor.contains("="));
+        assertEquals(keyset, PostgresUserCursor.decodeKeyset(cursor));
+    }
+
+    @Test
+    void keysetCursorKeepsNullAndEmptySortValuesApart() {
+        PostgresUserCursor.Keyset nullValue = new PostgresUserCursor.Keyset("birthDate", false, null, 7L);
+        PostgresUserCursor.Keyset emptyValue = new PostgresUserCursor.Keyset("gender", false, "", 7L);
+
+        assertEquals(nullValue, PostgresUserCursor.decodeKeyset(PostgresUserCursor.encode(nullValue)));
+        assertEquals(emptyValue, PostgresUserCursor.decodeKeyset(PostgresUserCursor.encode(emptyValue)));
+    }
+
+    @Test
+    void changeTokenRoundTrips() {
+        PostgresUserCursor.Change change = new PostgresUserCursor.Change(750_123L, 42L, 1760771400000L);
+
+        assertEquals(change, PostgresUserCursor.decodeChange(PostgresUserCursor.encode(change)));
+    }
+
+    @Test
+    void cursorsOfOneKindAreRejectedAsAnother() {
+        String idCursor = PostgresUserCursor.encode(100L);
+        String keysetCursor = PostgresUserCursor.encode(new PostgresUserCursor.Keyset("name", false, "Ivan", 1L));
+        String changeToken = PostgresUserCursor.encode(new PostgresUserCursor.Change(1L, 1L, 1L));
+
+        assertThrows(IllegalArgumentException.class, () -> PostgresUserCursor.decode(keysetCursor));
+        assertThrows(IllegalArgumentException.class, () -> PostgresUserCursor.decodeKeyset(idCursor));
+        assertThrows(IllegalArgumentException.class, () -> PostgresUserCursor.decodeKeyset(changeToken));
+        assertThrows(IllegalArgumentException.class, () -> PostgresUserCursor.decodeChange(keysetCursor));
+    }
+
+    @Test
+    void tamperedCursorsAreRejected() {
+        assertEquals("Invalid cursor: not base64!", assertThrows(IllegalArgumentException.class,
+                () -> PostgresUserCursor.decode("not base64!")).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> PostgresUserCursor.decode(encode("id:abc")));
+        assertThrows(IllegalArgumentException.class, () -> PostgresUserCursor.decodeKeyset(encode("k|name|up|1|vIvan")));
+        assertThrows(IllegalArgumentException.class, () -> PostgresUserCursor.decodeKeyset(encode("k|name|asc|1|xIvan")));
+        assertThrows(IllegalArgumentException.class, () -> PostgresUserCursor.decodeKeyset(encode("k|name|asc|one|vIvan")));
+        assertThrows(IllegalArgumentException.class, () -> PostgresUserCursor.decodeKeyset(encode("k|name|asc")));
+        assertEquals("Invalid change token: " + encode("c|1|2"), assertThrows(IllegalArgumentException.class,
+                () -> PostgresUserCursor.decodeChange(encode("c|1|2"))).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> PostgresUserCursor.decodeChange(encode("c|1|2|soon")));
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,139 @@
+package rs.filisova.template.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.hibernate.validator.HibernateValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.postgresql.copy.PGCopyOutputStream;
+import rs.filisova.template.dto.PostgresUserIngestResultDTO;
+import rs.filisova.template.repository.PostgresUserCopyRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PostgresUserIngestServiceTest {
+
+    private final PostgresUserCopyRepository repository = mock(PostgresUserCopyRepository.class);
+    private final PGCopyOutputStream copy = mock(PGCopyOutputStream.class);
+    private final ByteArrayOutputStream copied = new ByteArrayOutputStream();
+    // Fixed locale: the asserted constraint messages are the English ones
+    private final ValidatorFactory validatorFactory = Validation.byProvider(HibernateValidator.class).configure()
+            .defaultLocale(Locale.ENGLISH)
+            .buildValidatorFactory();
+    private final PostgresUserIngestService service = new PostgresUserIngestService(repository,
+            new ObjectMapper().findAndRegisterModules(), validatorFactory.getValidator());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(repository.openStagingCopy()).thenReturn(copy);
+        doAnswer(invocation -> {
+            copied.write(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(copy).write(any(byte[].class), anyInt(), anyInt());
+        when(repository.mergeStaging()).thenAnswer(invocation -> (int) copiedRows().count());
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void csvColumnsAreMatchedByHeaderName() throws Exception {
+        PostgresUserIngestResultDTO result = ingest(PostgresUserIngestService.Format.CSV, """
+                role,birth_date,id,name,grantField
+                admin,1990-05-15,1,"Petrov, Ivan",
+                user,,2,"Anna ""Ann"" Ivanova",read
+                """);
+
+        assertEquals(2, result.getLinesRead());
+        assertEquals(2, result.getRowsStaged());
+        assertEquals(2, result.getRowsMerged());
+        assertEquals(List.of(
+                "2,1,\"Petrov, Ivan\",\"1990-05-15\",,\"admin\",",
+                "3,2,\"Anna \"\"Ann\"\" Ivanova\",,,\"user\",\"read\""), copiedRows().toList());
+        InOrder order = inOrder(repository, copy);
+        order.verify(repository).createStagingTable();
+        order.verify(copy).close();
+        order.verify(repository).mergeStaging();
+    }
+
+    @Test
+    void invalidLinesAreReportedAndSkipped() throws Exception {
+        PostgresUserIngestResultDTO result = ingest(PostgresUserIngestService.Format.CSV, """
+                id,name,birthDate,gender,role
+
+                x,Ivan,,,user
+                2,Ivan,15.05.1990,,user
+                3,Iv,,,
+                4,Ivan,,unspecified,user
+                5,"Ivan,,,user
+                ,Ivan,,,user
+                6,Ivan,1990-05-15,male,user
+                """);
+
+        assertEquals(7, result.getLinesRead());
+        assertEquals(1, result.getRowsStaged());
+        assertEquals(6, result.getErrorCount());
+        assertEquals(List.of(
+                new PostgresUserIngestResultDTO.LineError(3, "id: not a number 'x'"),
+                new PostgresUserIngestResultDTO.LineError(4, "birthDate: not an ISO date '15.05.1990'"),
+                new PostgresUserIngestResultDTO.LineError(5, "name: size must be between 3 and 100, role: must not be blank"),
+                new PostgresUserIngestResultDTO.LineError(6, "gender: size must be at most 10"),
+                new PostgresUserIngestResultDTO.LineError(7, "Unterminated quoted field"),
+                new PostgresUserIngestResultDTO.LineError(8, "id: must not be null")), result.getErrors());
+        assertEquals(List.of("9,6,\"Ivan\",\"1990-05-15\",\"male\",\"user\","), copiedRows().toList());
+    }
+
+    @Test
+    void ndjsonLinesAreParsedAsDTOs() throws Exception {
+        PostgresUserIngestResultDTO result = ingest(PostgresUserIngestService.Format.NDJSON, """
+                {"id":1,"name":"Ivan","birthDate":"1990-05-15","role":"admin"}
+                {"id":2,"name":
+                """);
+
+        assertEquals(2, result.getLinesRead());
+        assertEquals(1, result.getRowsStaged());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertEquals(List.of("1,1,\"Ivan\",\"1990-05-15\",,\"admin\","), copiedRows().toList());
+    }
+
+    @Test
+    void onlyTheFirstHundredErrorsAreListed() throws Exception {
+        PostgresUserIngestResultDTO result = ingest(PostgresUserIngestService.Format.NDJSON, "{}\n".repeat(150));
+
+        assertEquals(150, result.getErrorCount());
+        assertEquals(100, result.getErrors().size());
+    }
+
+    @Test
+    void csvWithoutAnIdColumnIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ingest(PostgresUserIngestService.Format.CSV, "name,role\nIvan,user\n"));
+    }
+
+    private PostgresUserIngestResultDTO ingest(PostgresUserIngestService.Format format, String body) throws Exception {
+        return service.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    private Stream<String> copiedRows() {
+        return copied.toString(StandardCharsets.UTF_8).lines();
+    }
+}
@@ -0,0 +1,99 @@
+package rs.filisova.template.service;
+
+import org.junit.jupiter.api.Test;
+import rs.filisova.template.dto.CursorPageDTO;
+import rs.filisova.template.dto.PostgresUserFilter;
+import rs.filisova.template.repository.PostgresUserField;
+import rs.filisova.template.repository.PostgresUserQueryRepository;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class PostgresUserQueryServiceTest {
+
+    private final PostgresUserQueryRepository repository = mock(PostgresUserQueryRepository.class);
+    private final PostgresUserQueryService service = new PostgresUserQueryService(repository);
+    private final PostgresUserFilter filter = new PostgresUserFilter();
+
+    @Test
+    void fullPageIssuesACursorOnTheLastSortValue() {
+        EnumSet<PostgresUserField> fields = EnumSet.of(PostgresUserField.ID, PostgresUserField.BIRTH_DATE);
+        when(repository.find(eq(filter), eq(fields), eq(PostgresUserField.BIRTH_DATE), eq(true), isNull(), eq(3)))
+                .thenReturn(List.of(row(1L, "1990-01-03"), row(2L, "1990-01-02"), row(3L, "1990-01-01")));
+
+        CursorPageDTO<Map<String, Object>> page = service.query(filter, List.of(" birthDate "), "birthDate", "DESC", null, 2);
+
+        assertEquals(List.of(Map.of("id", 1L, "birthDate", LocalDate.parse("1990-01-03")),
+                Map.of("id", 2L, "birthDate", LocalDate.parse("1990-01-02"))), page.getItems());
+        PostgresUserCursor.Keyset next = PostgresUserCursor.decodeKeyset(page.getNextCursor());
+        assertEquals(new PostgresUserCursor.Keyset("birthDate", true, "1990-01-02", 2L), next);
+    }
+
+    @Test
+    void cursorContinuesAfterItsSortValueAndId() {
+        String cursor = PostgresUserCursor.encode(new PostgresUserCursor.Keyset("birthDate", false, "1990-01-02", 2L));
+        PostgresUserQueryRepository.After after = new PostgresUserQueryRepository.After(LocalDate.parse("1990-01-02"), 2L);
+        when(repository.find(eq(filter), eq(EnumSet.allOf(PostgresUserField.class)), eq(PostgresUserField.BIRTH_DATE),
+                eq(false), eq(after), eq(11))).thenReturn(List.of(row(3L, "1990-01-01")));
+
+        CursorPageDTO<Map<String, Object>> page = service.query(filter, null, "birthDate", "asc", cursor, 10);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void cursorOfAnotherSortIsRejected() {
+        String byName = PostgresUserCursor.encode(new PostgresUserCursor.Keyset("name", false, "Ivan", 2L));
+        String descending = PostgresUserCursor.encode(new PostgresUserCursor.Keyset("id", true, "2", 2L));
+        String badValue = PostgresUserCursor.encode(new PostgresUserCursor.Keyset("id", false, "two", 2L));
+
+        assertThrows(IllegalArgumentException.class, () -> service.query(filter, null, "id", "asc", byName, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.query(filter, null, "id", "asc", descending, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.query(filter, null, "id", "asc", badValue, 10));
+    }
+
+    @Test
+    void invalidParametersAreRejectedBeforeTheQuery() {
+        PostgresUserFilter reversed = new PostgresUserFilter();
+        reversed.setBirthDateFrom(LocalDate.parse("2000-01-01"));
+        reversed.setBirthDateTo(LocalDate.parse("1990-01-01"));
+
+        assertThrows(IllegalArgumentException.class, () -> service.query(filter, null, "id", "asc", null, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.query(reversed, null, "id", "asc", null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.query(filter, List.of("salary"), "id", "asc", null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.query(filter, null, "grantField", "asc", null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.query(filter, null, "id", "up", null, 10));
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void nullSortValueIsCarriedInTheCursor() {
+        when(repository.find(any(), any(), eq(PostgresUserField.ROLE), anyBoolean(), any(), anyInt()))
+                .thenReturn(List.of(Map.of(PostgresUserField.ID, 1L), Map.of(PostgresUserField.ID, 2L)));
+
+        CursorPageDTO<Map<String, Object>> page = service.query(filter, List.of("role"), "role", "asc", null, 1);
+
+        assertEquals(new PostgresUserCursor.Keyset("role", false, null, 1L),
+                PostgresUserCursor.decodeKeyset(page.getNextCursor()));
+    }
+
+    private static Map<PostgresUserField, Object> row(long id, String birthDate) {
+        return Map.of(PostgresUserField.ID, id, PostgresUserField.BIRTH_DATE, LocalDate.parse(birthDate));
+    }
+}
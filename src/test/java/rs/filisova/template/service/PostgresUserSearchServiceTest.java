@@ -0,0 +1,40 @@
+package rs.filisova.template.service;
+
+import org.junit.jupiter.api.Test;
+import rs.filisova.template.config.PostgresUserSearchProperties;
+import rs.filisova.template.dto.PostgresUserSearchResultDTO;
+import rs.filisova.template.repository.PostgresUserSearchRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class PostgresUserSearchServiceTest {
+
+    private final PostgresUserSearchRepository repository = mock(PostgresUserSearchRepository.class);
+    private final PostgresUserSearchProperties properties = new PostgresUserSearchProperties();
+    private final PostgresUserSearchService service = new PostgresUserSearchService(repository, properties);
+
+    @Test
+    void queryIsTrimmedAndSearchedWithTheConfiguredLimits() {
+        List<PostgresUserSearchResultDTO> results = List.of(new PostgresUserSearchResultDTO(null, 0.83));
+        when(repository.searchByName("petrov", 0.3, Duration.ofSeconds(2), 20)).thenReturn(results);
+
+        assertEquals(results, service.searchByName("  petrov ", null));
+    }
+
+    @Test
+    void shortQueriesAndLimitsOutOfRangeAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.searchByName(" iv ", null));
+        assertThrows(IllegalArgumentException.class, () -> service.searchByName(null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.searchByName("ivan", 0));
+        assertThrows(IllegalArgumentException.class, () -> service.searchByName("ivan", 101));
+
+        verifyNoInteractions(repository);
+    }
+}
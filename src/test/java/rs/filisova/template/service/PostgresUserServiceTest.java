@@ -0,0 +1,186 @@
+package rs.filisova.template.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import rs.filisova.template.changes.PostgresUserChangeListener;
+import rs.filisova.template.coalescing.LookupCoalescer;
+import rs.filisova.template.config.PostgresUserCacheProperties;
+import rs.filisova.template.dto.CursorPageDTO;
+import rs.filisova.template.dto.PostgresUserDTO;
+import rs.filisova.template.entity.PostgresUserEntity;
+import rs.filisova.template.exception.PostgresUserNotFoundException;
+import rs.filisova.template.repository.PostgresUserRepository;
+import rs.filisova.template.repository.PostgresUserWriteRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostgresUserServiceTest {
+
+    private final PostgresUserRepository repository = mock(PostgresUserRepository.class);
+    private final PostgresUserWriteRepository writeRepository = mock(PostgresUserWriteRepository.class);
+    private final PostgresUserChangeListener changeListener = mock(PostgresUserChangeListener.class);
+    @SuppressWarnings("unchecked")
+    private final LookupCoalescer<Long, PostgresUserEntity> lookups = mock(LookupCoalescer.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final PostgresUserService service = new PostgresUserService(repository, writeRepository,
+            new NdjsonWriter(new ObjectMapper().findAndRegisterModules()),
+            new PostgresUserCache(changeListener, new PostgresUserCacheProperties(), new SimpleMeterRegistry()), lookups);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        when(changeListener.isConnected()).thenReturn(true);
+    }
+
+    @Test
+    void pageSeeksPastTheCursorAndReadsOneExtraRow() {
+        when(repository.findByIdGreaterThanOrderByIdAsc(100L, Limit.of(3)))
+                .thenReturn(List.of(user(101L), user(102L), user(103L)));
+        when(repository.estimateRowCount()).thenReturn(250_000L);
+
+        CursorPageDTO<PostgresUserDTO> page = service.getPostgresUsersPage(5L, PostgresUserCursor.encode(100L), 2, true);
+
+        assertEquals(List.of(101L, 102L), page.getItems().stream().map(PostgresUserDTO::getId).toList());
+        assertEquals(102L, PostgresUserCursor.decode(page.getNextCursor()));
+        assertEquals(250_000L, page.getApproximateTotal());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        when(repository.findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, Limit.of(101))).thenReturn(List.of(user(1L)));
+
+        CursorPageDTO<PostgresUserDTO> page = service.getPostgresUsersPage(null, null, 100, false);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+        assertNull(page.getApproximateTotal());
+        verify(repository, never()).estimateRowCount();
+        assertThrows(IllegalArgumentException.class, () -> service.getPostgresUsersPage(null, null, 1001, false));
+    }
+
+    @Test
+    void rowIsLoadedThroughTheCoalescerAndCached() {
+        when(lookups.get(1L)).thenReturn(user(1L));
+
+        PostgresUserCache.Entry entry = service.getPostgresUserById(1L);
+        service.getPostgresUserById(1L);
+
+        assertEquals("user-1", entry.user().getName());
+        assertEquals(7L, entry.rowVersion());
+        verify(lookups).get(1L);
+        assertThrows(PostgresUserNotFoundException.class, () -> service.getPostgresUserById(2L));
+    }
+
+    @Test
+    void usersByIdsKeepTheRequestOrder() {
+        when(repository.findAllById(new LinkedHashSet<>(List.of(3L, 1L, 2L)))).thenReturn(List.of(user(1L), user(3L)));
+
+        List<PostgresUserDTO> users = service.getPostgresUsersByIds(List.of(3L, 1L, 3L, 2L));
+
+        assertEquals(List.of(3L, 1L), users.stream().map(PostgresUserDTO::getId).toList());
+        assertThrows(IllegalArgumentException.class, () -> service.getPostgresUsersByIds(List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getPostgresUsersByIds(LongStream.rangeClosed(1, 1001).boxed().toList()));
+    }
+
+    @Test
+    void versionIncludesTheSnapshotOnlyWhileATransactionIsOpen() {
+        PostgresUserRepository.TableVersion committed = version(42, 3, null);
+        PostgresUserRepository.TableVersion inProgress = version(42, 3, "9f1c");
+        when(repository.findTableVersion()).thenReturn(committed, inProgress);
+
+        assertEquals("42-3", service.getPostgresUsersVersion());
+        assertEquals("42-3-9f1c", service.getPostgresUsersVersion());
+    }
+
+    @Test
+    void exportDetachesEachWrittenRow() throws Exception {
+        PostgresUserEntity first = user(1L);
+        PostgresUserEntity second = user(2L);
+        when(repository.streamAllOrderById()).thenReturn(Stream.of(first, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(2, service.exportPostgresUsers(out));
+
+        assertEquals(2, out.toString(StandardCharsets.UTF_8).lines().count());
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    void writesDropTheCachedRow() {
+        when(lookups.get(1L)).thenReturn(user(1L));
+        PostgresUserEntity renamed = user(1L);
+        renamed.setName("Ivan");
+        when(writeRepository.upsert(any())).thenReturn(renamed);
+        when(writeRepository.update(eq(1L), any())).thenReturn(Optional.of(renamed));
+        when(writeRepository.delete(1L)).thenReturn(true);
+        PostgresUserDTO dto = new PostgresUserDTO();
+        dto.setId(1L);
+        dto.setName("Ivan");
+
+        service.getPostgresUserById(1L);
+        assertEquals("Ivan", service.createPostgresUser(dto).getName());
+        service.getPostgresUserById(1L);
+        assertEquals("Ivan", service.updatePostgresUser(1L, dto).getName());
+        service.getPostgresUserById(1L);
+        service.deletePostgresUser(1L);
+        service.getPostgresUserById(1L);
+
+        verify(lookups, times(4)).get(1L);
+        verify(writeRepository).upsert(argThat(entity -> entity.getId() == 1L && "Ivan".equals(entity.getName())));
+    }
+
+    @Test
+    void writesOfUnknownIdsAreNotFound() {
+        when(writeRepository.update(eq(9L), any())).thenReturn(Optional.empty());
+        PostgresUserDTO dto = new PostgresUserDTO();
+        dto.setId(0L);
+        dto.setBirthDate(LocalDate.of(1990, 5, 15));
+
+        assertThrows(PostgresUserNotFoundException.class, () -> service.updatePostgresUser(9L, dto));
+        assertThrows(PostgresUserNotFoundException.class, () -> service.deletePostgresUser(9L));
+        // A non-positive id is left for the database to generate
+        assertNull(service.convertToEntity(dto).getId());
+    }
+
+    private static PostgresUserEntity user(Long id) {
+        PostgresUserEntity user = new PostgresUserEntity();
+        user.setId(id);
+        user.setName("user-" + id);
+        user.setRowVersion(7L);
+        return user;
+    }
+
+    private static PostgresUserRepository.TableVersion version(long users, long tombstones, String snapshot) {
+        PostgresUserRepository.TableVersion version = mock(PostgresUserRepository.TableVersion.class);
+        when(version.getUsersVersion()).thenReturn(users);
+        when(version.getTombstonesVersion()).thenReturn(tombstones);
+        when(version.getSnapshot()).thenReturn(snapshot);
+        return version;
+    }
+}
@@ -0,0 +1,265 @@
+package rs.filisova.template.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedConstruction;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import rs.filisova.template.config.PostgresUserChangeFeedProperties;
+import rs.filisova.template.config.PostgresUserStreamProperties;
+import rs.filisova.template.dto.PostgresUserChangeDTO;
+import rs.filisova.template.exception.ChangeTokenExpiredException;
+import rs.filisova.template.repository.PostgresUserChangeFeedRepository;
+import rs.filisova.template.repository.PostgresUserChangeFeedRepository.ChangeRow;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostgresUserStreamServiceTest {
+
+    private static final long WAIT_MILLIS = 5000;
+
+    private final PostgresUserChangeFeedRepository repository = mock(PostgresUserChangeFeedRepository.class);
+    private final PostgresUserStreamProperties properties = new PostgresUserStreamProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MockedConstruction<SseEmitter> emitters;
+    private PostgresUserStreamService service;
+
+    @BeforeEach
+    void setUp() {
+        // The service creates its emitters itself; mocked ones record what it sends
+        emitters = mockConstruction(SseEmitter.class);
+        properties.setBatchSize(2);
+        when(repository.findHorizon()).thenReturn(100L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+        emitters.close();
+    }
+
+    @Test
+    void changesAfterTheHorizonAreBroadcastToEverySubscriber() throws IOException {
+        when(repository.findChangesAfter(99, Long.MAX_VALUE, 2)).thenReturn(List.of(row(100, 1), row(100, 2)));
+        when(repository.findChangesAfter(100, 2, 2)).thenReturn(List.of(row(101, 3)));
+        service = service();
+        SseEmitter first = service.subscribe(null);
+        SseEmitter second = service.subscribe(" ");
+
+        service.schedulePoll();
+
+        assertEquals(List.of("100:1", "100:2", "101:3"), sentIds(first, 3));
+        assertEquals(List.of("100:1", "100:2", "101:3"), sentIds(second, 3));
+        assertEquals(3.0, meterRegistry.get("postgres.users.stream.published").counter().count());
+        assertEquals(2.0, meterRegistry.get("postgres.users.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void resumedSubscriberIsCaughtUpFromItsLastEventId() throws IOException {
+        String lastEventId = PostgresUserCursor.encode(new PostgresUserCursor.Change(100, 1, System.currentTimeMillis()));
+        when(repository.findChangesAfter(100, 1, 2)).thenReturn(List.of(row(100, 2), row(101, 1)));
+        when(repository.findChangesAfter(101, 1, 2)).thenReturn(List.of(row(101, 3)));
+        service = service();
+
+        SseEmitter emitter = service.subscribe(lastEventId);
+
+        assertEquals(List.of("100:2", "101:1", "101:3"), sentIds(emitter, 3));
+    }
+
+    @Test
+    void tooLongReplayAsksTheClientToReload() throws IOException {
+        properties.setMaxReplay(1);
+        String lastEventId = PostgresUserCursor.encode(new PostgresUserCursor.Change(100, 1, System.currentTimeMillis()));
+        when(repository.findChangesAfter(100, 1, 2)).thenReturn(List.of(row(100, 2), row(101, 1)));
+        service = service();
+
+        SseEmitter emitter = service.subscribe(lastEventId);
+
+        verify(emitter, timeout(WAIT_MILLIS)).complete();
+        List<String> frames = sentFrames(emitter, 3);
+        assertTrue(frames.get(2).contains("event:reset"), frames.get(2));
+        assertEquals(0.0, subscribers());
+    }
+
+    @Test
+    void failedCatchUpCompletesTheStreamWithTheError() {
+        String lastEventId = PostgresUserCursor.encode(new PostgresUserCursor.Change(100, 1, System.currentTimeMillis()));
+        IllegalStateException failure = new IllegalStateException("connection lost");
+        when(repository.findChangesAfter(100, 1, 2)).thenThrow(failure);
+        service = service();
+
+        SseEmitter emitter = service.subscribe(lastEventId);
+
+        verify(emitter, timeout(WAIT_MILLIS)).completeWithError(failure);
+        assertEquals(0.0, subscribers());
+    }
+
+    @Test
+    void expiredLastEventIdIsRejected() {
+        long issuedAt = System.currentTimeMillis() - new PostgresUserChangeFeedProperties().getTombstoneRetention().toMillis() - 1000;
+        String lastEventId = PostgresUserCursor.encode(new PostgresUserCursor.Change(100, 1, issuedAt));
+        service = service();
+
+        assertThrows(ChangeTokenExpiredException.class, () -> service.subscribe(lastEventId));
+    }
+
+    @Test
+    void subscriberWithAFullBufferIsDropped() throws Exception {
+        properties.setBufferSize(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        when(repository.findChangesAfter(99, Long.MAX_VALUE, 2)).thenReturn(List.of(row(100, 1)));
+        when(repository.findChangesAfter(100, 1, 2)).thenReturn(List.of(row(101, 2), row(101, 3)));
+        when(repository.findChangesAfter(101, 3, 2)).thenReturn(List.of());
+        service = service();
+        SseEmitter emitter = service.subscribe(null);
+        blockWrites(emitter, unblock);
+
+        // The first change is being written while the next two arrive for a buffer of one
+        service.schedulePoll();
+        verify(emitter, timeout(WAIT_MILLIS)).send(anySet());
+        service.schedulePoll();
+
+        verify(emitter, timeout(WAIT_MILLIS)).complete();
+        unblock.countDown();
+        assertEquals(1.0, meterRegistry.get("postgres.users.stream.dropped").counter().count());
+        assertEquals(0.0, subscribers());
+    }
+
+    @Test
+    void writeBlockedPastTheTimeoutDropsItsSubscriber() throws Exception {
+        properties.setWriteTimeout(Duration.ofMillis(1));
+        properties.setHeartbeatInterval(Duration.ZERO);
+        properties.setSenderThreads(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        service = service();
+        SseEmitter emitter = service.subscribe(null);
+        blockWrites(emitter, unblock);
+        service.heartbeat();
+        verify(emitter, timeout(WAIT_MILLIS)).send(anySet());
+        Thread.sleep(10);
+
+        service.expireStalledWrites();
+
+        verify(emitter).complete();
+        assertEquals(1.0, meterRegistry.get("postgres.users.stream.stalled").counter().count());
+        assertEquals(0.0, subscribers());
+        // The pool has a replacement sender while the blocked one is stuck
+        SseEmitter other = service.subscribe(null);
+        service.heartbeat();
+        verify(other, timeout(WAIT_MILLIS)).send(anySet());
+        unblock.countDown();
+    }
+
+    @Test
+    void idleSubscriberGetsAHeartbeat() throws IOException {
+        properties.setHeartbeatInterval(Duration.ZERO);
+        service = service();
+        SseEmitter emitter = service.subscribe(null);
+
+        service.heartbeat();
+
+        assertEquals(List.of(":heartbeat\n\n"), sentFrames(emitter, 1));
+    }
+
+    @Test
+    void failedWriteRemovesTheSubscriber() throws IOException {
+        properties.setHeartbeatInterval(Duration.ZERO);
+        service = service();
+        SseEmitter emitter = service.subscribe(null);
+        doThrow(new IOException("Broken pipe")).when(emitter).send(anySet());
+
+        service.heartbeat();
+
+        verify(emitter, timeout(WAIT_MILLIS)).send(anySet());
+        waitForSubscribers(0);
+        // The container completes the emitter of a client that went away
+        verify(emitter, never()).complete();
+    }
+
+    @Test
+    void pollWithoutSubscribersDoesNotQueryTheFeed() throws Exception {
+        service = service();
+
+        service.onChanged(null);
+        Thread.sleep(50);
+
+        verify(repository, never()).findChangesAfter(anyLong(), anyLong(), anyInt());
+    }
+
+    private PostgresUserStreamService service() {
+        return new PostgresUserStreamService(repository, properties, new PostgresUserChangeFeedProperties(),
+                new ObjectMapper().findAndRegisterModules(), meterRegistry);
+    }
+
+    private static void blockWrites(SseEmitter emitter, CountDownLatch unblock) throws IOException {
+        doAnswer(invocation -> {
+            unblock.await();
+            return null;
+        }).when(emitter).send(anySet());
+    }
+
+    private double subscribers() {
+        return meterRegistry.get("postgres.users.stream.subscribers").gauge().value();
+    }
+
+    private void waitForSubscribers(int expected) {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (subscribers() != expected && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(expected, subscribers());
+    }
+
+    /**
+     * Event ids of the sent frames, decoded to "xid:id".
+     */
+    private static List<String> sentIds(SseEmitter emitter, int count) throws IOException {
+        return sentFrames(emitter, count).stream()
+                .map(frame -> frame.lines().filter(line -> line.startsWith("id:")).findFirst().orElseThrow())
+                .map(line -> PostgresUserCursor.decodeChange(line.substring(3)))
+                .map(change -> change.xid() + ":" + change.id())
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> sentFrames(SseEmitter emitter, int count) throws IOException {
+        ArgumentCaptor<Set<DataWithMediaType>> frames = ArgumentCaptor.forClass(Set.class);
+        verify(emitter, timeout(WAIT_MILLIS).times(count)).send(frames.capture());
+        return frames.getAllValues().stream()
+                .map(frame -> frame.stream().map(part -> part.getData().toString()).collect(Collectors.joining()))
+                .toList();
+    }
+
+    private static ChangeRow row(long xid, long id) {
+        PostgresUserChangeDTO change = new PostgresUserChangeDTO();
+        change.setId(id);
+        change.setOperation(PostgresUserChangeDTO.Operation.values()[0]);
+        return new ChangeRow(xid, change);
+    }
+}
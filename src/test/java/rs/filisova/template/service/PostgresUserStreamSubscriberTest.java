@@ -0,0 +1,162 @@
+package rs.filisova.template.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class PostgresUserStreamSubscriberTest {
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final SseEmitter emitter = mock(SseEmitter.class);
+
+    @Test
+    void changesOfOneUserAreCoalescedInFeedOrder() {
+        PostgresUserStreamSubscriber subscriber = new PostgresUserStreamSubscriber(emitter, 10, null);
+        PostgresUserStreamSubscriber.Pending first = pending(100, 1);
+        PostgresUserStreamSubscriber.Pending second = pending(101, 2);
+        PostgresUserStreamSubscriber.Pending latest = pending(102, 1);
+
+        subscriber.offer(1, first);
+        subscriber.offer(2, second);
+        subscriber.offer(1, latest);
+
+        assertSame(second.frame(), subscriber.next(HEARTBEAT));
+        assertSame(latest.frame(), subscriber.next(HEARTBEAT));
+        assertNull(subscriber.next(HEARTBEAT));
+        assertEquals(latest.position(), subscriber.delivered());
+    }
+
+    @Test
+    void fullBufferRefusesNewUsersButAcceptsReplacements() {
+        PostgresUserStreamSubscriber subscriber = new PostgresUserStreamSubscriber(emitter, 2, null);
+
+        assertTrue(subscriber.offer(1, pending(100, 1)));
+        assertTrue(subscriber.offer(2, pending(100, 2)));
+        assertTrue(subscriber.offer(2, pending(101, 2)));
+        assertFalse(subscriber.offer(3, pending(102, 3)));
+    }
+
+    @Test
+    void changesDeliveredByTheCatchUpAreSkipped() {
+        PostgresUserStreamSubscriber subscriber =
+                new PostgresUserStreamSubscriber(emitter, 10, new PostgresUserCursor.Change(100, 5, 0));
+        PostgresUserStreamSubscriber.Pending sameTransaction = pending(100, 7);
+        subscriber.offer(4, pending(100, 4));
+        subscriber.offer(5, pending(100, 5));
+        subscriber.offer(7, sameTransaction);
+
+        assertSame(sameTransaction.frame(), subscriber.next(HEARTBEAT));
+        assertNull(subscriber.next(HEARTBEAT));
+    }
+
+    @Test
+    void heartbeatIsSentOnlyWithoutPendingChanges() {
+        PostgresUserStreamSubscriber subscriber = new PostgresUserStreamSubscriber(emitter, 10, null);
+        PostgresUserStreamSubscriber.Pending change = pending(100, 1);
+        subscriber.offer(1, change);
+        subscriber.requestHeartbeat();
+
+        assertTrue(subscriber.hasWork());
+        assertSame(change.frame(), subscriber.next(HEARTBEAT));
+        assertFalse(subscriber.hasWork());
+        assertNull(subscriber.next(HEARTBEAT));
+
+        subscriber.requestHeartbeat();
+        assertSame(HEARTBEAT, subscriber.next(HEARTBEAT));
+    }
+
+    @Test
+    void resumedSubscriberStartsOwnedByItsCatchUp() {
+        PostgresUserStreamSubscriber resumed =
+                new PostgresUserStreamSubscriber(emitter, 10, new PostgresUserCursor.Change(100, 5, 0));
+        PostgresUserStreamSubscriber fresh = new PostgresUserStreamSubscriber(emitter, 10, null);
+
+        assertFalse(resumed.tryStartDraining());
+        resumed.stopDraining();
+        assertTrue(resumed.tryStartDraining());
+        assertTrue(fresh.tryStartDraining());
+        assertFalse(fresh.tryStartDraining());
+    }
+
+    @Test
+    void closedSubscriberDropsItsBufferAndRefusesWrites() throws IOException {
+        PostgresUserStreamSubscriber subscriber = new PostgresUserStreamSubscriber(emitter, 10, null);
+        subscriber.offer(1, pending(100, 1));
+        subscriber.send(HEARTBEAT);
+        verify(emitter).send(HEARTBEAT);
+
+        subscriber.close();
+
+        assertTrue(subscriber.isClosed());
+        assertFalse(subscriber.hasWork());
+        assertNull(subscriber.next(HEARTBEAT));
+        assertThrows(IllegalStateException.class, () -> subscriber.send(HEARTBEAT));
+    }
+
+    @Test
+    void blockedWriteExpiresOnceAndIsReleasedOnceAfterItReturns() throws Exception {
+        PostgresUserStreamSubscriber subscriber = new PostgresUserStreamSubscriber(emitter, 10, null);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            unblock.await();
+            return null;
+        }).when(emitter).send(anySet());
+        assertFalse(subscriber.expireWrite(System.nanoTime()));
+        assertFalse(subscriber.releaseExpiredWrite());
+
+        Thread sender = new Thread(() -> {
+            try {
+                subscriber.send(HEARTBEAT);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        sender.start();
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        long startedBefore = System.nanoTime();
+        assertTrue(subscriber.expireWrite(startedBefore));
+        assertFalse(subscriber.expireWrite(startedBefore));
+        unblock.countDown();
+        sender.join();
+
+        assertTrue(subscriber.releaseExpiredWrite());
+        assertFalse(subscriber.releaseExpiredWrite());
+    }
+
+    @Test
+    void positionsAreOrderedByTransactionThenId() {
+        assertTrue(PostgresUserStreamSubscriber.compare(change(100, 9), change(101, 1)) < 0);
+        assertTrue(PostgresUserStreamSubscriber.compare(change(101, 2), change(101, 1)) > 0);
+        assertEquals(0, PostgresUserStreamSubscriber.compare(change(101, 1), new PostgresUserCursor.Change(101, 1, 42)));
+    }
+
+    private static PostgresUserStreamSubscriber.Pending pending(long xid, long id) {
+        PostgresUserCursor.Change position = change(xid, id);
+        return new PostgresUserStreamSubscriber.Pending(position,
+                SseEmitter.event().id(PostgresUserCursor.encode(position)).data("{}").build());
+    }
+
+    private static PostgresUserCursor.Change change(long xid, long id) {
+        return new PostgresUserCursor.Change(xid, id, 0);
+    }
+}
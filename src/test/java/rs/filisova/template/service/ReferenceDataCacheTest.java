@@ -0,0 +1,99 @@
+package rs.filisova.template.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.filisova.template.config.ReferenceCacheProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ReferenceDataCacheTest {
+
+    private final Map<Long, String> table = new HashMap<>(Map.of(1L, "admin"));
+    private final AtomicInteger byIdLoads = new AtomicInteger();
+    private final AtomicInteger allLoads = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReferenceDataCache<String> cache = new ReferenceDataCache<>("roles", id -> {
+        byIdLoads.incrementAndGet();
+        return Optional.ofNullable(table.get(id));
+    }, () -> {
+        allLoads.incrementAndGet();
+        return new ArrayList<>(table.values());
+    }, new ReferenceCacheProperties(), meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void readsAreServedFromTheCache() {
+        assertEquals(Optional.of("admin"), cache.get(1L));
+        assertEquals(Optional.empty(), cache.get(2L));
+        assertEquals(Optional.of("admin"), cache.get(1L));
+        assertEquals(Optional.empty(), cache.get(2L));
+        assertEquals(List.of("admin"), cache.getAll());
+        assertEquals(List.of("admin"), cache.getAll());
+
+        assertEquals(2, byIdLoads.get());
+        assertEquals(1, allLoads.get());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "roles").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void recheckingLookupDoesNotCacheAMiss() {
+        assertEquals(Optional.empty(), cache.get(2L));
+        table.put(2L, "auditor");
+
+        assertEquals(Optional.empty(), cache.get(2L));
+        assertEquals(Optional.of("auditor"), cache.getRecheckingMissing(2L));
+        assertEquals(Optional.of("auditor"), cache.get(2L));
+        assertEquals(Optional.of("auditor"), cache.getRecheckingMissing(2L));
+        assertEquals(2, byIdLoads.get());
+
+        assertEquals(Optional.empty(), cache.getRecheckingMissing(3L));
+        assertEquals(Optional.empty(), cache.getRecheckingMissing(3L));
+        assertEquals(4, byIdLoads.get());
+    }
+
+    @Test
+    void versionChangesWithTheContent() {
+        String version = cache.getAllVersion();
+        assertEquals(32, version.length());
+
+        table.put(2L, "auditor");
+        cache.invalidateAllAfterCommit();
+
+        assertNotEquals(version, cache.getAllVersion());
+        assertEquals(2, cache.getAll().size());
+    }
+
+    @Test
+    void invalidationWaitsForTheCommit() {
+        cache.get(1L);
+        cache.getAll();
+        table.put(1L, "administrator");
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidateAfterCommit(1L);
+
+        assertEquals(Optional.of("admin"), cache.get(1L));
+        assertEquals(List.of("admin"), cache.getAll());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(Optional.of("administrator"), cache.get(1L));
+        assertEquals(List.of("administrator"), cache.getAll());
+    }
+}
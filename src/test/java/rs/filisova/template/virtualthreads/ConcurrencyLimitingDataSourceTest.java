@@ -0,0 +1,117 @@
+package rs.filisova.template.virtualthreads;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitingDataSourceTest {
+
+    private final HikariDataSource pool = mock(HikariDataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private ConcurrencyLimitingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(pool.getConnection()).thenReturn(connection);
+        when(pool.getConnection("postgres", "secret")).thenReturn(connection);
+        dataSource = new ConcurrencyLimitingDataSource(pool, "postgresDataSource", 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    void connectionHoldsAPermitUntilItIsClosed() throws SQLException {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection("postgres", "secret");
+
+        assertEquals(2, dataSource.getMaxConcurrency());
+        assertEquals(0, dataSource.getAvailablePermits());
+
+        first.close();
+        first.close();
+
+        assertEquals(1, dataSource.getAvailablePermits());
+        verify(connection, times(2)).close();
+        second.close();
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void callerOverTheLimitTimesOut() throws SQLException {
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        SQLTransientConnectionException failure = assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        assertEquals("postgresDataSource - JDBC concurrency limit of 2 reached, timed out after 50ms", failure.getMessage());
+        assertEquals(0, dataSource.getQueueLength());
+    }
+
+    @Test
+    void interruptedWaitFailsAndKeepsTheFlag() throws SQLException {
+        dataSource.getConnection();
+        dataSource.getConnection();
+        Thread.currentThread().interrupt();
+
+        try {
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void failedBorrowReturnsThePermit() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLTransientConnectionException("pool timeout"));
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void startedPoolGetsWhatIsLeftOfTheDeadline() throws SQLException {
+        HikariPool started = mock(HikariPool.class);
+        when(pool.getHikariPoolMXBean()).thenReturn(started);
+        when(started.getConnection(anyLong())).thenReturn(connection);
+        dataSource = new ConcurrencyLimitingDataSource(pool, "postgresDataSource", 2, Duration.ofSeconds(30));
+
+        dataSource.getConnection();
+
+        verify(started).getConnection(longThat(timeout -> timeout > 0 && timeout <= 30_000));
+    }
+
+    @Test
+    void otherCallsReachThePooledConnection() throws SQLException {
+        when(connection.unwrap(Connection.class)).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        assertSame(connection, first.unwrap(Connection.class));
+        assertTrue(first.getAutoCommit());
+        assertEquals(first, first);
+        assertNotEquals(first, second);
+        assertEquals(System.identityHashCode(first), first.hashCode());
+        SQLException failure = new SQLException("connection is closed");
+        when(connection.isReadOnly()).thenThrow(failure);
+        assertSame(failure, assertThrows(SQLException.class, first::isReadOnly));
+    }
+}
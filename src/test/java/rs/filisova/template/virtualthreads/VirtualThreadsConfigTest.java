@@ -0,0 +1,95 @@
+package rs.filisova.template.virtualthreads;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The configuration itself only loads on Java 21+; its post-processor and monitor are exercised directly.
+ */
+class VirtualThreadsConfigTest {
+
+    private final VirtualThreadsProperties properties = new VirtualThreadsProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BeanPostProcessor postProcessor = postProcessor();
+
+    @Test
+    void poolIsCappedAtItsMaximumSize() {
+        HikariDataSource hikari = hikari();
+
+        Object processed = postProcessor.postProcessAfterInitialization(hikari, "postgresDataSource");
+
+        ConcurrencyLimitingDataSource limited = assertInstanceOf(ConcurrencyLimitingDataSource.class, processed);
+        assertEquals(5, limited.getMaxConcurrency());
+        assertEquals(0.0, meterRegistry.get("jdbc.concurrency.waiting").tag("datasource", "postgres-pool").gauge().value());
+    }
+
+    @Test
+    void limiterGoesBelowAnExistingWrapper() {
+        properties.setJdbcMaxConcurrency(3);
+        HikariDataSource hikari = hikari();
+        DelegatingDataSource instrumented = new DelegatingDataSource(hikari);
+
+        Object processed = postProcessor.postProcessAfterInitialization(instrumented, "oracleDataSource");
+
+        assertSame(instrumented, processed);
+        ConcurrencyLimitingDataSource limited = assertInstanceOf(ConcurrencyLimitingDataSource.class, instrumented.getTargetDataSource());
+        assertEquals(3, limited.getMaxConcurrency());
+    }
+
+    @Test
+    void otherBeansAndDataSourcesAreLeftAlone() {
+        HikariDataSource hikari = hikari();
+        DataSource plain = mock(DataSource.class);
+        DelegatingDataSource nested = new DelegatingDataSource(new DelegatingDataSource(hikari));
+
+        assertSame(hikari, postProcessor.postProcessAfterInitialization(hikari, "r2dbcDataSource"));
+        assertSame(plain, postProcessor.postProcessAfterInitialization(plain, "postgresDataSource"));
+        assertSame(nested, postProcessor.postProcessAfterInitialization(nested, "postgresDataSource"));
+        assertFalse(nested.getTargetDataSource() instanceof ConcurrencyLimitingDataSource);
+        assertSame(properties, postProcessor.postProcessAfterInitialization(properties, "postgresDataSource"));
+    }
+
+    @Test
+    void pinningMonitorStartsAndStops() {
+        VirtualThreadPinningMonitor monitor = new VirtualThreadsConfig().virtualThreadPinningMonitor(properties, meterRegistry);
+
+        monitor.start();
+        assertTrue(monitor.isRunning());
+        monitor.stop();
+        monitor.stop();
+
+        assertFalse(monitor.isRunning());
+        assertEquals(0.0, meterRegistry.get("jvm.threads.virtual.pinned").counter().count());
+    }
+
+    private BeanPostProcessor postProcessor() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("virtualThreadsProperties", properties);
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        return VirtualThreadsConfig.jdbcConcurrencyLimitingPostProcessor(beanFactory.getBeanProvider(VirtualThreadsProperties.class),
+                beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+
+    private static HikariDataSource hikari() {
+        HikariDataSource hikari = new HikariDataSource();
+        hikari.setPoolName("postgres-pool");
+        hikari.setMaximumPoolSize(5);
+        hikari.setConnectionTimeout(Duration.ofSeconds(2).toMillis());
+        return hikari;
+    }
+}